@@ -0,0 +1,152 @@
+package com.mixer.interactive.minecraft.lib.dispatch;
+
+import com.google.common.eventbus.EventBus;
+import com.google.common.eventbus.Subscribe;
+import com.mixer.interactive.GameClient;
+import com.mixer.interactive.event.InteractiveEvent;
+import com.mixer.interactive.event.control.input.ControlInputEvent;
+import com.mixer.interactive.event.participant.ParticipantJoinEvent;
+import com.mixer.interactive.minecraft.lib.cache.CacheShard;
+import com.mixer.interactive.minecraft.lib.handler.AbstractEventHandler;
+import com.mixer.interactive.minecraft.lib.metrics.MetricsRegistry;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Benchmarks posting a ControlInputEvent to a game client event bus, once with the event handlers registered with the
+ * event bus directly, as they were before 1.2.0, and once with the handlers registered with a ClientEventDispatcher,
+ * which is the only subscriber of the event bus and delivers to the handlers through their HandlerTables. Both
+ * benchmarks measure the whole posting path, including the dispatch by the event bus itself.
+ *
+ * @author      Microsoft Corporation
+ *
+ * @since       1.2.0
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(2)
+public class HandlerDispatchBenchmark {
+
+    /**
+     * Number of registered event handlers
+     */
+    @Param({"1", "8"})
+    int handlerCount;
+
+    EventBus eventBus = new EventBus("benchmark");
+
+    EventBus dispatchedEventBus = new EventBus("benchmark-dispatched");
+
+    ClientEventDispatcher dispatcher = new ClientEventDispatcher(new CacheShard("benchmark"), new MetricsRegistry(), "handler.");
+
+    CountingHandler[] handlers;
+
+    ControlInputEvent event = GameClient.GSON.fromJson("{}", ControlInputEvent.class);
+
+    /**
+     * Registers the event handlers with the first event bus directly, and with the dispatcher subscribed to the second
+     * event bus.
+     *
+     * @since   1.2.0
+     */
+    @Setup(Level.Trial)
+    public void registerHandlers() {
+        handlers = new CountingHandler[handlerCount];
+        for (int index = 0; index < handlerCount; index++) {
+            handlers[index] = new CountingHandler();
+            eventBus.register(handlers[index]);
+            dispatcher.register(handlers[index]);
+        }
+        dispatchedEventBus.register(dispatcher);
+    }
+
+    /**
+     * Posts the event to the event bus the handlers are registered with.
+     *
+     * @return  Number of events the first handler received
+     *
+     * @since   1.2.0
+     */
+    @Benchmark
+    public long eventBus() {
+        eventBus.post(event);
+        return handlers[0].count;
+    }
+
+    /**
+     * Posts the event to the event bus the dispatcher is subscribed to.
+     *
+     * @return  Number of events the first handler received
+     *
+     * @since   1.2.0
+     */
+    @Benchmark
+    public long clientEventDispatcher() {
+        dispatchedEventBus.post(event);
+        return handlers[0].count;
+    }
+
+    /**
+     * Event handler counting the events it receives. A ControlInputEvent is received by two of its methods.
+     *
+     * @since   1.2.0
+     */
+    public static class CountingHandler extends AbstractEventHandler {
+
+        long count;
+
+        /**
+         * Counts a ParticipantJoinEvent.
+         *
+         * @param   event
+         *          ParticipantJoinEvent
+         *
+         * @since   1.2.0
+         */
+        @Subscribe
+        public void onParticipantJoin(ParticipantJoinEvent event) {
+            count++;
+        }
+
+        /**
+         * Counts a ControlInputEvent.
+         *
+         * @param   event
+         *          ControlInputEvent
+         *
+         * @since   1.2.0
+         */
+        @Subscribe
+        public void onControlInput(ControlInputEvent event) {
+            count++;
+        }
+
+        /**
+         * Counts any Interactive event.
+         *
+         * @param   event
+         *          InteractiveEvent
+         *
+         * @since   1.2.0
+         */
+        @Subscribe
+        public void onInteractiveEvent(InteractiveEvent event) {
+            count++;
+        }
+    }
+}
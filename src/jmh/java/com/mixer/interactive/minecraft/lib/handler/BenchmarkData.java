@@ -0,0 +1,202 @@
+package com.mixer.interactive.minecraft.lib.handler;
+
+import com.google.gson.JsonArray;
+import com.google.gson.JsonObject;
+import com.mixer.interactive.GameClient;
+import com.mixer.interactive.event.connection.ConnectionClosedEvent;
+import com.mixer.interactive.resources.control.InteractiveControl;
+import com.mixer.interactive.resources.group.InteractiveGroup;
+import com.mixer.interactive.resources.participant.InteractiveParticipant;
+import com.mixer.interactive.resources.scene.InteractiveScene;
+
+import java.util.ArrayList;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Set;
+
+/**
+ * Builds the Interactive resources used by the benchmarks. Resources are deserialized from the same JSON the Mixer
+ * Interactive service sends, using the game client's Gson instance, so that they are identical to the ones the event
+ * handlers see in production.
+ *
+ * @author      Microsoft Corporation
+ *
+ * @since       1.2.0
+ */
+final class BenchmarkData {
+
+    /**
+     * ConnectionClosedEvent passed to the ConnectionEventHandler, which does not read any of its fields
+     */
+    static final ConnectionClosedEvent CONNECTION_CLOSED = GameClient.GSON.fromJson("{}", ConnectionClosedEvent.class);
+
+    /**
+     * Constructor.
+     *
+     * @since   1.2.0
+     */
+    private BenchmarkData() {
+    }
+
+    /**
+     * Returns a participant.
+     *
+     * @param   index
+     *          Index used to derive the session id, user id and username of the participant
+     * @param   groupID
+     *          Group id of the participant
+     * @param   etag
+     *          Etag of the participant
+     *
+     * @return  InteractiveParticipant
+     *
+     * @since   1.2.0
+     */
+    static InteractiveParticipant participant(int index, String groupID, String etag) {
+        JsonObject json = new JsonObject();
+        json.addProperty("sessionID", "session-" + index);
+        json.addProperty("userID", 1000000 + index);
+        json.addProperty("username", "participant" + index);
+        json.addProperty("level", index % 100);
+        json.addProperty("lastInputAt", 1500000000000L);
+        json.addProperty("connectedAt", 1500000000000L);
+        json.addProperty("disabled", false);
+        json.addProperty("groupID", groupID);
+        json.addProperty("etag", etag);
+        return GameClient.GSON.fromJson(json, InteractiveParticipant.class);
+    }
+
+    /**
+     * Returns participants with consecutive indexes starting at 0.
+     *
+     * @param   count
+     *          Number of participants
+     * @param   groupID
+     *          Group id of the participants
+     *
+     * @return  List of InteractiveParticipants
+     *
+     * @since   1.2.0
+     */
+    static List<InteractiveParticipant> participants(int count, String groupID) {
+        List<InteractiveParticipant> participants = new ArrayList<>(count);
+        for (int index = 0; index < count; index++) {
+            participants.add(participant(index, groupID, "etag-0"));
+        }
+        return participants;
+    }
+
+    /**
+     * Splits participants into consecutive batches.
+     *
+     * @param   participants
+     *          Participants
+     * @param   batchSize
+     *          Maximum number of participants per batch
+     *
+     * @return  List of batches
+     *
+     * @since   1.2.0
+     */
+    static List<Set<InteractiveParticipant>> batches(List<InteractiveParticipant> participants, int batchSize) {
+        List<Set<InteractiveParticipant>> batches = new ArrayList<>();
+        for (int start = 0; start < participants.size(); start += batchSize) {
+            batches.add(new LinkedHashSet<>(participants.subList(start, Math.min(participants.size(), start + batchSize))));
+        }
+        return batches;
+    }
+
+    /**
+     * Returns a button control.
+     *
+     * @param   index
+     *          Index used to derive the control id
+     * @param   etag
+     *          Etag of the control
+     *
+     * @return  InteractiveControl
+     *
+     * @since   1.2.0
+     */
+    static InteractiveControl control(int index, String etag) {
+        return GameClient.GSON.fromJson(controlJson(index, etag), InteractiveControl.class);
+    }
+
+    /**
+     * Returns a scene with button controls.
+     *
+     * @param   sceneID
+     *          Scene id
+     * @param   controlCount
+     *          Number of controls in the scene
+     *
+     * @return  InteractiveScene
+     *
+     * @since   1.2.0
+     */
+    static InteractiveScene scene(String sceneID, int controlCount) {
+        JsonArray controls = new JsonArray();
+        for (int index = 0; index < controlCount; index++) {
+            controls.add(controlJson(index, "etag-0"));
+        }
+        JsonObject json = new JsonObject();
+        json.addProperty("sceneID", sceneID);
+        json.addProperty("etag", "etag-0");
+        json.add("controls", controls);
+        return GameClient.GSON.fromJson(json, InteractiveScene.class);
+    }
+
+    /**
+     * Returns a group.
+     *
+     * @param   groupID
+     *          Group id
+     * @param   sceneID
+     *          Scene id of the group
+     * @param   etag
+     *          Etag of the group
+     *
+     * @return  InteractiveGroup
+     *
+     * @since   1.2.0
+     */
+    static InteractiveGroup group(String groupID, String sceneID, String etag) {
+        JsonObject json = new JsonObject();
+        json.addProperty("groupID", groupID);
+        json.addProperty("sceneID", sceneID);
+        json.addProperty("etag", etag);
+        return GameClient.GSON.fromJson(json, InteractiveGroup.class);
+    }
+
+    /**
+     * Empties the local cache through the ConnectionEventHandler.
+     *
+     * @since   1.2.0
+     */
+    static void clearCache() {
+        new ConnectionEventHandler().onConnectionClosed(CONNECTION_CLOSED);
+    }
+
+    /**
+     * Returns the JSON of a button control.
+     *
+     * @param   index
+     *          Index used to derive the control id
+     * @param   etag
+     *          Etag of the control
+     *
+     * @return  JsonObject
+     *
+     * @since   1.2.0
+     */
+    private static JsonObject controlJson(int index, String etag) {
+        JsonObject json = new JsonObject();
+        json.addProperty("controlID", "button-" + index);
+        json.addProperty("kind", "button");
+        json.addProperty("text", "Button " + index);
+        json.addProperty("cost", 0);
+        json.addProperty("disabled", false);
+        json.addProperty("etag", etag);
+        return json;
+    }
+}
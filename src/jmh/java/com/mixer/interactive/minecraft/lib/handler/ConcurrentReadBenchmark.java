@@ -0,0 +1,150 @@
+package com.mixer.interactive.minecraft.lib.handler;
+
+import com.mixer.interactive.event.participant.ParticipantJoinEvent;
+import com.mixer.interactive.event.participant.ParticipantUpdateEvent;
+import com.mixer.interactive.minecraft.lib.MixerInteractive;
+import com.mixer.interactive.resources.participant.InteractiveParticipant;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Group;
+import org.openjdk.jmh.annotations.GroupThreads;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Benchmarks readers iterating the cached participants while the ParticipantEventHandler applies updates on another
+ * thread, once through the live map returned by {@link MixerInteractive#getParticipants()} and once through the
+ * current cache snapshot.
+ *
+ * @author      Microsoft Corporation
+ *
+ * @since       1.2.0
+ */
+@State(Scope.Group)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(2)
+public class ConcurrentReadBenchmark {
+
+    /**
+     * Number of cached participants
+     */
+    @Param({"50000"})
+    int participantCount;
+
+    ParticipantEventHandler handler = new ParticipantEventHandler();
+
+    List<ParticipantUpdateEvent> events = new ArrayList<>();
+
+    int next;
+
+    /**
+     * Caches the participants and builds update events cycling through every participant twice, first with etag-1
+     * and then with etag-2, so that no update is skipped as unchanged.
+     *
+     * @since   1.2.0
+     */
+    @Setup(Level.Trial)
+    public void populateCache() {
+        BenchmarkData.clearCache();
+        for (Set<InteractiveParticipant> batch : BenchmarkData.batches(BenchmarkData.participants(participantCount, "default"), 100)) {
+            handler.onParticipantJoined(new ParticipantJoinEvent(batch));
+        }
+        for (String etag : new String[] {"etag-1", "etag-2"}) {
+            for (int index = 0; index < participantCount; index++) {
+                InteractiveParticipant updated = BenchmarkData.participant(index, index % 2 == 0 ? "red" : "blue", etag);
+                events.add(new ParticipantUpdateEvent(Collections.singleton(updated)));
+            }
+        }
+    }
+
+    /**
+     * Counts the participants of the live map that are in a group.
+     *
+     * @return  Number of participants in a group
+     *
+     * @since   1.2.0
+     */
+    @Benchmark
+    @Group("liveMap")
+    @GroupThreads(3)
+    public int iterateLiveMap() {
+        int count = 0;
+        for (InteractiveParticipant participant : MixerInteractive.getParticipants().values()) {
+            if (participant.getGroupID() != null) {
+                count++;
+            }
+        }
+        return count;
+    }
+
+    /**
+     * Applies participant updates while the live map is being read.
+     *
+     * @since   1.2.0
+     */
+    @Benchmark
+    @Group("liveMap")
+    @GroupThreads(1)
+    public void updateWhileReadingLiveMap() {
+        update();
+    }
+
+    /**
+     * Counts the participants of the current snapshot that are in a group.
+     *
+     * @return  Number of participants in a group
+     *
+     * @since   1.2.0
+     */
+    @Benchmark
+    @Group("snapshot")
+    @GroupThreads(3)
+    public int iterateSnapshot() {
+        int count = 0;
+        for (InteractiveParticipant participant : MixerInteractive.getSnapshot().getParticipants().values()) {
+            if (participant.getGroupID() != null) {
+                count++;
+            }
+        }
+        return count;
+    }
+
+    /**
+     * Applies participant updates while the snapshot is being read.
+     *
+     * @since   1.2.0
+     */
+    @Benchmark
+    @Group("snapshot")
+    @GroupThreads(1)
+    public void updateWhileReadingSnapshot() {
+        update();
+    }
+
+    /**
+     * Applies the next participant update. Only the single writer thread of a group calls this.
+     *
+     * @since   1.2.0
+     */
+    private void update() {
+        handler.onParticipantUpdated(events.get(next));
+        next = next + 1 < events.size() ? next + 1 : 0;
+    }
+}
@@ -0,0 +1,107 @@
+package com.mixer.interactive.minecraft.lib.handler;
+
+import com.mixer.interactive.event.group.GroupCreateEvent;
+import com.mixer.interactive.event.participant.ParticipantJoinEvent;
+import com.mixer.interactive.event.scene.SceneCreateEvent;
+import com.mixer.interactive.resources.group.InteractiveGroup;
+import com.mixer.interactive.resources.participant.InteractiveParticipant;
+import com.mixer.interactive.resources.scene.InteractiveScene;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.ArrayList;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Benchmarks the ConnectionEventHandler clearing a full cache when the connection closes. The cache is filled again
+ * before every invocation.
+ *
+ * @author      Microsoft Corporation
+ *
+ * @since       1.2.0
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(2)
+public class ConnectionEventHandlerBenchmark {
+
+    /**
+     * Number of cached participants
+     */
+    @Param({"1000", "50000"})
+    int participantCount;
+
+    ConnectionEventHandler handler = new ConnectionEventHandler();
+
+    ParticipantEventHandler participantEventHandler = new ParticipantEventHandler();
+
+    GroupEventHandler groupEventHandler = new GroupEventHandler();
+
+    SceneEventHandler sceneEventHandler = new SceneEventHandler();
+
+    List<ParticipantJoinEvent> joinEvents = new ArrayList<>();
+
+    GroupCreateEvent groupCreateEvent;
+
+    SceneCreateEvent sceneCreateEvent;
+
+    /**
+     * Builds the events filling the cache: the participants, 10 groups and 10 scenes of 500 controls.
+     *
+     * @since   1.2.0
+     */
+    @Setup(Level.Trial)
+    public void createEvents() {
+        for (Set<InteractiveParticipant> batch : BenchmarkData.batches(BenchmarkData.participants(participantCount, "default"), 100)) {
+            joinEvents.add(new ParticipantJoinEvent(batch));
+        }
+        Set<InteractiveGroup> groups = new LinkedHashSet<>();
+        Set<InteractiveScene> scenes = new LinkedHashSet<>();
+        for (int index = 0; index < 10; index++) {
+            groups.add(BenchmarkData.group("group-" + index, "scene-" + index, "etag-0"));
+            scenes.add(BenchmarkData.scene("scene-" + index, 500));
+        }
+        groupCreateEvent = new GroupCreateEvent(groups);
+        sceneCreateEvent = new SceneCreateEvent(scenes);
+    }
+
+    /**
+     * Fills the cache.
+     *
+     * @since   1.2.0
+     */
+    @Setup(Level.Invocation)
+    public void populateCache() {
+        for (ParticipantJoinEvent event : joinEvents) {
+            participantEventHandler.onParticipantJoined(event);
+        }
+        groupEventHandler.onGroupCreated(groupCreateEvent);
+        sceneEventHandler.onSceneCreated(sceneCreateEvent);
+    }
+
+    /**
+     * Clears the cache.
+     *
+     * @since   1.2.0
+     */
+    @Benchmark
+    public void onConnectionClosed() {
+        handler.onConnectionClosed(BenchmarkData.CONNECTION_CLOSED);
+    }
+}
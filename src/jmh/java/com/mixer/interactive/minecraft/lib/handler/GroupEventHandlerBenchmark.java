@@ -0,0 +1,79 @@
+package com.mixer.interactive.minecraft.lib.handler;
+
+import com.mixer.interactive.event.group.GroupCreateEvent;
+import com.mixer.interactive.event.group.GroupUpdateEvent;
+import com.mixer.interactive.resources.group.InteractiveGroup;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Benchmarks the GroupEventHandler applying GroupUpdateEvents of a single group to a cache of groups.
+ *
+ * @author      Microsoft Corporation
+ *
+ * @since       1.2.0
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(2)
+public class GroupEventHandlerBenchmark {
+
+    /**
+     * Number of cached groups
+     */
+    @Param({"10", "1000"})
+    int groupCount;
+
+    GroupEventHandler handler = new GroupEventHandler();
+
+    List<GroupUpdateEvent> events = new ArrayList<>();
+
+    int next;
+
+    /**
+     * Caches the groups and builds update events cycling through every group.
+     *
+     * @since   1.2.0
+     */
+    @Setup(Level.Trial)
+    public void populateCache() {
+        BenchmarkData.clearCache();
+        Set<InteractiveGroup> groups = new LinkedHashSet<>();
+        for (int group = 0; group < groupCount; group++) {
+            groups.add(BenchmarkData.group("group-" + group, "default", "etag-0"));
+            events.add(new GroupUpdateEvent(Collections.singleton(BenchmarkData.group("group-" + group, "scene-1", "etag-1"))));
+        }
+        handler.onGroupCreated(new GroupCreateEvent(groups));
+    }
+
+    /**
+     * Applies one GroupUpdateEvent.
+     *
+     * @since   1.2.0
+     */
+    @Benchmark
+    public void groupUpdate() {
+        handler.onGroupUpdated(events.get(next));
+        next = next + 1 < events.size() ? next + 1 : 0;
+    }
+}
@@ -0,0 +1,159 @@
+package com.mixer.interactive.minecraft.lib.handler;
+
+import com.mixer.interactive.event.participant.ParticipantJoinEvent;
+import com.mixer.interactive.event.participant.ParticipantUpdateEvent;
+import com.mixer.interactive.resources.participant.InteractiveParticipant;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Benchmarks the ParticipantEventHandler: join storms of many participants into an empty cache, and single participant
+ * updates against a full cache.
+ *
+ * @author      Microsoft Corporation
+ *
+ * @since       1.2.0
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(2)
+public class ParticipantEventHandlerBenchmark {
+
+    /**
+     * Participants joining in batches into an empty cache, which is emptied again before every invocation.
+     *
+     * @since   1.2.0
+     */
+    @State(Scope.Thread)
+    public static class JoinStorm {
+
+        /**
+         * Number of participants joining
+         */
+        @Param({"50000"})
+        int participantCount;
+
+        /**
+         * Number of participants per ParticipantJoinEvent
+         */
+        @Param({"1", "100"})
+        int batchSize;
+
+        ParticipantEventHandler handler = new ParticipantEventHandler();
+
+        List<ParticipantJoinEvent> events = new ArrayList<>();
+
+        /**
+         * Builds the join events.
+         */
+        @Setup(Level.Trial)
+        public void createEvents() {
+            for (Set<InteractiveParticipant> batch : BenchmarkData.batches(BenchmarkData.participants(participantCount, "default"), batchSize)) {
+                events.add(new ParticipantJoinEvent(batch));
+            }
+        }
+
+        /**
+         * Empties the cache before every storm.
+         */
+        @Setup(Level.Invocation)
+        public void clearCache() {
+            BenchmarkData.clearCache();
+        }
+    }
+
+    /**
+     * A full cache receiving updates of one participant at a time, cycling through every participant.
+     *
+     * @since   1.2.0
+     */
+    @State(Scope.Thread)
+    public static class Updates {
+
+        /**
+         * Number of cached participants
+         */
+        @Param({"50000"})
+        int participantCount;
+
+        ParticipantEventHandler handler = new ParticipantEventHandler();
+
+        List<ParticipantUpdateEvent> events = new ArrayList<>();
+
+        int next;
+
+        /**
+         * Caches the participants and builds two update events per participant, with etag-1 and etag-2, so that no
+         * update is skipped as unchanged.
+         */
+        @Setup(Level.Trial)
+        public void populateCache() {
+            BenchmarkData.clearCache();
+            for (Set<InteractiveParticipant> batch : BenchmarkData.batches(BenchmarkData.participants(participantCount, "default"), 100)) {
+                handler.onParticipantJoined(new ParticipantJoinEvent(batch));
+            }
+            for (String etag : new String[] {"etag-1", "etag-2"}) {
+                for (int index = 0; index < participantCount; index++) {
+                    InteractiveParticipant updated = BenchmarkData.participant(index, index % 2 == 0 ? "red" : "blue", etag);
+                    events.add(new ParticipantUpdateEvent(Collections.singleton(updated)));
+                }
+            }
+        }
+
+        /**
+         * Returns the next update event, cycling through every participant.
+         */
+        ParticipantUpdateEvent nextEvent() {
+            ParticipantUpdateEvent event = events.get(next);
+            next = next + 1 < events.size() ? next + 1 : 0;
+            return event;
+        }
+    }
+
+    /**
+     * Joins every participant of the storm into an empty cache.
+     *
+     * @param   state
+     *          JoinStorm
+     *
+     * @since   1.2.0
+     */
+    @Benchmark
+    public void joinStorm(JoinStorm state) {
+        for (ParticipantJoinEvent event : state.events) {
+            state.handler.onParticipantJoined(event);
+        }
+    }
+
+    /**
+     * Applies the update of a single participant to a full cache.
+     *
+     * @param   state
+     *          Updates
+     *
+     * @since   1.2.0
+     */
+    @Benchmark
+    @OutputTimeUnit(TimeUnit.NANOSECONDS)
+    public void update(Updates state) {
+        state.handler.onParticipantUpdated(state.nextEvent());
+    }
+}
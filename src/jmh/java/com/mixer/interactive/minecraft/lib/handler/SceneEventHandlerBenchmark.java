@@ -0,0 +1,108 @@
+package com.mixer.interactive.minecraft.lib.handler;
+
+import com.mixer.interactive.event.control.ControlUpdateEvent;
+import com.mixer.interactive.event.scene.SceneCreateEvent;
+import com.mixer.interactive.resources.control.InteractiveControl;
+import com.mixer.interactive.resources.scene.InteractiveScene;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.ArrayList;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Benchmarks the SceneEventHandler applying ControlUpdateEvents at a high rate to scenes with many controls. The
+ * number of cached scenes is varied to show that the cost of an update does not depend on how many other scenes are
+ * cached.
+ * <p>
+ * Each control is updated alternately to two versions with different etags, so that no update is skipped as
+ * unchanged.
+ *
+ * @author      Microsoft Corporation
+ *
+ * @since       1.2.0
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(2)
+public class SceneEventHandlerBenchmark {
+
+    /**
+     * Number of cached scenes
+     */
+    @Param({"1", "10", "50"})
+    int sceneCount;
+
+    /**
+     * Number of controls in each scene
+     */
+    @Param({"500"})
+    int controlCount;
+
+    /**
+     * Number of controls per ControlUpdateEvent
+     */
+    @Param({"1", "50"})
+    int controlsPerEvent;
+
+    SceneEventHandler handler = new SceneEventHandler();
+
+    List<ControlUpdateEvent> events = new ArrayList<>();
+
+    int next;
+
+    /**
+     * Caches the scenes and builds update events cycling through every control of every scene twice, first with
+     * etag-1 and then with etag-2.
+     *
+     * @since   1.2.0
+     */
+    @Setup(Level.Trial)
+    public void populateCache() {
+        BenchmarkData.clearCache();
+        Set<InteractiveScene> scenes = new LinkedHashSet<>();
+        for (int scene = 0; scene < sceneCount; scene++) {
+            scenes.add(BenchmarkData.scene("scene-" + scene, controlCount));
+        }
+        handler.onSceneCreated(new SceneCreateEvent(scenes));
+
+        for (String etag : new String[] {"etag-1", "etag-2"}) {
+            for (int scene = 0; scene < sceneCount; scene++) {
+                for (int start = 0; start < controlCount; start += controlsPerEvent) {
+                    Set<InteractiveControl> controls = new LinkedHashSet<>();
+                    for (int control = start; control < Math.min(controlCount, start + controlsPerEvent); control++) {
+                        controls.add(BenchmarkData.control(control, etag));
+                    }
+                    events.add(new ControlUpdateEvent("scene-" + scene, controls));
+                }
+            }
+        }
+    }
+
+    /**
+     * Applies one ControlUpdateEvent.
+     *
+     * @since   1.2.0
+     */
+    @Benchmark
+    public void controlUpdate() {
+        handler.onControlUpdated(events.get(next));
+        next = next + 1 < events.size() ? next + 1 : 0;
+    }
+}
@@ -0,0 +1,199 @@
+package com.mixer.interactive.minecraft.lib.handler;
+
+import com.mixer.interactive.event.control.ControlUpdateEvent;
+import com.mixer.interactive.event.scene.SceneCreateEvent;
+import com.mixer.interactive.resources.control.InteractiveControl;
+import com.mixer.interactive.resources.scene.InteractiveScene;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.ThreadParams;
+
+import java.util.ArrayList;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Benchmarks several threads applying ControlUpdateEvents through one SceneEventHandler, once with every thread
+ * writing to a scene of its own and once with every thread writing to the same scene. Updates to distinct scenes
+ * should scale with the number of threads, while updates to a shared scene contend for it.
+ * <p>
+ * Each control is updated alternately to two versions with different etags, so that no update is skipped as
+ * unchanged.
+ *
+ * @author      Microsoft Corporation
+ *
+ * @since       1.2.0
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(2)
+@Threads(4)
+public class SceneWriteScalingBenchmark {
+
+    /**
+     * Number of scenes, at least the number of benchmark threads
+     */
+    @Param({"4"})
+    int sceneCount;
+
+    /**
+     * Number of controls in each scene
+     */
+    @Param({"500"})
+    int controlCount;
+
+    /**
+     * Number of controls per ControlUpdateEvent
+     */
+    @Param({"1", "50"})
+    int controlsPerEvent;
+
+    SceneEventHandler handler = new SceneEventHandler();
+
+    /**
+     * Caches the scenes.
+     *
+     * @since   1.2.0
+     */
+    @Setup(Level.Trial)
+    public void populateCache() {
+        BenchmarkData.clearCache();
+        Set<InteractiveScene> scenes = new LinkedHashSet<>();
+        for (int scene = 0; scene < sceneCount; scene++) {
+            scenes.add(BenchmarkData.scene("scene-" + scene, controlCount));
+        }
+        handler.onSceneCreated(new SceneCreateEvent(scenes));
+    }
+
+    /**
+     * Applies one ControlUpdateEvent to the scene of the calling thread.
+     *
+     * @param   writer
+     *          State of the calling thread
+     *
+     * @since   1.2.0
+     */
+    @Benchmark
+    public void distinctScenes(Writer writer) {
+        handler.onControlUpdated(writer.nextOwnSceneEvent());
+    }
+
+    /**
+     * Applies one ControlUpdateEvent to the scene shared by every thread.
+     *
+     * @param   writer
+     *          State of the calling thread
+     *
+     * @since   1.2.0
+     */
+    @Benchmark
+    public void sharedScene(Writer writer) {
+        handler.onControlUpdated(writer.nextSharedSceneEvent());
+    }
+
+    /**
+     * Update events of one benchmark thread, cycling through every control of the thread's own scene and of the
+     * shared scene.
+     *
+     * @since   1.2.0
+     */
+    @State(Scope.Thread)
+    public static class Writer {
+
+        List<ControlUpdateEvent> ownSceneEvents;
+
+        List<ControlUpdateEvent> sharedSceneEvents;
+
+        int nextOwn;
+
+        int nextShared;
+
+        /**
+         * Builds the update events of the calling thread.
+         *
+         * @param   benchmark
+         *          Benchmark state
+         * @param   threadParams
+         *          Parameters of the calling thread
+         *
+         * @since   1.2.0
+         */
+        @Setup(Level.Trial)
+        public void createEvents(SceneWriteScalingBenchmark benchmark, ThreadParams threadParams) {
+            String ownSceneID = "scene-" + threadParams.getThreadIndex() % benchmark.sceneCount;
+            ownSceneEvents = createEvents(ownSceneID, benchmark.controlCount, benchmark.controlsPerEvent);
+            sharedSceneEvents = createEvents("scene-0", benchmark.controlCount, benchmark.controlsPerEvent);
+        }
+
+        /**
+         * Returns the next update event of the thread's own scene.
+         *
+         * @return  ControlUpdateEvent
+         *
+         * @since   1.2.0
+         */
+        ControlUpdateEvent nextOwnSceneEvent() {
+            ControlUpdateEvent event = ownSceneEvents.get(nextOwn);
+            nextOwn = nextOwn + 1 < ownSceneEvents.size() ? nextOwn + 1 : 0;
+            return event;
+        }
+
+        /**
+         * Returns the next update event of the shared scene.
+         *
+         * @return  ControlUpdateEvent
+         *
+         * @since   1.2.0
+         */
+        ControlUpdateEvent nextSharedSceneEvent() {
+            ControlUpdateEvent event = sharedSceneEvents.get(nextShared);
+            nextShared = nextShared + 1 < sharedSceneEvents.size() ? nextShared + 1 : 0;
+            return event;
+        }
+
+        /**
+         * Builds update events cycling through every control of a scene twice, first with etag-1 and then with
+         * etag-2.
+         *
+         * @param   sceneID
+         *          Scene id
+         * @param   controlCount
+         *          Number of controls in the scene
+         * @param   controlsPerEvent
+         *          Number of controls per ControlUpdateEvent
+         *
+         * @return  List of ControlUpdateEvents
+         *
+         * @since   1.2.0
+         */
+        private static List<ControlUpdateEvent> createEvents(String sceneID, int controlCount, int controlsPerEvent) {
+            List<ControlUpdateEvent> events = new ArrayList<>();
+            for (String etag : new String[] {"etag-1", "etag-2"}) {
+                for (int start = 0; start < controlCount; start += controlsPerEvent) {
+                    Set<InteractiveControl> controls = new LinkedHashSet<>();
+                    for (int control = start; control < Math.min(controlCount, start + controlsPerEvent); control++) {
+                        controls.add(BenchmarkData.control(control, etag));
+                    }
+                    events.add(new ControlUpdateEvent(sceneID, controls));
+                }
+            }
+            return events;
+        }
+    }
+}
@@ -2,22 +2,66 @@ package com.mixer.interactive.minecraft.lib;
 
 import com.google.common.collect.ImmutableList;
 import com.mixer.interactive.GameClient;
+import com.mixer.interactive.minecraft.lib.cache.AggregateCacheView;
+import com.mixer.interactive.minecraft.lib.cache.CacheShard;
+import com.mixer.interactive.minecraft.lib.cache.CacheSnapshot;
+import com.mixer.interactive.minecraft.lib.cache.CacheWarmer;
+import com.mixer.interactive.minecraft.lib.cache.CompactParticipantStore;
+import com.mixer.interactive.minecraft.lib.cache.ControlIndex;
+import com.mixer.interactive.minecraft.lib.cache.ControlUpdateBuffer;
+import com.mixer.interactive.minecraft.lib.cache.ParticipantGroupMover;
+import com.mixer.interactive.minecraft.lib.cache.ParticipantIndex;
+import com.mixer.interactive.minecraft.lib.dispatch.AsyncEventDispatcher;
+import com.mixer.interactive.minecraft.lib.dispatch.ClientEventDispatcher;
+import com.mixer.interactive.minecraft.lib.dispatch.DispatchMode;
+import com.mixer.interactive.minecraft.lib.dispatch.EventFilter;
+import com.mixer.interactive.minecraft.lib.dispatch.InputThrottle;
+import com.mixer.interactive.minecraft.lib.dispatch.OverflowPolicy;
+import com.mixer.interactive.minecraft.lib.dispatch.ServerTickEventQueue;
 import com.mixer.interactive.minecraft.lib.handler.*;
+import com.mixer.interactive.minecraft.lib.metrics.EventCounter;
+import com.mixer.interactive.minecraft.lib.metrics.MetricsRegistry;
+import com.mixer.interactive.minecraft.lib.recording.EventRecorder;
+import com.mixer.interactive.resources.control.InteractiveControl;
 import com.mixer.interactive.resources.group.InteractiveGroup;
 import com.mixer.interactive.resources.participant.InteractiveParticipant;
 import com.mixer.interactive.resources.scene.InteractiveScene;
+import net.minecraftforge.common.MinecraftForge;
 import org.apache.logging.log4j.LogManager;
 import org.apache.logging.log4j.Logger;
 
+import java.io.IOException;
+import java.net.URI;
+import java.nio.file.Path;
 import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.stream.Collectors;
+import java.util.concurrent.CompletableFuture;
 import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Consumer;
+import java.util.function.Predicate;
+import java.util.function.UnaryOperator;
 
 /**
  * MixerInteractive provides a singleton that contains a game client for which other mods can use to manage their Interactive
  * game logic. It also provides caching functionality for Interactive participants, groups, and scenes so that modders need
  * not constantly query Mixer Interactive for the state of these objects.
+ * <p>
+ * Additional game clients, e.g. one per streamer's channel, can be managed side by side with the default one under a
+ * name of their own. Each has its own {@link CacheShard} maintained by its own event handlers, so the caches of
+ * different game clients are isolated and updating them never contends. {@link #getAggregateCacheView()} reads across
+ * all of them.
  *
  * @author      Microsoft Corporation
  *
@@ -36,24 +80,34 @@ public class MixerInteractive {
     public static final MixerInteractive INSTANCE = new MixerInteractive();
 
     /**
-     * Game client
+     * Name under which the default game client and its cache are known
      */
-    private GameClient gameClient;
+    public static final String DEFAULT_CLIENT = "default";
 
     /**
-     * Locally cached copy of all participants for the currently connected game client
+     * Interactive host the game client connects to, <code>null</code> to let the service choose one
      */
-    private Map<String, InteractiveParticipant> participants = new ConcurrentHashMap<>();
+    private URI interactiveHost;
 
     /**
-     * Locally cached copy of all scenes for the currently connected game client
+     * Local cache of the default game client, which also holds the game client itself
      */
-    private Map<String, InteractiveScene> scenes = new ConcurrentHashMap<>();
+    private final CacheShard cache = new CacheShard(DEFAULT_CLIENT);
 
     /**
-     * Locally cached copy of all groups for the currently connected game client
+     * Executor evicting idle participants from the compact participant store, <code>null</code> unless enabled
      */
-    private Map<String, InteractiveGroup> groups = new ConcurrentHashMap<>();
+    private ScheduledExecutorService participantEvictor;
+
+    /**
+     * Game clients managed side by side with the default one, keyed by name
+     */
+    private final Map<String, NamedGameClient> namedGameClients = new ConcurrentHashMap<>();
+
+    /**
+     * View across the caches of all game clients
+     */
+    private final AggregateCacheView aggregateCacheView = new AggregateCacheView(() -> getCaches().values());
 
     /**
      * List of default event handlers to be registered with game clients
@@ -65,16 +119,83 @@ public class MixerInteractive {
      */
     private List<AbstractEventHandler> customEventHandlers = new ArrayList<>();
 
+    /**
+     * Dispatch modes of custom event handlers that were not registered synchronously
+     */
+    private Map<AbstractEventHandler, DispatchMode> customDispatchModes = new ConcurrentHashMap<>();
+
+    /**
+     * Queue delivering events to custom event handlers registered for server tick dispatch
+     */
+    private ServerTickEventQueue serverTickEventQueue = new ServerTickEventQueue();
+
+    /**
+     * Dispatchers of custom event handlers registered for asynchronous dispatch
+     */
+    private Map<AbstractEventHandler, AsyncEventDispatcher> asyncEventDispatchers = new ConcurrentHashMap<>();
+
+    /**
+     * Bounded pool of threads delivering events to asynchronous custom event handlers, created on first use
+     */
+    private ExecutorService asyncDispatchExecutor;
+
+    /**
+     * Buffer batching outbound control updates, created on first use
+     */
+    private ControlUpdateBuffer controlUpdateBuffer;
+
+    /**
+     * Per-tick control input aggregator, <code>null</code> until enabled
+     */
+    private ControlInputAggregator controlInputAggregator;
+
+    /**
+     * Recorder of incoming events, <code>null</code> unless recording
+     */
+    private EventRecorder eventRecorder;
+
+    /**
+     * Counters, latency histograms and gauges of the library
+     */
+    private MetricsRegistry metrics = new MetricsRegistry();
+
+    /**
+     * Counts the events posted to the game client event bus
+     */
+    private EventCounter eventCounter = new EventCounter(metrics);
+
+    /**
+     * Single subscriber of the default game client event bus, delivering events to every handler of the default game
+     * client
+     */
+    private ClientEventDispatcher eventDispatcher = new ClientEventDispatcher(cache, metrics, "handler.");
+
     /**
      * Constructor.
      *
      * @since   1.0.0
      */
     private MixerInteractive() {
-        defaultEventHandlers.add(new ConnectionEventHandler());
-        defaultEventHandlers.add(new ParticipantEventHandler());
-        defaultEventHandlers.add(new GroupEventHandler());
-        defaultEventHandlers.add(new SceneEventHandler());
+        defaultEventHandlers.addAll(cache.getDefaultEventHandlers());
+        eventDispatcher.register(eventCounter);
+        for (AbstractEventHandler defaultHandler : defaultEventHandlers) {
+            eventDispatcher.register(defaultHandler, EventFilter.all(), false, true);
+        }
+
+        metrics.gauge("cache.participants", () -> cache.getParticipants().size());
+        metrics.gauge("cache.groups", () -> cache.getGroups().size());
+        metrics.gauge("cache.scenes", () -> cache.getScenes().size());
+        metrics.gauge("cache.controls", () -> {
+            CacheSnapshot snapshot = cache.getSnapshot();
+            long controls = 0;
+            for (String sceneID : snapshot.getScenes().keySet()) {
+                controls += snapshot.getControls(sceneID).size();
+            }
+            return controls;
+        });
+        metrics.gauge("cache.snapshotVersion", () -> cache.getSnapshot().getVersion());
+        metrics.gauge("dispatch.serverTick.queueDepth", serverTickEventQueue::getQueueDepth);
+        metrics.gauge("dispatch.serverTick.dropped", serverTickEventQueue::getDroppedEventCount);
     }
 
     /**
@@ -85,7 +206,7 @@ public class MixerInteractive {
      * @since   1.0.0
      */
     public static GameClient getGameClient() {
-        return INSTANCE.gameClient;
+        return INSTANCE.cache.getGameClient();
     }
 
     /**
@@ -102,17 +223,675 @@ public class MixerInteractive {
      * @since   1.0.0
      */
     public static GameClient initGameClient(int projectVersionId, String cliendId) {
-        LOG.debug("Building new game client with projectVersionId={}", projectVersionId);
-        INSTANCE.gameClient = new GameClient(projectVersionId, cliendId);
-        for (AbstractEventHandler defaultHandler : INSTANCE.defaultEventHandlers) {
-            LOG.debug("Registering default event handler '{}' to game client for project id {}", defaultHandler, projectVersionId);
-            INSTANCE.gameClient.getEventBus().register(defaultHandler);
-        }
+        return initGameClient(projectVersionId, cliendId, null);
+    }
+
+    /**
+     * Builds a new game client for the specified project version id that connects to the provided Interactive host,
+     * e.g. a local stand-in service for load testing, instead of a host chosen by the Mixer Interactive service. Any
+     * previous game client is discarded. Default and custom event handlers are registered for the new game client.
+     *
+     * @param   projectVersionId
+     *          Project verison id that the new game client will use
+     * @param   cliendId
+     *          Developer client id
+     * @param   interactiveHost
+     *          Websocket URI of the Interactive host, or <code>null</code> to let the service choose one
+     *
+     * @return  The new game client
+     *
+     * @since   1.2.0
+     * @see     #connect(String)
+     */
+    public static GameClient initGameClient(int projectVersionId, String cliendId, URI interactiveHost) {
+        LOG.debug("Building new game client with projectVersionId={}, interactiveHost={}", projectVersionId, interactiveHost);
+        GameClient gameClient = new GameClient(projectVersionId, cliendId);
+        INSTANCE.cache.setGameClient(gameClient);
+        INSTANCE.interactiveHost = interactiveHost;
         for (AbstractEventHandler customHandler : INSTANCE.customEventHandlers) {
-            LOG.debug("Registering custom event handler '{}' to game client for project id {}", customHandler, projectVersionId);
-            INSTANCE.gameClient.getEventBus().register(customHandler);
+            // Handlers added to the list of custom event handlers directly are dispatched synchronously
+            if (!INSTANCE.customDispatchModes.containsKey(customHandler)
+                    && INSTANCE.eventDispatcher.register(customHandler, EventFilter.all(), true, true)) {
+                LOG.debug("Registering custom event handler '{}' to game client for project id {}", customHandler, projectVersionId);
+            }
+        }
+        gameClient.getEventBus().register(INSTANCE.eventDispatcher);
+        return gameClient;
+    }
+
+    /**
+     * Connects the game client to the Interactive host it was built for, or to a host chosen by the Mixer Interactive
+     * service if none was provided.
+     *
+     * @param   oauthToken
+     *          OAuth token of the user
+     *
+     * @return  A CompletableFuture that completes with <code>true</code> once connected
+     *
+     * @since   1.2.0
+     * @see     #initGameClient(int, String, URI)
+     */
+    public static CompletableFuture<Boolean> connect(String oauthToken) {
+        GameClient gameClient = INSTANCE.cache.getGameClient();
+        if (gameClient == null) {
+            throw new IllegalStateException("initGameClient must be called before connect");
+        }
+        return INSTANCE.interactiveHost != null
+                ? gameClient.connect(oauthToken, INSTANCE.interactiveHost)
+                : gameClient.connect(oauthToken);
+    }
+
+    /**
+     * Builds a new game client under the provided name, to be managed side by side with the default game client and
+     * any other named game client, e.g. one per streamer's channel. The game client is maintained by its own instances
+     * of the default event handlers, which keep its own CacheShard, and receives the custom event handlers registered
+     * for its name. Any previous game client with the same name is discarded; its cache and handler registrations are
+     * kept for the new one. Passing {@link #DEFAULT_CLIENT} builds the default game client.
+     *
+     * @param   name
+     *          Name of the game client
+     * @param   projectVersionId
+     *          Project verison id that the new game client will use
+     * @param   cliendId
+     *          Developer client id
+     * @param   interactiveHost
+     *          Websocket URI of the Interactive host, or <code>null</code> to let the service choose one
+     *
+     * @return  The new game client
+     *
+     * @since   1.2.0
+     * @see     #connect(String, String)
+     */
+    public static synchronized GameClient initGameClient(String name, int projectVersionId, String cliendId, URI interactiveHost) {
+        if (DEFAULT_CLIENT.equals(name)) {
+            return initGameClient(projectVersionId, cliendId, interactiveHost);
+        }
+        LOG.debug("Building new game client '{}' with projectVersionId={}, interactiveHost={}", name, projectVersionId, interactiveHost);
+        NamedGameClient client = INSTANCE.namedGameClients.computeIfAbsent(name, INSTANCE::createNamedGameClient);
+        GameClient gameClient = new GameClient(projectVersionId, cliendId);
+        client.interactiveHost = interactiveHost;
+        client.cache.setGameClient(gameClient);
+        gameClient.getEventBus().register(client.eventDispatcher);
+        return gameClient;
+    }
+
+    /**
+     * Returns the game client with the provided name.
+     *
+     * @param   name
+     *          Name of the game client
+     *
+     * @return  The game client, or <code>null</code> if none has been built under that name
+     *
+     * @since   1.2.0
+     */
+    public static GameClient getGameClient(String name) {
+        CacheShard shard = getCache(name);
+        return shard != null ? shard.getGameClient() : null;
+    }
+
+    /**
+     * Connects the game client with the provided name to the Interactive host it was built for, or to a host chosen by
+     * the Mixer Interactive service if none was provided.
+     *
+     * @param   name
+     *          Name of the game client
+     * @param   oauthToken
+     *          OAuth token of the user
+     *
+     * @return  A CompletableFuture that completes with <code>true</code> once connected
+     *
+     * @throws  IllegalStateException
+     *          If no game client has been built under that name
+     *
+     * @since   1.2.0
+     * @see     #initGameClient(String, int, String, URI)
+     */
+    public static CompletableFuture<Boolean> connect(String name, String oauthToken) {
+        if (DEFAULT_CLIENT.equals(name)) {
+            return connect(oauthToken);
+        }
+        NamedGameClient client = INSTANCE.namedGameClients.get(name);
+        GameClient gameClient = client != null ? client.cache.getGameClient() : null;
+        if (gameClient == null) {
+            throw new IllegalStateException("initGameClient must be called for '" + name + "' before connect");
+        }
+        return client.interactiveHost != null
+                ? gameClient.connect(oauthToken, client.interactiveHost)
+                : gameClient.connect(oauthToken);
+    }
+
+    /**
+     * Disconnects and removes the game client with the provided name, together with its cache, its gauges and the
+     * custom event handlers registered for it. Its server tick event queue is unsubscribed from server ticks and its
+     * queued events are discarded; its asynchronous event handlers still receive the events already queued for them.
+     *
+     * @param   name
+     *          Name of the game client
+     *
+     * @return  <code>true</code> if a game client was removed, <code>false</code> if there was none under that name
+     *
+     * @throws  IllegalArgumentException
+     *          If the name is {@link #DEFAULT_CLIENT}, as the default game client cannot be removed
+     *
+     * @since   1.2.0
+     */
+    public static synchronized boolean removeGameClient(String name) {
+        if (DEFAULT_CLIENT.equals(name)) {
+            throw new IllegalArgumentException("The default game client cannot be removed");
+        }
+        NamedGameClient client = INSTANCE.namedGameClients.remove(name);
+        if (client == null) {
+            return false;
+        }
+        GameClient gameClient = client.cache.getGameClient();
+        if (gameClient != null) {
+            gameClient.getEventBus().unregister(client.eventDispatcher);
+            if (gameClient.isConnected()) {
+                gameClient.disconnect();
+            }
+        }
+        client.close();
+        client.cache.clear();
+        INSTANCE.metrics.removeGauge("cache." + name + ".participants");
+        INSTANCE.metrics.removeGauge("cache." + name + ".groups");
+        INSTANCE.metrics.removeGauge("cache." + name + ".scenes");
+        return true;
+    }
+
+    /**
+     * Creates the cache and default event handler registrations of a named game client, and registers gauges named
+     * <code>cache.&lt;name&gt;.participants</code>, <code>.groups</code> and <code>.scenes</code> for its cache. The
+     * latency histograms of its handlers are named <code>handler.&lt;name&gt;.&lt;HandlerClass&gt;.&lt;EventClass&gt;</code>.
+     *
+     * @param   name
+     *          Name of the game client
+     *
+     * @return  NamedGameClient
+     *
+     * @since   1.2.0
+     */
+    private NamedGameClient createNamedGameClient(String name) {
+        CacheShard cache = new CacheShard(name);
+        NamedGameClient client = new NamedGameClient(cache, new ClientEventDispatcher(cache, metrics, "handler." + name + "."));
+        client.eventDispatcher.setTimingEnabled(eventDispatcher.isTimingEnabled());
+        client.eventDispatcher.register(eventCounter);
+        for (AbstractEventHandler handler : client.cache.getDefaultEventHandlers()) {
+            client.eventDispatcher.register(handler, EventFilter.all(), false, true);
+        }
+        metrics.gauge("cache." + name + ".participants", () -> client.cache.getParticipants().size());
+        metrics.gauge("cache." + name + ".groups", () -> client.cache.getGroups().size());
+        metrics.gauge("cache." + name + ".scenes", () -> client.cache.getScenes().size());
+        return client;
+    }
+
+    /**
+     * Registers a custom event handler with the provided dispatch mode. The handler is attached to the current game
+     * client, if there is one, and to every game client subsequently built by {@link #initGameClient(int, String)}.
+     *
+     * @param   handler
+     *          Custom event handler
+     * @param   mode
+     *          How events are delivered to the handler
+     *
+     * @since   1.2.0
+     */
+    public static void registerEventHandler(AbstractEventHandler handler, DispatchMode mode) {
+        registerEventHandler(handler, mode, EventFilter.all());
+    }
+
+    /**
+     * Registers a custom event handler with the provided dispatch mode, which only receives the events accepted by the
+     * provided filter. Rejected events are dropped before they are queued for or delivered to the handler. The handler
+     * is attached to the current game client, if there is one, and to every game client subsequently built by
+     * {@link #initGameClient(int, String)}. Asynchronous handlers are given the default queue capacity and overflow
+     * policy of the {@link AsyncEventDispatcher}; use
+     * {@link #registerAsyncEventHandler(AbstractEventHandler, int, OverflowPolicy, EventFilter)} to choose others.
+     *
+     * @param   handler
+     *          Custom event handler
+     * @param   mode
+     *          How events are delivered to the handler
+     * @param   filter
+     *          Events the handler receives
+     *
+     * @since   1.2.0
+     */
+    public static void registerEventHandler(AbstractEventHandler handler, DispatchMode mode, EventFilter filter) {
+        if (mode == DispatchMode.ASYNCHRONOUS) {
+            registerAsyncEventHandler(handler, AsyncEventDispatcher.DEFAULT_CAPACITY, AsyncEventDispatcher.DEFAULT_OVERFLOW_POLICY, filter);
+            return;
+        }
+        if (mode == DispatchMode.SERVER_TICK) {
+            INSTANCE.customDispatchModes.put(handler, mode);
+            INSTANCE.serverTickEventQueue.register(handler, filter.compile(INSTANCE.cache));
+            INSTANCE.eventDispatcher.register(INSTANCE.serverTickEventQueue, EventFilter.all(), true, false);
+        }
+        else {
+            INSTANCE.eventDispatcher.register(handler, filter, true, true);
+        }
+        INSTANCE.customEventHandlers.add(handler);
+    }
+
+    /**
+     * Registers a custom event handler for asynchronous dispatch. Events are queued for the handler and delivered in
+     * order on a shared, bounded pool of dispatch threads, so a slow handler does not stall the default event handlers
+     * or the game client. The default event handlers always remain synchronous.
+     *
+     * @param   handler
+     *          Custom event handler
+     * @param   queueCapacity
+     *          Maximum number of events queued for the handler
+     * @param   overflowPolicy
+     *          What to do with new events when the queue is full
+     *
+     * @return  The AsyncEventDispatcher delivering events to the handler, which exposes its queue depth and drop counts
+     *
+     * @since   1.2.0
+     */
+    public static AsyncEventDispatcher registerAsyncEventHandler(AbstractEventHandler handler, int queueCapacity, OverflowPolicy overflowPolicy) {
+        return registerAsyncEventHandler(handler, queueCapacity, overflowPolicy, EventFilter.all());
+    }
+
+    /**
+     * Registers a custom event handler for asynchronous dispatch, which only receives the events accepted by the
+     * provided filter. Rejected events are dropped before they are queued.
+     *
+     * @param   handler
+     *          Custom event handler
+     * @param   queueCapacity
+     *          Maximum number of events queued for the handler
+     * @param   overflowPolicy
+     *          What to do with new events when the queue is full
+     * @param   filter
+     *          Events the handler receives
+     *
+     * @return  The AsyncEventDispatcher delivering events to the handler, which exposes its queue depth and drop counts
+     *
+     * @since   1.2.0
+     */
+    public static AsyncEventDispatcher registerAsyncEventHandler(AbstractEventHandler handler, int queueCapacity, OverflowPolicy overflowPolicy, EventFilter filter) {
+        AsyncEventDispatcher dispatcher = new AsyncEventDispatcher(handler, getAsyncDispatchExecutor(), queueCapacity, overflowPolicy);
+        INSTANCE.asyncEventDispatchers.put(handler, dispatcher);
+        INSTANCE.customDispatchModes.put(handler, DispatchMode.ASYNCHRONOUS);
+        INSTANCE.customEventHandlers.add(handler);
+        INSTANCE.eventDispatcher.register(dispatcher, filter, true, false);
+        return dispatcher;
+    }
+
+    /**
+     * Registers a custom event handler for the game client with the provided name only, with the provided dispatch
+     * mode. The handler is attached to the current game client with that name, if there is one, and to every game client
+     * subsequently built under that name. Handlers may be registered before the game client is first built. Handlers of
+     * different game clients never receive each other's events; server tick handlers of each game client share a
+     * queue of their own. Passing {@link #DEFAULT_CLIENT} registers the handler for the default game client.
+     *
+     * @param   name
+     *          Name of the game client
+     * @param   handler
+     *          Custom event handler
+     * @param   mode
+     *          How events are delivered to the handler
+     *
+     * @since   1.2.0
+     */
+    public static void registerEventHandler(String name, AbstractEventHandler handler, DispatchMode mode) {
+        registerEventHandler(name, handler, mode, EventFilter.all());
+    }
+
+    /**
+     * Registers a custom event handler for the game client with the provided name only, with the provided dispatch
+     * mode, which only receives the events accepted by the provided filter. The filter is compiled against the cache of
+     * that game client.
+     *
+     * @param   name
+     *          Name of the game client
+     * @param   handler
+     *          Custom event handler
+     * @param   mode
+     *          How events are delivered to the handler
+     * @param   filter
+     *          Events the handler receives
+     *
+     * @see     #registerEventHandler(String, AbstractEventHandler, DispatchMode)
+     *
+     * @since   1.2.0
+     */
+    public static synchronized void registerEventHandler(String name, AbstractEventHandler handler, DispatchMode mode, EventFilter filter) {
+        if (DEFAULT_CLIENT.equals(name)) {
+            registerEventHandler(handler, mode, filter);
+            return;
+        }
+        NamedGameClient client = INSTANCE.namedGameClients.computeIfAbsent(name, INSTANCE::createNamedGameClient);
+        switch (mode) {
+            case SERVER_TICK:
+                ServerTickEventQueue queue = client.getServerTickEventQueue();
+                queue.register(handler, filter.compile(client.cache));
+                client.eventDispatcher.register(queue, EventFilter.all(), true, false);
+                break;
+            case ASYNCHRONOUS:
+                AsyncEventDispatcher dispatcher = new AsyncEventDispatcher(handler, getAsyncDispatchExecutor(),
+                        AsyncEventDispatcher.DEFAULT_CAPACITY, AsyncEventDispatcher.DEFAULT_OVERFLOW_POLICY);
+                client.asyncEventDispatchers.add(dispatcher);
+                client.eventDispatcher.register(dispatcher, filter, true, false);
+                break;
+            default:
+                client.eventDispatcher.register(handler, filter, true, true);
+                break;
+        }
+    }
+
+    /**
+     * Returns the pool of threads delivering events to asynchronous custom event handlers, creating it on first use.
+     * The pool is sized to the number of available processors, capped at four, and uses daemon threads.
+     *
+     * @return  ExecutorService
+     *
+     * @since   1.2.0
+     */
+    private static synchronized ExecutorService getAsyncDispatchExecutor() {
+        if (INSTANCE.asyncDispatchExecutor == null) {
+            AtomicInteger threadCount = new AtomicInteger();
+            ThreadFactory threadFactory = runnable -> {
+                Thread thread = new Thread(runnable, "mixer-interactive-async-dispatch-" + threadCount.incrementAndGet());
+                thread.setDaemon(true);
+                return thread;
+            };
+            int threads = Math.min(4, Runtime.getRuntime().availableProcessors());
+            INSTANCE.asyncDispatchExecutor = Executors.newFixedThreadPool(threads, threadFactory);
+        }
+        return INSTANCE.asyncDispatchExecutor;
+    }
+
+    /**
+     * Returns the buffer batching outbound control updates, creating it and subscribing it to server ticks on first
+     * use. Changes submitted to the buffer are merged per control and sent as one update per scene per tick.
+     *
+     * @return  ControlUpdateBuffer
+     *
+     * @since   1.2.0
+     */
+    public static synchronized ControlUpdateBuffer getControlUpdateBuffer() {
+        if (INSTANCE.controlUpdateBuffer == null) {
+            INSTANCE.controlUpdateBuffer = new ControlUpdateBuffer();
+            MinecraftForge.EVENT_BUS.register(INSTANCE.controlUpdateBuffer);
+        }
+        return INSTANCE.controlUpdateBuffer;
+    }
+
+    /**
+     * Buffers a change to a locally cached control, to be sent to the Mixer Interactive service with every other change
+     * to the same scene at the end of the server tick.
+     *
+     * @param   sceneID
+     *          Scene id of the control
+     * @param   controlID
+     *          Control id
+     * @param   change
+     *          Change to apply to the control
+     *
+     * @return  <code>true</code> if the change was buffered, <code>false</code> if the control is not cached
+     *
+     * @since   1.2.0
+     */
+    public static boolean updateControl(String sceneID, String controlID, Consumer<InteractiveControl> change) {
+        return getControlUpdateBuffer().update(sceneID, controlID, change);
+    }
+
+    /**
+     * Returns the cache warmer, which loads the scenes, groups and participants that already exist on the Mixer
+     * Interactive service into the local cache when a connection is established, then posts a CacheReadyEvent.
+     *
+     * @return  CacheWarmer
+     *
+     * @since   1.2.0
+     */
+    public static CacheWarmer getCacheWarmer() {
+        return INSTANCE.cache.getCacheWarmer();
+    }
+
+    /**
+     * Returns the mover used to reassign participants to groups in batches, which exposes its batch size.
+     *
+     * @return  ParticipantGroupMover
+     *
+     * @since   1.2.0
+     */
+    public static ParticipantGroupMover getParticipantGroupMover() {
+        return INSTANCE.cache.getParticipantGroupMover();
+    }
+
+    /**
+     * Moves the provided participants to a group. The changes are sent to the Mixer Interactive service in batches
+     * without waiting for each batch to be acknowledged, and are applied to the local cache immediately. Batches the
+     * service rejects are rolled back in the local cache.
+     *
+     * @param   participants
+     *          Participants to move
+     * @param   groupID
+     *          Id of the target group
+     *
+     * @return  A CompletableFuture that completes with the number of participants moved, or exceptionally if any batch
+     *          was rejected
+     *
+     * @since   1.2.0
+     */
+    public static CompletableFuture<Integer> moveParticipants(Collection<InteractiveParticipant> participants, String groupID) {
+        return INSTANCE.cache.getParticipantGroupMover().move(participants, groupID);
+    }
+
+    /**
+     * Moves every locally cached participant matching the provided predicate to a group.
+     *
+     * @param   filter
+     *          Predicate selecting the participants to move
+     * @param   groupID
+     *          Id of the target group
+     *
+     * @return  A CompletableFuture that completes with the number of participants moved, or exceptionally if any batch
+     *          was rejected
+     *
+     * @since   1.2.0
+     * @see     #moveParticipants(Collection, String)
+     */
+    public static CompletableFuture<Integer> moveParticipants(Predicate<InteractiveParticipant> filter, String groupID) {
+        List<InteractiveParticipant> matching = INSTANCE.cache.getParticipants().values()
+                .stream()
+                .filter(filter)
+                .collect(Collectors.toList());
+        return moveParticipants(matching, groupID);
+    }
+
+    /**
+     * Enables per-tick aggregation of control input. Once enabled, a ControlInputBatch is posted to the game client
+     * event bus for every scene and control that received input at the end of each server tick. Aggregation applies to
+     * the default game client only; named game clients built by {@link #initGameClient(String, int, String, URI)} do
+     * not aggregate their input.
+     *
+     * @return  The ControlInputAggregator
+     *
+     * @since   1.2.0
+     */
+    public static synchronized ControlInputAggregator enableControlInputAggregation() {
+        if (INSTANCE.controlInputAggregator == null) {
+            INSTANCE.controlInputAggregator = new ControlInputAggregator();
+            INSTANCE.defaultEventHandlers.add(INSTANCE.controlInputAggregator);
+            MinecraftForge.EVENT_BUS.register(INSTANCE.controlInputAggregator);
+            INSTANCE.eventDispatcher.register(INSTANCE.controlInputAggregator, EventFilter.all(), false, true);
         }
-        return INSTANCE.gameClient;
+        return INSTANCE.controlInputAggregator;
+    }
+
+    /**
+     * Replaces the participant cache with a CompactParticipantStore, which packs participants into columnar arrays
+     * and materializes InteractiveParticipant objects only when they are read, and periodically evicts participants
+     * that have not sent input within the idle timeout. Cache snapshots no longer carry participants once the compact
+     * store is enabled, so that they do not keep every participant object alive. Must be called before the game client
+     * is built.
+     *
+     * @param   idleTimeout
+     *          Time without input after which a participant is evicted, or 0 to never evict
+     * @param   unit
+     *          Unit of the idle timeout
+     *
+     * @return  The CompactParticipantStore
+     *
+     * @throws  IllegalStateException
+     *          If a game client has already been built
+     *
+     * @since   1.2.0
+     */
+    public static synchronized CompactParticipantStore enableCompactParticipantStore(long idleTimeout, TimeUnit unit) {
+        CompactParticipantStore existing = INSTANCE.cache.getCompactParticipantStore();
+        if (existing != null) {
+            existing.setIdleTimeout(idleTimeout, unit);
+            return existing;
+        }
+        if (INSTANCE.cache.getGameClient() != null) {
+            throw new IllegalStateException("The compact participant store must be enabled before initGameClient");
+        }
+
+        CompactParticipantStore store = new CompactParticipantStore(CompactParticipantStore.DEFAULT_INITIAL_CAPACITY, idleTimeout, unit);
+        INSTANCE.cache.useCompactParticipantStore(store);
+
+        INSTANCE.participantEvictor = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "mixer-interactive-participant-eviction");
+            thread.setDaemon(true);
+            return thread;
+        });
+        INSTANCE.participantEvictor.scheduleWithFixedDelay(INSTANCE::evictIdleParticipants, 1, 1, TimeUnit.SECONDS);
+        return store;
+    }
+
+    /**
+     * Returns the compact participant store.
+     *
+     * @return  The CompactParticipantStore, or <code>null</code> if it is not enabled
+     *
+     * @since   1.2.0
+     * @see     #enableCompactParticipantStore(long, TimeUnit)
+     */
+    public static CompactParticipantStore getCompactParticipantStore() {
+        return INSTANCE.cache.getCompactParticipantStore();
+    }
+
+    /**
+     * Evicts idle participants from the compact participant store and removes them from the ParticipantIndex and the
+     * InputThrottle.
+     *
+     * @since   1.2.0
+     */
+    private void evictIdleParticipants() {
+        try {
+            List<InteractiveParticipant> evicted = cache.getCompactParticipantStore().evictIdle(System.currentTimeMillis());
+            if (!evicted.isEmpty()) {
+                for (InteractiveParticipant participant : evicted) {
+                    cache.getParticipantIndex().remove(participant);
+                    cache.getInputThrottle().evict(participant.getSessionID());
+                }
+                metrics.counter("cache.participants.evicted").add(evicted.size());
+                LOG.debug("Evicted {} idle participants", evicted.size());
+            }
+        }
+        catch (RuntimeException e) {
+            LOG.error("Failed to evict idle participants", e);
+        }
+    }
+
+    /**
+     * Starts recording every Interactive event received by the game client to a binary log, which can be played back
+     * with an EventReplayer. Recording applies to the default game client only; the events of named game clients built
+     * by {@link #initGameClient(String, int, String, URI)} are not recorded. Any previous recording is stopped first.
+     *
+     * @param   file
+     *          Path of the log file, which is created or truncated
+     *
+     * @return  The EventRecorder
+     *
+     * @throws  IOException
+     *          If the log file cannot be created
+     *
+     * @since   1.2.0
+     */
+    public static synchronized EventRecorder enableEventRecording(Path file) throws IOException {
+        disableEventRecording();
+        INSTANCE.eventRecorder = new EventRecorder(file);
+        INSTANCE.defaultEventHandlers.add(INSTANCE.eventRecorder);
+        INSTANCE.eventDispatcher.register(INSTANCE.eventRecorder, EventFilter.all(), false, true);
+        return INSTANCE.eventRecorder;
+    }
+
+    /**
+     * Stops recording events and closes the log file, if recording.
+     *
+     * @throws  IOException
+     *          If the log file cannot be written
+     *
+     * @since   1.2.0
+     */
+    public static synchronized void disableEventRecording() throws IOException {
+        EventRecorder recorder = INSTANCE.eventRecorder;
+        if (recorder == null) {
+            return;
+        }
+        INSTANCE.eventRecorder = null;
+        INSTANCE.defaultEventHandlers.remove(recorder);
+        INSTANCE.eventDispatcher.unregister(recorder);
+        recorder.close();
+    }
+
+    /**
+     * Returns the queue delivering events to custom event handlers registered for server tick dispatch. The queue
+     * exposes its tick budget, depth and latency.
+     *
+     * @return  ServerTickEventQueue
+     *
+     * @since   1.2.0
+     */
+    public static ServerTickEventQueue getServerTickEventQueue() {
+        return INSTANCE.serverTickEventQueue;
+    }
+
+    /**
+     * Returns the throttle limiting the rate at which the control input of each participant reaches the custom event
+     * handlers of the default game client. No input is dropped until a limit is set.
+     *
+     * @return  InputThrottle
+     *
+     * @since   1.2.0
+     */
+    public static InputThrottle getInputThrottle() {
+        return INSTANCE.cache.getInputThrottle();
+    }
+
+    /**
+     * Enables or disables recording the latency of every synchronously dispatched handler, for the default game client
+     * and every named game client. Timing is disabled by default, since it reads the clock twice per handler and event
+     * on the thread posting the event.
+     *
+     * @param   enabled
+     *          Whether handler latency is recorded
+     *
+     * @since   1.2.0
+     */
+    public static synchronized void setHandlerTimingEnabled(boolean enabled) {
+        INSTANCE.eventDispatcher.setTimingEnabled(enabled);
+        INSTANCE.namedGameClients.values().forEach(client -> client.eventDispatcher.setTimingEnabled(enabled));
+    }
+
+    /**
+     * Returns the metrics of the library: a counter per event class named <code>events.&lt;EventClass&gt;</code>, gauges
+     * for the size of the local caches and, once enabled by {@link #setHandlerTimingEnabled(boolean)}, a latency
+     * histogram per synchronously dispatched handler and event class named
+     * <code>handler.&lt;HandlerClass&gt;.&lt;EventClass&gt;</code>. Metrics can be read directly, exported through a
+     * MetricsExporter, or dumped in game with <code>/mixerstats</code>.
+     *
+     * @return  MetricsRegistry
+     *
+     * @since   1.2.0
+     */
+    public static MetricsRegistry getMetrics() {
+        return INSTANCE.metrics;
     }
 
     /**
@@ -137,6 +916,61 @@ public class MixerInteractive {
         return INSTANCE.customEventHandlers;
     }
 
+    /**
+     * Returns the cache of the default game client.
+     *
+     * @return  CacheShard
+     *
+     * @since   1.2.0
+     */
+    public static CacheShard getCache() {
+        return INSTANCE.cache;
+    }
+
+    /**
+     * Returns the cache of the game client with the provided name.
+     *
+     * @param   name
+     *          Name of the game client
+     *
+     * @return  The CacheShard, or <code>null</code> if there is no game client with that name
+     *
+     * @since   1.2.0
+     */
+    public static CacheShard getCache(String name) {
+        if (DEFAULT_CLIENT.equals(name)) {
+            return INSTANCE.cache;
+        }
+        NamedGameClient client = INSTANCE.namedGameClients.get(name);
+        return client != null ? client.cache : null;
+    }
+
+    /**
+     * Returns the caches of all game clients, the default game client first.
+     *
+     * @return  Unmodifiable Map of CacheShards keyed by game client name
+     *
+     * @since   1.2.0
+     */
+    public static Map<String, CacheShard> getCaches() {
+        Map<String, CacheShard> caches = new LinkedHashMap<>();
+        caches.put(DEFAULT_CLIENT, INSTANCE.cache);
+        INSTANCE.namedGameClients.forEach((name, client) -> caches.put(name, client.cache));
+        return Collections.unmodifiableMap(caches);
+    }
+
+    /**
+     * Returns a read-only view across the caches of all game clients, e.g. to count participants on every channel or
+     * find the channels a user is connected to.
+     *
+     * @return  AggregateCacheView
+     *
+     * @since   1.2.0
+     */
+    public static AggregateCacheView getAggregateCacheView() {
+        return INSTANCE.aggregateCacheView;
+    }
+
     /**
      * Returns the Map of locally cached participants.
      *
@@ -145,7 +979,7 @@ public class MixerInteractive {
      * @since   1.1.0
      */
     public static Map<String, InteractiveParticipant> getParticipants() {
-        return INSTANCE.participants;
+        return INSTANCE.cache.getParticipants();
     }
 
     /**
@@ -156,7 +990,7 @@ public class MixerInteractive {
      * @since   1.1.0
      */
     public static Map<String, InteractiveScene> getScenes() {
-        return INSTANCE.scenes;
+        return INSTANCE.cache.getScenes();
     }
 
     /**
@@ -167,6 +1001,207 @@ public class MixerInteractive {
      * @since   1.0.0
      */
     public static Map<String, InteractiveGroup> getGroups() {
-        return INSTANCE.groups;
+        return INSTANCE.cache.getGroups();
+    }
+
+    /**
+     * Returns the index over the locally cached participants.
+     *
+     * @return  ParticipantIndex
+     *
+     * @since   1.2.0
+     */
+    public static ParticipantIndex getParticipantIndex() {
+        return INSTANCE.cache.getParticipantIndex();
+    }
+
+    /**
+     * Returns the locally cached participant with the provided user id.
+     *
+     * @param   userID
+     *          User id
+     *
+     * @return  The cached <code>InteractiveParticipant</code> if one exists, <code>null</code> otherwise
+     *
+     * @since   1.2.0
+     */
+    public static InteractiveParticipant getParticipantByUserID(int userID) {
+        return INSTANCE.cache.getParticipantByUserID(userID);
+    }
+
+    /**
+     * Returns the locally cached participant with the provided username. Usernames are matched case insensitively.
+     *
+     * @param   username
+     *          Username
+     *
+     * @return  The cached <code>InteractiveParticipant</code> if one exists, <code>null</code> otherwise
+     *
+     * @since   1.2.0
+     */
+    public static InteractiveParticipant getParticipantByUsername(String username) {
+        return INSTANCE.cache.getParticipantByUsername(username);
+    }
+
+    /**
+     * Returns all locally cached participants that are members of the provided group.
+     *
+     * @param   groupID
+     *          Group id
+     *
+     * @return  Collection of InteractiveParticipants
+     *
+     * @since   1.2.0
+     */
+    public static Collection<InteractiveParticipant> getParticipantsInGroup(String groupID) {
+        return INSTANCE.cache.getParticipantsInGroup(groupID);
+    }
+
+    /**
+     * Returns the index over the controls of the locally cached scenes.
+     *
+     * @return  ControlIndex
+     *
+     * @since   1.2.0
+     */
+    public static ControlIndex getControlIndex() {
+        return INSTANCE.cache.getControlIndex();
+    }
+
+    /**
+     * Returns the locally cached control with the provided control id in the provided scene.
+     *
+     * @param   sceneID
+     *          Scene id
+     * @param   controlID
+     *          Control id
+     *
+     * @return  The cached <code>InteractiveControl</code> if one exists, <code>null</code> otherwise
+     *
+     * @since   1.2.0
+     */
+    public static InteractiveControl getControl(String sceneID, String controlID) {
+        return INSTANCE.cache.getControl(sceneID, controlID);
+    }
+
+    /**
+     * Returns a consistent, immutable view of the locally cached controls of a scene, keyed by control id. The view
+     * can be read from any thread without locking and does not change when the scene is subsequently updated.
+     *
+     * @param   sceneID
+     *          Scene id
+     *
+     * @return  Immutable Map of InteractiveControls
+     *
+     * @since   1.2.0
+     */
+    public static Map<String, InteractiveControl> getControls(String sceneID) {
+        return INSTANCE.cache.getControls(sceneID);
+    }
+
+    /**
+     * Returns the current immutable, versioned snapshot of the local cache. Reading participants, groups and scenes
+     * from one snapshot gives a view that is consistent across all of them, without taking any lock. The controls of
+     * each scene are read at the time of the call; see {@link CacheSnapshot#getControls(String)}.
+     *
+     * @return  The current CacheSnapshot
+     *
+     * @since   1.2.0
+     */
+    public static CacheSnapshot getSnapshot() {
+        return INSTANCE.cache.getSnapshot();
+    }
+
+    /**
+     * Publishes a new version of the cache snapshot. Used by the cache-maintaining event handlers, which publish one
+     * version per handled event.
+     *
+     * @param   change
+     *          Side effect free function deriving the next snapshot from the current one
+     *
+     * @return  The published CacheSnapshot
+     *
+     * @since   1.2.0
+     */
+    public static CacheSnapshot publishSnapshot(UnaryOperator<CacheSnapshot> change) {
+        return INSTANCE.cache.publishSnapshot(change);
+    }
+
+    /**
+     * A game client managed under a name, side by side with the default game client.
+     *
+     * @since   1.2.0
+     */
+    private static final class NamedGameClient {
+
+        /**
+         * Cache of the game client, which also holds the game client itself
+         */
+        private final CacheShard cache;
+
+        /**
+         * Single subscriber of the event bus of every game client built under the name, delivering events to the default
+         * event handlers of the cache, followed by the custom event handlers or the queues delivering to them
+         */
+        private final ClientEventDispatcher eventDispatcher;
+
+        /**
+         * Interactive host the game client connects to, <code>null</code> to let the service choose one
+         */
+        private volatile URI interactiveHost;
+
+        /**
+         * Queue delivering events to custom event handlers registered for server tick dispatch, created on first use
+         */
+        private ServerTickEventQueue serverTickEventQueue;
+
+        /**
+         * Dispatchers delivering events to custom event handlers registered for asynchronous dispatch
+         */
+        private final List<AsyncEventDispatcher> asyncEventDispatchers = new CopyOnWriteArrayList<>();
+
+        /**
+         * Constructor.
+         *
+         * @param   cache
+         *          Cache of the game client
+         * @param   eventDispatcher
+         *          Single subscriber of the event bus of the game client
+         *
+         * @since   1.2.0
+         */
+        private NamedGameClient(CacheShard cache, ClientEventDispatcher eventDispatcher) {
+            this.cache = cache;
+            this.eventDispatcher = eventDispatcher;
+        }
+
+        /**
+         * Returns the queue delivering events to server tick event handlers of the game client, creating it on first
+         * use.
+         *
+         * @return  ServerTickEventQueue
+         *
+         * @since   1.2.0
+         */
+        private synchronized ServerTickEventQueue getServerTickEventQueue() {
+            if (serverTickEventQueue == null) {
+                serverTickEventQueue = new ServerTickEventQueue();
+            }
+            return serverTickEventQueue;
+        }
+
+        /**
+         * Stops the queues delivering events to the server tick and asynchronous event handlers of the game client.
+         *
+         * @since   1.2.0
+         */
+        private synchronized void close() {
+            if (serverTickEventQueue != null) {
+                serverTickEventQueue.close();
+                serverTickEventQueue = null;
+            }
+            asyncEventDispatchers.forEach(AsyncEventDispatcher::shutdown);
+            asyncEventDispatchers.clear();
+        }
     }
 }
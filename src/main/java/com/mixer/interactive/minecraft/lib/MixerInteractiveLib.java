@@ -1,6 +1,8 @@
 package com.mixer.interactive.minecraft.lib;
 
+import com.mixer.interactive.minecraft.lib.command.MixerStatsCommand;
 import net.minecraftforge.fml.common.Mod;
+import net.minecraftforge.fml.common.event.FMLServerStartingEvent;
 
 /**
  * Mixer Interactive Minecraft Library.
@@ -25,4 +27,17 @@ public class MixerInteractiveLib {
      */
     @Mod.Instance(MOD_ID)
     public static MixerInteractiveLib instance;
+
+    /**
+     * Registers the server commands of the library.
+     *
+     * @param   event
+     *          FMLServerStartingEvent
+     *
+     * @since   1.2.0
+     */
+    @Mod.EventHandler
+    public void onServerStarting(FMLServerStartingEvent event) {
+        event.registerServerCommand(new MixerStatsCommand());
+    }
 }
@@ -0,0 +1,183 @@
+package com.mixer.interactive.minecraft.lib.cache;
+
+import com.google.common.collect.ImmutableMap;
+import com.mixer.interactive.resources.participant.InteractiveParticipant;
+
+import java.util.Collection;
+import java.util.Map;
+import java.util.function.Supplier;
+
+/**
+ * Read-only view across the cache shards of every game client managed by
+ * {@link com.mixer.interactive.minecraft.lib.MixerInteractive}. The view holds no state of its own: every call reads
+ * the shards as they are at that moment, so it never contends with the event handlers updating them. Results are keyed
+ * by the name of the game client each shard belongs to.
+ *
+ * @author      Microsoft Corporation
+ *
+ * @since       1.2.0
+ */
+public class AggregateCacheView {
+
+    /**
+     * Supplies the current cache shards
+     */
+    private final Supplier<Collection<CacheShard>> shards;
+
+    /**
+     * Constructor.
+     *
+     * @param   shards
+     *          Supplies the current cache shards
+     *
+     * @since   1.2.0
+     */
+    public AggregateCacheView(Supplier<Collection<CacheShard>> shards) {
+        this.shards = shards;
+    }
+
+    /**
+     * Returns the cache shards of all game clients.
+     *
+     * @return  Immutable Map of CacheShards keyed by game client name
+     *
+     * @since   1.2.0
+     */
+    public Map<String, CacheShard> getShards() {
+        ImmutableMap.Builder<String, CacheShard> builder = ImmutableMap.builder();
+        for (CacheShard shard : shards.get()) {
+            builder.put(shard.getName(), shard);
+        }
+        return builder.build();
+    }
+
+    /**
+     * Returns the current snapshot of every cache shard. Each snapshot is consistent within its shard; snapshots of
+     * different shards are taken one after the other.
+     *
+     * @return  Immutable Map of CacheSnapshots keyed by game client name
+     *
+     * @since   1.2.0
+     */
+    public Map<String, CacheSnapshot> getSnapshots() {
+        ImmutableMap.Builder<String, CacheSnapshot> builder = ImmutableMap.builder();
+        for (CacheShard shard : shards.get()) {
+            builder.put(shard.getName(), shard.getSnapshot());
+        }
+        return builder.build();
+    }
+
+    /**
+     * Returns the total number of participants cached across all game clients. A user connected to several game
+     * clients is counted once per game client.
+     *
+     * @return  Number of cached participants
+     *
+     * @since   1.2.0
+     */
+    public int getParticipantCount() {
+        int count = 0;
+        for (CacheShard shard : shards.get()) {
+            count += shard.getParticipants().size();
+        }
+        return count;
+    }
+
+    /**
+     * Returns the total number of groups cached across all game clients.
+     *
+     * @return  Number of cached groups
+     *
+     * @since   1.2.0
+     */
+    public int getGroupCount() {
+        int count = 0;
+        for (CacheShard shard : shards.get()) {
+            count += shard.getGroups().size();
+        }
+        return count;
+    }
+
+    /**
+     * Returns the total number of scenes cached across all game clients.
+     *
+     * @return  Number of cached scenes
+     *
+     * @since   1.2.0
+     */
+    public int getSceneCount() {
+        int count = 0;
+        for (CacheShard shard : shards.get()) {
+            count += shard.getScenes().size();
+        }
+        return count;
+    }
+
+    /**
+     * Returns the participant with the provided session id, from whichever game client it is connected to.
+     *
+     * @param   sessionID
+     *          Session id
+     *
+     * @return  The cached <code>InteractiveParticipant</code> if one exists, <code>null</code> otherwise
+     *
+     * @since   1.2.0
+     */
+    public InteractiveParticipant getParticipant(String sessionID) {
+        for (CacheShard shard : shards.get()) {
+            InteractiveParticipant participant = shard.getParticipants().get(sessionID);
+            if (participant != null) {
+                return participant;
+            }
+        }
+        return null;
+    }
+
+    /**
+     * Returns the participants of every game client the provided user is connected to.
+     *
+     * @param   userID
+     *          User id
+     *
+     * @return  Immutable Map of InteractiveParticipants keyed by game client name, empty if the user is not connected
+     *
+     * @since   1.2.0
+     */
+    public Map<String, InteractiveParticipant> getParticipantsByUserID(int userID) {
+        ImmutableMap.Builder<String, InteractiveParticipant> builder = ImmutableMap.builder();
+        for (CacheShard shard : shards.get()) {
+            InteractiveParticipant participant = shard.getParticipantByUserID(userID);
+            if (participant != null) {
+                builder.put(shard.getName(), participant);
+            }
+        }
+        return builder.build();
+    }
+
+    /**
+     * Returns the participants of every game client the provided user is connected to. Usernames are matched case
+     * insensitively.
+     *
+     * @param   username
+     *          Username
+     *
+     * @return  Immutable Map of InteractiveParticipants keyed by game client name, empty if the user is not connected
+     *
+     * @since   1.2.0
+     */
+    public Map<String, InteractiveParticipant> getParticipantsByUsername(String username) {
+        ImmutableMap.Builder<String, InteractiveParticipant> builder = ImmutableMap.builder();
+        for (CacheShard shard : shards.get()) {
+            InteractiveParticipant participant = shard.getParticipantByUsername(username);
+            if (participant != null) {
+                builder.put(shard.getName(), participant);
+            }
+        }
+        return builder.build();
+    }
+
+    @Override
+    public String toString() {
+        return "AggregateCacheView{shards=" + getShards().keySet() + ", participants=" + getParticipantCount() + "}";
+    }
+}
@@ -0,0 +1,484 @@
+package com.mixer.interactive.minecraft.lib.cache;
+
+import com.google.common.collect.ImmutableList;
+import com.mixer.interactive.GameClient;
+import com.mixer.interactive.minecraft.lib.MixerInteractive;
+import com.mixer.interactive.minecraft.lib.dispatch.InputThrottle;
+import com.mixer.interactive.minecraft.lib.event.CacheChangeEvent;
+import com.mixer.interactive.minecraft.lib.handler.AbstractEventHandler;
+import com.mixer.interactive.minecraft.lib.handler.ConnectionEventHandler;
+import com.mixer.interactive.minecraft.lib.handler.GroupEventHandler;
+import com.mixer.interactive.minecraft.lib.handler.ParticipantEventHandler;
+import com.mixer.interactive.minecraft.lib.handler.SceneEventHandler;
+import com.mixer.interactive.resources.control.InteractiveControl;
+import com.mixer.interactive.resources.group.InteractiveGroup;
+import com.mixer.interactive.resources.participant.InteractiveParticipant;
+import com.mixer.interactive.resources.scene.InteractiveScene;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.UnaryOperator;
+import java.util.stream.Collectors;
+
+/**
+ * The local cache of one game client: its participants, groups, scenes and controls, the indexes over them, and the
+ * versioned snapshots of all of them. Every game client managed by
+ * {@link com.mixer.interactive.minecraft.lib.MixerInteractive} has its own shard, maintained by its own instances of
+ * the default event handlers, so the caches of different game clients never share a map, an index or a snapshot and
+ * updating one never contends with updating another.
+ *
+ * @author      Microsoft Corporation
+ *
+ * @since       1.2.0
+ */
+public class CacheShard {
+
+    /**
+     * Name of the game client the shard belongs to
+     */
+    private final String name;
+
+    /**
+     * Publisher of immutable, versioned snapshots of the shard
+     */
+    private final SnapshotPublisher snapshots = new SnapshotPublisher();
+
+    /**
+     * Locally cached copy of all participants, keyed by session id
+     */
+    private volatile Map<String, InteractiveParticipant> participants = new ConcurrentHashMap<>();
+
+    /**
+     * Secondary indexes over the locally cached participants
+     */
+    private volatile ParticipantIndex participantIndex = new ParticipantIndex(participants);
+
+    /**
+     * Compact participant cache, <code>null</code> unless enabled, in which case it is also the participant cache
+     */
+    private volatile CompactParticipantStore compactParticipantStore;
+
+    /**
+     * Locally cached copy of all scenes, keyed by scene id
+     */
+    private final Map<String, InteractiveScene> scenes = new ConcurrentHashMap<>();
+
+    /**
+     * Index of the controls of the locally cached scenes
+     */
+    private final ControlIndex controlIndex = new ControlIndex(snapshots);
+
+    /**
+     * Locally cached copy of all groups, keyed by group id
+     */
+    private final Map<String, InteractiveGroup> groups = new ConcurrentHashMap<>();
+
+    /**
+     * Loads existing scenes, groups and participants into the shard when a connection is established
+     */
+    private final CacheWarmer cacheWarmer = new CacheWarmer(this);
+
+    /**
+     * Moves participants of the game client between groups in batches
+     */
+    private final ParticipantGroupMover participantGroupMover = new ParticipantGroupMover(this);
+
+    /**
+     * Limits the rate at which the input of each participant reaches the custom event handlers of the game client
+     */
+    private final InputThrottle inputThrottle = new InputThrottle(sessionID -> participants.get(sessionID));
+
+    /**
+     * Event handlers maintaining the shard
+     */
+    private final List<AbstractEventHandler> defaultEventHandlers;
+
+    /**
+     * Game client whose events maintain the shard, <code>null</code> until one is built
+     */
+    private volatile GameClient gameClient;
+
+    /**
+     * Constructor.
+     *
+     * @param   name
+     *          Name of the game client the shard belongs to
+     *
+     * @since   1.2.0
+     */
+    public CacheShard(String name) {
+        this.name = Objects.requireNonNull(name);
+        this.defaultEventHandlers = ImmutableList.of(
+                new ConnectionEventHandler(this),
+                new ParticipantEventHandler(this),
+                new GroupEventHandler(this),
+                new SceneEventHandler(this),
+                cacheWarmer);
+    }
+
+    /**
+     * Returns the name of the game client the shard belongs to.
+     *
+     * @return  Name
+     *
+     * @since   1.2.0
+     */
+    public String getName() {
+        return name;
+    }
+
+    /**
+     * Returns the game client whose events maintain the shard.
+     *
+     * @return  The game client, or <code>null</code> if none has been built
+     *
+     * @since   1.2.0
+     */
+    public GameClient getGameClient() {
+        return gameClient;
+    }
+
+    /**
+     * Binds the shard to the game client whose events maintain it. The default event handlers of the shard must be
+     * registered with the event bus of that game client.
+     *
+     * @param   gameClient
+     *          Game client
+     *
+     * @since   1.2.0
+     */
+    public void setGameClient(GameClient gameClient) {
+        this.gameClient = gameClient;
+    }
+
+    /**
+     * Returns the event handlers maintaining the shard, one instance of each default event handler bound to it.
+     *
+     * @return  Immutable List of event handlers
+     *
+     * @since   1.2.0
+     */
+    public List<AbstractEventHandler> getDefaultEventHandlers() {
+        return defaultEventHandlers;
+    }
+
+    /**
+     * Returns the Map of locally cached participants.
+     *
+     * @return  Map of InteractiveParticipants keyed by session id
+     *
+     * @since   1.2.0
+     */
+    public Map<String, InteractiveParticipant> getParticipants() {
+        return participants;
+    }
+
+    /**
+     * Returns the index over the locally cached participants.
+     *
+     * @return  ParticipantIndex
+     *
+     * @since   1.2.0
+     */
+    public ParticipantIndex getParticipantIndex() {
+        return participantIndex;
+    }
+
+    /**
+     * Returns the locally cached participant with the provided user id.
+     *
+     * @param   userID
+     *          User id
+     *
+     * @return  The cached <code>InteractiveParticipant</code> if one exists, <code>null</code> otherwise
+     *
+     * @since   1.2.0
+     */
+    public InteractiveParticipant getParticipantByUserID(int userID) {
+        return participantIndex.getByUserID(userID);
+    }
+
+    /**
+     * Returns the locally cached participant with the provided username. Usernames are matched case insensitively.
+     *
+     * @param   username
+     *          Username
+     *
+     * @return  The cached <code>InteractiveParticipant</code> if one exists, <code>null</code> otherwise
+     *
+     * @since   1.2.0
+     */
+    public InteractiveParticipant getParticipantByUsername(String username) {
+        return participantIndex.getByUsername(username);
+    }
+
+    /**
+     * Returns all locally cached participants that are members of the provided group.
+     *
+     * @param   groupID
+     *          Group id
+     *
+     * @return  Collection of InteractiveParticipants
+     *
+     * @since   1.2.0
+     */
+    public Collection<InteractiveParticipant> getParticipantsInGroup(String groupID) {
+        Map<String, InteractiveParticipant> cached = participants;
+        return participantIndex.getSessionIDsInGroup(groupID)
+                .stream()
+                .map(cached::get)
+                .filter(Objects::nonNull)
+                .collect(Collectors.toList());
+    }
+
+    /**
+     * Returns the compact participant store.
+     *
+     * @return  The CompactParticipantStore, or <code>null</code> if it is not enabled
+     *
+     * @since   1.2.0
+     */
+    public CompactParticipantStore getCompactParticipantStore() {
+        return compactParticipantStore;
+    }
+
+    /**
+     * Replaces the participant cache with a CompactParticipantStore. Participants already cached are moved to the
+     * store and indexed again, and snapshots of the shard no longer carry participants. Must not be called while the
+     * game client is receiving events.
+     *
+     * @param   store
+     *          Empty CompactParticipantStore
+     *
+     * @since   1.2.0
+     */
+    public synchronized void useCompactParticipantStore(CompactParticipantStore store) {
+        store.putAll(participants);
+        ParticipantIndex index = new ParticipantIndex(store);
+        store.values().forEach(participant -> index.update(null, participant));
+        compactParticipantStore = store;
+        participantIndex = index;
+        participants = store;
+        snapshots.setParticipantsTracked(false);
+    }
+
+    /**
+     * Returns the Map of locally cached scenes.
+     *
+     * @return  Map of InteractiveScenes keyed by scene id
+     *
+     * @since   1.2.0
+     */
+    public Map<String, InteractiveScene> getScenes() {
+        return scenes;
+    }
+
+    /**
+     * Returns the index over the controls of the locally cached scenes.
+     *
+     * @return  ControlIndex
+     *
+     * @since   1.2.0
+     */
+    public ControlIndex getControlIndex() {
+        return controlIndex;
+    }
+
+    /**
+     * Returns the locally cached control with the provided control id in the provided scene.
+     *
+     * @param   sceneID
+     *          Scene id
+     * @param   controlID
+     *          Control id
+     *
+     * @return  The cached <code>InteractiveControl</code> if one exists, <code>null</code> otherwise
+     *
+     * @since   1.2.0
+     */
+    public InteractiveControl getControl(String sceneID, String controlID) {
+        return controlIndex.get(sceneID, controlID);
+    }
+
+    /**
+     * Returns a consistent, immutable view of the locally cached controls of a scene, keyed by control id.
+     *
+     * @param   sceneID
+     *          Scene id
+     *
+     * @return  Immutable Map of InteractiveControls
+     *
+     * @since   1.2.0
+     */
+    public Map<String, InteractiveControl> getControls(String sceneID) {
+        return controlIndex.getControls(sceneID);
+    }
+
+    /**
+     * Adds or replaces controls of a cached scene. Updates identical to the cached control are skipped and counted as
+     * <code>cache.updates.unchanged</code>; for the others, a {@link CacheChangeEvent} is posted for each field that
+     * changed once the controls are cached.
+     *
+     * @param   sceneID
+     *          Scene id
+     * @param   controls
+     *          Created or updated InteractiveControls
+     *
+     * @since   1.2.0
+     */
+    public void updateControls(String sceneID, Collection<InteractiveControl> controls) {
+        List<CacheChangeEvent> changes = new ArrayList<>();
+        updateControls(sceneID, controls, changes);
+        postChanges(changes);
+    }
+
+    /**
+     * Adds or replaces controls of a cached scene like {@link #updateControls(String, Collection)}, but adds the
+     * change events to the provided list instead of posting them, so that a caller holding a lock can post them once
+     * it has released it.
+     *
+     * @param   sceneID
+     *          Scene id
+     * @param   controls
+     *          Created or updated InteractiveControls
+     * @param   changes
+     *          List the change events are added to
+     *
+     * @since   1.2.0
+     */
+    public void updateControls(String sceneID, Collection<InteractiveControl> controls, List<CacheChangeEvent> changes) {
+        InteractiveScene scene = scenes.get(sceneID);
+        if (scene == null) {
+            return;
+        }
+
+        List<InteractiveControl> changed = new ArrayList<>(controls.size());
+        for (InteractiveControl control : controls) {
+            InteractiveControl previous = controlIndex.get(sceneID, control.getControlID());
+            if (previous != null) {
+                if (ChangeDetector.isUnchanged(previous, control)) {
+                    MixerInteractive.getMetrics().counter("cache.updates.unchanged").increment();
+                    continue;
+                }
+                ChangeDetector.diff(name, sceneID, previous, control, changes);
+            }
+            changed.add(control);
+        }
+        if (!changed.isEmpty()) {
+            controlIndex.put(scene, changed);
+        }
+    }
+
+    /**
+     * Posts change events to the event bus of the game client, if the shard is bound to one. Events posted while the
+     * event bus is delivering an update are delivered once every handler has received the update.
+     *
+     * @param   changes
+     *          Change events
+     *
+     * @since   1.2.0
+     */
+    public void postChanges(List<? extends CacheChangeEvent> changes) {
+        GameClient client = gameClient;
+        if (client != null) {
+            for (CacheChangeEvent change : changes) {
+                client.getEventBus().post(change);
+            }
+        }
+    }
+
+    /**
+     * Returns the Map of locally cached groups.
+     *
+     * @return  Map of InteractiveGroups keyed by group id
+     *
+     * @since   1.2.0
+     */
+    public Map<String, InteractiveGroup> getGroups() {
+        return groups;
+    }
+
+    /**
+     * Returns the current immutable, versioned snapshot of the shard.
+     *
+     * @return  The current CacheSnapshot
+     *
+     * @since   1.2.0
+     */
+    public CacheSnapshot getSnapshot() {
+        return snapshots.get();
+    }
+
+    /**
+     * Publishes a new version of the snapshot of the shard.
+     *
+     * @param   change
+     *          Side effect free function deriving the next snapshot from the current one
+     *
+     * @return  The published CacheSnapshot
+     *
+     * @since   1.2.0
+     */
+    public CacheSnapshot publishSnapshot(UnaryOperator<CacheSnapshot> change) {
+        return snapshots.publish(change);
+    }
+
+    /**
+     * Returns the cache warmer of the shard.
+     *
+     * @return  CacheWarmer
+     *
+     * @since   1.2.0
+     */
+    public CacheWarmer getCacheWarmer() {
+        return cacheWarmer;
+    }
+
+    /**
+     * Returns the mover used to reassign participants of the game client to groups in batches.
+     *
+     * @return  ParticipantGroupMover
+     *
+     * @since   1.2.0
+     */
+    public ParticipantGroupMover getParticipantGroupMover() {
+        return participantGroupMover;
+    }
+
+    /**
+     * Returns the throttle limiting the rate at which the input of each participant reaches the custom event handlers
+     * of the game client.
+     *
+     * @return  InputThrottle
+     *
+     * @since   1.2.0
+     */
+    public InputThrottle getInputThrottle() {
+        return inputThrottle;
+    }
+
+    /**
+     * Removes every scene, control, group and participant from the shard and publishes an empty snapshot.
+     *
+     * @since   1.2.0
+     */
+    public void clear() {
+        scenes.clear();
+        controlIndex.clear();
+        groups.clear();
+        participants.clear();
+        participantIndex.clear();
+        inputThrottle.clear();
+        snapshots.publish(CacheSnapshot::cleared);
+    }
+
+    @Override
+    public String toString() {
+        return "CacheShard{name='" + name + "', participants=" + participants.size() + ", groups=" + groups.size()
+                + ", scenes=" + scenes.size() + "}";
+    }
+}
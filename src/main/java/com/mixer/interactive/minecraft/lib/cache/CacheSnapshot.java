@@ -0,0 +1,327 @@
+package com.mixer.interactive.minecraft.lib.cache;
+
+import com.google.gson.JsonArray;
+import com.google.gson.JsonObject;
+import com.mixer.interactive.GameClient;
+import com.mixer.interactive.resources.control.InteractiveControl;
+import com.mixer.interactive.resources.group.InteractiveGroup;
+import com.mixer.interactive.resources.participant.InteractiveParticipant;
+import com.mixer.interactive.resources.scene.InteractiveScene;
+
+import java.util.Map;
+
+/**
+ * An immutable, versioned view of the whole local Interactive cache. Every event handled by the cache-maintaining
+ * event handlers publishes a new snapshot, so a snapshot always reflects the state of the cache between two events and
+ * never a partially applied one. New snapshots share every unchanged part of the previous snapshot, so publishing one
+ * costs time proportional to the change rather than to the size of the cache.
+ * <p>
+ * Control writes are the exception: so that writers to different scenes never contend on the snapshot, the controls of
+ * each scene are held outside the snapshot by the ControlIndex, and a snapshot refers to the current controls of each
+ * of its scenes rather than to a copy. Each call to {@link #getControls(String)} returns a consistent, immutable view of
+ * the controls of one scene, which may be newer than the version of the snapshot; keep the returned map to read the
+ * same controls several times.
+ * <p>
+ * Game code that reads several caches during one server tick should grab a single snapshot through
+ * {@link com.mixer.interactive.minecraft.lib.MixerInteractive#getSnapshot()} and read everything from it.
+ *
+ * @author      Microsoft Corporation
+ *
+ * @since       1.2.0
+ */
+public final class CacheSnapshot {
+
+    /**
+     * The empty snapshot, version 0
+     */
+    public static final CacheSnapshot EMPTY = new CacheSnapshot(0, PersistentMap.empty(), PersistentMap.empty(),
+            PersistentMap.empty(), PersistentMap.empty());
+
+    /**
+     * Version of this snapshot, incremented by one for every published change
+     */
+    private final long version;
+
+    /**
+     * Participants keyed by session id
+     */
+    private final PersistentMap<String, InteractiveParticipant> participants;
+
+    /**
+     * Groups keyed by group id
+     */
+    private final PersistentMap<String, InteractiveGroup> groups;
+
+    /**
+     * Copies of the scenes without their controls, keyed by scene id
+     */
+    private final PersistentMap<String, InteractiveScene> scenes;
+
+    /**
+     * Holders of the controls of each scene, keyed by scene id
+     */
+    private final PersistentMap<String, SceneControls> controls;
+
+    /**
+     * Constructor.
+     *
+     * @since   1.2.0
+     */
+    private CacheSnapshot(long version,
+                          PersistentMap<String, InteractiveParticipant> participants,
+                          PersistentMap<String, InteractiveGroup> groups,
+                          PersistentMap<String, InteractiveScene> scenes,
+                          PersistentMap<String, SceneControls> controls) {
+        this.version = version;
+        this.participants = participants;
+        this.groups = groups;
+        this.scenes = scenes;
+        this.controls = controls;
+    }
+
+    /**
+     * Returns the version of this snapshot.
+     *
+     * @return  Version
+     *
+     * @since   1.2.0
+     */
+    public long getVersion() {
+        return version;
+    }
+
+    /**
+     * Returns the participants in this snapshot. Snapshots carry no participants when the compact participant store is
+     * enabled; read participants from the participant cache instead.
+     *
+     * @return  Immutable Map of InteractiveParticipants keyed by session id
+     *
+     * @since   1.2.0
+     */
+    public PersistentMap<String, InteractiveParticipant> getParticipants() {
+        return participants;
+    }
+
+    /**
+     * Returns the groups in this snapshot.
+     *
+     * @return  Immutable Map of InteractiveGroups keyed by group id
+     *
+     * @since   1.2.0
+     */
+    public PersistentMap<String, InteractiveGroup> getGroups() {
+        return groups;
+    }
+
+    /**
+     * Returns the scenes in this snapshot. The scenes are copies taken when they were published and carry no
+     * controls; read the controls of a scene through {@link #getControls(String)}.
+     *
+     * @return  Immutable Map of InteractiveScenes keyed by scene id
+     *
+     * @since   1.2.0
+     */
+    public PersistentMap<String, InteractiveScene> getScenes() {
+        return scenes;
+    }
+
+    /**
+     * Returns the current controls of a scene in this snapshot. The controls are read from the scene's holder at the
+     * time of the call, so they may be newer than the version of this snapshot.
+     *
+     * @param   sceneID
+     *          Scene id
+     *
+     * @return  Immutable Map of InteractiveControls keyed by control id, empty if the scene is not in this snapshot
+     *
+     * @since   1.2.0
+     */
+    public PersistentMap<String, InteractiveControl> getControls(String sceneID) {
+        SceneControls sceneControls = controls.get(sceneID);
+        return sceneControls != null ? sceneControls.get() : PersistentMap.empty();
+    }
+
+    /**
+     * Returns a copy of this snapshot with a participant added or replaced.
+     *
+     * @param   participant
+     *          InteractiveParticipant
+     *
+     * @return  A new CacheSnapshot with the same version
+     *
+     * @since   1.2.0
+     */
+    public CacheSnapshot withParticipant(InteractiveParticipant participant) {
+        return new CacheSnapshot(version, participants.plus(participant.getSessionID(), participant), groups, scenes, controls);
+    }
+
+    /**
+     * Returns a copy of this snapshot with many participants added or replaced at once.
+     *
+     * @param   added
+     *          InteractiveParticipants keyed by session id
+     *
+     * @return  A new CacheSnapshot with the same version
+     *
+     * @since   1.2.0
+     */
+    public CacheSnapshot withParticipants(Map<String, InteractiveParticipant> added) {
+        return new CacheSnapshot(version, participants.plusAll(added), groups, scenes, controls);
+    }
+
+    /**
+     * Returns a copy of this snapshot without any participant.
+     *
+     * @return  A new CacheSnapshot with the same version
+     *
+     * @since   1.2.0
+     */
+    CacheSnapshot withoutParticipants() {
+        return new CacheSnapshot(version, PersistentMap.empty(), groups, scenes, controls);
+    }
+
+    /**
+     * Returns a copy of this snapshot without a participant.
+     *
+     * @param   sessionID
+     *          Session id of the participant
+     *
+     * @return  A new CacheSnapshot with the same version
+     *
+     * @since   1.2.0
+     */
+    public CacheSnapshot withoutParticipant(String sessionID) {
+        return new CacheSnapshot(version, participants.minus(sessionID), groups, scenes, controls);
+    }
+
+    /**
+     * Returns a copy of this snapshot with a group added or replaced.
+     *
+     * @param   group
+     *          InteractiveGroup
+     *
+     * @return  A new CacheSnapshot with the same version
+     *
+     * @since   1.2.0
+     */
+    public CacheSnapshot withGroup(InteractiveGroup group) {
+        return new CacheSnapshot(version, participants, groups.plus(group.getGroupID(), group), scenes, controls);
+    }
+
+    /**
+     * Returns a copy of this snapshot with many groups added or replaced at once.
+     *
+     * @param   added
+     *          InteractiveGroups keyed by group id
+     *
+     * @return  A new CacheSnapshot with the same version
+     *
+     * @since   1.2.0
+     */
+    public CacheSnapshot withGroups(Map<String, InteractiveGroup> added) {
+        return new CacheSnapshot(version, participants, groups.plusAll(added), scenes, controls);
+    }
+
+    /**
+     * Returns a copy of this snapshot without a group.
+     *
+     * @param   groupID
+     *          Group id
+     *
+     * @return  A new CacheSnapshot with the same version
+     *
+     * @since   1.2.0
+     */
+    public CacheSnapshot withoutGroup(String groupID) {
+        return new CacheSnapshot(version, participants, groups.minus(groupID), scenes, controls);
+    }
+
+    /**
+     * Returns a copy of this snapshot with a scene and the holder of its controls added or replaced. The scene must be
+     * a copy without controls, made through {@link #withoutControls(InteractiveScene)} before publishing, so that later
+     * changes to the control Set of the cached scene never show through.
+     *
+     * @param   scene
+     *          Copy of the InteractiveScene without controls
+     * @param   sceneControls
+     *          Holder of the controls of the scene
+     *
+     * @return  A new CacheSnapshot with the same version
+     *
+     * @since   1.2.0
+     */
+    CacheSnapshot withScene(InteractiveScene scene, SceneControls sceneControls) {
+        return new CacheSnapshot(version, participants, groups, scenes.plus(scene.getSceneID(), scene),
+                controls.plus(scene.getSceneID(), sceneControls));
+    }
+
+    /**
+     * Returns a copy of this snapshot without a scene or any of its controls.
+     *
+     * @param   sceneID
+     *          Scene id
+     *
+     * @return  A new CacheSnapshot with the same version
+     *
+     * @since   1.2.0
+     */
+    public CacheSnapshot withoutScene(String sceneID) {
+        return new CacheSnapshot(version, participants, groups, scenes.minus(sceneID), controls.minus(sceneID));
+    }
+
+    /**
+     * Returns an empty snapshot with the same version as this one.
+     *
+     * @return  A new, empty CacheSnapshot
+     *
+     * @since   1.2.0
+     */
+    public CacheSnapshot cleared() {
+        return new CacheSnapshot(version, PersistentMap.empty(), PersistentMap.empty(), PersistentMap.empty(),
+                PersistentMap.empty());
+    }
+
+    /**
+     * Returns a copy of this snapshot carrying the provided version.
+     *
+     * @param   version
+     *          Version
+     *
+     * @return  A new CacheSnapshot
+     *
+     * @since   1.2.0
+     */
+    CacheSnapshot withVersion(long version) {
+        return new CacheSnapshot(version, participants, groups, scenes, controls);
+    }
+
+    /**
+     * Returns a copy of a scene with an empty control Set. The copy is made through a JSON round trip, so it should be
+     * made once per published scene, outside of {@link SnapshotPublisher#publish}.
+     *
+     * @param   scene
+     *          InteractiveScene
+     *
+     * @return  A new InteractiveScene
+     *
+     * @since   1.2.0
+     */
+    static InteractiveScene withoutControls(InteractiveScene scene) {
+        JsonObject json = GameClient.GSON.toJsonTree(scene).getAsJsonObject();
+        json.add("controls", new JsonArray());
+        return GameClient.GSON.fromJson(json, InteractiveScene.class);
+    }
+
+    /**
+     * Returns the number of scenes, groups and participants in this snapshot, for logging.
+     *
+     * @return  Summary of this snapshot
+     *
+     * @since   1.2.0
+     */
+    @Override
+    public String toString() {
+        return "CacheSnapshot{version=" + version + ", participants=" + participants.size() + ", groups=" + groups.size()
+                + ", scenes=" + scenes.size() + "}";
+    }
+}
@@ -0,0 +1,719 @@
+package com.mixer.interactive.minecraft.lib.cache;
+
+import com.google.common.collect.Maps;
+import com.google.common.collect.Sets;
+import com.google.common.eventbus.Subscribe;
+import com.mixer.interactive.GameClient;
+import com.mixer.interactive.event.InteractiveEvent;
+import com.mixer.interactive.event.connection.ConnectionClosedEvent;
+import com.mixer.interactive.event.connection.ConnectionEstablishedEvent;
+import com.mixer.interactive.event.control.ControlCreateEvent;
+import com.mixer.interactive.event.control.ControlDeleteEvent;
+import com.mixer.interactive.event.control.ControlUpdateEvent;
+import com.mixer.interactive.event.group.GroupCreateEvent;
+import com.mixer.interactive.event.group.GroupDeleteEvent;
+import com.mixer.interactive.event.group.GroupUpdateEvent;
+import com.mixer.interactive.event.participant.ParticipantJoinEvent;
+import com.mixer.interactive.event.participant.ParticipantLeaveEvent;
+import com.mixer.interactive.event.participant.ParticipantUpdateEvent;
+import com.mixer.interactive.event.scene.SceneCreateEvent;
+import com.mixer.interactive.event.scene.SceneDeleteEvent;
+import com.mixer.interactive.event.scene.SceneUpdateEvent;
+import com.mixer.interactive.minecraft.lib.MixerInteractive;
+import com.mixer.interactive.minecraft.lib.event.CacheChangeEvent;
+import com.mixer.interactive.minecraft.lib.event.CacheReadyEvent;
+import com.mixer.interactive.minecraft.lib.event.CacheReconciledEvent;
+import com.mixer.interactive.minecraft.lib.handler.AbstractEventHandler;
+import com.mixer.interactive.resources.control.InteractiveControl;
+import com.mixer.interactive.resources.group.InteractiveGroup;
+import com.mixer.interactive.resources.participant.InteractiveParticipant;
+import com.mixer.interactive.resources.scene.InteractiveScene;
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static com.mixer.interactive.GameClient.GROUP_SERVICE_PROVIDER;
+import static com.mixer.interactive.GameClient.PARTICIPANT_SERVICE_PROVIDER;
+import static com.mixer.interactive.GameClient.SCENE_SERVICE_PROVIDER;
+
+/**
+ * Fills the local cache as soon as a connection is established, so that scenes, groups and participants that existed
+ * before the game client connected are cached without waiting for events about them. Scenes, groups and participants
+ * are requested at the same time, and each result is loaded into the cache in bulk: the cache maps are grown once for
+ * the whole result and the cache snapshot is published once per resource type. A {@link CacheReadyEvent} is posted to
+ * the game client event bus when the warm-up finishes, and its duration is recorded in the <code>cache.warmUp</code>
+ * histogram of {@link MixerInteractive#getMetrics()}.
+ * <p>
+ * With {@link ReconnectMode#RECONCILE}, the cache is kept and marked stale when the connection closes. The warm-up
+ * that follows the next connection then reconciles it instead: objects whose etag did not change keep their cached
+ * instance, and only added, changed and removed objects touch the cache maps, the indexes and the cache snapshot. The
+ * changes are listed in a {@link CacheReconciledEvent} posted before the CacheReadyEvent. Replaced controls and
+ * participants are compared with their cached versions like updates received through events, and a
+ * {@link CacheChangeEvent} is posted, before the CacheReconciledEvent, for each field handlers react to that changed
+ * while the game client was disconnected.
+ * <p>
+ * Events received while the warm-up is in progress are applied as usual and take precedence over the fetched state:
+ * objects created, updated or deleted by an event during the warm-up are left as the event made them. The
+ * cache-maintaining event handlers report each event through {@link #touch(InteractiveEvent)} before applying it, and
+ * the fetched state is loaded while holding the same lock, so an event is either reported before the fetched state is
+ * loaded, and its objects skipped, or applied after it.
+ *
+ * @author      Microsoft Corporation
+ *
+ * @since       1.2.0
+ */
+public class CacheWarmer extends AbstractEventHandler {
+
+    /**
+     * Logger
+     */
+    private static final Logger LOG = LogManager.getLogger();
+
+    /**
+     * Cache warmed up by the warmer
+     */
+    private final CacheShard cache;
+
+    /**
+     * Incremented on every warm-up and every closed connection, so that the results of an outdated warm-up are
+     * discarded
+     */
+    private final AtomicLong generation = new AtomicLong();
+
+    /**
+     * Session ids of participants changed by an event during the current warm-up
+     */
+    private final Set<String> touchedSessionIDs = ConcurrentHashMap.newKeySet();
+
+    /**
+     * Ids of groups changed by an event during the current warm-up
+     */
+    private final Set<String> touchedGroupIDs = ConcurrentHashMap.newKeySet();
+
+    /**
+     * Ids of scenes changed by an event, or whose controls were, during the current warm-up
+     */
+    private final Set<String> touchedSceneIDs = ConcurrentHashMap.newKeySet();
+
+    /**
+     * Whether a warm-up is in progress
+     */
+    private volatile boolean warmingUp;
+
+    /**
+     * Whether the cache is warmed up when a connection is established
+     */
+    private volatile boolean enabled = true;
+
+    /**
+     * What happens to the cache when the connection closes
+     */
+    private volatile ReconnectMode reconnectMode = ReconnectMode.CLEAR;
+
+    /**
+     * Whether the cache was kept when the connection closed and has not been reconciled since
+     */
+    private volatile boolean stale;
+
+    /**
+     * Constructor.
+     *
+     * @param   cache
+     *          Cache warmed up by the warmer
+     *
+     * @since   1.2.0
+     */
+    public CacheWarmer(CacheShard cache) {
+        this.cache = cache;
+    }
+
+    /**
+     * Warms up or reconciles the cache when the game client connects.
+     *
+     * @param   event
+     *          ConnectionEstablishedEvent
+     *
+     * @since   1.2.0
+     */
+    @Subscribe
+    public void onConnectionEstablished(ConnectionEstablishedEvent event) {
+        GameClient gameClient = cache.getGameClient();
+        if (gameClient != null && (enabled || stale)) {
+            warmUp(gameClient);
+        }
+    }
+
+    /**
+     * Abandons any warm-up in progress, as the connection it was fetching from is gone.
+     *
+     * @param   event
+     *          ConnectionClosedEvent
+     *
+     * @since   1.2.0
+     */
+    @Subscribe
+    public synchronized void onConnectionClosed(ConnectionClosedEvent event) {
+        generation.incrementAndGet();
+        warmingUp = false;
+    }
+
+    /**
+     * Remembers the objects an event changes during a warm-up, so that they are not overwritten or removed based on a
+     * result fetched before the event. Called by the cache-maintaining event handlers before they apply the event to
+     * the cache. Blocks while the fetched state is being loaded into the cache.
+     *
+     * @param   event
+     *          InteractiveEvent about to be applied to the cache
+     *
+     * @since   1.2.0
+     */
+    public void touch(InteractiveEvent event) {
+        if (warmingUp) {
+            synchronized (this) {
+                if (warmingUp) {
+                    touchObjects(event);
+                }
+            }
+        }
+    }
+
+    /**
+     * Adds the ids of the objects an event changes to the touched ids.
+     *
+     * @param   event
+     *          InteractiveEvent
+     *
+     * @since   1.2.0
+     */
+    private void touchObjects(InteractiveEvent event) {
+        if (event instanceof ParticipantJoinEvent) {
+            touchParticipants(((ParticipantJoinEvent) event).getParticipants());
+        }
+        else if (event instanceof ParticipantUpdateEvent) {
+            touchParticipants(((ParticipantUpdateEvent) event).getParticipants());
+        }
+        else if (event instanceof ParticipantLeaveEvent) {
+            touchParticipants(((ParticipantLeaveEvent) event).getParticipants());
+        }
+        else if (event instanceof GroupCreateEvent) {
+            ((GroupCreateEvent) event).getGroups().forEach(group -> touchedGroupIDs.add(group.getGroupID()));
+        }
+        else if (event instanceof GroupUpdateEvent) {
+            ((GroupUpdateEvent) event).getGroups().forEach(group -> touchedGroupIDs.add(group.getGroupID()));
+        }
+        else if (event instanceof GroupDeleteEvent) {
+            touchedGroupIDs.add(((GroupDeleteEvent) event).getGroupID());
+        }
+        else if (event instanceof SceneCreateEvent) {
+            ((SceneCreateEvent) event).getScenes().forEach(scene -> touchedSceneIDs.add(scene.getSceneID()));
+        }
+        else if (event instanceof SceneUpdateEvent) {
+            ((SceneUpdateEvent) event).getScenes().forEach(scene -> touchedSceneIDs.add(scene.getSceneID()));
+        }
+        else if (event instanceof SceneDeleteEvent) {
+            touchedSceneIDs.add(((SceneDeleteEvent) event).getSceneID());
+        }
+        else if (event instanceof ControlCreateEvent) {
+            touchedSceneIDs.add(((ControlCreateEvent) event).getSceneID());
+        }
+        else if (event instanceof ControlUpdateEvent) {
+            touchedSceneIDs.add(((ControlUpdateEvent) event).getSceneID());
+        }
+        else if (event instanceof ControlDeleteEvent) {
+            touchedSceneIDs.add(((ControlDeleteEvent) event).getSceneID());
+        }
+    }
+
+    /**
+     * Fetches every scene, group and participant from the Mixer Interactive service and loads them into the cache.
+     * If the cache is stale it is reconciled with the fetched state and a CacheReconciledEvent is posted; otherwise
+     * only objects that are not cached yet are loaded. The three requests are in flight at the same time; participants
+     * are paged through by the participant service. A CacheReadyEvent is posted to the event bus of the game client
+     * when the warm-up finishes, whether it succeeded or not.
+     *
+     * @param   gameClient
+     *          Connected game client
+     *
+     * @return  A CompletableFuture that completes with the posted CacheReadyEvent, or is cancelled if the connection
+     *          closed or another warm-up started in the meantime
+     *
+     * @since   1.2.0
+     */
+    public CompletableFuture<CacheReadyEvent> warmUp(GameClient gameClient) {
+        long warmUpGeneration;
+        synchronized (this) {
+            warmUpGeneration = generation.incrementAndGet();
+            touchedSessionIDs.clear();
+            touchedGroupIDs.clear();
+            touchedSceneIDs.clear();
+            warmingUp = true;
+        }
+
+        long start = System.nanoTime();
+        CompletableFuture<Set<InteractiveScene>> scenes = gameClient.using(SCENE_SERVICE_PROVIDER).getScenes();
+        CompletableFuture<Set<InteractiveGroup>> groups = gameClient.using(GROUP_SERVICE_PROVIDER).getGroups();
+        CompletableFuture<Set<InteractiveParticipant>> participants = gameClient.using(PARTICIPANT_SERVICE_PROVIDER).getAllParticipants();
+        return CompletableFuture.allOf(scenes, groups, participants).handle((ignored, failure) -> {
+            CacheReconciledEvent reconciled = null;
+            List<CacheChangeEvent> changes = new ArrayList<>();
+            CacheReadyEvent ready;
+            synchronized (this) {
+                if (generation.get() != warmUpGeneration) {
+                    throw new CancellationException("Cache warm-up superseded");
+                }
+                if (failure != null) {
+                    Throwable cause = failure instanceof CompletionException && failure.getCause() != null ? failure.getCause() : failure;
+                    ready = new CacheReadyEvent(System.nanoTime() - start, 0, 0, 0, cause);
+                    LOG.warn("Cache warm-up failed after {} ms", ready.getDuration(TimeUnit.MILLISECONDS), cause);
+                }
+                else {
+                    boolean reconcile = stale;
+                    CacheReconciledEvent.Changes<InteractiveScene> sceneChanges = loadScenes(nonNull(scenes.join()), reconcile, changes);
+                    CacheReconciledEvent.Changes<InteractiveGroup> groupChanges = loadGroups(nonNull(groups.join()), reconcile);
+                    CacheReconciledEvent.Changes<InteractiveParticipant> participantChanges = loadParticipants(nonNull(participants.join()), reconcile, changes);
+                    stale = false;
+
+                    long duration = System.nanoTime() - start;
+                    MixerInteractive.getMetrics().histogram("cache.warmUp").record(duration);
+                    ready = new CacheReadyEvent(duration, loadedCount(sceneChanges), loadedCount(groupChanges),
+                            loadedCount(participantChanges), null);
+                    if (reconcile) {
+                        reconciled = new CacheReconciledEvent(sceneChanges, groupChanges, participantChanges);
+                        LOG.info("Cache reconciled in {} ms: {}", ready.getDuration(TimeUnit.MILLISECONDS), reconciled);
+                    }
+                    else {
+                        LOG.info("Cache warmed up in {} ms with {} scenes, {} groups and {} participants",
+                                ready.getDuration(TimeUnit.MILLISECONDS), ready.getSceneCount(), ready.getGroupCount(),
+                                ready.getParticipantCount());
+                    }
+                }
+                warmingUp = false;
+            }
+            cache.postChanges(changes);
+            if (reconciled != null) {
+                gameClient.getEventBus().post(reconciled);
+            }
+            gameClient.getEventBus().post(ready);
+            return ready;
+        });
+    }
+
+    /**
+     * Returns whether the cache is warmed up when a connection is established.
+     *
+     * @return  <code>true</code> if enabled, <code>false</code> otherwise
+     *
+     * @since   1.2.0
+     */
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    /**
+     * Sets whether the cache is warmed up when a connection is established. Enabled by default. A stale cache is
+     * always reconciled on reconnect.
+     *
+     * @param   enabled
+     *          <code>true</code> to warm up the cache on connect, <code>false</code> to fill it from events only
+     *
+     * @since   1.2.0
+     */
+    public void setEnabled(boolean enabled) {
+        this.enabled = enabled;
+    }
+
+    /**
+     * Returns what happens to the cache when the connection closes.
+     *
+     * @return  ReconnectMode
+     *
+     * @since   1.2.0
+     */
+    public ReconnectMode getReconnectMode() {
+        return reconnectMode;
+    }
+
+    /**
+     * Sets what happens to the cache when the connection closes. {@link ReconnectMode#CLEAR} by default.
+     *
+     * @param   reconnectMode
+     *          ReconnectMode
+     *
+     * @since   1.2.0
+     */
+    public void setReconnectMode(ReconnectMode reconnectMode) {
+        this.reconnectMode = Objects.requireNonNull(reconnectMode);
+    }
+
+    /**
+     * Returns whether the cache was kept when the connection closed and has not been reconciled since, in which case
+     * it may not reflect the state of the Mixer Interactive service.
+     *
+     * @return  <code>true</code> if the cache is stale, <code>false</code> otherwise
+     *
+     * @since   1.2.0
+     */
+    public boolean isStale() {
+        return stale;
+    }
+
+    /**
+     * Marks the cache stale, so that it is reconciled rather than warmed up once a connection is established.
+     *
+     * @since   1.2.0
+     */
+    public void markStale() {
+        stale = true;
+    }
+
+    /**
+     * Loads fetched scenes into the cache. Scenes that are not cached are added. When reconciling, scenes whose etag
+     * changed are replaced and reindexed, the controls of the other scenes are reconciled one by one, and cached
+     * scenes that no longer exist are removed.
+     *
+     * @param   fetched
+     *          Scenes fetched from the service
+     * @param   reconcile
+     *          <code>true</code> if the cache is stale
+     * @param   changes
+     *          List the change events of replaced controls are added to
+     *
+     * @return  Changes made to the cache
+     *
+     * @since   1.2.0
+     */
+    private CacheReconciledEvent.Changes<InteractiveScene> loadScenes(Set<InteractiveScene> fetched, boolean reconcile, List<CacheChangeEvent> changes) {
+        Map<String, InteractiveScene> scenes = cache.getScenes();
+        List<InteractiveScene> added = new ArrayList<>();
+        List<InteractiveScene> updated = new ArrayList<>();
+        List<InteractiveScene> removed = new ArrayList<>();
+        Set<String> fetchedIDs = Sets.newHashSetWithExpectedSize(fetched.size());
+        for (InteractiveScene scene : fetched) {
+            String sceneID = scene.getSceneID();
+            fetchedIDs.add(sceneID);
+            if (touchedSceneIDs.contains(sceneID)) {
+                continue;
+            }
+            InteractiveScene cached = scenes.putIfAbsent(sceneID, scene);
+            if (cached == null) {
+                cache.getControlIndex().indexScene(scene);
+                added.add(scene);
+            }
+            else if (reconcile && !sameVersion(cached.getEtag(), scene.getEtag())) {
+                diffControls(scene, changes);
+                scenes.put(sceneID, scene);
+                cache.getControlIndex().indexScene(scene);
+                updated.add(scene);
+            }
+            else if (reconcile && reconcileControls(cached, scene, changes)) {
+                updated.add(cached);
+            }
+        }
+
+        if (reconcile) {
+            for (InteractiveScene cached : scenes.values()) {
+                String sceneID = cached.getSceneID();
+                if (!fetchedIDs.contains(sceneID) && !touchedSceneIDs.contains(sceneID) && scenes.remove(sceneID, cached)) {
+                    cache.getControlIndex().removeScene(sceneID);
+                    removed.add(cached);
+                }
+            }
+        }
+        return new CacheReconciledEvent.Changes<>(added, updated, removed);
+    }
+
+    /**
+     * Reconciles the indexed controls of a cached scene with the controls of the same scene fetched from the service.
+     * Controls whose etag changed are replaced through {@link CacheShard#updateControls(String, Collection, List)},
+     * like updates received through events.
+     *
+     * @param   cached
+     *          Cached scene
+     * @param   fetched
+     *          Fetched scene
+     * @param   changes
+     *          List the change events of replaced controls are added to
+     *
+     * @return  <code>true</code> if any control was added, replaced or removed, <code>false</code> otherwise
+     *
+     * @since   1.2.0
+     */
+    private boolean reconcileControls(InteractiveScene cached, InteractiveScene fetched, List<CacheChangeEvent> changes) {
+        Map<String, InteractiveControl> current = cache.getControlIndex().getControls(cached.getSceneID());
+        Collection<InteractiveControl> controls = fetched.getControls() != null ? fetched.getControls() : Collections.emptySet();
+        List<InteractiveControl> changed = new ArrayList<>();
+        Set<String> fetchedIDs = Sets.newHashSetWithExpectedSize(controls.size());
+        for (InteractiveControl control : controls) {
+            fetchedIDs.add(control.getControlID());
+            InteractiveControl indexed = current.get(control.getControlID());
+            if (indexed == null || !sameVersion(indexed.getEtag(), control.getEtag())) {
+                changed.add(control);
+            }
+        }
+        List<String> removedIDs = new ArrayList<>();
+        for (String controlID : current.keySet()) {
+            if (!fetchedIDs.contains(controlID)) {
+                removedIDs.add(controlID);
+            }
+        }
+
+        if (!changed.isEmpty()) {
+            cache.updateControls(cached.getSceneID(), changed, changes);
+        }
+        if (!removedIDs.isEmpty()) {
+            cache.getControlIndex().remove(cached, removedIDs);
+        }
+        return !changed.isEmpty() || !removedIDs.isEmpty();
+    }
+
+    /**
+     * Compares the controls of a fetched scene that replaces a cached one with the indexed controls of that scene.
+     *
+     * @param   fetched
+     *          Fetched scene
+     * @param   changes
+     *          List the change events are added to
+     *
+     * @since   1.2.0
+     */
+    private void diffControls(InteractiveScene fetched, List<CacheChangeEvent> changes) {
+        if (fetched.getControls() == null) {
+            return;
+        }
+        for (InteractiveControl control : fetched.getControls()) {
+            InteractiveControl previous = cache.getControlIndex().get(fetched.getSceneID(), control.getControlID());
+            if (previous != null && !ChangeDetector.isUnchanged(previous, control)) {
+                ChangeDetector.diff(cache.getName(), fetched.getSceneID(), previous, control, changes);
+            }
+        }
+    }
+
+    /**
+     * Loads fetched groups into the cache in one bulk insert and one snapshot version. Groups that are not cached are
+     * added. When reconciling, groups whose etag changed are replaced and cached groups that no longer exist are
+     * removed.
+     *
+     * @param   fetched
+     *          Groups fetched from the service
+     * @param   reconcile
+     *          <code>true</code> if the cache is stale
+     *
+     * @return  Changes made to the cache
+     *
+     * @since   1.2.0
+     */
+    private CacheReconciledEvent.Changes<InteractiveGroup> loadGroups(Set<InteractiveGroup> fetched, boolean reconcile) {
+        Map<String, InteractiveGroup> groups = cache.getGroups();
+        Map<String, InteractiveGroup> loaded = Maps.newHashMapWithExpectedSize(fetched.size());
+        List<InteractiveGroup> added = new ArrayList<>();
+        List<InteractiveGroup> updated = new ArrayList<>();
+        List<InteractiveGroup> removed = new ArrayList<>();
+        Set<String> fetchedIDs = Sets.newHashSetWithExpectedSize(fetched.size());
+        for (InteractiveGroup group : fetched) {
+            String groupID = group.getGroupID();
+            fetchedIDs.add(groupID);
+            if (touchedGroupIDs.contains(groupID)) {
+                continue;
+            }
+            InteractiveGroup cached = groups.get(groupID);
+            if (cached == null) {
+                added.add(group);
+                loaded.put(groupID, group);
+            }
+            else if (reconcile && !sameVersion(cached.getEtag(), group.getEtag())) {
+                updated.add(group);
+                loaded.put(groupID, group);
+            }
+        }
+        if (reconcile) {
+            for (InteractiveGroup cached : groups.values()) {
+                String groupID = cached.getGroupID();
+                if (!fetchedIDs.contains(groupID) && !touchedGroupIDs.contains(groupID) && groups.remove(groupID, cached)) {
+                    removed.add(cached);
+                }
+            }
+        }
+
+        groups.putAll(loaded);
+        if (!loaded.isEmpty() || !removed.isEmpty()) {
+            cache.publishSnapshot(snapshot -> {
+                snapshot = snapshot.withGroups(loaded);
+                for (InteractiveGroup group : removed) {
+                    snapshot = snapshot.withoutGroup(group.getGroupID());
+                }
+                return snapshot;
+            });
+        }
+        return new CacheReconciledEvent.Changes<>(added, updated, removed);
+    }
+
+    /**
+     * Loads fetched participants into the cache in one bulk insert and one snapshot version. The ConcurrentHashMap of
+     * the cache resizes its table once for the whole insert instead of doubling repeatedly. Participants that are not
+     * cached are added. When reconciling, participants whose etag changed are replaced and cached participants that
+     * have left are removed; the ParticipantIndex is only updated for those. Replaced participants are compared with
+     * their cached version through the {@link ChangeDetector}, like updates received through events.
+     *
+     * @param   fetched
+     *          Participants fetched from the service
+     * @param   reconcile
+     *          <code>true</code> if the cache is stale
+     * @param   changes
+     *          List the change events of replaced participants are added to
+     *
+     * @return  Changes made to the cache
+     *
+     * @since   1.2.0
+     */
+    private CacheReconciledEvent.Changes<InteractiveParticipant> loadParticipants(Set<InteractiveParticipant> fetched, boolean reconcile, List<CacheChangeEvent> changes) {
+        Map<String, InteractiveParticipant> participants = cache.getParticipants();
+        ParticipantIndex index = cache.getParticipantIndex();
+        Map<String, InteractiveParticipant> loaded = Maps.newHashMapWithExpectedSize(fetched.size());
+        List<InteractiveParticipant> added = new ArrayList<>();
+        List<InteractiveParticipant> updated = new ArrayList<>();
+        List<InteractiveParticipant> replaced = new ArrayList<>();
+        List<InteractiveParticipant> removed = new ArrayList<>();
+        Set<String> fetchedIDs = reconcile ? Sets.newHashSetWithExpectedSize(fetched.size()) : Collections.emptySet();
+        for (InteractiveParticipant participant : fetched) {
+            String sessionID = participant.getSessionID();
+            if (reconcile) {
+                fetchedIDs.add(sessionID);
+            }
+            if (touchedSessionIDs.contains(sessionID)) {
+                continue;
+            }
+            InteractiveParticipant cached = participants.get(sessionID);
+            if (cached == null) {
+                added.add(participant);
+                loaded.put(sessionID, participant);
+            }
+            else if (reconcile && !sameVersion(cached, participant)) {
+                ChangeDetector.diff(cache.getName(), cached, participant, changes);
+                updated.add(participant);
+                replaced.add(cached);
+                loaded.put(sessionID, participant);
+            }
+        }
+        if (reconcile) {
+            for (InteractiveParticipant cached : participants.values()) {
+                String sessionID = cached.getSessionID();
+                if (!fetchedIDs.contains(sessionID) && !touchedSessionIDs.contains(sessionID) && participants.remove(sessionID, cached)) {
+                    index.remove(cached);
+                    removed.add(cached);
+                }
+            }
+        }
+
+        participants.putAll(loaded);
+        added.forEach(participant -> index.update(null, participant));
+        for (int i = 0; i < updated.size(); i++) {
+            index.update(replaced.get(i), updated.get(i));
+        }
+        if (!loaded.isEmpty() || !removed.isEmpty()) {
+            cache.publishSnapshot(snapshot -> {
+                snapshot = snapshot.withParticipants(loaded);
+                for (InteractiveParticipant participant : removed) {
+                    snapshot = snapshot.withoutParticipant(participant.getSessionID());
+                }
+                return snapshot;
+            });
+        }
+        return new CacheReconciledEvent.Changes<>(added, updated, removed);
+    }
+
+    /**
+     * Remembers participants changed by an event during a warm-up.
+     *
+     * @param   participants
+     *          Participants of the event
+     *
+     * @since   1.2.0
+     */
+    private void touchParticipants(Set<InteractiveParticipant> participants) {
+        participants.forEach(participant -> touchedSessionIDs.add(participant.getSessionID()));
+    }
+
+    /**
+     * Returns whether a cached participant is the same version as a fetched one. Participants are compared by etag,
+     * or by the fields the game can change if either has no etag.
+     *
+     * @param   cached
+     *          Cached participant
+     * @param   fetched
+     *          Fetched participant
+     *
+     * @return  <code>true</code> if the cached participant is up to date, <code>false</code> otherwise
+     *
+     * @since   1.2.0
+     */
+    private static boolean sameVersion(InteractiveParticipant cached, InteractiveParticipant fetched) {
+        if (cached.getEtag() != null && fetched.getEtag() != null) {
+            return cached.getEtag().equals(fetched.getEtag());
+        }
+        return Objects.equals(cached.getGroupID(), fetched.getGroupID())
+                && cached.isDisabled() == fetched.isDisabled()
+                && cached.getLevel() == fetched.getLevel()
+                && Objects.equals(cached.getUsername(), fetched.getUsername())
+                && Objects.equals(cached.getLastInputAt(), fetched.getLastInputAt());
+    }
+
+    /**
+     * Returns whether two etags identify the same version of an object. Objects without an etag are never considered
+     * up to date.
+     *
+     * @param   cachedEtag
+     *          Etag of the cached object
+     * @param   fetchedEtag
+     *          Etag of the fetched object
+     *
+     * @return  <code>true</code> if the cached object is up to date, <code>false</code> otherwise
+     *
+     * @since   1.2.0
+     */
+    private static boolean sameVersion(String cachedEtag, String fetchedEtag) {
+        return cachedEtag != null && cachedEtag.equals(fetchedEtag);
+    }
+
+    /**
+     * Returns the number of objects added to or replaced in the cache.
+     *
+     * @param   changes
+     *          Changes made to the cache
+     *
+     * @return  Number of loaded objects
+     *
+     * @since   1.2.0
+     */
+    private static int loadedCount(CacheReconciledEvent.Changes<?> changes) {
+        return changes.getAdded().size() + changes.getUpdated().size();
+    }
+
+    /**
+     * Returns the provided Set, or an empty Set if the service returned none.
+     *
+     * @param   fetched
+     *          Fetched Set, possibly <code>null</code>
+     * @param   <T>
+     *          Resource type
+     *
+     * @return  Set of resources
+     *
+     * @since   1.2.0
+     */
+    private static <T> Set<T> nonNull(Set<T> fetched) {
+        return fetched != null ? fetched : Collections.emptySet();
+    }
+}
@@ -0,0 +1,136 @@
+package com.mixer.interactive.minecraft.lib.cache;
+
+import com.mixer.interactive.GameClient;
+import com.mixer.interactive.minecraft.lib.event.CacheChangeEvent;
+import com.mixer.interactive.minecraft.lib.event.ControlCooldownChangedEvent;
+import com.mixer.interactive.minecraft.lib.event.ControlDisabledChangedEvent;
+import com.mixer.interactive.minecraft.lib.event.ParticipantDisabledChangedEvent;
+import com.mixer.interactive.minecraft.lib.event.ParticipantGroupChangedEvent;
+import com.mixer.interactive.resources.control.ButtonControl;
+import com.mixer.interactive.resources.control.InteractiveControl;
+import com.mixer.interactive.resources.participant.InteractiveParticipant;
+
+import java.util.List;
+import java.util.Objects;
+
+/**
+ * Compares cached objects with their updated versions, to tell whether an update changes anything and which of the
+ * fields handlers react to it changes.
+ *
+ * @author      Microsoft Corporation
+ *
+ * @since       1.2.0
+ */
+public final class ChangeDetector {
+
+    /**
+     * Constructor.
+     *
+     * @since   1.2.0
+     */
+    private ChangeDetector() {
+    }
+
+    /**
+     * Returns whether an updated control is identical to the cached one. Controls with different etags are changed;
+     * controls with the same etag are compared field by field, since a control changed locally by the
+     * {@link ControlUpdateBuffer} keeps its etag until the service replies.
+     *
+     * @param   previous
+     *          Cached control
+     * @param   control
+     *          Updated control
+     *
+     * @return  <code>true</code> if the update changes nothing
+     *
+     * @since   1.2.0
+     */
+    public static boolean isUnchanged(InteractiveControl previous, InteractiveControl control) {
+        if (previous == control) {
+            return true;
+        }
+        if (previous.getEtag() == null || !previous.getEtag().equals(control.getEtag()) || previous.getClass() != control.getClass()) {
+            return false;
+        }
+        return GameClient.GSON.toJsonTree(previous).equals(GameClient.GSON.toJsonTree(control));
+    }
+
+    /**
+     * Returns whether an updated participant is identical to the cached one.
+     *
+     * @param   previous
+     *          Cached participant
+     * @param   participant
+     *          Updated participant
+     *
+     * @return  <code>true</code> if the update changes nothing
+     *
+     * @since   1.2.0
+     */
+    public static boolean isUnchanged(InteractiveParticipant previous, InteractiveParticipant participant) {
+        return previous == participant
+                || Objects.equals(previous.getEtag(), participant.getEtag())
+                && Objects.equals(previous.getGroupID(), participant.getGroupID())
+                && previous.isDisabled() == participant.isDisabled()
+                && previous.getLevel() == participant.getLevel()
+                && previous.getUserID() == participant.getUserID()
+                && Objects.equals(previous.getUsername(), participant.getUsername())
+                && Objects.equals(previous.getLastInputAt(), participant.getLastInputAt())
+                && Objects.equals(previous.getConnectedAt(), participant.getConnectedAt());
+    }
+
+    /**
+     * Adds an event to the provided list for each field handlers react to that differs between a cached control and
+     * its updated version: the disabled flag, and the cooldown of a button.
+     *
+     * @param   clientName
+     *          Name of the game client whose cache is updated
+     * @param   sceneID
+     *          Scene id of the control
+     * @param   previous
+     *          Cached control
+     * @param   control
+     *          Updated control
+     * @param   changes
+     *          List the change events are added to
+     *
+     * @since   1.2.0
+     */
+    public static void diff(String clientName, String sceneID, InteractiveControl previous, InteractiveControl control, List<CacheChangeEvent> changes) {
+        boolean disabled = Boolean.TRUE.equals(control.isDisabled());
+        if (Boolean.TRUE.equals(previous.isDisabled()) != disabled) {
+            changes.add(new ControlDisabledChangedEvent(clientName, sceneID, previous, control, disabled));
+        }
+        if (previous instanceof ButtonControl && control instanceof ButtonControl) {
+            Long previousCooldown = ((ButtonControl) previous).getCooldown();
+            Long cooldown = ((ButtonControl) control).getCooldown();
+            if (!Objects.equals(previousCooldown, cooldown)) {
+                changes.add(new ControlCooldownChangedEvent(clientName, sceneID, previous, control, previousCooldown, cooldown));
+            }
+        }
+    }
+
+    /**
+     * Adds an event to the provided list for each field handlers react to that differs between a cached participant
+     * and its updated version: the group, and the disabled flag.
+     *
+     * @param   clientName
+     *          Name of the game client whose cache is updated
+     * @param   previous
+     *          Cached participant
+     * @param   participant
+     *          Updated participant
+     * @param   changes
+     *          List the change events are added to
+     *
+     * @since   1.2.0
+     */
+    public static void diff(String clientName, InteractiveParticipant previous, InteractiveParticipant participant, List<CacheChangeEvent> changes) {
+        if (!Objects.equals(previous.getGroupID(), participant.getGroupID())) {
+            changes.add(new ParticipantGroupChangedEvent(clientName, previous, participant));
+        }
+        if (previous.isDisabled() != participant.isDisabled()) {
+            changes.add(new ParticipantDisabledChangedEvent(clientName, previous, participant));
+        }
+    }
+}
@@ -0,0 +1,589 @@
+package com.mixer.interactive.minecraft.lib.cache;
+
+import com.google.common.collect.Interner;
+import com.google.common.collect.Interners;
+import com.google.gson.JsonObject;
+import com.mixer.interactive.GameClient;
+import com.mixer.interactive.resources.participant.InteractiveParticipant;
+
+import java.lang.ref.WeakReference;
+import java.util.AbstractMap;
+import java.util.AbstractSet;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.NoSuchElementException;
+import java.util.Objects;
+import java.util.Set;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * A memory-bounded participant cache for channels with very large audiences, used in place of the default
+ * ConcurrentHashMap by {@link com.mixer.interactive.minecraft.lib.MixerInteractive#enableCompactParticipantStore(long, TimeUnit)}.
+ * <p>
+ * Participants are not kept as objects. Their fields are packed into parallel arrays indexed by a slot per session:
+ * user ids, levels and timestamps as primitives, usernames and group ids interned so that equal strings are stored
+ * once. An InteractiveParticipant is materialized from its slot when it is read and only weakly referenced afterwards,
+ * so a participant that is held somewhere keeps its identity, and one that is not costs no more than its slot.
+ * Participants that have not sent input for longer than the idle timeout can be evicted with {@link #evictIdle(long)}.
+ * <p>
+ * Only the standard participant fields are stored; custom metadata of a participant is not retained. Iterating over
+ * the store materializes participants one at a time. All operations are serialized on the store.
+ *
+ * @author      Microsoft Corporation
+ *
+ * @since       1.2.0
+ */
+public class CompactParticipantStore extends AbstractMap<String, InteractiveParticipant>
+        implements ConcurrentMap<String, InteractiveParticipant> {
+
+    /**
+     * Stored in place of a missing timestamp
+     */
+    private static final long NONE = Long.MIN_VALUE;
+
+    /**
+     * Default number of slots allocated up front
+     */
+    public static final int DEFAULT_INITIAL_CAPACITY = 1024;
+
+    /**
+     * Interner shared by usernames and group ids
+     */
+    private final Interner<String> interner = Interners.newWeakInterner();
+
+    /**
+     * Slot of each session, keyed by session id
+     */
+    private final Map<String, Integer> slots;
+
+    /**
+     * Idle timeout in milliseconds, 0 if participants are never evicted
+     */
+    private volatile long idleTimeoutMillis;
+
+    /**
+     * Session id of each slot
+     */
+    private String[] sessionIDs;
+
+    /**
+     * User id of each slot
+     */
+    private int[] userIDs;
+
+    /**
+     * Interned username of each slot
+     */
+    private String[] usernames;
+
+    /**
+     * Level of each slot
+     */
+    private int[] levels;
+
+    /**
+     * Time of the last input reported by the service for each slot, NONE if unknown
+     */
+    private long[] lastInputAt;
+
+    /**
+     * Connection time of each slot, NONE if unknown
+     */
+    private long[] connectedAt;
+
+    /**
+     * Whether the participant of each slot is disabled
+     */
+    private boolean[] disabled;
+
+    /**
+     * Interned group id of each slot
+     */
+    private String[] groupIDs;
+
+    /**
+     * Etag of each slot
+     */
+    private String[] etags;
+
+    /**
+     * Time of the last activity of each slot in milliseconds since the epoch, the later of its last input and its
+     * connection
+     */
+    private long[] lastActiveAt;
+
+    /**
+     * Last participant materialized from, or stored into, each slot
+     */
+    private WeakReference<InteractiveParticipant>[] materialized;
+
+    /**
+     * Slots released by removed participants
+     */
+    private int[] freeSlots;
+
+    /**
+     * Number of released slots
+     */
+    private int freeSlotCount;
+
+    /**
+     * Number of slots ever allocated
+     */
+    private int allocatedSlots;
+
+    /**
+     * Constructor.
+     *
+     * @param   initialCapacity
+     *          Number of slots allocated up front
+     * @param   idleTimeout
+     *          Time without input after which a participant is evicted, or 0 to never evict
+     * @param   unit
+     *          Unit of the idle timeout
+     *
+     * @since   1.2.0
+     */
+    @SuppressWarnings("unchecked")
+    public CompactParticipantStore(int initialCapacity, long idleTimeout, TimeUnit unit) {
+        int capacity = Math.max(16, initialCapacity);
+        slots = new HashMap<>(capacity * 4 / 3 + 1);
+        sessionIDs = new String[capacity];
+        userIDs = new int[capacity];
+        usernames = new String[capacity];
+        levels = new int[capacity];
+        lastInputAt = new long[capacity];
+        connectedAt = new long[capacity];
+        disabled = new boolean[capacity];
+        groupIDs = new String[capacity];
+        etags = new String[capacity];
+        lastActiveAt = new long[capacity];
+        materialized = new WeakReference[capacity];
+        freeSlots = new int[16];
+        setIdleTimeout(idleTimeout, unit);
+    }
+
+    /**
+     * Returns the idle timeout.
+     *
+     * @param   unit
+     *          Unit of the returned timeout
+     *
+     * @return  Time without input after which a participant is evicted, 0 if participants are never evicted
+     *
+     * @since   1.2.0
+     */
+    public long getIdleTimeout(TimeUnit unit) {
+        return unit.convert(idleTimeoutMillis, TimeUnit.MILLISECONDS);
+    }
+
+    /**
+     * Sets the idle timeout.
+     *
+     * @param   idleTimeout
+     *          Time without input after which a participant is evicted, or 0 to never evict
+     * @param   unit
+     *          Unit of the idle timeout
+     *
+     * @since   1.2.0
+     */
+    public void setIdleTimeout(long idleTimeout, TimeUnit unit) {
+        if (idleTimeout < 0) {
+            throw new IllegalArgumentException("idleTimeout must not be negative");
+        }
+        idleTimeoutMillis = unit.toMillis(idleTimeout);
+    }
+
+    /**
+     * Records activity of a participant, e.g. control input, so that it is not evicted.
+     *
+     * @param   sessionID
+     *          Session id of the participant
+     * @param   timeMillis
+     *          Time of the activity in milliseconds since the epoch
+     *
+     * @return  <code>true</code> if the participant is stored, <code>false</code> if it is unknown, e.g. because it was
+     *          evicted
+     *
+     * @since   1.2.0
+     */
+    public synchronized boolean touch(String sessionID, long timeMillis) {
+        Integer slot = sessionID != null ? slots.get(sessionID) : null;
+        if (slot == null) {
+            return false;
+        }
+        if (lastActiveAt[slot] < timeMillis) {
+            lastActiveAt[slot] = timeMillis;
+        }
+        return true;
+    }
+
+    /**
+     * Removes every participant whose last activity is older than the idle timeout. Does nothing if participants are
+     * never evicted.
+     *
+     * @param   nowMillis
+     *          Current time in milliseconds since the epoch
+     *
+     * @return  The evicted participants
+     *
+     * @since   1.2.0
+     */
+    public synchronized List<InteractiveParticipant> evictIdle(long nowMillis) {
+        long timeout = idleTimeoutMillis;
+        if (timeout == 0) {
+            return new ArrayList<>();
+        }
+        long threshold = nowMillis - timeout;
+        List<InteractiveParticipant> evicted = new ArrayList<>();
+        for (Iterator<Integer> iterator = slots.values().iterator(); iterator.hasNext(); ) {
+            int slot = iterator.next();
+            if (lastActiveAt[slot] < threshold) {
+                evicted.add(materialize(slot));
+                iterator.remove();
+                release(slot);
+            }
+        }
+        return evicted;
+    }
+
+    @Override
+    public synchronized int size() {
+        return slots.size();
+    }
+
+    @Override
+    public synchronized boolean containsKey(Object key) {
+        return slots.containsKey(key);
+    }
+
+    @Override
+    public synchronized InteractiveParticipant get(Object key) {
+        Integer slot = slots.get(key);
+        return slot != null ? materialize(slot) : null;
+    }
+
+    @Override
+    public synchronized InteractiveParticipant put(String key, InteractiveParticipant value) {
+        Objects.requireNonNull(value);
+        Integer slot = slots.get(key);
+        if (slot == null) {
+            store(allocate(key), value);
+            return null;
+        }
+        InteractiveParticipant previous = materialize(slot);
+        store(slot, value);
+        return previous;
+    }
+
+    @Override
+    public synchronized InteractiveParticipant putIfAbsent(String key, InteractiveParticipant value) {
+        Integer slot = slots.get(key);
+        if (slot != null) {
+            return materialize(slot);
+        }
+        store(allocate(Objects.requireNonNull(key)), Objects.requireNonNull(value));
+        return null;
+    }
+
+    @Override
+    public synchronized InteractiveParticipant replace(String key, InteractiveParticipant value) {
+        Objects.requireNonNull(value);
+        Integer slot = slots.get(key);
+        if (slot == null) {
+            return null;
+        }
+        InteractiveParticipant previous = materialize(slot);
+        store(slot, value);
+        return previous;
+    }
+
+    @Override
+    public synchronized boolean replace(String key, InteractiveParticipant oldValue, InteractiveParticipant newValue) {
+        Objects.requireNonNull(newValue);
+        Integer slot = slots.get(key);
+        if (slot == null || !matches(slot, oldValue)) {
+            return false;
+        }
+        store(slot, newValue);
+        return true;
+    }
+
+    @Override
+    public synchronized InteractiveParticipant remove(Object key) {
+        Integer slot = slots.remove(key);
+        if (slot == null) {
+            return null;
+        }
+        InteractiveParticipant previous = materialize(slot);
+        release(slot);
+        return previous;
+    }
+
+    @Override
+    public synchronized boolean remove(Object key, Object value) {
+        Integer slot = slots.get(key);
+        if (slot == null || !(value instanceof InteractiveParticipant) || !matches(slot, (InteractiveParticipant) value)) {
+            return false;
+        }
+        slots.remove(key);
+        release(slot);
+        return true;
+    }
+
+    @Override
+    public synchronized void clear() {
+        for (int slot : slots.values()) {
+            release(slot);
+        }
+        slots.clear();
+    }
+
+    /**
+     * Returns a view of the entries of the store. The iterator walks over the sessions present when it was created
+     * and materializes each participant as it is reached, skipping sessions removed in the meantime.
+     *
+     * @return  Set of entries
+     *
+     * @since   1.2.0
+     */
+    @Override
+    public Set<Map.Entry<String, InteractiveParticipant>> entrySet() {
+        return new AbstractSet<Map.Entry<String, InteractiveParticipant>>() {
+
+            @Override
+            public Iterator<Map.Entry<String, InteractiveParticipant>> iterator() {
+                String[] keys;
+                synchronized (CompactParticipantStore.this) {
+                    keys = slots.keySet().toArray(new String[0]);
+                }
+                return new Iterator<Map.Entry<String, InteractiveParticipant>>() {
+
+                    private int index;
+
+                    private Map.Entry<String, InteractiveParticipant> next;
+
+                    private String last;
+
+                    @Override
+                    public boolean hasNext() {
+                        while (next == null && index < keys.length) {
+                            String key = keys[index++];
+                            InteractiveParticipant participant = get(key);
+                            if (participant != null) {
+                                next = new AbstractMap.SimpleImmutableEntry<>(key, participant);
+                            }
+                        }
+                        return next != null;
+                    }
+
+                    @Override
+                    public Map.Entry<String, InteractiveParticipant> next() {
+                        if (!hasNext()) {
+                            throw new NoSuchElementException();
+                        }
+                        Map.Entry<String, InteractiveParticipant> entry = next;
+                        next = null;
+                        last = entry.getKey();
+                        return entry;
+                    }
+
+                    @Override
+                    public void remove() {
+                        if (last == null) {
+                            throw new IllegalStateException();
+                        }
+                        CompactParticipantStore.this.remove(last);
+                        last = null;
+                    }
+                };
+            }
+
+            @Override
+            public int size() {
+                return CompactParticipantStore.this.size();
+            }
+        };
+    }
+
+    /**
+     * Returns the participant of a slot, materializing it from the packed fields unless the last materialized
+     * instance is still referenced.
+     *
+     * @param   slot
+     *          Slot
+     *
+     * @return  InteractiveParticipant
+     *
+     * @since   1.2.0
+     */
+    private InteractiveParticipant materialize(int slot) {
+        WeakReference<InteractiveParticipant> reference = materialized[slot];
+        InteractiveParticipant participant = reference != null ? reference.get() : null;
+        if (participant == null) {
+            JsonObject json = new JsonObject();
+            json.addProperty("sessionID", sessionIDs[slot]);
+            json.addProperty("userID", userIDs[slot]);
+            json.addProperty("username", usernames[slot]);
+            json.addProperty("level", levels[slot]);
+            if (lastInputAt[slot] != NONE) {
+                json.addProperty("lastInputAt", lastInputAt[slot]);
+            }
+            if (connectedAt[slot] != NONE) {
+                json.addProperty("connectedAt", connectedAt[slot]);
+            }
+            json.addProperty("disabled", disabled[slot]);
+            json.addProperty("groupID", groupIDs[slot]);
+            json.addProperty("etag", etags[slot]);
+            participant = GameClient.GSON.fromJson(json, InteractiveParticipant.class);
+            materialized[slot] = new WeakReference<>(participant);
+        }
+        return participant;
+    }
+
+    /**
+     * Packs the fields of a participant into a slot.
+     *
+     * @param   slot
+     *          Slot
+     * @param   participant
+     *          InteractiveParticipant
+     *
+     * @since   1.2.0
+     */
+    private void store(int slot, InteractiveParticipant participant) {
+        boolean occupied = materialized[slot] != null;
+        userIDs[slot] = participant.getUserID();
+        usernames[slot] = intern(participant.getUsername());
+        levels[slot] = participant.getLevel();
+        lastInputAt[slot] = participant.getLastInputAt() != null ? participant.getLastInputAt() : NONE;
+        connectedAt[slot] = participant.getConnectedAt() != null ? participant.getConnectedAt() : NONE;
+        disabled[slot] = participant.isDisabled();
+        groupIDs[slot] = intern(participant.getGroupID());
+        etags[slot] = participant.getEtag();
+        long activeAt = Math.max(lastInputAt[slot], connectedAt[slot]);
+        if (activeAt == NONE) {
+            activeAt = System.currentTimeMillis();
+        }
+        lastActiveAt[slot] = occupied ? Math.max(lastActiveAt[slot], activeAt) : activeAt;
+        materialized[slot] = new WeakReference<>(participant);
+    }
+
+    /**
+     * Returns whether a participant is the one stored in a slot, either the same instance or one with equal fields.
+     *
+     * @param   slot
+     *          Slot
+     * @param   participant
+     *          InteractiveParticipant
+     *
+     * @return  <code>true</code> if the participant matches the slot, <code>false</code> otherwise
+     *
+     * @since   1.2.0
+     */
+    private boolean matches(int slot, InteractiveParticipant participant) {
+        WeakReference<InteractiveParticipant> reference = materialized[slot];
+        if (participant == null) {
+            return false;
+        }
+        if (reference != null && reference.get() == participant) {
+            return true;
+        }
+        return Objects.equals(sessionIDs[slot], participant.getSessionID())
+                && userIDs[slot] == participant.getUserID()
+                && Objects.equals(usernames[slot], participant.getUsername())
+                && levels[slot] == participant.getLevel()
+                && lastInputAt[slot] == (participant.getLastInputAt() != null ? participant.getLastInputAt() : NONE)
+                && connectedAt[slot] == (participant.getConnectedAt() != null ? participant.getConnectedAt() : NONE)
+                && disabled[slot] == participant.isDisabled()
+                && Objects.equals(groupIDs[slot], participant.getGroupID())
+                && Objects.equals(etags[slot], participant.getEtag());
+    }
+
+    /**
+     * Assigns a slot to a new session, reusing a released slot if there is one and growing the arrays otherwise.
+     *
+     * @param   sessionID
+     *          Session id
+     *
+     * @return  Slot
+     *
+     * @since   1.2.0
+     */
+    private int allocate(String sessionID) {
+        int slot;
+        if (freeSlotCount > 0) {
+            slot = freeSlots[--freeSlotCount];
+        }
+        else {
+            if (allocatedSlots == sessionIDs.length) {
+                grow(sessionIDs.length * 2);
+            }
+            slot = allocatedSlots++;
+        }
+        sessionIDs[slot] = sessionID;
+        slots.put(sessionID, slot);
+        return slot;
+    }
+
+    /**
+     * Clears a slot and makes it available for reuse. The slot must already be removed from the slot map.
+     *
+     * @param   slot
+     *          Slot
+     *
+     * @since   1.2.0
+     */
+    private void release(int slot) {
+        sessionIDs[slot] = null;
+        usernames[slot] = null;
+        groupIDs[slot] = null;
+        etags[slot] = null;
+        materialized[slot] = null;
+        if (freeSlotCount == freeSlots.length) {
+            freeSlots = Arrays.copyOf(freeSlots, freeSlots.length * 2);
+        }
+        freeSlots[freeSlotCount++] = slot;
+    }
+
+    /**
+     * Grows every column to a new capacity.
+     *
+     * @param   capacity
+     *          New number of slots
+     *
+     * @since   1.2.0
+     */
+    private void grow(int capacity) {
+        sessionIDs = Arrays.copyOf(sessionIDs, capacity);
+        userIDs = Arrays.copyOf(userIDs, capacity);
+        usernames = Arrays.copyOf(usernames, capacity);
+        levels = Arrays.copyOf(levels, capacity);
+        lastInputAt = Arrays.copyOf(lastInputAt, capacity);
+        connectedAt = Arrays.copyOf(connectedAt, capacity);
+        disabled = Arrays.copyOf(disabled, capacity);
+        groupIDs = Arrays.copyOf(groupIDs, capacity);
+        etags = Arrays.copyOf(etags, capacity);
+        lastActiveAt = Arrays.copyOf(lastActiveAt, capacity);
+        materialized = Arrays.copyOf(materialized, capacity);
+    }
+
+    /**
+     * Interns a username or group id.
+     *
+     * @param   value
+     *          String, possibly <code>null</code>
+     *
+     * @return  The interned String, or <code>null</code>
+     *
+     * @since   1.2.0
+     */
+    private String intern(String value) {
+        return value != null ? interner.intern(value) : null;
+    }
+}
@@ -0,0 +1,208 @@
+package com.mixer.interactive.minecraft.lib.cache;
+
+import com.mixer.interactive.resources.control.InteractiveControl;
+import com.mixer.interactive.resources.scene.InteractiveScene;
+
+import java.util.Collection;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Index of the InteractiveControls belonging to each locally cached InteractiveScene, keyed by scene id and then by
+ * control id. The controls of each scene are held as a PersistentMap by a holder of their own, so a write only copies
+ * the trie nodes on the path to the controls that changed.
+ * <p>
+ * Each scene has its own holder, which is also the write lock of the scene, so writers to different scenes never
+ * contend with each other. Control writes replace the map of the scene's holder without publishing a new CacheSnapshot;
+ * snapshots refer to the holders and only change when scenes are added, replaced or removed. Readers always see a
+ * consistent set of controls without taking any lock. The control Set of the <code>InteractiveScene</code> in the scene
+ * cache is kept in step under the same per-scene lock, for callers of the scene cache; the snapshot only holds copies of
+ * the scenes without controls, so its controls are only ever served from the index. Callers reading controls from
+ * another thread should use {@link #getControls(String)}.
+ *
+ * @author      Microsoft Corporation
+ *
+ * @since       1.2.0
+ */
+public class ControlIndex {
+
+    /**
+     * Publisher of the snapshot the scenes are stored in
+     */
+    private final SnapshotPublisher snapshots;
+
+    /**
+     * Controls of each indexed scene, keyed by scene id
+     */
+    private final Map<String, SceneControls> sceneControls = new ConcurrentHashMap<>();
+
+    /**
+     * Constructor.
+     *
+     * @param   snapshots
+     *          Publisher of the snapshot the scenes are stored in
+     *
+     * @since   1.2.0
+     */
+    public ControlIndex(SnapshotPublisher snapshots) {
+        this.snapshots = snapshots;
+    }
+
+    /**
+     * Publishes a scene and indexes all of its controls, replacing any controls previously indexed for that scene.
+     *
+     * @param   scene
+     *          InteractiveScene
+     *
+     * @since   1.2.0
+     */
+    public void indexScene(InteractiveScene scene) {
+        PersistentMap<String, InteractiveControl> controls = PersistentMap.empty();
+        if (scene.getControls() != null) {
+            for (InteractiveControl control : scene.getControls()) {
+                controls = controls.plus(control.getControlID(), control);
+            }
+        }
+
+        String sceneID = scene.getSceneID();
+        InteractiveScene published = CacheSnapshot.withoutControls(scene);
+        while (true) {
+            SceneControls holder = sceneControls.computeIfAbsent(sceneID, id -> new SceneControls(PersistentMap.empty()));
+            synchronized (holder) {
+                // The holder may have been dropped by removeScene while this thread waited for its lock
+                if (sceneControls.get(sceneID) == holder) {
+                    holder.set(controls);
+                    snapshots.publish(s -> s.withScene(published, holder));
+                    return;
+                }
+            }
+        }
+    }
+
+    /**
+     * Removes a scene and all of its indexed controls.
+     *
+     * @param   sceneID
+     *          Scene id
+     *
+     * @since   1.2.0
+     */
+    public void removeScene(String sceneID) {
+        SceneControls holder = sceneControls.get(sceneID);
+        if (holder != null) {
+            synchronized (holder) {
+                if (sceneControls.remove(sceneID, holder)) {
+                    snapshots.publish(s -> s.withoutScene(sceneID));
+                }
+            }
+        }
+    }
+
+    /**
+     * Removes every scene and control from the index. The scenes themselves are dropped from the snapshot when it is
+     * cleared.
+     *
+     * @since   1.2.0
+     */
+    public void clear() {
+        sceneControls.clear();
+    }
+
+    /**
+     * Adds or replaces controls in the index of a scene, and in the control Set of the scene itself. Controls of a scene
+     * that is not indexed are ignored.
+     *
+     * @param   scene
+     *          Cached InteractiveScene the controls belong to
+     * @param   controls
+     *          Created or updated InteractiveControls
+     *
+     * @since   1.2.0
+     */
+    public void put(InteractiveScene scene, Collection<InteractiveControl> controls) {
+        SceneControls holder = sceneControls.get(scene.getSceneID());
+        if (holder == null) {
+            return;
+        }
+
+        synchronized (holder) {
+            PersistentMap<String, InteractiveControl> previous = holder.get();
+            PersistentMap<String, InteractiveControl> next = previous;
+            for (InteractiveControl control : controls) {
+                next = next.plus(control.getControlID(), control);
+            }
+            holder.set(next);
+
+            for (InteractiveControl control : controls) {
+                InteractiveControl replaced = previous.get(control.getControlID());
+                scene.getControls().remove(replaced != null ? replaced : control);
+                scene.getControls().add(control);
+            }
+        }
+    }
+
+    /**
+     * Removes controls from the index of a scene, and from the control Set of the scene itself.
+     *
+     * @param   scene
+     *          Cached InteractiveScene the controls belong to
+     * @param   controlIDs
+     *          Ids of the deleted controls
+     *
+     * @since   1.2.0
+     */
+    public void remove(InteractiveScene scene, Collection<String> controlIDs) {
+        SceneControls holder = sceneControls.get(scene.getSceneID());
+        if (holder == null) {
+            return;
+        }
+
+        synchronized (holder) {
+            PersistentMap<String, InteractiveControl> previous = holder.get();
+            PersistentMap<String, InteractiveControl> next = previous;
+            for (String controlID : controlIDs) {
+                next = next.minus(controlID);
+            }
+            holder.set(next);
+
+            for (String controlID : controlIDs) {
+                InteractiveControl control = previous.get(controlID);
+                if (control != null) {
+                    scene.getControls().remove(control);
+                }
+            }
+        }
+    }
+
+    /**
+     * Returns the indexed control with the provided control id in the provided scene.
+     *
+     * @param   sceneID
+     *          Scene id
+     * @param   controlID
+     *          Control id
+     *
+     * @return  The indexed <code>InteractiveControl</code> if one exists, <code>null</code> otherwise
+     *
+     * @since   1.2.0
+     */
+    public InteractiveControl get(String sceneID, String controlID) {
+        return getControls(sceneID).get(controlID);
+    }
+
+    /**
+     * Returns a consistent, immutable view of the controls of a scene, keyed by control id. The view does not change
+     * when the scene is subsequently updated.
+     *
+     * @param   sceneID
+     *          Scene id
+     *
+     * @return  Immutable Map of InteractiveControls
+     *
+     * @since   1.2.0
+     */
+    public PersistentMap<String, InteractiveControl> getControls(String sceneID) {
+        SceneControls holder = sceneControls.get(sceneID);
+        return holder != null ? holder.get() : PersistentMap.empty();
+    }
+}
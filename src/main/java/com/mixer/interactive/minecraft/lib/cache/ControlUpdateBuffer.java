@@ -0,0 +1,248 @@
+package com.mixer.interactive.minecraft.lib.cache;
+
+import com.mixer.interactive.GameClient;
+import com.mixer.interactive.minecraft.lib.MixerInteractive;
+import com.mixer.interactive.resources.control.InteractiveControl;
+import net.minecraftforge.fml.common.eventhandler.SubscribeEvent;
+import net.minecraftforge.fml.common.gameevent.TickEvent;
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Consumer;
+
+import static com.mixer.interactive.GameClient.CONTROL_SERVICE_PROVIDER;
+
+/**
+ * Buffers outbound changes to InteractiveControls and sends them to the Mixer Interactive service as one batched update
+ * per scene, once per server tick or as soon as the number of pending controls reaches the batch size.
+ * <p>
+ * The first change to a control in a batch is applied to a copy of the cached control, and every later change in the
+ * same batch is applied to that same copy, so successive changes to the same field collapse into the last one while
+ * changes to different fields are all kept. When a batch is flushed, the copies are applied to the local cache straight
+ * away, before the service replies, and the controls returned by the service replace them once it does.
+ *
+ * @author      Microsoft Corporation
+ *
+ * @since       1.2.0
+ */
+public class ControlUpdateBuffer {
+
+    /**
+     * Logger
+     */
+    private static final Logger LOG = LogManager.getLogger();
+
+    /**
+     * Default number of pending controls that triggers an immediate flush
+     */
+    public static final int DEFAULT_BATCH_SIZE = 500;
+
+    /**
+     * Pending control copies keyed by control id, keyed by scene id, guarded by <code>this</code>
+     */
+    private Map<String, Map<String, InteractiveControl>> pending = new LinkedHashMap<>();
+
+    /**
+     * Number of pending controls, guarded by <code>this</code>
+     */
+    private int pendingCount;
+
+    /**
+     * Number of pending controls that triggers an immediate flush
+     */
+    private volatile int batchSize = DEFAULT_BATCH_SIZE;
+
+    /**
+     * Number of changes submitted to the buffer
+     */
+    private final AtomicLong submittedChanges = new AtomicLong();
+
+    /**
+     * Number of batched updates sent to the service
+     */
+    private final AtomicLong sentUpdates = new AtomicLong();
+
+    /**
+     * Buffers a change to a cached control.
+     *
+     * @param   sceneID
+     *          Scene id of the control
+     * @param   controlID
+     *          Control id
+     * @param   change
+     *          Change to apply to the control
+     *
+     * @return  <code>true</code> if the change was buffered, <code>false</code> if the control is not cached
+     *
+     * @since   1.2.0
+     */
+    public boolean update(String sceneID, String controlID, Consumer<InteractiveControl> change) {
+        return update(sceneID, controlID, InteractiveControl.class, change);
+    }
+
+    /**
+     * Buffers a change to a cached control of a specific type, e.g. <code>ButtonControl</code>.
+     *
+     * @param   sceneID
+     *          Scene id of the control
+     * @param   controlID
+     *          Control id
+     * @param   controlType
+     *          Expected type of the control
+     * @param   change
+     *          Change to apply to the control
+     * @param   <T>
+     *          Control type
+     *
+     * @return  <code>true</code> if the change was buffered, <code>false</code> if the control is not cached or is not
+     *          of the expected type
+     *
+     * @since   1.2.0
+     */
+    public <T extends InteractiveControl> boolean update(String sceneID, String controlID, Class<T> controlType, Consumer<? super T> change) {
+        boolean flush;
+        synchronized (this) {
+            Map<String, InteractiveControl> sceneControls = pending.get(sceneID);
+            InteractiveControl control = sceneControls != null ? sceneControls.get(controlID) : null;
+            if (control == null) {
+                InteractiveControl cached = MixerInteractive.getControl(sceneID, controlID);
+                if (cached == null || !controlType.isInstance(cached)) {
+                    LOG.warn("Ignoring update to control '{}' in scene '{}', no cached {} found", controlID, sceneID, controlType.getSimpleName());
+                    return false;
+                }
+                control = copy(cached);
+                pending.computeIfAbsent(sceneID, id -> new LinkedHashMap<>()).put(controlID, control);
+                pendingCount++;
+            }
+            change.accept(controlType.cast(control));
+            flush = pendingCount >= batchSize;
+        }
+
+        submittedChanges.incrementAndGet();
+        if (flush) {
+            flush();
+        }
+        return true;
+    }
+
+    /**
+     * Sends every pending control to the service, one batched update per scene, and applies them to the local cache.
+     *
+     * @since   1.2.0
+     */
+    public void flush() {
+        Map<String, Map<String, InteractiveControl>> batch;
+        synchronized (this) {
+            if (pendingCount == 0) {
+                return;
+            }
+            batch = pending;
+            pending = new LinkedHashMap<>();
+            pendingCount = 0;
+        }
+
+        GameClient gameClient = MixerInteractive.getGameClient();
+        for (Map.Entry<String, Map<String, InteractiveControl>> entry : batch.entrySet()) {
+            Set<InteractiveControl> controls = new LinkedHashSet<>(entry.getValue().values());
+            applyToCache(entry.getKey(), controls);
+            if (gameClient == null) {
+                continue;
+            }
+
+            sentUpdates.incrementAndGet();
+            gameClient.using(CONTROL_SERVICE_PROVIDER).update(controls)
+                    .thenAccept(updated -> {
+                        if (updated != null) {
+                            applyToCache(entry.getKey(), updated);
+                        }
+                    })
+                    .exceptionally(throwable -> {
+                        LOG.error("Failed to update {} controls in scene '{}'", controls.size(), entry.getKey(), throwable);
+                        return null;
+                    });
+        }
+    }
+
+    /**
+     * Flushes pending controls at the end of every server tick.
+     *
+     * @param   event
+     *          ServerTickEvent
+     *
+     * @since   1.2.0
+     */
+    @SubscribeEvent
+    public void onServerTick(TickEvent.ServerTickEvent event) {
+        if (event.phase == TickEvent.Phase.END) {
+            flush();
+        }
+    }
+
+    /**
+     * Sets the number of pending controls that triggers an immediate flush.
+     *
+     * @param   batchSize
+     *          Batch size
+     *
+     * @since   1.2.0
+     */
+    public void setBatchSize(int batchSize) {
+        this.batchSize = Math.max(1, batchSize);
+    }
+
+    /**
+     * Returns the number of changes submitted to the buffer.
+     *
+     * @return  Submitted change count
+     *
+     * @since   1.2.0
+     */
+    public long getSubmittedChangeCount() {
+        return submittedChanges.get();
+    }
+
+    /**
+     * Returns the number of batched updates sent to the service.
+     *
+     * @return  Sent update count
+     *
+     * @since   1.2.0
+     */
+    public long getSentUpdateCount() {
+        return sentUpdates.get();
+    }
+
+    /**
+     * Applies controls to the local cache if their scene is still cached, posting change events for the fields they
+     * change.
+     *
+     * @param   sceneID
+     *          Scene id
+     * @param   controls
+     *          InteractiveControls
+     *
+     * @since   1.2.0
+     */
+    private static void applyToCache(String sceneID, Set<InteractiveControl> controls) {
+        MixerInteractive.getCache().updateControls(sceneID, controls);
+    }
+
+    /**
+     * Returns a deep copy of a control, so that buffered changes never mutate the instance held by the cache.
+     *
+     * @param   control
+     *          InteractiveControl
+     *
+     * @return  A copy of the control
+     *
+     * @since   1.2.0
+     */
+    private static InteractiveControl copy(InteractiveControl control) {
+        return GameClient.GSON.fromJson(GameClient.GSON.toJsonTree(control), control.getClass());
+    }
+}
@@ -0,0 +1,217 @@
+package com.mixer.interactive.minecraft.lib.cache;
+
+import com.mixer.interactive.GameClient;
+import com.mixer.interactive.minecraft.lib.event.CacheChangeEvent;
+import com.mixer.interactive.resources.participant.InteractiveParticipant;
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.IdentityHashMap;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+
+import static com.mixer.interactive.GameClient.PARTICIPANT_SERVICE_PROVIDER;
+
+/**
+ * Moves many participants to a group at once. The participants are split into chunks of at most the batch size, and
+ * one update per chunk is sent to the Mixer Interactive service without waiting for the previous chunk to be
+ * acknowledged. Each chunk is applied to the local participant cache, the ParticipantIndex and the cache snapshot as
+ * soon as it is sent. If the service rejects a chunk, the participants of that chunk are rolled back, unless they have
+ * been changed again in the meantime.
+ *
+ * @author      Microsoft Corporation
+ *
+ * @since       1.2.0
+ */
+public class ParticipantGroupMover {
+
+    /**
+     * Logger
+     */
+    private static final Logger LOG = LogManager.getLogger();
+
+    /**
+     * Default maximum number of participants sent in one update
+     */
+    public static final int DEFAULT_BATCH_SIZE = 100;
+
+    /**
+     * Maximum number of participants sent in one update
+     */
+    private volatile int batchSize = DEFAULT_BATCH_SIZE;
+
+    /**
+     * Cache of the game client the participants belong to
+     */
+    private final CacheShard cache;
+
+    /**
+     * Constructor.
+     *
+     * @param   cache
+     *          Cache of the game client the participants belong to
+     *
+     * @since   1.2.0
+     */
+    public ParticipantGroupMover(CacheShard cache) {
+        this.cache = cache;
+    }
+
+    /**
+     * Moves the provided participants to a group.
+     *
+     * @param   participants
+     *          Participants to move
+     * @param   groupID
+     *          Id of the target group
+     *
+     * @return  A CompletableFuture that completes with the number of participants moved once every chunk has been
+     *          acknowledged, or exceptionally if any chunk was rejected
+     *
+     * @since   1.2.0
+     */
+    public CompletableFuture<Integer> move(Collection<InteractiveParticipant> participants, String groupID) {
+        GameClient gameClient = cache.getGameClient();
+        if (gameClient == null) {
+            CompletableFuture<Integer> failed = new CompletableFuture<>();
+            failed.completeExceptionally(new IllegalStateException("No game client"));
+            return failed;
+        }
+
+        List<CompletableFuture<Integer>> chunks = new ArrayList<>();
+        Map<InteractiveParticipant, InteractiveParticipant> chunk = new LinkedHashMap<>();
+        for (InteractiveParticipant requested : participants) {
+            InteractiveParticipant participant = cache.getParticipants().getOrDefault(requested.getSessionID(), requested);
+            if (Objects.equals(participant.getGroupID(), groupID)) {
+                continue;
+            }
+            chunk.put(participant, copy(participant).changeGroup(groupID));
+            if (chunk.size() >= batchSize) {
+                chunks.add(send(gameClient, chunk));
+                chunk = new LinkedHashMap<>();
+            }
+        }
+        if (!chunk.isEmpty()) {
+            chunks.add(send(gameClient, chunk));
+        }
+
+        return CompletableFuture.allOf(chunks.toArray(new CompletableFuture[0]))
+                .thenApply(ignored -> chunks.stream().mapToInt(CompletableFuture::join).sum());
+    }
+
+    /**
+     * Sets the maximum number of participants sent in one update.
+     *
+     * @param   batchSize
+     *          Batch size
+     *
+     * @since   1.2.0
+     */
+    public void setBatchSize(int batchSize) {
+        this.batchSize = Math.max(1, batchSize);
+    }
+
+    /**
+     * Applies one chunk to the local cache and sends it to the service, rolling it back if the service rejects it.
+     *
+     * @param   gameClient
+     *          Game client
+     * @param   chunk
+     *          Moved participants keyed by the participant they replace
+     *
+     * @return  A CompletableFuture that completes with the size of the chunk once it has been acknowledged
+     *
+     * @since   1.2.0
+     */
+    private CompletableFuture<Integer> send(GameClient gameClient, Map<InteractiveParticipant, InteractiveParticipant> chunk) {
+        Map<InteractiveParticipant, InteractiveParticipant> applied = replaceAll(chunk);
+        Set<InteractiveParticipant> moved = new LinkedHashSet<>(chunk.values());
+        Set<InteractiveParticipant> sent = Collections.newSetFromMap(new IdentityHashMap<>());
+        sent.addAll(chunk.values());
+        return gameClient.using(PARTICIPANT_SERVICE_PROVIDER).update(moved)
+                .handle((updated, throwable) -> {
+                    if (throwable != null) {
+                        LOG.error("Failed to move {} participants, rolling back", moved.size(), throwable);
+                        Map<InteractiveParticipant, InteractiveParticipant> rollback = new LinkedHashMap<>();
+                        applied.forEach((original, replacement) -> rollback.put(replacement, original));
+                        replaceAll(rollback);
+                        throw new IllegalStateException("Failed to move participants", throwable);
+                    }
+                    if (updated != null) {
+                        Map<InteractiveParticipant, InteractiveParticipant> acknowledged = new LinkedHashMap<>();
+                        for (InteractiveParticipant participant : updated) {
+                            InteractiveParticipant cached = cache.getParticipants().get(participant.getSessionID());
+                            if (cached != null && sent.contains(cached)) {
+                                acknowledged.put(cached, participant);
+                            }
+                        }
+                        replaceAll(acknowledged);
+                    }
+                    return moved.size();
+                });
+    }
+
+    /**
+     * Replaces participants in the participant cache, the ParticipantIndex and the cache snapshot, and posts a change
+     * event for each field that changed. A participant is only replaced if the cache still holds the exact instance
+     * being replaced.
+     *
+     * @param   replacements
+     *          Replacement participants keyed by the participant they replace
+     *
+     * @return  The replacements that were applied
+     *
+     * @since   1.2.0
+     */
+    private Map<InteractiveParticipant, InteractiveParticipant> replaceAll(Map<InteractiveParticipant, InteractiveParticipant> replacements) {
+        Map<InteractiveParticipant, InteractiveParticipant> applied = new LinkedHashMap<>();
+        replacements.forEach((expected, replacement) -> {
+            boolean[] replaced = new boolean[1];
+            cache.getParticipants().computeIfPresent(expected.getSessionID(), (sessionID, current) -> {
+                replaced[0] = current == expected;
+                return replaced[0] ? replacement : current;
+            });
+            if (replaced[0]) {
+                cache.getParticipantIndex().update(expected, replacement);
+                applied.put(expected, replacement);
+            }
+        });
+
+        if (!applied.isEmpty()) {
+            Collection<InteractiveParticipant> values = applied.values();
+            cache.publishSnapshot(snapshot -> {
+                for (InteractiveParticipant participant : values) {
+                    snapshot = snapshot.withParticipant(participant);
+                }
+                return snapshot;
+            });
+
+            List<CacheChangeEvent> changes = new ArrayList<>();
+            applied.forEach((previous, participant) -> ChangeDetector.diff(cache.getName(), previous, participant, changes));
+            cache.postChanges(changes);
+        }
+        return applied;
+    }
+
+    /**
+     * Returns a deep copy of a participant, so that the instance held by the cache is never mutated.
+     *
+     * @param   participant
+     *          InteractiveParticipant
+     *
+     * @return  A copy of the participant
+     *
+     * @since   1.2.0
+     */
+    private static InteractiveParticipant copy(InteractiveParticipant participant) {
+        return GameClient.GSON.fromJson(GameClient.GSON.toJsonTree(participant), InteractiveParticipant.class);
+    }
+}
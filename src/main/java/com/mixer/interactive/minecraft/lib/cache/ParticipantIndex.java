@@ -0,0 +1,248 @@
+package com.mixer.interactive.minecraft.lib.cache;
+
+import com.mixer.interactive.resources.participant.InteractiveParticipant;
+
+import java.util.Collections;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Secondary indexes over the locally cached InteractiveParticipants. Participants are indexed by user id, username and
+ * group id so that lookups do not need to scan the whole participant cache. The index only stores session ids, which
+ * are resolved against the backing participant cache, so replacing a participant object in the cache never leaves a
+ * stale object behind in the index. A user may be connected with several sessions at once, so every index maps its key
+ * to the set of session ids having it.
+ *
+ * @author      Microsoft Corporation
+ *
+ * @since       1.2.0
+ */
+public class ParticipantIndex {
+
+    /**
+     * Backing participant cache, keyed by session id
+     */
+    private final Map<String, InteractiveParticipant> participants;
+
+    /**
+     * Session ids keyed by user id
+     */
+    private final Map<Integer, Set<String>> sessionsByUserID = new ConcurrentHashMap<>();
+
+    /**
+     * Session ids keyed by lower case username
+     */
+    private final Map<String, Set<String>> sessionsByUsername = new ConcurrentHashMap<>();
+
+    /**
+     * Session ids of the members of each group, keyed by group id
+     */
+    private final Map<String, Set<String>> sessionsByGroup = new ConcurrentHashMap<>();
+
+    /**
+     * Constructor.
+     *
+     * @param   participants
+     *          Participant cache that session ids are resolved against
+     *
+     * @since   1.2.0
+     */
+    public ParticipantIndex(Map<String, InteractiveParticipant> participants) {
+        this.participants = participants;
+    }
+
+    /**
+     * Indexes a participant that has been added to, or replaced in, the participant cache.
+     *
+     * @param   previous
+     *          The participant previously cached for the same session, or <code>null</code> if there was none
+     * @param   current
+     *          The participant now cached
+     *
+     * @since   1.2.0
+     */
+    public void update(InteractiveParticipant previous, InteractiveParticipant current) {
+        if (current == null) {
+            return;
+        }
+        if (previous == null) {
+            add(current);
+            return;
+        }
+
+        String sessionID = current.getSessionID();
+        if (previous.getUserID() != current.getUserID()) {
+            removeSession(sessionsByUserID, previous.getUserID(), sessionID);
+            addSession(sessionsByUserID, current.getUserID(), sessionID);
+        }
+        if (!Objects.equals(normalize(previous.getUsername()), normalize(current.getUsername()))) {
+            removeSession(sessionsByUsername, normalize(previous.getUsername()), sessionID);
+            addSession(sessionsByUsername, normalize(current.getUsername()), sessionID);
+        }
+        if (!Objects.equals(previous.getGroupID(), current.getGroupID())) {
+            removeSession(sessionsByGroup, previous.getGroupID(), sessionID);
+            addSession(sessionsByGroup, current.getGroupID(), sessionID);
+        }
+    }
+
+    /**
+     * Removes a participant that has been removed from the participant cache from the index.
+     *
+     * @param   participant
+     *          The participant that was removed
+     *
+     * @since   1.2.0
+     */
+    public void remove(InteractiveParticipant participant) {
+        if (participant == null) {
+            return;
+        }
+
+        String sessionID = participant.getSessionID();
+        removeSession(sessionsByUserID, participant.getUserID(), sessionID);
+        removeSession(sessionsByUsername, normalize(participant.getUsername()), sessionID);
+        removeSession(sessionsByGroup, participant.getGroupID(), sessionID);
+    }
+
+    /**
+     * Removes every entry from the index.
+     *
+     * @since   1.2.0
+     */
+    public void clear() {
+        sessionsByUserID.clear();
+        sessionsByUsername.clear();
+        sessionsByGroup.clear();
+    }
+
+    /**
+     * Returns a cached participant with the provided user id. If the user is connected with several sessions, any one
+     * of them is returned; see {@link #getSessionIDsByUserID(int)} for all of them.
+     *
+     * @param   userID
+     *          User id
+     *
+     * @return  The cached <code>InteractiveParticipant</code> if one exists, <code>null</code> otherwise
+     *
+     * @since   1.2.0
+     */
+    public InteractiveParticipant getByUserID(int userID) {
+        return resolveAny(sessionsByUserID.get(userID));
+    }
+
+    /**
+     * Returns the session ids of all cached participants with the provided user id.
+     *
+     * @param   userID
+     *          User id
+     *
+     * @return  An unmodifiable, live Set of session ids
+     *
+     * @since   1.2.0
+     */
+    public Set<String> getSessionIDsByUserID(int userID) {
+        Set<String> sessions = sessionsByUserID.get(userID);
+        return sessions != null ? Collections.unmodifiableSet(sessions) : Collections.emptySet();
+    }
+
+    /**
+     * Returns a cached participant with the provided username. Usernames are matched case insensitively. If the user is
+     * connected with several sessions, any one of them is returned.
+     *
+     * @param   username
+     *          Username
+     *
+     * @return  The cached <code>InteractiveParticipant</code> if one exists, <code>null</code> otherwise
+     *
+     * @since   1.2.0
+     */
+    public InteractiveParticipant getByUsername(String username) {
+        String key = normalize(username);
+        return key != null ? resolveAny(sessionsByUsername.get(key)) : null;
+    }
+
+    /**
+     * Returns the session ids of all cached participants that are members of the provided group.
+     *
+     * @param   groupID
+     *          Group id
+     *
+     * @return  An unmodifiable, live Set of session ids
+     *
+     * @since   1.2.0
+     */
+    public Set<String> getSessionIDsInGroup(String groupID) {
+        Set<String> members = groupID != null ? sessionsByGroup.get(groupID) : null;
+        return members != null ? Collections.unmodifiableSet(members) : Collections.emptySet();
+    }
+
+    /**
+     * Adds a participant that was not previously cached to every index.
+     *
+     * @param   participant
+     *          Participant
+     *
+     * @since   1.2.0
+     */
+    private void add(InteractiveParticipant participant) {
+        String sessionID = participant.getSessionID();
+        addSession(sessionsByUserID, participant.getUserID(), sessionID);
+        addSession(sessionsByUsername, normalize(participant.getUsername()), sessionID);
+        addSession(sessionsByGroup, participant.getGroupID(), sessionID);
+    }
+
+    /**
+     * Resolves the first session id of a set that is still in the participant cache.
+     *
+     * @since   1.2.0
+     */
+    private InteractiveParticipant resolveAny(Set<String> sessionIDs) {
+        if (sessionIDs != null) {
+            for (String sessionID : sessionIDs) {
+                InteractiveParticipant participant = participants.get(sessionID);
+                if (participant != null) {
+                    return participant;
+                }
+            }
+        }
+        return null;
+    }
+
+    /**
+     * Adds a session id to the set of a key, ignoring <code>null</code> keys.
+     *
+     * @since   1.2.0
+     */
+    private static <K> void addSession(Map<K, Set<String>> index, K key, String sessionID) {
+        if (key != null) {
+            index.compute(key, (k, sessions) -> {
+                Set<String> updated = sessions != null ? sessions : ConcurrentHashMap.<String>newKeySet();
+                updated.add(sessionID);
+                return updated;
+            });
+        }
+    }
+
+    /**
+     * Removes a session id from the set of a key, dropping the key once no session has it.
+     *
+     * @since   1.2.0
+     */
+    private static <K> void removeSession(Map<K, Set<String>> index, K key, String sessionID) {
+        if (key != null) {
+            index.computeIfPresent(key, (k, sessions) -> sessions.remove(sessionID) && sessions.isEmpty() ? null : sessions);
+        }
+    }
+
+    /**
+     * Normalizes a username for case insensitive lookups.
+     *
+     * @since   1.2.0
+     */
+    private static String normalize(String username) {
+        return username != null ? username.toLowerCase(Locale.ROOT) : null;
+    }
+}
@@ -0,0 +1,461 @@
+package com.mixer.interactive.minecraft.lib.cache;
+
+import java.util.AbstractMap;
+import java.util.AbstractSet;
+import java.util.ArrayDeque;
+import java.util.Deque;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.NoSuchElementException;
+import java.util.Set;
+
+/**
+ * An immutable hash map backed by a hash array mapped trie. {@link #plus(Object, Object)} and {@link #minus(Object)}
+ * return a new map that shares every untouched branch of the trie with the original, so deriving a new version of a
+ * large map costs <code>O(log32 n)</code> time and memory rather than a full copy. Instances are safe to read from any
+ * thread without synchronization. The <code>Map</code> mutators inherited from <code>AbstractMap</code> throw
+ * <code>UnsupportedOperationException</code>. Keys and values must not be <code>null</code>.
+ *
+ * @param   <K>
+ *          Key type
+ * @param   <V>
+ *          Value type
+ *
+ * @author      Microsoft Corporation
+ *
+ * @since       1.2.0
+ */
+public final class PersistentMap<K, V> extends AbstractMap<K, V> {
+
+    /**
+     * Bits of the hash consumed by each level of the trie
+     */
+    private static final int BITS = 5;
+
+    /**
+     * Shared empty map
+     */
+    private static final PersistentMap<?, ?> EMPTY = new PersistentMap<>(null, 0);
+
+    /**
+     * Root node of the trie, <code>null</code> when the map is empty
+     */
+    private final Node root;
+
+    /**
+     * Number of entries
+     */
+    private final int size;
+
+    /**
+     * Lazily created entry set view
+     */
+    private Set<Map.Entry<K, V>> entrySet;
+
+    /**
+     * Constructor.
+     *
+     * @param   root
+     *          Root node of the trie
+     * @param   size
+     *          Number of entries
+     *
+     * @since   1.2.0
+     */
+    private PersistentMap(Node root, int size) {
+        this.root = root;
+        this.size = size;
+    }
+
+    /**
+     * Returns the empty map.
+     *
+     * @param   <K>
+     *          Key type
+     * @param   <V>
+     *          Value type
+     *
+     * @return  An empty PersistentMap
+     *
+     * @since   1.2.0
+     */
+    @SuppressWarnings("unchecked")
+    public static <K, V> PersistentMap<K, V> empty() {
+        return (PersistentMap<K, V>) EMPTY;
+    }
+
+    /**
+     * Returns a map containing every entry of this map plus the provided entry, replacing any existing value for the
+     * key.
+     *
+     * @param   key
+     *          Key
+     * @param   value
+     *          Value
+     *
+     * @return  A new PersistentMap, or this map if it already contained the exact entry
+     *
+     * @since   1.2.0
+     */
+    public PersistentMap<K, V> plus(K key, V value) {
+        boolean[] added = new boolean[1];
+        Node newRoot = (root != null ? root : BitmapNode.EMPTY).assoc(0, hash(key), key, value, added);
+        return newRoot == root ? this : new PersistentMap<>(newRoot, added[0] ? size + 1 : size);
+    }
+
+    /**
+     * Returns a map containing every entry of this map plus all entries of the provided map.
+     *
+     * @param   entries
+     *          Entries to add
+     *
+     * @return  A new PersistentMap
+     *
+     * @since   1.2.0
+     */
+    public PersistentMap<K, V> plusAll(Map<? extends K, ? extends V> entries) {
+        PersistentMap<K, V> result = this;
+        for (Map.Entry<? extends K, ? extends V> entry : entries.entrySet()) {
+            result = result.plus(entry.getKey(), entry.getValue());
+        }
+        return result;
+    }
+
+    /**
+     * Returns a map containing every entry of this map except the one for the provided key.
+     *
+     * @param   key
+     *          Key
+     *
+     * @return  A new PersistentMap, or this map if it did not contain the key
+     *
+     * @since   1.2.0
+     */
+    public PersistentMap<K, V> minus(Object key) {
+        if (root == null || key == null) {
+            return this;
+        }
+        Node newRoot = root.without(0, hash(key), key);
+        return newRoot == root ? this : new PersistentMap<>(newRoot, size - 1);
+    }
+
+    @Override
+    @SuppressWarnings("unchecked")
+    public V get(Object key) {
+        return root != null && key != null ? (V) root.find(0, hash(key), key) : null;
+    }
+
+    @Override
+    public boolean containsKey(Object key) {
+        return root != null && key != null && root.find(0, hash(key), key) != null;
+    }
+
+    @Override
+    public int size() {
+        return size;
+    }
+
+    @Override
+    public Set<Map.Entry<K, V>> entrySet() {
+        if (entrySet == null) {
+            entrySet = new AbstractSet<Map.Entry<K, V>>() {
+                @Override
+                public Iterator<Map.Entry<K, V>> iterator() {
+                    return new EntryIterator<>(root);
+                }
+
+                @Override
+                public int size() {
+                    return size;
+                }
+            };
+        }
+        return entrySet;
+    }
+
+    /**
+     * Spreads the bits of a key hash code so that the low levels of the trie are well distributed.
+     *
+     * @param   key
+     *          Key
+     *
+     * @return  Spread hash code
+     *
+     * @since   1.2.0
+     */
+    private static int hash(Object key) {
+        int h = key.hashCode();
+        return h ^ (h >>> 16);
+    }
+
+    /**
+     * Returns the bit of a bitmap node that corresponds to a hash at the provided trie depth.
+     *
+     * @since   1.2.0
+     */
+    private static int bitpos(int hash, int shift) {
+        return 1 << ((hash >>> shift) & 0x1f);
+    }
+
+    /**
+     * Returns a copy of an array with one slot replaced.
+     *
+     * @since   1.2.0
+     */
+    private static Object[] cloneAndSet(Object[] array, int i, Object value) {
+        Object[] clone = array.clone();
+        clone[i] = value;
+        return clone;
+    }
+
+    /**
+     * Node of the trie. Values are never <code>null</code>, so <code>find</code> returns <code>null</code> for missing
+     * keys.
+     *
+     * @since   1.2.0
+     */
+    private interface Node {
+
+        Object find(int shift, int hash, Object key);
+
+        Node assoc(int shift, int hash, Object key, Object value, boolean[] added);
+
+        Node without(int shift, int hash, Object key);
+    }
+
+    /**
+     * Interior node holding up to 32 slots, selected by five bits of the hash. Each occupied slot is stored as a pair
+     * in <code>array</code>: either a key and its value, or <code>null</code> and a child node.
+     *
+     * @since   1.2.0
+     */
+    private static final class BitmapNode implements Node {
+
+        private static final BitmapNode EMPTY = new BitmapNode(0, new Object[0]);
+
+        private final int bitmap;
+
+        private final Object[] array;
+
+        private BitmapNode(int bitmap, Object[] array) {
+            this.bitmap = bitmap;
+            this.array = array;
+        }
+
+        private int index(int bit) {
+            return Integer.bitCount(bitmap & (bit - 1));
+        }
+
+        @Override
+        public Object find(int shift, int hash, Object key) {
+            int bit = bitpos(hash, shift);
+            if ((bitmap & bit) == 0) {
+                return null;
+            }
+            int idx = index(bit);
+            Object keyOrNull = array[2 * idx];
+            Object valOrNode = array[2 * idx + 1];
+            if (keyOrNull == null) {
+                return ((Node) valOrNode).find(shift + BITS, hash, key);
+            }
+            return key.equals(keyOrNull) ? valOrNode : null;
+        }
+
+        @Override
+        public Node assoc(int shift, int hash, Object key, Object value, boolean[] added) {
+            int bit = bitpos(hash, shift);
+            int idx = index(bit);
+            if ((bitmap & bit) != 0) {
+                Object keyOrNull = array[2 * idx];
+                Object valOrNode = array[2 * idx + 1];
+                if (keyOrNull == null) {
+                    Node child = ((Node) valOrNode).assoc(shift + BITS, hash, key, value, added);
+                    return child == valOrNode ? this : new BitmapNode(bitmap, cloneAndSet(array, 2 * idx + 1, child));
+                }
+                if (key.equals(keyOrNull)) {
+                    return value == valOrNode ? this : new BitmapNode(bitmap, cloneAndSet(array, 2 * idx + 1, value));
+                }
+                added[0] = true;
+                Object[] newArray = cloneAndSet(array, 2 * idx, null);
+                newArray[2 * idx + 1] = createNode(shift + BITS, keyOrNull, valOrNode, hash, key, value);
+                return new BitmapNode(bitmap, newArray);
+            }
+
+            added[0] = true;
+            Object[] newArray = new Object[array.length + 2];
+            System.arraycopy(array, 0, newArray, 0, 2 * idx);
+            newArray[2 * idx] = key;
+            newArray[2 * idx + 1] = value;
+            System.arraycopy(array, 2 * idx, newArray, 2 * (idx + 1), array.length - 2 * idx);
+            return new BitmapNode(bitmap | bit, newArray);
+        }
+
+        @Override
+        public Node without(int shift, int hash, Object key) {
+            int bit = bitpos(hash, shift);
+            if ((bitmap & bit) == 0) {
+                return this;
+            }
+            int idx = index(bit);
+            Object keyOrNull = array[2 * idx];
+            Object valOrNode = array[2 * idx + 1];
+            if (keyOrNull == null) {
+                Node child = ((Node) valOrNode).without(shift + BITS, hash, key);
+                if (child == valOrNode) {
+                    return this;
+                }
+                if (child != null) {
+                    return new BitmapNode(bitmap, cloneAndSet(array, 2 * idx + 1, child));
+                }
+            }
+            else if (!key.equals(keyOrNull)) {
+                return this;
+            }
+
+            if (bitmap == bit) {
+                return null;
+            }
+            Object[] newArray = new Object[array.length - 2];
+            System.arraycopy(array, 0, newArray, 0, 2 * idx);
+            System.arraycopy(array, 2 * (idx + 1), newArray, 2 * idx, newArray.length - 2 * idx);
+            return new BitmapNode(bitmap ^ bit, newArray);
+        }
+
+        private static Node createNode(int shift, Object key1, Object value1, int hash2, Object key2, Object value2) {
+            int hash1 = hash(key1);
+            if (hash1 == hash2) {
+                return new CollisionNode(hash1, new Object[] { key1, value1, key2, value2 });
+            }
+            boolean[] ignored = new boolean[1];
+            return EMPTY.assoc(shift, hash1, key1, value1, ignored).assoc(shift, hash2, key2, value2, ignored);
+        }
+    }
+
+    /**
+     * Leaf node holding every entry whose keys share the same full hash code.
+     *
+     * @since   1.2.0
+     */
+    private static final class CollisionNode implements Node {
+
+        private final int hash;
+
+        private final Object[] array;
+
+        private CollisionNode(int hash, Object[] array) {
+            this.hash = hash;
+            this.array = array;
+        }
+
+        private int indexOf(Object key) {
+            for (int i = 0; i < array.length; i += 2) {
+                if (key.equals(array[i])) {
+                    return i;
+                }
+            }
+            return -1;
+        }
+
+        @Override
+        public Object find(int shift, int hash, Object key) {
+            int idx = indexOf(key);
+            return idx >= 0 ? array[idx + 1] : null;
+        }
+
+        @Override
+        public Node assoc(int shift, int hash, Object key, Object value, boolean[] added) {
+            if (hash != this.hash) {
+                return new BitmapNode(bitpos(this.hash, shift), new Object[] { null, this }).assoc(shift, hash, key, value, added);
+            }
+            int idx = indexOf(key);
+            if (idx >= 0) {
+                return array[idx + 1] == value ? this : new CollisionNode(hash, cloneAndSet(array, idx + 1, value));
+            }
+            added[0] = true;
+            Object[] newArray = new Object[array.length + 2];
+            System.arraycopy(array, 0, newArray, 0, array.length);
+            newArray[array.length] = key;
+            newArray[array.length + 1] = value;
+            return new CollisionNode(hash, newArray);
+        }
+
+        @Override
+        public Node without(int shift, int hash, Object key) {
+            int idx = indexOf(key);
+            if (idx < 0) {
+                return this;
+            }
+            if (array.length == 2) {
+                return null;
+            }
+            Object[] newArray = new Object[array.length - 2];
+            System.arraycopy(array, 0, newArray, 0, idx);
+            System.arraycopy(array, idx + 2, newArray, idx, newArray.length - idx);
+            return new CollisionNode(hash, newArray);
+        }
+    }
+
+    /**
+     * Depth first iterator over the entries of a trie.
+     *
+     * @since   1.2.0
+     */
+    private static final class EntryIterator<K, V> implements Iterator<Map.Entry<K, V>> {
+
+        private final Deque<Object[]> arrays = new ArrayDeque<>();
+
+        private final Deque<Integer> positions = new ArrayDeque<>();
+
+        private Map.Entry<K, V> next;
+
+        private EntryIterator(Node root) {
+            if (root != null) {
+                push(root);
+                advance();
+            }
+        }
+
+        private void push(Node node) {
+            arrays.push(node instanceof BitmapNode ? ((BitmapNode) node).array : ((CollisionNode) node).array);
+            positions.push(0);
+        }
+
+        @SuppressWarnings("unchecked")
+        private void advance() {
+            next = null;
+            while (!arrays.isEmpty()) {
+                Object[] array = arrays.peek();
+                int position = positions.pop();
+                if (position >= array.length) {
+                    arrays.pop();
+                    continue;
+                }
+                positions.push(position + 2);
+                Object keyOrNull = array[position];
+                Object valOrNode = array[position + 1];
+                if (keyOrNull == null) {
+                    push((Node) valOrNode);
+                }
+                else {
+                    next = new SimpleImmutableEntry<>((K) keyOrNull, (V) valOrNode);
+                    return;
+                }
+            }
+        }
+
+        @Override
+        public boolean hasNext() {
+            return next != null;
+        }
+
+        @Override
+        public Map.Entry<K, V> next() {
+            if (next == null) {
+                throw new NoSuchElementException();
+            }
+            Map.Entry<K, V> result = next;
+            advance();
+            return result;
+        }
+    }
+}
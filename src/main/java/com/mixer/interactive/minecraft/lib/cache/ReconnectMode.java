@@ -0,0 +1,24 @@
+package com.mixer.interactive.minecraft.lib.cache;
+
+/**
+ * Defines what happens to the local cache when the connection to the Mixer Interactive service closes.
+ *
+ * @author      Microsoft Corporation
+ *
+ * @since       1.2.0
+ */
+public enum ReconnectMode {
+
+    /**
+     * The cache is cleared as soon as the connection closes, and filled again by the CacheWarmer once a connection is
+     * established.
+     */
+    CLEAR,
+
+    /**
+     * The cache is kept and marked stale when the connection closes. Once a connection is established again, the
+     * CacheWarmer fetches the current state and applies only the differences, so unchanged scenes, groups and
+     * participants keep their identity and a CacheReconciledEvent lists exactly what changed.
+     */
+    RECONCILE
+}
@@ -0,0 +1,55 @@
+package com.mixer.interactive.minecraft.lib.cache;
+
+import com.mixer.interactive.resources.control.InteractiveControl;
+
+/**
+ * Holds the current controls of one cached InteractiveScene. Writers replace the held map under the lock of this
+ * holder, so writers to different scenes never contend with each other, and readers get the latest map with a single
+ * volatile read. Every CacheSnapshot containing the scene refers to the same holder.
+ *
+ * @author      Microsoft Corporation
+ *
+ * @since       1.2.0
+ */
+final class SceneControls {
+
+    /**
+     * Current controls of the scene keyed by control id
+     */
+    private volatile PersistentMap<String, InteractiveControl> controls;
+
+    /**
+     * Constructor.
+     *
+     * @param   controls
+     *          Initial controls of the scene keyed by control id
+     *
+     * @since   1.2.0
+     */
+    SceneControls(PersistentMap<String, InteractiveControl> controls) {
+        this.controls = controls;
+    }
+
+    /**
+     * Returns the current controls of the scene.
+     *
+     * @return  Immutable Map of InteractiveControls keyed by control id
+     *
+     * @since   1.2.0
+     */
+    PersistentMap<String, InteractiveControl> get() {
+        return controls;
+    }
+
+    /**
+     * Replaces the controls of the scene. Must be called while holding the lock of this holder.
+     *
+     * @param   controls
+     *          New controls of the scene keyed by control id
+     *
+     * @since   1.2.0
+     */
+    void set(PersistentMap<String, InteractiveControl> controls) {
+        this.controls = controls;
+    }
+}
@@ -0,0 +1,74 @@
+package com.mixer.interactive.minecraft.lib.cache;
+
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.function.UnaryOperator;
+
+/**
+ * Holds the current CacheSnapshot and publishes new versions of it. Publishing is lock-free: a change is applied to the
+ * latest snapshot and swapped in atomically, retrying if another writer published first, so changes must be free of
+ * side effects. Reading the current snapshot is a single volatile read.
+ *
+ * @author      Microsoft Corporation
+ *
+ * @since       1.2.0
+ */
+public class SnapshotPublisher {
+
+    /**
+     * Currently published snapshot
+     */
+    private final AtomicReference<CacheSnapshot> current = new AtomicReference<>(CacheSnapshot.EMPTY);
+
+    /**
+     * Whether published snapshots carry participants
+     */
+    private volatile boolean participantsTracked = true;
+
+    /**
+     * Returns the currently published snapshot.
+     *
+     * @return  CacheSnapshot
+     *
+     * @since   1.2.0
+     */
+    public CacheSnapshot get() {
+        return current.get();
+    }
+
+    /**
+     * Applies a change to the current snapshot and publishes the result as the next version.
+     *
+     * @param   change
+     *          Side effect free function deriving the next snapshot from the current one
+     *
+     * @return  The published CacheSnapshot
+     *
+     * @since   1.2.0
+     */
+    public CacheSnapshot publish(UnaryOperator<CacheSnapshot> change) {
+        return current.updateAndGet(snapshot -> {
+            CacheSnapshot next = change.apply(snapshot);
+            if (!participantsTracked && !next.getParticipants().isEmpty()) {
+                next = next.withoutParticipants();
+            }
+            return next == snapshot ? snapshot : next.withVersion(snapshot.getVersion() + 1);
+        });
+    }
+
+    /**
+     * Sets whether published snapshots carry participants. When they do not, participant changes are dropped from
+     * every published snapshot, so that snapshots do not keep every participant object alive, e.g. when the
+     * participant cache is a CompactParticipantStore.
+     *
+     * @param   participantsTracked
+     *          <code>true</code> to publish participants, <code>false</code> to leave them out
+     *
+     * @since   1.2.0
+     */
+    public void setParticipantsTracked(boolean participantsTracked) {
+        this.participantsTracked = participantsTracked;
+        if (!participantsTracked) {
+            current.updateAndGet(snapshot -> snapshot.getParticipants().isEmpty() ? snapshot : snapshot.withoutParticipants());
+        }
+    }
+}
@@ -0,0 +1,91 @@
+package com.mixer.interactive.minecraft.lib.command;
+
+import com.mixer.interactive.minecraft.lib.MixerInteractive;
+import com.mixer.interactive.minecraft.lib.metrics.MetricsRegistry;
+import net.minecraft.command.CommandBase;
+import net.minecraft.command.ICommandSender;
+import net.minecraft.server.MinecraftServer;
+import net.minecraft.util.text.TextComponentString;
+
+/**
+ * Server command dumping the metrics of the library to the sender: <code>/mixerstats [prefix]</code>. When a prefix
+ * is provided, only metrics whose name starts with it are listed, e.g. <code>/mixerstats handler.</code>.
+ *
+ * @author      Microsoft Corporation
+ *
+ * @since       1.2.0
+ */
+public class MixerStatsCommand extends CommandBase {
+
+    /**
+     * Returns the name of the command.
+     *
+     * @return  Command name
+     *
+     * @since   1.2.0
+     */
+    @Override
+    public String getName() {
+        return "mixerstats";
+    }
+
+    /**
+     * Returns the usage of the command.
+     *
+     * @param   sender
+     *          Command sender
+     *
+     * @return  Command usage
+     *
+     * @since   1.2.0
+     */
+    @Override
+    public String getUsage(ICommandSender sender) {
+        return "/mixerstats [prefix]";
+    }
+
+    /**
+     * Returns the permission level required to run the command, which is the level of operators.
+     *
+     * @return  Permission level
+     *
+     * @since   1.2.0
+     */
+    @Override
+    public int getRequiredPermissionLevel() {
+        return 2;
+    }
+
+    /**
+     * Sends every counter, gauge and histogram matching the optional prefix to the sender.
+     *
+     * @param   server
+     *          Minecraft server
+     * @param   sender
+     *          Command sender
+     * @param   args
+     *          Command arguments
+     *
+     * @since   1.2.0
+     */
+    @Override
+    public void execute(MinecraftServer server, ICommandSender sender, String[] args) {
+        String prefix = args.length > 0 ? args[0] : "";
+        MetricsRegistry metrics = MixerInteractive.getMetrics();
+        metrics.getCounters().forEach((name, value) -> {
+            if (name.startsWith(prefix)) {
+                sender.sendMessage(new TextComponentString(name + ": " + value));
+            }
+        });
+        metrics.getGauges().forEach((name, value) -> {
+            if (name.startsWith(prefix)) {
+                sender.sendMessage(new TextComponentString(name + ": " + value));
+            }
+        });
+        metrics.getHistograms().forEach((name, histogram) -> {
+            if (name.startsWith(prefix)) {
+                sender.sendMessage(new TextComponentString(name + ": " + histogram));
+            }
+        });
+    }
+}
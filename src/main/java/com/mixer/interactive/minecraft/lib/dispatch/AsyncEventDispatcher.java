@@ -0,0 +1,469 @@
+package com.mixer.interactive.minecraft.lib.dispatch;
+
+import com.google.common.eventbus.Subscribe;
+import com.mixer.interactive.event.InteractiveEvent;
+import com.mixer.interactive.event.control.ControlUpdateEvent;
+import com.mixer.interactive.event.group.GroupUpdateEvent;
+import com.mixer.interactive.event.participant.ParticipantUpdateEvent;
+import com.mixer.interactive.event.scene.SceneUpdateEvent;
+import com.mixer.interactive.minecraft.lib.event.CacheChangeEvent;
+import com.mixer.interactive.minecraft.lib.event.CacheReadyEvent;
+import com.mixer.interactive.minecraft.lib.event.CacheReconciledEvent;
+import com.mixer.interactive.minecraft.lib.event.ControlChangeEvent;
+import com.mixer.interactive.minecraft.lib.event.ControlInputBatch;
+import com.mixer.interactive.minecraft.lib.event.ParticipantChangeEvent;
+import com.mixer.interactive.minecraft.lib.handler.AbstractEventHandler;
+import com.mixer.interactive.resources.control.InteractiveControl;
+import com.mixer.interactive.resources.group.InteractiveGroup;
+import com.mixer.interactive.resources.participant.InteractiveParticipant;
+import com.mixer.interactive.resources.scene.InteractiveScene;
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+
+import java.util.ArrayDeque;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Deque;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.Set;
+import java.util.concurrent.Executor;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.Function;
+
+/**
+ * Delivers Interactive events to a single event handler asynchronously. Events posted to the game client event bus are
+ * added to a bounded queue owned by this dispatcher and delivered to the handler, in the order they were posted, by a
+ * task running on a shared executor. At most one task per dispatcher is ever submitted, so handlers never see events
+ * concurrently or out of order, and the executor holds at most one pending task per asynchronous handler. A task
+ * delivers at most {@link #BATCH_SIZE} events before resubmitting itself behind the tasks of the other dispatchers, so
+ * one busy handler cannot monopolize a thread of the shared executor. Events are filtered by the
+ * {@link ClientEventDispatcher} of the game client before they reach this dispatcher. When the queue is full the
+ * {@link OverflowPolicy} decides what happens to the new event; the thread posting it is only ever blocked under
+ * {@link OverflowPolicy#BLOCK}.
+ *
+ * @author      Microsoft Corporation
+ *
+ * @since       1.2.0
+ */
+public class AsyncEventDispatcher {
+
+    /**
+     * Logger
+     */
+    private static final Logger LOG = LogManager.getLogger();
+
+    /**
+     * Default maximum number of queued events
+     */
+    public static final int DEFAULT_CAPACITY = 1024;
+
+    /**
+     * Default policy applied when the queue is full
+     */
+    public static final OverflowPolicy DEFAULT_OVERFLOW_POLICY = OverflowPolicy.DROP_OLDEST;
+
+    /**
+     * Maximum number of events delivered by one task before it is resubmitted
+     */
+    public static final int BATCH_SIZE = 64;
+
+    /**
+     * Event handler the events are delivered to
+     */
+    private final AbstractEventHandler handler;
+
+    /**
+     * Invokers of the subscriber methods of the handler
+     */
+    private final HandlerTable handlerTable;
+
+    /**
+     * Executor running the delivery task
+     */
+    private final Executor executor;
+
+    /**
+     * Maximum number of queued events
+     */
+    private final int capacity;
+
+    /**
+     * What to do with new events when the queue is full
+     */
+    private final OverflowPolicy overflowPolicy;
+
+    /**
+     * Queued events, guarded by <code>lock</code>
+     */
+    private final Deque<Object> queue = new ArrayDeque<>();
+
+    /**
+     * Guards the queue and the scheduled flag
+     */
+    private final ReentrantLock lock = new ReentrantLock();
+
+    /**
+     * Signalled when the delivery task takes an event from the queue, or when the dispatcher is shut down
+     */
+    private final Condition notFull = lock.newCondition();
+
+    /**
+     * Whether a delivery task has been submitted and not yet finished, guarded by <code>lock</code>
+     */
+    private boolean scheduled;
+
+    /**
+     * Whether new events are discarded, guarded by <code>lock</code>
+     */
+    private boolean shutdown;
+
+    /**
+     * Number of events discarded because the queue was full
+     */
+    private final AtomicLong droppedEvents = new AtomicLong();
+
+    /**
+     * Number of events replaced by a newer event carrying the same state
+     */
+    private final AtomicLong coalescedEvents = new AtomicLong();
+
+    /**
+     * Constructor.
+     *
+     * @param   handler
+     *          Event handler the events are delivered to
+     * @param   executor
+     *          Executor running the delivery task
+     * @param   capacity
+     *          Maximum number of queued events
+     * @param   overflowPolicy
+     *          What to do with new events when the queue is full
+     *
+     * @since   1.2.0
+     */
+    public AsyncEventDispatcher(AbstractEventHandler handler, Executor executor, int capacity, OverflowPolicy overflowPolicy) {
+        if (capacity < 1) {
+            throw new IllegalArgumentException("capacity must be at least 1");
+        }
+        this.handler = handler;
+        this.executor = executor;
+        this.capacity = capacity;
+        this.overflowPolicy = overflowPolicy;
+        this.handlerTable = new HandlerTable(handler);
+    }
+
+    /**
+     * Queues an event posted to the game client event bus.
+     *
+     * @param   event
+     *          InteractiveEvent
+     *
+     * @since   1.2.0
+     */
+    @Subscribe
+    public void onInteractiveEvent(InteractiveEvent event) {
+        enqueue(event);
+    }
+
+    /**
+     * Queues a batch of aggregated control input posted to the game client event bus.
+     *
+     * @param   batch
+     *          ControlInputBatch
+     *
+     * @since   1.2.0
+     */
+    @Subscribe
+    public void onControlInputBatch(ControlInputBatch batch) {
+        enqueue(batch);
+    }
+
+    /**
+     * Queues a change to a cached object posted to the game client event bus.
+     *
+     * @param   change
+     *          CacheChangeEvent
+     *
+     * @since   1.2.0
+     */
+    @Subscribe
+    public void onCacheChange(CacheChangeEvent change) {
+        enqueue(change);
+    }
+
+    /**
+     * Queues the notice that the cache has been warmed up, posted to the game client event bus.
+     *
+     * @param   event
+     *          CacheReadyEvent
+     *
+     * @since   1.2.0
+     */
+    @Subscribe
+    public void onCacheReady(CacheReadyEvent event) {
+        enqueue(event);
+    }
+
+    /**
+     * Queues the summary of a cache reconciliation, posted to the game client event bus.
+     *
+     * @param   event
+     *          CacheReconciledEvent
+     *
+     * @since   1.2.0
+     */
+    @Subscribe
+    public void onCacheReconciled(CacheReconciledEvent event) {
+        enqueue(event);
+    }
+
+    /**
+     * Adds an event to the queue, applying the overflow policy if the queue is full, and makes sure a delivery task is
+     * scheduled.
+     *
+     * @param   event
+     *          Event
+     *
+     * @since   1.2.0
+     */
+    private void enqueue(Object event) {
+        boolean schedule = false;
+        lock.lock();
+        try {
+            if (shutdown) {
+                return;
+            }
+            if (queue.size() >= capacity) {
+                switch (overflowPolicy) {
+                    case BLOCK:
+                        while (queue.size() >= capacity && !shutdown) {
+                            notFull.awaitUninterruptibly();
+                        }
+                        if (shutdown) {
+                            return;
+                        }
+                        break;
+                    case COALESCE:
+                        if (removeNewestSuperseded(event)) {
+                            coalescedEvents.incrementAndGet();
+                            break;
+                        }
+                        // Fall through to discard the oldest event instead
+                    case DROP_OLDEST:
+                        queue.pollFirst();
+                        recordDrop();
+                        break;
+                }
+            }
+            queue.addLast(event);
+            if (!scheduled) {
+                scheduled = true;
+                schedule = true;
+            }
+        }
+        finally {
+            lock.unlock();
+        }
+
+        if (schedule) {
+            executor.execute(this::deliver);
+        }
+    }
+
+    /**
+     * Counts an event discarded because the queue was full, logging the first one.
+     *
+     * @since   1.2.0
+     */
+    private void recordDrop() {
+        if (droppedEvents.getAndIncrement() == 0) {
+            LOG.warn("Event queue of asynchronous event handler '{}' is full, dropping events", handler);
+        }
+    }
+
+    /**
+     * Removes the most recently queued event whose state the provided event replaces.
+     *
+     * @param   event
+     *          New event
+     *
+     * @return  <code>true</code> if an event was removed, <code>false</code> otherwise
+     *
+     * @since   1.2.0
+     */
+    private boolean removeNewestSuperseded(Object event) {
+        Object key = coalescingKey(event);
+        if (key == null) {
+            return false;
+        }
+        Iterator<Object> iterator = queue.descendingIterator();
+        while (iterator.hasNext()) {
+            Object queued = iterator.next();
+            if (queued.getClass() == event.getClass() && key.equals(coalescingKey(queued))) {
+                iterator.remove();
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Returns the key identifying the state an event replaces: the ids of the scene, controls, groups or participants
+     * an update or change event refers to. Two events of the same class with equal keys carry the same state, so the
+     * newer one supersedes the older one.
+     *
+     * @param   event
+     *          Event
+     *
+     * @return  Key, or <code>null</code> if the event does not replace any state and must never be coalesced
+     *
+     * @since   1.2.0
+     */
+    private static Object coalescingKey(Object event) {
+        if (event instanceof ControlUpdateEvent) {
+            ControlUpdateEvent update = (ControlUpdateEvent) event;
+            return Arrays.asList(update.getSceneID(), ids(update.getControls(), InteractiveControl::getControlID));
+        }
+        else if (event instanceof ParticipantUpdateEvent) {
+            return ids(((ParticipantUpdateEvent) event).getParticipants(), InteractiveParticipant::getSessionID);
+        }
+        else if (event instanceof GroupUpdateEvent) {
+            return ids(((GroupUpdateEvent) event).getGroups(), InteractiveGroup::getGroupID);
+        }
+        else if (event instanceof SceneUpdateEvent) {
+            return ids(((SceneUpdateEvent) event).getScenes(), InteractiveScene::getSceneID);
+        }
+        else if (event instanceof ControlChangeEvent) {
+            ControlChangeEvent change = (ControlChangeEvent) event;
+            return Arrays.asList(change.getClientName(), change.getSceneID(), change.getControlID());
+        }
+        else if (event instanceof ParticipantChangeEvent) {
+            ParticipantChangeEvent change = (ParticipantChangeEvent) event;
+            return Arrays.asList(change.getClientName(), change.getParticipant().getSessionID());
+        }
+        return null;
+    }
+
+    /**
+     * Returns the ids of the resources an event refers to.
+     *
+     * @param   resources
+     *          Resources, may be <code>null</code>
+     * @param   id
+     *          Function returning the id of a resource
+     * @param   <T>
+     *          Type of the resources
+     *
+     * @return  Set of ids
+     *
+     * @since   1.2.0
+     */
+    private static <T> Set<String> ids(Collection<T> resources, Function<T, String> id) {
+        if (resources == null) {
+            return Collections.emptySet();
+        }
+        Set<String> ids = new HashSet<>();
+        for (T resource : resources) {
+            ids.add(id.apply(resource));
+        }
+        return ids;
+    }
+
+    /**
+     * Delivers up to {@link #BATCH_SIZE} queued events to the handler, then resubmits itself if events remain so that
+     * the tasks of other dispatchers get a turn on the executor.
+     *
+     * @since   1.2.0
+     */
+    private void deliver() {
+        for (int delivered = 0; delivered < BATCH_SIZE; delivered++) {
+            Object event;
+            lock.lock();
+            try {
+                event = queue.pollFirst();
+                if (event == null) {
+                    scheduled = false;
+                    return;
+                }
+                notFull.signal();
+            }
+            finally {
+                lock.unlock();
+            }
+            handlerTable.dispatch(event);
+        }
+        executor.execute(this::deliver);
+    }
+
+    /**
+     * Stops queueing events. Events already queued are still delivered to the handler, after which the dispatcher
+     * submits no further task to the executor. Threads parked by {@link OverflowPolicy#BLOCK} are released and their
+     * events discarded.
+     *
+     * @since   1.2.0
+     */
+    public void shutdown() {
+        lock.lock();
+        try {
+            shutdown = true;
+            notFull.signalAll();
+        }
+        finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Returns the event handler the events are delivered to.
+     *
+     * @return  Event handler
+     *
+     * @since   1.2.0
+     */
+    public AbstractEventHandler getHandler() {
+        return handler;
+    }
+
+    /**
+     * Returns the number of events waiting to be delivered.
+     *
+     * @return  Queue depth
+     *
+     * @since   1.2.0
+     */
+    public int getQueueDepth() {
+        lock.lock();
+        try {
+            return queue.size();
+        }
+        finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Returns the number of events discarded because the queue was full.
+     *
+     * @return  Dropped event count
+     *
+     * @since   1.2.0
+     */
+    public long getDroppedEventCount() {
+        return droppedEvents.get();
+    }
+
+    /**
+     * Returns the number of events replaced by a newer event carrying the same state.
+     *
+     * @return  Coalesced event count
+     *
+     * @since   1.2.0
+     */
+    public long getCoalescedEventCount() {
+        return coalescedEvents.get();
+    }
+}
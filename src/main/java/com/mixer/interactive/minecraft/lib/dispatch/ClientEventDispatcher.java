@@ -0,0 +1,629 @@
+package com.mixer.interactive.minecraft.lib.dispatch;
+
+import com.google.common.eventbus.Subscribe;
+import com.mixer.interactive.event.control.input.ControlInputEvent;
+import com.mixer.interactive.minecraft.lib.cache.CacheShard;
+import com.mixer.interactive.minecraft.lib.event.ControlChangeEvent;
+import com.mixer.interactive.minecraft.lib.event.ControlInputBatch;
+import com.mixer.interactive.minecraft.lib.metrics.Histogram;
+import com.mixer.interactive.minecraft.lib.metrics.MetricsRegistry;
+import com.mixer.interactive.resources.group.InteractiveGroup;
+import com.mixer.interactive.resources.participant.InteractiveParticipant;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Predicate;
+
+/**
+ * Delivers the events posted to the event bus of one game client to every event handler of that game client. The
+ * dispatcher is the only object registered with the game client event bus, so the event bus looks up and reflectively
+ * invokes a single subscriber per event, and the dispatcher fans the event out to the handlers through their
+ * HandlerTables.
+ * <p>
+ * Handlers may be registered with an {@link EventFilter}, which the dispatcher applies before delivering an event, so
+ * rejected events never reach the handler. For each event class the dispatcher builds, once, the list of handlers that
+ * subscribe to the class and whose filter receives its type. Control input, ControlInputBatches and changes to cached
+ * controls refer to a single scene and control, so for these the handlers restricted to given controls or scenes are
+ * further indexed by control id and scene id: an event is only offered to the unrestricted handlers and to those
+ * indexed under its own control id and scene id, and no filter of a handler restricted to other controls or scenes is
+ * ever evaluated.
+ * <p>
+ * Handlers may also be throttled by the {@link InputThrottle} of the game client. The dispatcher asks the throttle at
+ * most once per control input event, when the event first reaches a throttled handler whose filter accepts it, and
+ * applies that decision to every other throttled handler, so an event draws at most one token.
+ * <p>
+ * Handlers receive events in the order they were registered, so the cache-maintaining default event handlers, which
+ * are registered first, have updated the cache before any custom event handler sees an event. Besides event handlers,
+ * the queues delivering events to server tick and asynchronous handlers are registered here as well.
+ *
+ * @author      Microsoft Corporation
+ *
+ * @since       1.2.0
+ */
+public class ClientEventDispatcher {
+
+    /**
+     * Routes that receive no event class
+     */
+    private static final Route[] NONE = new Route[0];
+
+    /**
+     * The InputThrottle has not been asked about the event being dispatched yet
+     */
+    private static final int UNDECIDED = 0;
+
+    /**
+     * The InputThrottle admitted the event being dispatched
+     */
+    private static final int ADMITTED = 1;
+
+    /**
+     * The InputThrottle dropped the event being dispatched
+     */
+    private static final int DROPPED = 2;
+
+    /**
+     * Cache of the game client, against which event filters are compiled
+     */
+    private final CacheShard cache;
+
+    /**
+     * Registry the latency histograms are created in
+     */
+    private final MetricsRegistry registry;
+
+    /**
+     * Prefix of the names of the latency histograms
+     */
+    private final String histogramPrefix;
+
+    /**
+     * Registered routes and the routes receiving each event class, replaced as a whole on every registration change
+     */
+    private volatile Routing routing = new Routing(NONE);
+
+    /**
+     * Number of routes ever registered, which orders the routes
+     */
+    private int registrations;
+
+    /**
+     * Whether timed handlers record their latency
+     */
+    private volatile boolean timingEnabled;
+
+    /**
+     * Constructor. The latency histograms of timed handlers are named
+     * <code>&lt;histogramPrefix&gt;&lt;HandlerClass&gt;.&lt;EventClass&gt;</code>, so that instances of the same handler
+     * class serving different game clients record separate histograms.
+     *
+     * @param   cache
+     *          Cache of the game client, against which event filters are compiled
+     * @param   registry
+     *          Registry the latency histograms are created in
+     * @param   histogramPrefix
+     *          Prefix of the names of the latency histograms, e.g. <code>handler.</code>
+     *
+     * @since   1.2.0
+     */
+    public ClientEventDispatcher(CacheShard cache, MetricsRegistry registry, String histogramPrefix) {
+        this.cache = cache;
+        this.registry = registry;
+        this.histogramPrefix = histogramPrefix;
+    }
+
+    /**
+     * Registers an event handler, or any other object with <code>@Subscribe</code> methods, to receive every event it
+     * subscribes to.
+     *
+     * @param   handler
+     *          Event handler
+     *
+     * @return  <code>true</code> if the handler was registered, <code>false</code> if it already was
+     *
+     * @since   1.2.0
+     */
+    public boolean register(Object handler) {
+        return register(handler, EventFilter.all(), false, false);
+    }
+
+    /**
+     * Registers an event handler to receive the events it subscribes to that are accepted by a filter.
+     *
+     * @param   handler
+     *          Event handler
+     * @param   filter
+     *          Events the handler receives
+     * @param   throttled
+     *          Whether the control input the handler receives is limited by the InputThrottle of the game client,
+     *          which is asked after the filter so that input no throttled handler receives draws no token
+     * @param   timed
+     *          Whether the time the handler takes to handle each event is recorded in a latency histogram while
+     *          timing is enabled
+     *
+     * @return  <code>true</code> if the handler was registered, <code>false</code> if it already was
+     *
+     * @since   1.2.0
+     */
+    public synchronized boolean register(Object handler, EventFilter filter, boolean throttled, boolean timed) {
+        if (isRegistered(handler)) {
+            return false;
+        }
+        Route[] routes = Arrays.copyOf(routing.routes, routing.routes.length + 1);
+        routes[routes.length - 1] = new Route(new HandlerTable(handler), filter, filter.compile(cache), registrations++,
+                throttled, timed);
+        routing = new Routing(routes);
+        return true;
+    }
+
+    /**
+     * Unregisters an event handler.
+     *
+     * @param   handler
+     *          Event handler
+     *
+     * @return  <code>true</code> if the handler was unregistered, <code>false</code> if it was not registered
+     *
+     * @since   1.2.0
+     */
+    public synchronized boolean unregister(Object handler) {
+        List<Route> routes = new ArrayList<>(Arrays.asList(routing.routes));
+        if (!routes.removeIf(route -> route.handlerTable.getHandler() == handler)) {
+            return false;
+        }
+        routing = new Routing(routes.toArray(NONE));
+        return true;
+    }
+
+    /**
+     * Returns whether an event handler is registered.
+     *
+     * @param   handler
+     *          Event handler
+     *
+     * @return  <code>true</code> if the handler is registered
+     *
+     * @since   1.2.0
+     */
+    public boolean isRegistered(Object handler) {
+        for (Route route : routing.routes) {
+            if (route.handlerTable.getHandler() == handler) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Enables or disables latency recording of the timed handlers. Timing is disabled by default, since reading the
+     * clock twice per handler and event is a measurable share of the cost of delivering control input.
+     *
+     * @param   timingEnabled
+     *          Whether timed handlers record their latency
+     *
+     * @since   1.2.0
+     */
+    public void setTimingEnabled(boolean timingEnabled) {
+        this.timingEnabled = timingEnabled;
+    }
+
+    /**
+     * Returns whether timed handlers record their latency.
+     *
+     * @return  <code>true</code> if timing is enabled
+     *
+     * @since   1.2.0
+     */
+    public boolean isTimingEnabled() {
+        return timingEnabled;
+    }
+
+    /**
+     * Delivers an event posted to the game client event bus to every registered handler receiving it.
+     *
+     * @param   event
+     *          Event
+     *
+     * @since   1.2.0
+     */
+    @Subscribe
+    public void onEvent(Object event) {
+        dispatch(event);
+    }
+
+    /**
+     * Delivers an event to every registered handler that subscribes to its class and whose filter accepts it, in the
+     * order the handlers were registered. Throttled handlers only receive control input the InputThrottle admits.
+     *
+     * @param   event
+     *          Event
+     *
+     * @since   1.2.0
+     */
+    public void dispatch(Object event) {
+        ClassRoutes routes = routing.getRoutes(event.getClass());
+        int admission = UNDECIDED;
+        if (routes.unrestricted == null) {
+            for (Route route : routes.all) {
+                admission = route.offer(event, admission);
+            }
+            return;
+        }
+
+        Route[] unrestricted = routes.unrestricted;
+        Route[] byControl = routes.byControlID.isEmpty() ? NONE : routes.byControlID.getOrDefault(getControlID(event), NONE);
+        Route[] byScene = routes.bySceneID.isEmpty() ? NONE : routes.bySceneID.getOrDefault(getSceneID(event), NONE);
+        // Merges the three candidate lists, which are each in registration order and never share a route
+        int u = 0;
+        int c = 0;
+        int s = 0;
+        while (u < unrestricted.length || c < byControl.length || s < byScene.length) {
+            Route next;
+            if (u < unrestricted.length
+                    && (c == byControl.length || unrestricted[u].order < byControl[c].order)
+                    && (s == byScene.length || unrestricted[u].order < byScene[s].order)) {
+                next = unrestricted[u++];
+            }
+            else if (c < byControl.length && (s == byScene.length || byControl[c].order < byScene[s].order)) {
+                next = byControl[c++];
+            }
+            else {
+                next = byScene[s++];
+            }
+            admission = next.offer(event, admission);
+        }
+    }
+
+    /**
+     * Returns whether events of a class refer to a single control of a single scene, so that the handlers receiving
+     * them can be indexed by control id and scene id.
+     *
+     * @param   eventType
+     *          Event class
+     *
+     * @return  <code>true</code> if the event class is indexed
+     *
+     * @since   1.2.0
+     */
+    private static boolean isIndexed(Class<?> eventType) {
+        return ControlInputEvent.class.isAssignableFrom(eventType)
+                || ControlInputBatch.class.isAssignableFrom(eventType)
+                || ControlChangeEvent.class.isAssignableFrom(eventType);
+    }
+
+    /**
+     * Returns the id of the control an event of an indexed class refers to.
+     *
+     * @param   event
+     *          Event
+     *
+     * @return  Control id, <code>null</code> if unknown
+     *
+     * @since   1.2.0
+     */
+    private static String getControlID(Object event) {
+        if (event instanceof ControlInputEvent) {
+            ControlInputEvent inputEvent = (ControlInputEvent) event;
+            return inputEvent.getControlInput() != null ? inputEvent.getControlInput().getControlID() : null;
+        }
+        else if (event instanceof ControlInputBatch) {
+            return ((ControlInputBatch) event).getControlID();
+        }
+        return ((ControlChangeEvent) event).getControlID();
+    }
+
+    /**
+     * Returns the id of the scene an event of an indexed class refers to. The scene of control input is the scene of
+     * the cached group of the participant who sent it.
+     *
+     * @param   event
+     *          Event
+     *
+     * @return  Scene id, <code>null</code> if unknown
+     *
+     * @since   1.2.0
+     */
+    private String getSceneID(Object event) {
+        if (event instanceof ControlInputEvent) {
+            String participantID = ((ControlInputEvent) event).getParticipantID();
+            InteractiveParticipant participant = participantID != null ? cache.getParticipants().get(participantID) : null;
+            InteractiveGroup group = participant != null && participant.getGroupID() != null
+                    ? cache.getGroups().get(participant.getGroupID())
+                    : null;
+            return group != null ? group.getSceneID() : null;
+        }
+        else if (event instanceof ControlInputBatch) {
+            return ((ControlInputBatch) event).getSceneID();
+        }
+        return ((ControlChangeEvent) event).getSceneID();
+    }
+
+    /**
+     * An immutable set of registered routes, along with the routes receiving each event class.
+     *
+     * @since   1.2.0
+     */
+    private static final class Routing {
+
+        /**
+         * Registered routes, in registration order
+         */
+        private final Route[] routes;
+
+        /**
+         * Routes receiving each event class
+         */
+        private final Map<Class<?>, ClassRoutes> table = new ConcurrentHashMap<>();
+
+        /**
+         * Constructor.
+         *
+         * @param   routes
+         *          Registered routes, in registration order
+         *
+         * @since   1.2.0
+         */
+        private Routing(Route[] routes) {
+            this.routes = routes;
+        }
+
+        /**
+         * Returns the routes receiving an event class, resolving them on first use.
+         *
+         * @param   eventType
+         *          Event class
+         *
+         * @return  ClassRoutes
+         *
+         * @since   1.2.0
+         */
+        private ClassRoutes getRoutes(Class<?> eventType) {
+            ClassRoutes resolved = table.get(eventType);
+            if (resolved == null) {
+                resolved = table.computeIfAbsent(eventType, this::resolve);
+            }
+            return resolved;
+        }
+
+        /**
+         * Selects the routes whose handler subscribes to an event class and whose filter receives its type, and indexes
+         * them by control id and scene id if the class is indexed.
+         *
+         * @param   eventType
+         *          Event class
+         *
+         * @return  ClassRoutes
+         *
+         * @since   1.2.0
+         */
+        private ClassRoutes resolve(Class<?> eventType) {
+            List<Route> all = new ArrayList<>();
+            for (Route route : routes) {
+                if (route.handlerTable.handles(eventType) && route.eventFilter.receives(eventType)) {
+                    all.add(route);
+                }
+            }
+            if (!isIndexed(eventType)) {
+                return new ClassRoutes(all.toArray(NONE), null, Collections.emptyMap(), Collections.emptyMap());
+            }
+
+            List<Route> unrestricted = new ArrayList<>();
+            Map<String, List<Route>> byControlID = new HashMap<>();
+            Map<String, List<Route>> bySceneID = new HashMap<>();
+            for (Route route : all) {
+                if (!route.eventFilter.getControlIDs().isEmpty()) {
+                    for (String controlID : route.eventFilter.getControlIDs()) {
+                        byControlID.computeIfAbsent(controlID, key -> new ArrayList<>()).add(route);
+                    }
+                }
+                else if (!route.eventFilter.getSceneIDs().isEmpty()) {
+                    for (String sceneID : route.eventFilter.getSceneIDs()) {
+                        bySceneID.computeIfAbsent(sceneID, key -> new ArrayList<>()).add(route);
+                    }
+                }
+                else {
+                    unrestricted.add(route);
+                }
+            }
+            return new ClassRoutes(all.toArray(NONE), unrestricted.toArray(NONE), toArrays(byControlID), toArrays(bySceneID));
+        }
+
+        /**
+         * Converts the lists of routes of an index into arrays.
+         *
+         * @param   index
+         *          Lists of routes keyed by id
+         *
+         * @return  Arrays of routes keyed by id
+         *
+         * @since   1.2.0
+         */
+        private static Map<String, Route[]> toArrays(Map<String, List<Route>> index) {
+            if (index.isEmpty()) {
+                return Collections.emptyMap();
+            }
+            Map<String, Route[]> arrays = new HashMap<>();
+            index.forEach((id, routes) -> arrays.put(id, routes.toArray(NONE)));
+            return arrays;
+        }
+    }
+
+    /**
+     * The routes receiving one event class.
+     *
+     * @since   1.2.0
+     */
+    private static final class ClassRoutes {
+
+        /**
+         * Every route receiving the event class, in registration order
+         */
+        private final Route[] all;
+
+        /**
+         * Routes not restricted to any control or scene, in registration order, or <code>null</code> if the event class
+         * is not indexed
+         */
+        private final Route[] unrestricted;
+
+        /**
+         * Routes restricted to controls, keyed by control id
+         */
+        private final Map<String, Route[]> byControlID;
+
+        /**
+         * Routes restricted to scenes but not to controls, keyed by scene id
+         */
+        private final Map<String, Route[]> bySceneID;
+
+        /**
+         * Constructor.
+         *
+         * @since   1.2.0
+         */
+        private ClassRoutes(Route[] all, Route[] unrestricted, Map<String, Route[]> byControlID, Map<String, Route[]> bySceneID) {
+            this.all = all;
+            this.unrestricted = unrestricted;
+            this.byControlID = byControlID;
+            this.bySceneID = bySceneID;
+        }
+    }
+
+    /**
+     * A registered handler along with its filter and, if it is timed, its latency histograms.
+     *
+     * @since   1.2.0
+     */
+    private final class Route {
+
+        /**
+         * Invokers of the subscriber methods of the handler
+         */
+        private final HandlerTable handlerTable;
+
+        /**
+         * Events the handler receives
+         */
+        private final EventFilter eventFilter;
+
+        /**
+         * Compiled event filter, <code>null</code> to deliver every event
+         */
+        private final Predicate<Object> filter;
+
+        /**
+         * Position of the route in registration order
+         */
+        private final int order;
+
+        /**
+         * Whether the control input the handler receives is limited by the InputThrottle
+         */
+        private final boolean throttled;
+
+        /**
+         * Latency histogram of each event class, <code>null</code> if the handler is not timed
+         */
+        private final Map<Class<?>, Histogram> latencies;
+
+        /**
+         * Constructor.
+         *
+         * @param   handlerTable
+         *          Invokers of the subscriber methods of the handler
+         * @param   eventFilter
+         *          Events the handler receives
+         * @param   filter
+         *          Compiled event filter, <code>null</code> to deliver every event
+         * @param   order
+         *          Position of the route in registration order
+         * @param   throttled
+         *          Whether the handler is throttled
+         * @param   timed
+         *          Whether the handler is timed
+         *
+         * @since   1.2.0
+         */
+        private Route(HandlerTable handlerTable, EventFilter eventFilter, Predicate<Object> filter, int order,
+                      boolean throttled, boolean timed) {
+            this.handlerTable = handlerTable;
+            this.eventFilter = eventFilter;
+            this.filter = filter;
+            this.order = order;
+            this.throttled = throttled;
+            this.latencies = timed ? new ConcurrentHashMap<>() : null;
+        }
+
+        /**
+         * Delivers an event to the handler if its filter accepts it and, if the handler is throttled, the InputThrottle
+         * admits it. The throttle is only asked if no other route has asked it about the same event.
+         *
+         * @param   event
+         *          Event
+         * @param   admission
+         *          Decision of the InputThrottle about the event so far, one of <code>UNDECIDED</code>,
+         *          <code>ADMITTED</code> and <code>DROPPED</code>
+         *
+         * @return  Decision of the InputThrottle about the event after this route
+         *
+         * @since   1.2.0
+         */
+        private int offer(Object event, int admission) {
+            if (filter != null && !filter.test(event)) {
+                return admission;
+            }
+            if (throttled) {
+                if (admission == UNDECIDED) {
+                    admission = cache.getInputThrottle().test(event) ? ADMITTED : DROPPED;
+                }
+                if (admission == DROPPED) {
+                    return admission;
+                }
+            }
+            deliver(event);
+            return admission;
+        }
+
+        /**
+         * Delivers an event to the handler, recording how long it took if the handler is timed and timing is enabled.
+         *
+         * @param   event
+         *          Event
+         *
+         * @since   1.2.0
+         */
+        private void deliver(Object event) {
+            if (latencies == null || !timingEnabled) {
+                handlerTable.dispatch(event);
+                return;
+            }
+            Histogram latency = latencies.get(event.getClass());
+            if (latency == null) {
+                latency = latencies.computeIfAbsent(event.getClass(), this::createHistogram);
+            }
+            long start = System.nanoTime();
+            handlerTable.dispatch(event);
+            latency.record(System.nanoTime() - start);
+        }
+
+        /**
+         * Creates the latency histogram of an event class.
+         *
+         * @param   eventType
+         *          Event class
+         *
+         * @return  The histogram
+         *
+         * @since   1.2.0
+         */
+        private Histogram createHistogram(Class<?> eventType) {
+            return registry.histogram(histogramPrefix + handlerTable.getHandler().getClass().getSimpleName() + "."
+                    + eventType.getSimpleName());
+        }
+    }
+}
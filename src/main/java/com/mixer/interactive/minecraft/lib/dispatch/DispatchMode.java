@@ -0,0 +1,29 @@
+package com.mixer.interactive.minecraft.lib.dispatch;
+
+/**
+ * Defines how Interactive events are delivered to a custom event handler.
+ *
+ * @author      Microsoft Corporation
+ *
+ * @since       1.2.0
+ */
+public enum DispatchMode {
+
+    /**
+     * Events are delivered synchronously on the thread that posts them to the game client event bus, which is usually
+     * the websocket reader thread.
+     */
+    SYNCHRONOUS,
+
+    /**
+     * Events are queued and delivered on the Minecraft server thread at the end of each server tick, within the tick
+     * budget of the {@link ServerTickEventQueue}.
+     */
+    SERVER_TICK,
+
+    /**
+     * Events are queued per handler and delivered in order on a shared, bounded pool of dispatch threads, so a slow
+     * handler never stalls the game client event bus. See {@link AsyncEventDispatcher}.
+     */
+    ASYNCHRONOUS
+}
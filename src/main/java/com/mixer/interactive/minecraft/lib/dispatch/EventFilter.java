@@ -0,0 +1,620 @@
+package com.mixer.interactive.minecraft.lib.dispatch;
+
+import com.mixer.interactive.event.control.ControlCreateEvent;
+import com.mixer.interactive.event.control.ControlDeleteEvent;
+import com.mixer.interactive.event.control.ControlUpdateEvent;
+import com.mixer.interactive.event.control.input.ControlInputEvent;
+import com.mixer.interactive.event.group.GroupCreateEvent;
+import com.mixer.interactive.event.group.GroupDeleteEvent;
+import com.mixer.interactive.event.group.GroupUpdateEvent;
+import com.mixer.interactive.event.participant.ParticipantJoinEvent;
+import com.mixer.interactive.event.participant.ParticipantLeaveEvent;
+import com.mixer.interactive.event.participant.ParticipantUpdateEvent;
+import com.mixer.interactive.event.scene.SceneCreateEvent;
+import com.mixer.interactive.event.scene.SceneDeleteEvent;
+import com.mixer.interactive.event.scene.SceneUpdateEvent;
+import com.mixer.interactive.minecraft.lib.cache.CacheShard;
+import com.mixer.interactive.minecraft.lib.event.ControlChangeEvent;
+import com.mixer.interactive.minecraft.lib.event.ControlInputBatch;
+import com.mixer.interactive.minecraft.lib.event.ParticipantChangeEvent;
+import com.mixer.interactive.resources.control.InteractiveControl;
+import com.mixer.interactive.resources.group.InteractiveGroup;
+import com.mixer.interactive.resources.participant.InteractiveParticipant;
+import com.mixer.interactive.resources.scene.InteractiveScene;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Predicate;
+
+/**
+ * Declares which events a custom event handler receives, by scene id, control id, group id and event type. A filter is
+ * passed when the handler is registered, and events it rejects are dropped before they are queued for, or delivered
+ * to, the handler.
+ * <p>
+ * Every restriction is optional, and an event must satisfy all of the restrictions that apply to it. Scene, control and
+ * group ids only apply to events that refer to them: control input is matched by its control id and by the group and
+ * scene of its participant, control events by their scene and control ids, group and participant events by their
+ * group ids and the scenes of those groups, and scene events by their scene ids. Changes to cached controls and
+ * participants are matched like the control and participant events that caused them, a participant moving between
+ * groups matching either group. ControlInputBatches are matched by their scene and control ids, and by the groups
+ * shown their scene, since a batch aggregates the input of every group shown it. Events referring to several
+ * resources, e.g. a ParticipantUpdateEvent, are received if any of the resources matches. Events that refer to none,
+ * such as connection events, are only restricted by event type.
+ * <p>
+ * Filters are immutable. When a handler is registered, its filter is compiled against the cache of the game client into
+ * a table holding, for each event class, the check the class requires, so that filtering an event is a single lookup
+ * followed by set lookups of its ids.
+ *
+ * @author      Microsoft Corporation
+ *
+ * @since       1.2.0
+ */
+public final class EventFilter {
+
+    /**
+     * Filter receiving every event
+     */
+    private static final EventFilter ALL = new EventFilter(Collections.emptySet(), Collections.emptySet(), Collections.emptySet(), Collections.emptySet());
+
+    /**
+     * Check accepting every event of a class
+     */
+    private static final Predicate<Object> ACCEPT = event -> true;
+
+    /**
+     * Check rejecting every event of a class
+     */
+    private static final Predicate<Object> REJECT = event -> false;
+
+    /**
+     * Scene ids of the events received, empty for any
+     */
+    private final Set<String> sceneIDs;
+
+    /**
+     * Control ids of the events received, empty for any
+     */
+    private final Set<String> controlIDs;
+
+    /**
+     * Group ids of the events received, empty for any
+     */
+    private final Set<String> groupIDs;
+
+    /**
+     * Classes of the events received, including their subclasses, empty for any
+     */
+    private final Set<Class<?>> eventTypes;
+
+    /**
+     * Constructor.
+     *
+     * @param   sceneIDs
+     *          Scene ids of the events received, empty for any
+     * @param   controlIDs
+     *          Control ids of the events received, empty for any
+     * @param   groupIDs
+     *          Group ids of the events received, empty for any
+     * @param   eventTypes
+     *          Classes of the events received, empty for any
+     *
+     * @since   1.2.0
+     */
+    private EventFilter(Set<String> sceneIDs, Set<String> controlIDs, Set<String> groupIDs, Set<Class<?>> eventTypes) {
+        this.sceneIDs = sceneIDs;
+        this.controlIDs = controlIDs;
+        this.groupIDs = groupIDs;
+        this.eventTypes = eventTypes;
+    }
+
+    /**
+     * Returns the filter receiving every event, from which restricted filters are derived.
+     *
+     * @return  EventFilter
+     *
+     * @since   1.2.0
+     */
+    public static EventFilter all() {
+        return ALL;
+    }
+
+    /**
+     * Returns a copy of this filter that only receives events of the provided scenes.
+     *
+     * @param   sceneIDs
+     *          Scene ids, none for any scene
+     *
+     * @return  EventFilter
+     *
+     * @since   1.2.0
+     */
+    public EventFilter withSceneIDs(String... sceneIDs) {
+        return new EventFilter(toSet(sceneIDs), controlIDs, groupIDs, eventTypes);
+    }
+
+    /**
+     * Returns a copy of this filter that only receives events of the provided controls.
+     *
+     * @param   controlIDs
+     *          Control ids, none for any control
+     *
+     * @return  EventFilter
+     *
+     * @since   1.2.0
+     */
+    public EventFilter withControlIDs(String... controlIDs) {
+        return new EventFilter(sceneIDs, toSet(controlIDs), groupIDs, eventTypes);
+    }
+
+    /**
+     * Returns a copy of this filter that only receives events of the provided groups.
+     *
+     * @param   groupIDs
+     *          Group ids, none for any group
+     *
+     * @return  EventFilter
+     *
+     * @since   1.2.0
+     */
+    public EventFilter withGroupIDs(String... groupIDs) {
+        return new EventFilter(sceneIDs, controlIDs, toSet(groupIDs), eventTypes);
+    }
+
+    /**
+     * Returns a copy of this filter that only receives events of the provided classes and their subclasses.
+     *
+     * @param   eventTypes
+     *          Event classes, none for any class
+     *
+     * @return  EventFilter
+     *
+     * @since   1.2.0
+     */
+    public EventFilter withEventTypes(Class<?>... eventTypes) {
+        return new EventFilter(sceneIDs, controlIDs, groupIDs, toSet(eventTypes));
+    }
+
+    /**
+     * Returns whether this filter receives every event.
+     *
+     * @return  <code>true</code> if no restriction is set
+     *
+     * @since   1.2.0
+     */
+    public boolean isUnrestricted() {
+        return sceneIDs.isEmpty() && controlIDs.isEmpty() && groupIDs.isEmpty() && eventTypes.isEmpty();
+    }
+
+    /**
+     * Returns whether this filter receives events of a class, according to its event type restriction alone.
+     *
+     * @param   type
+     *          Event class
+     *
+     * @return  <code>true</code> if events of the class may be received
+     *
+     * @since   1.2.0
+     */
+    boolean receives(Class<?> type) {
+        return eventTypes.isEmpty() || eventTypes.stream().anyMatch(eventType -> eventType.isAssignableFrom(type));
+    }
+
+    /**
+     * Returns the scene ids of the events received.
+     *
+     * @return  Scene ids, empty for any
+     *
+     * @since   1.2.0
+     */
+    Set<String> getSceneIDs() {
+        return sceneIDs;
+    }
+
+    /**
+     * Returns the control ids of the events received.
+     *
+     * @return  Control ids, empty for any
+     *
+     * @since   1.2.0
+     */
+    Set<String> getControlIDs() {
+        return controlIDs;
+    }
+
+    /**
+     * Compiles this filter against the cache of a game client, which resolves the groups and scenes of participants.
+     *
+     * @param   cache
+     *          Cache of the game client the handler is registered for
+     *
+     * @return  The compiled filter, or <code>null</code> if this filter receives every event
+     *
+     * @since   1.2.0
+     */
+    public Predicate<Object> compile(CacheShard cache) {
+        return isUnrestricted() ? null : new CompiledEventFilter(cache);
+    }
+
+    /**
+     * Returns an immutable copy of an array as a Set.
+     *
+     * @param   values
+     *          Values
+     * @param   <T>
+     *          Type of the values
+     *
+     * @return  Set of the values
+     *
+     * @since   1.2.0
+     */
+    @SafeVarargs
+    private static <T> Set<T> toSet(T... values) {
+        return values.length == 0 ? Collections.emptySet() : Collections.unmodifiableSet(new HashSet<>(Arrays.asList(values)));
+    }
+
+    @Override
+    public String toString() {
+        return "EventFilter{sceneIDs=" + sceneIDs + ", controlIDs=" + controlIDs + ", groupIDs=" + groupIDs + ", eventTypes=" + eventTypes + "}";
+    }
+
+    /**
+     * An EventFilter compiled against the cache of a game client.
+     *
+     * @since   1.2.0
+     */
+    private final class CompiledEventFilter implements Predicate<Object> {
+
+        /**
+         * Cache of the game client
+         */
+        private final CacheShard cache;
+
+        /**
+         * Check required by each event class
+         */
+        private final Map<Class<?>, Predicate<Object>> checks = new ConcurrentHashMap<>();
+
+        /**
+         * Constructor.
+         *
+         * @param   cache
+         *          Cache of the game client
+         *
+         * @since   1.2.0
+         */
+        private CompiledEventFilter(CacheShard cache) {
+            this.cache = cache;
+        }
+
+        /**
+         * Returns whether an event is received.
+         *
+         * @param   event
+         *          Event
+         *
+         * @return  <code>true</code> if the event is received, <code>false</code> if it is dropped
+         *
+         * @since   1.2.0
+         */
+        @Override
+        public boolean test(Object event) {
+            Predicate<Object> check = checks.get(event.getClass());
+            if (check == null) {
+                check = checks.computeIfAbsent(event.getClass(), this::compileCheck);
+            }
+            return check.test(event);
+        }
+
+        /**
+         * Selects the check required by an event class, according to its type and the restrictions that apply to it.
+         *
+         * @param   type
+         *          Event class
+         *
+         * @return  Check
+         *
+         * @since   1.2.0
+         */
+        private Predicate<Object> compileCheck(Class<?> type) {
+            if (!receives(type)) {
+                return REJECT;
+            }
+
+            boolean scenes = !sceneIDs.isEmpty();
+            boolean controls = !controlIDs.isEmpty();
+            boolean groups = !groupIDs.isEmpty();
+            if (ControlInputEvent.class.isAssignableFrom(type)) {
+                return scenes || controls || groups ? this::acceptControlInput : ACCEPT;
+            }
+            else if (ControlCreateEvent.class.isAssignableFrom(type) || ControlUpdateEvent.class.isAssignableFrom(type)) {
+                return scenes || controls ? this::acceptControls : ACCEPT;
+            }
+            else if (ControlDeleteEvent.class.isAssignableFrom(type)) {
+                return scenes || controls ? this::acceptControlDelete : ACCEPT;
+            }
+            else if (GroupCreateEvent.class.isAssignableFrom(type) || GroupUpdateEvent.class.isAssignableFrom(type)) {
+                return scenes || groups ? this::acceptGroups : ACCEPT;
+            }
+            else if (GroupDeleteEvent.class.isAssignableFrom(type)) {
+                return groups ? event -> groupIDs.contains(((GroupDeleteEvent) event).getGroupID()) : ACCEPT;
+            }
+            else if (ParticipantJoinEvent.class.isAssignableFrom(type)
+                    || ParticipantLeaveEvent.class.isAssignableFrom(type)
+                    || ParticipantUpdateEvent.class.isAssignableFrom(type)) {
+                return scenes || groups ? this::acceptParticipants : ACCEPT;
+            }
+            else if (SceneCreateEvent.class.isAssignableFrom(type) || SceneUpdateEvent.class.isAssignableFrom(type)) {
+                return scenes ? this::acceptScenes : ACCEPT;
+            }
+            else if (SceneDeleteEvent.class.isAssignableFrom(type)) {
+                return scenes ? event -> sceneIDs.contains(((SceneDeleteEvent) event).getSceneID()) : ACCEPT;
+            }
+            else if (ControlChangeEvent.class.isAssignableFrom(type)) {
+                return scenes || controls ? this::acceptControlChange : ACCEPT;
+            }
+            else if (ParticipantChangeEvent.class.isAssignableFrom(type)) {
+                return scenes || groups ? this::acceptParticipantChange : ACCEPT;
+            }
+            else if (ControlInputBatch.class.isAssignableFrom(type)) {
+                return scenes || controls || groups ? this::acceptControlInputBatch : ACCEPT;
+            }
+            return ACCEPT;
+        }
+
+        /**
+         * Accepts control input to a matching control from a participant of a matching group and scene.
+         *
+         * @param   event
+         *          ControlInputEvent
+         *
+         * @return  <code>true</code> if the input matches
+         *
+         * @since   1.2.0
+         */
+        private boolean acceptControlInput(Object event) {
+            ControlInputEvent inputEvent = (ControlInputEvent) event;
+            if (!controlIDs.isEmpty()) {
+                String controlID = inputEvent.getControlInput() != null ? inputEvent.getControlInput().getControlID() : null;
+                if (!controlIDs.contains(controlID)) {
+                    return false;
+                }
+            }
+            if (groupIDs.isEmpty() && sceneIDs.isEmpty()) {
+                return true;
+            }
+            InteractiveParticipant participant = inputEvent.getParticipantID() != null ? cache.getParticipants().get(inputEvent.getParticipantID()) : null;
+            return participant != null && acceptGroup(participant.getGroupID());
+        }
+
+        /**
+         * Accepts batches of input to a matching control of a matching scene that is shown to a matching group.
+         *
+         * @param   event
+         *          ControlInputBatch
+         *
+         * @return  <code>true</code> if the batch matches
+         *
+         * @since   1.2.0
+         */
+        private boolean acceptControlInputBatch(Object event) {
+            ControlInputBatch batch = (ControlInputBatch) event;
+            if (!controlIDs.isEmpty() && !controlIDs.contains(batch.getControlID())) {
+                return false;
+            }
+            if (!sceneIDs.isEmpty() && !sceneIDs.contains(batch.getSceneID())) {
+                return false;
+            }
+            if (groupIDs.isEmpty()) {
+                return true;
+            }
+            for (String groupID : groupIDs) {
+                InteractiveGroup group = cache.getGroups().get(groupID);
+                if (group != null && group.getSceneID() != null && group.getSceneID().equals(batch.getSceneID())) {
+                    return true;
+                }
+            }
+            return false;
+        }
+
+        /**
+         * Accepts control events of a matching scene that refer to at least one matching control.
+         *
+         * @param   event
+         *          ControlCreateEvent or ControlUpdateEvent
+         *
+         * @return  <code>true</code> if the event matches
+         *
+         * @since   1.2.0
+         */
+        private boolean acceptControls(Object event) {
+            String sceneID;
+            Set<InteractiveControl> controls;
+            if (event instanceof ControlCreateEvent) {
+                sceneID = ((ControlCreateEvent) event).getSceneID();
+                controls = ((ControlCreateEvent) event).getControls();
+            }
+            else {
+                sceneID = ((ControlUpdateEvent) event).getSceneID();
+                controls = ((ControlUpdateEvent) event).getControls();
+            }
+            if (!sceneIDs.isEmpty() && !sceneIDs.contains(sceneID)) {
+                return false;
+            }
+            if (controlIDs.isEmpty()) {
+                return true;
+            }
+            if (controls != null) {
+                for (InteractiveControl control : controls) {
+                    if (controlIDs.contains(control.getControlID())) {
+                        return true;
+                    }
+                }
+            }
+            return false;
+        }
+
+        /**
+         * Accepts control deletions of a matching scene that refer to at least one matching control.
+         *
+         * @param   event
+         *          ControlDeleteEvent
+         *
+         * @return  <code>true</code> if the event matches
+         *
+         * @since   1.2.0
+         */
+        private boolean acceptControlDelete(Object event) {
+            ControlDeleteEvent deleteEvent = (ControlDeleteEvent) event;
+            if (!sceneIDs.isEmpty() && !sceneIDs.contains(deleteEvent.getSceneID())) {
+                return false;
+            }
+            if (controlIDs.isEmpty()) {
+                return true;
+            }
+            if (deleteEvent.getControlIds() != null) {
+                for (String controlID : deleteEvent.getControlIds()) {
+                    if (controlIDs.contains(controlID)) {
+                        return true;
+                    }
+                }
+            }
+            return false;
+        }
+
+        /**
+         * Accepts group events referring to at least one matching group of a matching scene.
+         *
+         * @param   event
+         *          GroupCreateEvent or GroupUpdateEvent
+         *
+         * @return  <code>true</code> if the event matches
+         *
+         * @since   1.2.0
+         */
+        private boolean acceptGroups(Object event) {
+            Set<InteractiveGroup> groups = event instanceof GroupCreateEvent
+                    ? ((GroupCreateEvent) event).getGroups()
+                    : ((GroupUpdateEvent) event).getGroups();
+            if (groups != null) {
+                for (InteractiveGroup group : groups) {
+                    if ((groupIDs.isEmpty() || groupIDs.contains(group.getGroupID()))
+                            && (sceneIDs.isEmpty() || sceneIDs.contains(group.getSceneID()))) {
+                        return true;
+                    }
+                }
+            }
+            return false;
+        }
+
+        /**
+         * Accepts participant events referring to at least one participant of a matching group and scene.
+         *
+         * @param   event
+         *          ParticipantJoinEvent, ParticipantLeaveEvent or ParticipantUpdateEvent
+         *
+         * @return  <code>true</code> if the event matches
+         *
+         * @since   1.2.0
+         */
+        private boolean acceptParticipants(Object event) {
+            Set<InteractiveParticipant> participants;
+            if (event instanceof ParticipantJoinEvent) {
+                participants = ((ParticipantJoinEvent) event).getParticipants();
+            }
+            else if (event instanceof ParticipantLeaveEvent) {
+                participants = ((ParticipantLeaveEvent) event).getParticipants();
+            }
+            else {
+                participants = ((ParticipantUpdateEvent) event).getParticipants();
+            }
+            if (participants != null) {
+                for (InteractiveParticipant participant : participants) {
+                    if (acceptGroup(participant.getGroupID())) {
+                        return true;
+                    }
+                }
+            }
+            return false;
+        }
+
+        /**
+         * Accepts changes to a matching control of a matching scene.
+         *
+         * @param   event
+         *          ControlChangeEvent
+         *
+         * @return  <code>true</code> if the event matches
+         *
+         * @since   1.2.0
+         */
+        private boolean acceptControlChange(Object event) {
+            ControlChangeEvent change = (ControlChangeEvent) event;
+            return (sceneIDs.isEmpty() || sceneIDs.contains(change.getSceneID()))
+                    && (controlIDs.isEmpty() || controlIDs.contains(change.getControlID()));
+        }
+
+        /**
+         * Accepts changes to a participant that was or is in a matching group of a matching scene.
+         *
+         * @param   event
+         *          ParticipantChangeEvent
+         *
+         * @return  <code>true</code> if the event matches
+         *
+         * @since   1.2.0
+         */
+        private boolean acceptParticipantChange(Object event) {
+            ParticipantChangeEvent change = (ParticipantChangeEvent) event;
+            return acceptGroup(change.getParticipant().getGroupID()) || acceptGroup(change.getPrevious().getGroupID());
+        }
+
+        /**
+         * Accepts scene events referring to at least one matching scene.
+         *
+         * @param   event
+         *          SceneCreateEvent or SceneUpdateEvent
+         *
+         * @return  <code>true</code> if the event matches
+         *
+         * @since   1.2.0
+         */
+        private boolean acceptScenes(Object event) {
+            Set<InteractiveScene> scenes = event instanceof SceneCreateEvent
+                    ? ((SceneCreateEvent) event).getScenes()
+                    : ((SceneUpdateEvent) event).getScenes();
+            if (scenes != null) {
+                for (InteractiveScene scene : scenes) {
+                    if (sceneIDs.contains(scene.getSceneID())) {
+                        return true;
+                    }
+                }
+            }
+            return false;
+        }
+
+        /**
+         * Returns whether a group matches the group ids, and its cached scene matches the scene ids.
+         *
+         * @param   groupID
+         *          Group id
+         *
+         * @return  <code>true</code> if the group matches
+         *
+         * @since   1.2.0
+         */
+        private boolean acceptGroup(String groupID) {
+            if (!groupIDs.isEmpty() && !groupIDs.contains(groupID)) {
+                return false;
+            }
+            if (sceneIDs.isEmpty()) {
+                return true;
+            }
+            InteractiveGroup group = groupID != null ? cache.getGroups().get(groupID) : null;
+            return group != null && sceneIDs.contains(group.getSceneID());
+        }
+    }
+}
@@ -0,0 +1,329 @@
+package com.mixer.interactive.minecraft.lib.dispatch;
+
+import com.google.common.eventbus.AllowConcurrentEvents;
+import com.google.common.eventbus.Subscribe;
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+
+import java.lang.invoke.CallSite;
+import java.lang.invoke.LambdaMetafactory;
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.MethodType;
+import java.lang.reflect.Method;
+import java.lang.reflect.Modifier;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Delivers events to the <code>@Subscribe</code> methods of one event handler without reflection. When the table is
+ * built, an invoker is generated for every subscriber method with the LambdaMetafactory, so that invoking it is a
+ * direct call of the method. The invokers that receive an event class are looked up once per event class and cached,
+ * so dispatching an event is a map lookup followed by direct calls, instead of the subscriber lookup and
+ * <code>Method.invoke</code> of an EventBus.
+ * <p>
+ * Delivery follows the semantics of a Guava EventBus: an event is delivered to every method whose parameter type is
+ * assignable from the event class, methods without <code>@AllowConcurrentEvents</code> are never invoked concurrently,
+ * and an exception thrown by one method is logged without preventing delivery to the others.
+ *
+ * @author      Microsoft Corporation
+ *
+ * @since       1.2.0
+ */
+public class HandlerTable {
+
+    /**
+     * Logger
+     */
+    private static final Logger LOG = LogManager.getLogger();
+
+    /**
+     * Subscriptions that receive no event class
+     */
+    private static final Subscription[] NONE = new Subscription[0];
+
+    /**
+     * Event handler the events are delivered to
+     */
+    private final Object handler;
+
+    /**
+     * Subscriptions of every subscriber method of the handler
+     */
+    private final List<Subscription> subscriptions = new ArrayList<>();
+
+    /**
+     * Subscriptions receiving each event class
+     */
+    private final Map<Class<?>, Subscription[]> table = new ConcurrentHashMap<>();
+
+    /**
+     * Constructor. Generates an invoker for every <code>@Subscribe</code> method of the handler.
+     *
+     * @param   handler
+     *          Event handler the events are delivered to
+     *
+     * @throws  IllegalArgumentException
+     *          If a subscriber method does not take exactly one parameter, or an invoker cannot be created for it
+     *
+     * @since   1.2.0
+     */
+    public HandlerTable(Object handler) {
+        this.handler = handler;
+        Set<String> seen = new HashSet<>();
+        for (Class<?> type = handler.getClass(); type != null; type = type.getSuperclass()) {
+            for (Method method : type.getDeclaredMethods()) {
+                if (!method.isAnnotationPresent(Subscribe.class) || method.isBridge()) {
+                    continue;
+                }
+                if (method.getParameterCount() != 1) {
+                    throw new IllegalArgumentException("Subscriber method " + method + " must take exactly one parameter");
+                }
+                // An overridden subscriber method is invoked once, through the override
+                if (seen.add(method.getName() + method.getParameterTypes()[0].getName())) {
+                    subscriptions.add(new Subscription(method, createInvoker(method), method.isAnnotationPresent(AllowConcurrentEvents.class)));
+                }
+            }
+        }
+    }
+
+    /**
+     * Returns the event handler the events are delivered to.
+     *
+     * @return  Event handler
+     *
+     * @since   1.2.0
+     */
+    public Object getHandler() {
+        return handler;
+    }
+
+    /**
+     * Returns whether the handler subscribes to an event class.
+     *
+     * @param   eventType
+     *          Event class
+     *
+     * @return  <code>true</code> if at least one subscriber method receives the event class
+     *
+     * @since   1.2.0
+     */
+    public boolean handles(Class<?> eventType) {
+        return getSubscriptions(eventType).length > 0;
+    }
+
+    /**
+     * Delivers an event to every subscriber method of the handler that receives its class.
+     *
+     * @param   event
+     *          Event
+     *
+     * @since   1.2.0
+     */
+    public void dispatch(Object event) {
+        for (Subscription subscription : getSubscriptions(event.getClass())) {
+            subscription.invoke(handler, event);
+        }
+    }
+
+    /**
+     * Returns the subscriptions receiving an event class, resolving them on first use.
+     *
+     * @param   eventType
+     *          Event class
+     *
+     * @return  Array of Subscriptions, empty if none receives the event class
+     *
+     * @since   1.2.0
+     */
+    private Subscription[] getSubscriptions(Class<?> eventType) {
+        Subscription[] resolved = table.get(eventType);
+        if (resolved == null) {
+            resolved = table.computeIfAbsent(eventType, key -> {
+                List<Subscription> matching = new ArrayList<>();
+                for (Subscription subscription : subscriptions) {
+                    if (subscription.eventType.isAssignableFrom(key)) {
+                        matching.add(subscription);
+                    }
+                }
+                return matching.isEmpty() ? NONE : matching.toArray(new Subscription[0]);
+            });
+        }
+        return resolved;
+    }
+
+    /**
+     * Creates the invoker of a subscriber method. Methods of public classes that are visible to this library are
+     * invoked through a class generated by the LambdaMetafactory; other methods, e.g. of non-public handler classes,
+     * through a MethodHandle.
+     *
+     * @param   method
+     *          Subscriber method
+     *
+     * @return  Invoker
+     *
+     * @throws  IllegalArgumentException
+     *          If no invoker can be created for the method
+     *
+     * @since   1.2.0
+     */
+    private static Invoker createInvoker(Method method) {
+        MethodHandles.Lookup lookup = MethodHandles.lookup();
+        Class<?> declaringClass = method.getDeclaringClass();
+        try {
+            if (isDirectlyInvocable(method)) {
+                MethodHandle target = lookup.unreflect(method);
+                CallSite site = LambdaMetafactory.metafactory(lookup,
+                        "invoke",
+                        MethodType.methodType(Invoker.class),
+                        MethodType.methodType(void.class, Object.class, Object.class),
+                        target,
+                        MethodType.methodType(void.class, declaringClass, method.getParameterTypes()[0]));
+                return (Invoker) site.getTarget().invokeExact();
+            }
+            method.setAccessible(true);
+            MethodHandle target = lookup.unreflect(method).asType(MethodType.methodType(void.class, Object.class, Object.class));
+            return (handler, event) -> {
+                target.invokeExact(handler, event);
+            };
+        }
+        catch (Throwable e) {
+            throw new IllegalArgumentException("Cannot create an invoker for subscriber method " + method, e);
+        }
+    }
+
+    /**
+     * Returns whether a generated class can invoke a method directly: the method and every enclosing class of its
+     * declaring class are public, and the declaring class is visible from the class loader of this library.
+     *
+     * @param   method
+     *          Subscriber method
+     *
+     * @return  <code>true</code> if the method can be invoked directly
+     *
+     * @since   1.2.0
+     */
+    private static boolean isDirectlyInvocable(Method method) {
+        if (!Modifier.isPublic(method.getModifiers()) || Modifier.isStatic(method.getModifiers())) {
+            return false;
+        }
+        for (Class<?> type = method.getDeclaringClass(); type != null; type = type.getEnclosingClass()) {
+            if (!Modifier.isPublic(type.getModifiers())) {
+                return false;
+            }
+        }
+        try {
+            Class<?> declaringClass = method.getDeclaringClass();
+            return Class.forName(declaringClass.getName(), false, HandlerTable.class.getClassLoader()) == declaringClass;
+        }
+        catch (ClassNotFoundException | LinkageError e) {
+            return false;
+        }
+    }
+
+    @Override
+    public String toString() {
+        return "HandlerTable{handler=" + handler + ", subscriptions=" + subscriptions.size() + "}";
+    }
+
+    /**
+     * Invokes one subscriber method.
+     *
+     * @since   1.2.0
+     */
+    @FunctionalInterface
+    public interface Invoker {
+
+        /**
+         * Invokes the subscriber method.
+         *
+         * @param   handler
+         *          Event handler
+         * @param   event
+         *          Event
+         *
+         * @throws  Throwable
+         *          Anything thrown by the subscriber method
+         *
+         * @since   1.2.0
+         */
+        void invoke(Object handler, Object event) throws Throwable;
+    }
+
+    /**
+     * A subscriber method, its invoker and whether it may be invoked concurrently.
+     *
+     * @since   1.2.0
+     */
+    private static final class Subscription {
+
+        /**
+         * Subscriber method
+         */
+        private final Method method;
+
+        /**
+         * Class of the events the method receives
+         */
+        private final Class<?> eventType;
+
+        /**
+         * Invoker of the method
+         */
+        private final Invoker invoker;
+
+        /**
+         * Whether the method is annotated with <code>@AllowConcurrentEvents</code>
+         */
+        private final boolean concurrent;
+
+        /**
+         * Constructor.
+         *
+         * @param   method
+         *          Subscriber method
+         * @param   invoker
+         *          Invoker of the method
+         * @param   concurrent
+         *          Whether the method may be invoked concurrently
+         *
+         * @since   1.2.0
+         */
+        private Subscription(Method method, Invoker invoker, boolean concurrent) {
+            this.method = method;
+            this.eventType = method.getParameterTypes()[0];
+            this.invoker = invoker;
+            this.concurrent = concurrent;
+        }
+
+        /**
+         * Invokes the method, logging anything it throws.
+         *
+         * @param   handler
+         *          Event handler
+         * @param   event
+         *          Event
+         *
+         * @since   1.2.0
+         */
+        private void invoke(Object handler, Object event) {
+            try {
+                if (concurrent) {
+                    invoker.invoke(handler, event);
+                }
+                else {
+                    synchronized (this) {
+                        invoker.invoke(handler, event);
+                    }
+                }
+            }
+            catch (Throwable e) {
+                LOG.error("Exception thrown by subscriber method {} handling {}", method, event.getClass().getSimpleName(), e);
+            }
+        }
+    }
+}
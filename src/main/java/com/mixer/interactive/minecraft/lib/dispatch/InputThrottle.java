@@ -0,0 +1,386 @@
+package com.mixer.interactive.minecraft.lib.dispatch;
+
+import com.mixer.interactive.event.control.input.ControlInputEvent;
+import com.mixer.interactive.minecraft.lib.MixerInteractive;
+import com.mixer.interactive.resources.participant.InteractiveParticipant;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Function;
+import java.util.function.Predicate;
+
+/**
+ * Limits the rate at which the control input of each participant reaches custom event handlers, so that a few
+ * participants spamming a control cannot drive the handler load. Every participant has a token bucket, and input that
+ * finds its bucket empty is dropped before it reaches any custom event handler, whatever their dispatch mode. The
+ * default event handlers, which maintain the cache, always see every event.
+ * <p>
+ * Limits can be set for every participant, for the participants of a group, and for a control. Input to a control with
+ * a limit of its own is drawn from a bucket the participant has for that control; any other input is drawn from the
+ * participant's bucket, limited by the limit of its group or else the default limit. Without any limit, input is never
+ * dropped. Buckets are updated with a single compare-and-set and never lock, and are evicted when the participant
+ * leaves. The {@link ClientEventDispatcher} of the game client asks the throttle once per event, however many custom
+ * event handlers receive it, so every input draws at most one token.
+ * <p>
+ * Dropped input is counted in total as <code>throttle.dropped</code>, per control as
+ * <code>throttle.dropped.&lt;controlID&gt;</code>, and per participant by {@link #getDroppedInputCount(String)}.
+ *
+ * @author      Microsoft Corporation
+ *
+ * @since       1.2.0
+ */
+public class InputThrottle implements Predicate<Object> {
+
+    /**
+     * Looks up cached participants by session id, to find their group
+     */
+    private final Function<String, InteractiveParticipant> participants;
+
+    /**
+     * Buckets keyed by session id
+     */
+    private final Map<String, ParticipantBuckets> buckets = new ConcurrentHashMap<>();
+
+    /**
+     * Limits keyed by control id
+     */
+    private final Map<String, Limit> controlLimits = new ConcurrentHashMap<>();
+
+    /**
+     * Limits keyed by group id
+     */
+    private final Map<String, Limit> groupLimits = new ConcurrentHashMap<>();
+
+    /**
+     * Limit of participants without a group or control limit, <code>null</code> for none
+     */
+    private volatile Limit defaultLimit;
+
+    /**
+     * Whether any limit is set
+     */
+    private volatile boolean limited;
+
+    /**
+     * Constructor.
+     *
+     * @param   participants
+     *          Looks up cached participants by session id, to find their group
+     *
+     * @since   1.2.0
+     */
+    public InputThrottle(Function<String, InteractiveParticipant> participants) {
+        this.participants = participants;
+    }
+
+    /**
+     * Sets the limit of participants without a group or control limit.
+     *
+     * @param   inputsPerSecond
+     *          Sustained number of inputs per second
+     * @param   burst
+     *          Number of inputs that may be sent at once after a pause
+     *
+     * @since   1.2.0
+     */
+    public void setDefaultLimit(double inputsPerSecond, int burst) {
+        defaultLimit = new Limit(inputsPerSecond, burst);
+        limited = true;
+    }
+
+    /**
+     * Sets the limit of the participants of a group.
+     *
+     * @param   groupID
+     *          Group id
+     * @param   inputsPerSecond
+     *          Sustained number of inputs per second
+     * @param   burst
+     *          Number of inputs that may be sent at once after a pause
+     *
+     * @since   1.2.0
+     */
+    public void setGroupLimit(String groupID, double inputsPerSecond, int burst) {
+        groupLimits.put(groupID, new Limit(inputsPerSecond, burst));
+        limited = true;
+    }
+
+    /**
+     * Sets the limit of the input of each participant to a control.
+     *
+     * @param   controlID
+     *          Control id
+     * @param   inputsPerSecond
+     *          Sustained number of inputs per second
+     * @param   burst
+     *          Number of inputs that may be sent at once after a pause
+     *
+     * @since   1.2.0
+     */
+    public void setControlLimit(String controlID, double inputsPerSecond, int burst) {
+        controlLimits.put(controlID, new Limit(inputsPerSecond, burst));
+        limited = true;
+    }
+
+    /**
+     * Removes every limit, so that no input is dropped.
+     *
+     * @since   1.2.0
+     */
+    public void clearLimits() {
+        limited = false;
+        defaultLimit = null;
+        groupLimits.clear();
+        controlLimits.clear();
+        buckets.clear();
+    }
+
+    /**
+     * Returns whether an event may be delivered to the custom event handlers. Events other than control input are
+     * always delivered. Every call for a control input event draws a token from the bucket of the participant, so it
+     * must be asked once per event.
+     *
+     * @param   event
+     *          Event
+     *
+     * @return  <code>true</code> if the event is delivered, <code>false</code> if it is dropped
+     *
+     * @since   1.2.0
+     */
+    @Override
+    public boolean test(Object event) {
+        if (!limited || !(event instanceof ControlInputEvent)) {
+            return true;
+        }
+        return tryAcquire((ControlInputEvent) event);
+    }
+
+    /**
+     * Draws a token for a control input event from the bucket of its participant, counting the input as dropped if
+     * the bucket is empty.
+     *
+     * @param   event
+     *          ControlInputEvent
+     *
+     * @return  <code>true</code> if a token was drawn
+     *
+     * @since   1.2.0
+     */
+    private boolean tryAcquire(ControlInputEvent event) {
+        String sessionID = event.getParticipantID();
+        String controlID = event.getControlInput() != null ? event.getControlInput().getControlID() : null;
+        if (sessionID == null) {
+            return true;
+        }
+
+        ParticipantBuckets participantBuckets = buckets.get(sessionID);
+        if (participantBuckets == null) {
+            participantBuckets = buckets.computeIfAbsent(sessionID, key -> new ParticipantBuckets());
+        }
+
+        long now = System.nanoTime();
+        Limit controlLimit = controlID != null ? controlLimits.get(controlID) : null;
+        boolean admitted;
+        if (controlLimit != null) {
+            admitted = participantBuckets.getControlBucket(controlID).tryAcquire(controlLimit, now);
+        }
+        else {
+            Limit limit = getParticipantLimit(sessionID);
+            admitted = limit == null || participantBuckets.bucket.tryAcquire(limit, now);
+        }
+
+        if (!admitted) {
+            participantBuckets.dropped.incrementAndGet();
+            MixerInteractive.getMetrics().counter("throttle.dropped").increment();
+            if (controlID != null) {
+                MixerInteractive.getMetrics().counter("throttle.dropped." + controlID).increment();
+            }
+        }
+        return admitted;
+    }
+
+    /**
+     * Returns the limit of a participant: the limit of its group if there is one, the default limit otherwise.
+     *
+     * @param   sessionID
+     *          Session id
+     *
+     * @return  The limit, or <code>null</code> if the participant is not limited
+     *
+     * @since   1.2.0
+     */
+    private Limit getParticipantLimit(String sessionID) {
+        if (!groupLimits.isEmpty()) {
+            InteractiveParticipant participant = participants.apply(sessionID);
+            if (participant != null && participant.getGroupID() != null) {
+                Limit groupLimit = groupLimits.get(participant.getGroupID());
+                if (groupLimit != null) {
+                    return groupLimit;
+                }
+            }
+        }
+        return defaultLimit;
+    }
+
+    /**
+     * Returns the number of inputs of a participant that were dropped.
+     *
+     * @param   sessionID
+     *          Session id
+     *
+     * @return  Number of dropped inputs, 0 if the participant has no bucket
+     *
+     * @since   1.2.0
+     */
+    public long getDroppedInputCount(String sessionID) {
+        ParticipantBuckets participantBuckets = buckets.get(sessionID);
+        return participantBuckets != null ? participantBuckets.dropped.get() : 0;
+    }
+
+    /**
+     * Returns the number of participants that have a bucket.
+     *
+     * @return  Number of tracked participants
+     *
+     * @since   1.2.0
+     */
+    public int getTrackedParticipantCount() {
+        return buckets.size();
+    }
+
+    /**
+     * Removes the buckets of a participant, e.g. because it left.
+     *
+     * @param   sessionID
+     *          Session id
+     *
+     * @since   1.2.0
+     */
+    public void evict(String sessionID) {
+        buckets.remove(sessionID);
+    }
+
+    /**
+     * Removes the buckets of every participant.
+     *
+     * @since   1.2.0
+     */
+    public void clear() {
+        buckets.clear();
+    }
+
+    /**
+     * Rate and burst of a token bucket, expressed as the interval between two inputs and the tolerance of a generic
+     * cell rate algorithm.
+     *
+     * @since   1.2.0
+     */
+    private static final class Limit {
+
+        /**
+         * Interval between two inputs at the sustained rate, in nanoseconds
+         */
+        private final long intervalNanos;
+
+        /**
+         * How far ahead of the current time the bucket may be drawn, in nanoseconds
+         */
+        private final long toleranceNanos;
+
+        /**
+         * Constructor.
+         *
+         * @param   inputsPerSecond
+         *          Sustained number of inputs per second
+         * @param   burst
+         *          Number of inputs that may be sent at once after a pause
+         *
+         * @since   1.2.0
+         */
+        private Limit(double inputsPerSecond, int burst) {
+            if (inputsPerSecond <= 0 || burst < 1) {
+                throw new IllegalArgumentException("inputsPerSecond must be positive and burst at least 1");
+            }
+            this.intervalNanos = Math.max(1, (long) (TimeUnit.SECONDS.toNanos(1) / inputsPerSecond));
+            this.toleranceNanos = intervalNanos * (burst - 1);
+        }
+    }
+
+    /**
+     * Token bucket of a participant, held as the single time at which it will next be full.
+     *
+     * @since   1.2.0
+     */
+    private static final class TokenBucket {
+
+        /**
+         * Time at which the next input would conform to the rate, in {@link System#nanoTime()} units
+         */
+        private final AtomicLong theoreticalArrival = new AtomicLong(Long.MIN_VALUE);
+
+        /**
+         * Draws a token if the bucket has one.
+         *
+         * @param   limit
+         *          Limit of the bucket
+         * @param   now
+         *          Current time, in {@link System#nanoTime()} units
+         *
+         * @return  <code>true</code> if a token was drawn
+         *
+         * @since   1.2.0
+         */
+        private boolean tryAcquire(Limit limit, long now) {
+            while (true) {
+                long current = theoreticalArrival.get();
+                long arrival = current == Long.MIN_VALUE || current - now < 0 ? now : current;
+                if (arrival - now > limit.toleranceNanos) {
+                    return false;
+                }
+                if (theoreticalArrival.compareAndSet(current, arrival + limit.intervalNanos)) {
+                    return true;
+                }
+            }
+        }
+    }
+
+    /**
+     * Buckets and dropped input count of one participant.
+     *
+     * @since   1.2.0
+     */
+    private static final class ParticipantBuckets {
+
+        /**
+         * Bucket of input to controls without a limit of their own
+         */
+        private final TokenBucket bucket = new TokenBucket();
+
+        /**
+         * Buckets of input to controls with a limit of their own, keyed by control id
+         */
+        private final Map<String, TokenBucket> controlBuckets = new ConcurrentHashMap<>();
+
+        /**
+         * Number of dropped inputs
+         */
+        private final AtomicLong dropped = new AtomicLong();
+
+        /**
+         * Returns the bucket of input to a control, creating it on first use.
+         *
+         * @param   controlID
+         *          Control id
+         *
+         * @return  TokenBucket
+         *
+         * @since   1.2.0
+         */
+        private TokenBucket getControlBucket(String controlID) {
+            TokenBucket controlBucket = controlBuckets.get(controlID);
+            return controlBucket != null ? controlBucket : controlBuckets.computeIfAbsent(controlID, key -> new TokenBucket());
+        }
+    }
+}
@@ -0,0 +1,32 @@
+package com.mixer.interactive.minecraft.lib.dispatch;
+
+/**
+ * Defines what an {@link AsyncEventDispatcher} does with a new event when its queue is full.
+ *
+ * @author      Microsoft Corporation
+ *
+ * @since       1.2.0
+ */
+public enum OverflowPolicy {
+
+    /**
+     * The thread posting the new event is parked until the handler has taken an event from the queue. No event is ever
+     * discarded, but the posting thread is the one reading from the Mixer Interactive service, so a slow handler stalls
+     * the cache-maintaining handlers and every other handler of the game client. Only use it for handlers that must see
+     * every event and keep up with the event rate.
+     */
+    BLOCK,
+
+    /**
+     * The oldest queued event is discarded to make room for the new one. This is the default policy.
+     */
+    DROP_OLDEST,
+
+    /**
+     * If the new event replaces the state carried by a queued event, i.e. it is an update or a change event of the same
+     * class for the same scene, controls, groups or participants, the most recently queued such event is discarded in
+     * favor of the new one. Otherwise the oldest queued event is discarded instead. Events carrying deltas, such as
+     * control input and ControlInputBatches, are never coalesced.
+     */
+    COALESCE
+}
@@ -0,0 +1,430 @@
+package com.mixer.interactive.minecraft.lib.dispatch;
+
+import com.google.common.eventbus.Subscribe;
+import com.mixer.interactive.event.InteractiveEvent;
+import com.mixer.interactive.minecraft.lib.event.CacheChangeEvent;
+import com.mixer.interactive.minecraft.lib.event.CacheReadyEvent;
+import com.mixer.interactive.minecraft.lib.event.CacheReconciledEvent;
+import com.mixer.interactive.minecraft.lib.event.ControlInputBatch;
+import com.mixer.interactive.minecraft.lib.handler.AbstractEventHandler;
+import net.minecraftforge.common.MinecraftForge;
+import net.minecraftforge.fml.common.eventhandler.SubscribeEvent;
+import net.minecraftforge.fml.common.gameevent.TickEvent;
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+
+import java.util.List;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Predicate;
+
+/**
+ * Delivers Interactive events to event handlers on the Minecraft server thread. Events posted to the game client event
+ * bus are added to a bounded queue from whichever thread posts them, and are drained at the end of every server tick
+ * until the queue is empty or the tick budget is spent. Events left in the queue carry over to the next tick. When the
+ * queue is full, newly posted events are dropped and counted.
+ * <p>
+ * Handlers may be registered with an event filter. Events rejected by the filters of every handler are not queued,
+ * and each handler only receives the queued events its filter accepts.
+ *
+ * @author      Microsoft Corporation
+ *
+ * @since       1.2.0
+ */
+public class ServerTickEventQueue {
+
+    /**
+     * Logger
+     */
+    private static final Logger LOG = LogManager.getLogger();
+
+    /**
+     * Default maximum number of queued events
+     */
+    public static final int DEFAULT_CAPACITY = 10_000;
+
+    /**
+     * Default time budget for delivering events in one server tick
+     */
+    public static final long DEFAULT_TICK_BUDGET_MILLIS = 5;
+
+    /**
+     * Queued events, in the order they were posted
+     */
+    private final BlockingQueue<QueuedEvent> queue;
+
+    /**
+     * Server tick event handlers and their event filters
+     */
+    private final List<Registration> registrations = new CopyOnWriteArrayList<>();
+
+    /**
+     * Whether this queue has been registered with the Forge event bus
+     */
+    private final AtomicBoolean registeredWithForge = new AtomicBoolean();
+
+    /**
+     * Time budget for delivering events in one server tick, in nanoseconds
+     */
+    private volatile long tickBudgetNanos = TimeUnit.MILLISECONDS.toNanos(DEFAULT_TICK_BUDGET_MILLIS);
+
+    /**
+     * Number of events dropped because the queue was full
+     */
+    private final AtomicLong droppedEvents = new AtomicLong();
+
+    /**
+     * Time spent delivering events during the most recent server tick, in nanoseconds
+     */
+    private volatile long lastDrainNanos;
+
+    /**
+     * Longest time an event delivered during the most recent server tick spent in the queue, in nanoseconds
+     */
+    private volatile long lastMaxQueueLatencyNanos;
+
+    /**
+     * Constructor.
+     *
+     * @since   1.2.0
+     */
+    public ServerTickEventQueue() {
+        this(DEFAULT_CAPACITY);
+    }
+
+    /**
+     * Constructor.
+     *
+     * @param   capacity
+     *          Maximum number of queued events
+     *
+     * @since   1.2.0
+     */
+    public ServerTickEventQueue(int capacity) {
+        queue = new LinkedBlockingQueue<>(capacity);
+    }
+
+    /**
+     * Registers an event handler to receive events on the server thread. The first registration also subscribes this
+     * queue to server ticks on the Forge event bus.
+     *
+     * @param   handler
+     *          Event handler
+     *
+     * @since   1.2.0
+     */
+    public void register(AbstractEventHandler handler) {
+        register(handler, null);
+    }
+
+    /**
+     * Registers an event handler to receive the events accepted by a filter on the server thread. The first registration
+     * also subscribes this queue to server ticks on the Forge event bus.
+     *
+     * @param   handler
+     *          Event handler
+     * @param   handlerFilter
+     *          Decides which events are delivered to the handler, e.g. a compiled EventFilter, or <code>null</code> to
+     *          deliver every event
+     *
+     * @since   1.2.0
+     */
+    public void register(AbstractEventHandler handler, Predicate<Object> handlerFilter) {
+        registrations.add(new Registration(new HandlerTable(handler), handlerFilter));
+        if (registeredWithForge.compareAndSet(false, true)) {
+            MinecraftForge.EVENT_BUS.register(this);
+        }
+    }
+
+    /**
+     * Stops delivering events: unsubscribes this queue from server ticks on the Forge event bus, unregisters every
+     * handler and discards the queued events, which are not delivered since the queue may be closed from any thread.
+     *
+     * @since   1.2.0
+     */
+    public void close() {
+        if (registeredWithForge.compareAndSet(true, false)) {
+            MinecraftForge.EVENT_BUS.unregister(this);
+        }
+        registrations.clear();
+        queue.clear();
+    }
+
+    /**
+     * Queues an event posted to the game client event bus.
+     *
+     * @param   event
+     *          InteractiveEvent
+     *
+     * @since   1.2.0
+     */
+    @Subscribe
+    public void onInteractiveEvent(InteractiveEvent event) {
+        if (isAcceptedByAnyHandler(event)) {
+            enqueue(event);
+        }
+    }
+
+    /**
+     * Queues a batch of aggregated control input posted to the game client event bus.
+     *
+     * @param   batch
+     *          ControlInputBatch
+     *
+     * @since   1.2.0
+     */
+    @Subscribe
+    public void onControlInputBatch(ControlInputBatch batch) {
+        if (isAcceptedByAnyHandler(batch)) {
+            enqueue(batch);
+        }
+    }
+
+    /**
+     * Queues a change to a cached object posted to the game client event bus.
+     *
+     * @param   change
+     *          CacheChangeEvent
+     *
+     * @since   1.2.0
+     */
+    @Subscribe
+    public void onCacheChange(CacheChangeEvent change) {
+        if (isAcceptedByAnyHandler(change)) {
+            enqueue(change);
+        }
+    }
+
+    /**
+     * Queues the notice that the cache has been warmed up, posted to the game client event bus.
+     *
+     * @param   event
+     *          CacheReadyEvent
+     *
+     * @since   1.2.0
+     */
+    @Subscribe
+    public void onCacheReady(CacheReadyEvent event) {
+        if (isAcceptedByAnyHandler(event)) {
+            enqueue(event);
+        }
+    }
+
+    /**
+     * Queues the summary of a cache reconciliation, posted to the game client event bus.
+     *
+     * @param   event
+     *          CacheReconciledEvent
+     *
+     * @since   1.2.0
+     */
+    @Subscribe
+    public void onCacheReconciled(CacheReconciledEvent event) {
+        if (isAcceptedByAnyHandler(event)) {
+            enqueue(event);
+        }
+    }
+
+    /**
+     * Returns whether the filter of at least one registered handler accepts an event.
+     *
+     * @param   event
+     *          Event
+     *
+     * @return  <code>true</code> if the event is delivered to at least one handler
+     *
+     * @since   1.2.0
+     */
+    private boolean isAcceptedByAnyHandler(Object event) {
+        for (Registration registration : registrations) {
+            if (registration.accepts(event)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Adds an event to the queue, dropping it if the queue is full.
+     *
+     * @param   event
+     *          Event
+     *
+     * @since   1.2.0
+     */
+    private void enqueue(Object event) {
+        if (!queue.offer(new QueuedEvent(event, System.nanoTime()))) {
+            if (droppedEvents.getAndIncrement() == 0) {
+                LOG.warn("Server tick event queue is full, dropping Interactive events");
+            }
+        }
+    }
+
+    /**
+     * Delivers queued events at the end of every server tick.
+     *
+     * @param   event
+     *          ServerTickEvent
+     *
+     * @since   1.2.0
+     */
+    @SubscribeEvent
+    public void onServerTick(TickEvent.ServerTickEvent event) {
+        if (event.phase == TickEvent.Phase.END) {
+            drain();
+        }
+    }
+
+    /**
+     * Delivers queued events on the calling thread until the queue is empty or the tick budget is spent. At least one
+     * event is delivered per call so the queue always makes progress.
+     *
+     * @return  Number of events delivered
+     *
+     * @since   1.2.0
+     */
+    public int drain() {
+        long start = System.nanoTime();
+        long deadline = start + tickBudgetNanos;
+        long maxQueueLatency = 0;
+        int delivered = 0;
+
+        long now = start;
+        QueuedEvent queued;
+        while ((delivered == 0 || now - deadline < 0) && (queued = queue.poll()) != null) {
+            maxQueueLatency = Math.max(maxQueueLatency, now - queued.enqueuedAt);
+            for (Registration registration : registrations) {
+                if (registration.accepts(queued.event)) {
+                    registration.handlerTable.dispatch(queued.event);
+                }
+            }
+            delivered++;
+            now = System.nanoTime();
+        }
+
+        lastDrainNanos = now - start;
+        lastMaxQueueLatencyNanos = maxQueueLatency;
+        return delivered;
+    }
+
+    /**
+     * Sets the time budget for delivering events in one server tick.
+     *
+     * @param   budget
+     *          Budget
+     * @param   unit
+     *          Unit of the budget
+     *
+     * @since   1.2.0
+     */
+    public void setTickBudget(long budget, TimeUnit unit) {
+        tickBudgetNanos = unit.toNanos(budget);
+    }
+
+    /**
+     * Returns the time budget for delivering events in one server tick.
+     *
+     * @param   unit
+     *          Unit of the returned budget
+     *
+     * @return  Budget
+     *
+     * @since   1.2.0
+     */
+    public long getTickBudget(TimeUnit unit) {
+        return unit.convert(tickBudgetNanos, TimeUnit.NANOSECONDS);
+    }
+
+    /**
+     * Returns the number of events waiting to be delivered.
+     *
+     * @return  Queue depth
+     *
+     * @since   1.2.0
+     */
+    public int getQueueDepth() {
+        return queue.size();
+    }
+
+    /**
+     * Returns the number of events dropped because the queue was full.
+     *
+     * @return  Dropped event count
+     *
+     * @since   1.2.0
+     */
+    public long getDroppedEventCount() {
+        return droppedEvents.get();
+    }
+
+    /**
+     * Returns the time spent delivering events during the most recent server tick.
+     *
+     * @param   unit
+     *          Unit of the returned duration
+     *
+     * @return  Drain duration
+     *
+     * @since   1.2.0
+     */
+    public long getLastDrainDuration(TimeUnit unit) {
+        return unit.convert(lastDrainNanos, TimeUnit.NANOSECONDS);
+    }
+
+    /**
+     * Returns the longest time an event delivered during the most recent server tick spent waiting in the queue. A
+     * value that keeps growing means handlers are falling behind the incoming event rate.
+     *
+     * @param   unit
+     *          Unit of the returned latency
+     *
+     * @return  Queue latency
+     *
+     * @since   1.2.0
+     */
+    public long getLastMaxQueueLatency(TimeUnit unit) {
+        return unit.convert(lastMaxQueueLatencyNanos, TimeUnit.NANOSECONDS);
+    }
+
+    /**
+     * A server tick event handler along with its event filter.
+     *
+     * @since   1.2.0
+     */
+    private static final class Registration {
+
+        private final HandlerTable handlerTable;
+
+        private final Predicate<Object> handlerFilter;
+
+        private Registration(HandlerTable handlerTable, Predicate<Object> handlerFilter) {
+            this.handlerTable = handlerTable;
+            this.handlerFilter = handlerFilter;
+        }
+
+        private boolean accepts(Object event) {
+            return handlerFilter == null || handlerFilter.test(event);
+        }
+    }
+
+    /**
+     * An event waiting in the queue along with the time it was queued.
+     *
+     * @since   1.2.0
+     */
+    private static final class QueuedEvent {
+
+        private final Object event;
+
+        private final long enqueuedAt;
+
+        private QueuedEvent(Object event, long enqueuedAt) {
+            this.event = event;
+            this.enqueuedAt = enqueuedAt;
+        }
+    }
+}
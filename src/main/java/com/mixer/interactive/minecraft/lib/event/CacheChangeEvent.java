@@ -0,0 +1,42 @@
+package com.mixer.interactive.minecraft.lib.event;
+
+/**
+ * Base class of the events posted to the game client event bus when an update received from the Mixer Interactive
+ * service, or applied locally by the {@link com.mixer.interactive.minecraft.lib.cache.ControlUpdateBuffer}, changes a
+ * field of a cached object. Each subclass is posted only when its field actually changed, after the cache has been
+ * updated, so handlers can react to the change without comparing the old and new objects themselves.
+ *
+ * @author      Microsoft Corporation
+ *
+ * @since       1.2.0
+ */
+public abstract class CacheChangeEvent {
+
+    /**
+     * Name of the game client whose cache changed
+     */
+    private final String clientName;
+
+    /**
+     * Constructor.
+     *
+     * @param   clientName
+     *          Name of the game client whose cache changed
+     *
+     * @since   1.2.0
+     */
+    protected CacheChangeEvent(String clientName) {
+        this.clientName = clientName;
+    }
+
+    /**
+     * Returns the name of the game client whose cache changed.
+     *
+     * @return  Name of the game client
+     *
+     * @since   1.2.0
+     */
+    public String getClientName() {
+        return clientName;
+    }
+}
@@ -0,0 +1,144 @@
+package com.mixer.interactive.minecraft.lib.event;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Posted to the game client event bus by the {@link com.mixer.interactive.minecraft.lib.cache.CacheWarmer} once the
+ * local cache has been loaded with the scenes, groups and participants that already existed on the Mixer Interactive
+ * service when the connection was established. Events received during the warm-up are applied as usual, so the cache
+ * is complete from this point on.
+ *
+ * @author      Microsoft Corporation
+ *
+ * @since       1.2.0
+ */
+public class CacheReadyEvent {
+
+    /**
+     * Time taken by the warm-up in nanoseconds
+     */
+    private final long durationNanos;
+
+    /**
+     * Number of scenes added to or replaced in the cache
+     */
+    private final int sceneCount;
+
+    /**
+     * Number of groups added to or replaced in the cache
+     */
+    private final int groupCount;
+
+    /**
+     * Number of participants added to or replaced in the cache
+     */
+    private final int participantCount;
+
+    /**
+     * Reason the warm-up failed, <code>null</code> if it completed
+     */
+    private final Throwable failure;
+
+    /**
+     * Constructor.
+     *
+     * @param   durationNanos
+     *          Time taken by the warm-up in nanoseconds
+     * @param   sceneCount
+     *          Number of scenes added to or replaced in the cache
+     * @param   groupCount
+     *          Number of groups added to or replaced in the cache
+     * @param   participantCount
+     *          Number of participants added to or replaced in the cache
+     * @param   failure
+     *          Reason the warm-up failed, or <code>null</code> if it completed
+     *
+     * @since   1.2.0
+     */
+    public CacheReadyEvent(long durationNanos, int sceneCount, int groupCount, int participantCount, Throwable failure) {
+        this.durationNanos = durationNanos;
+        this.sceneCount = sceneCount;
+        this.groupCount = groupCount;
+        this.participantCount = participantCount;
+        this.failure = failure;
+    }
+
+    /**
+     * Returns the time taken by the warm-up, from the connection being established to the cache being loaded.
+     *
+     * @param   unit
+     *          Unit of the returned duration
+     *
+     * @return  Warm-up duration
+     *
+     * @since   1.2.0
+     */
+    public long getDuration(TimeUnit unit) {
+        return unit.convert(durationNanos, TimeUnit.NANOSECONDS);
+    }
+
+    /**
+     * Returns the number of scenes added to or replaced in the cache. Scenes already cached and up to date are not
+     * counted.
+     *
+     * @return  Scene count
+     *
+     * @since   1.2.0
+     */
+    public int getSceneCount() {
+        return sceneCount;
+    }
+
+    /**
+     * Returns the number of groups added to or replaced in the cache. Groups already cached and up to date are not
+     * counted.
+     *
+     * @return  Group count
+     *
+     * @since   1.2.0
+     */
+    public int getGroupCount() {
+        return groupCount;
+    }
+
+    /**
+     * Returns the number of participants added to or replaced in the cache. Participants already cached and up to
+     * date are not counted.
+     *
+     * @return  Participant count
+     *
+     * @since   1.2.0
+     */
+    public int getParticipantCount() {
+        return participantCount;
+    }
+
+    /**
+     * Returns whether every scene, group and participant was fetched and loaded. When the warm-up fails the cache only
+     * holds what was received through events.
+     *
+     * @return  <code>true</code> if the warm-up completed, <code>false</code> otherwise
+     *
+     * @since   1.2.0
+     */
+    public boolean isComplete() {
+        return failure == null;
+    }
+
+    /**
+     * Returns the reason the warm-up failed.
+     *
+     * @return  The failure, or <code>null</code> if the warm-up completed
+     *
+     * @since   1.2.0
+     */
+    public Throwable getFailure() {
+        return failure;
+    }
+
+    @Override
+    public String toString() {
+        return "CacheReadyEvent{durationMillis=" + getDuration(TimeUnit.MILLISECONDS) + ", scenes=" + sceneCount
+                + ", groups=" + groupCount + ", participants=" + participantCount + ", complete=" + isComplete() + "}";
+    }
+}
@@ -0,0 +1,189 @@
+package com.mixer.interactive.minecraft.lib.event;
+
+import com.mixer.interactive.resources.group.InteractiveGroup;
+import com.mixer.interactive.resources.participant.InteractiveParticipant;
+import com.mixer.interactive.resources.scene.InteractiveScene;
+
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * Posted to the game client event bus by the {@link com.mixer.interactive.minecraft.lib.cache.CacheWarmer} after a
+ * stale cache has been reconciled with the state of the Mixer Interactive service following a reconnect, see
+ * {@link com.mixer.interactive.minecraft.lib.cache.ReconnectMode#RECONCILE}. It lists only what changed while the
+ * game client was disconnected; everything else kept its cached instance.
+ *
+ * @author      Microsoft Corporation
+ *
+ * @since       1.2.0
+ */
+public class CacheReconciledEvent {
+
+    /**
+     * Changes to the cached scenes
+     */
+    private final Changes<InteractiveScene> sceneChanges;
+
+    /**
+     * Changes to the cached groups
+     */
+    private final Changes<InteractiveGroup> groupChanges;
+
+    /**
+     * Changes to the cached participants
+     */
+    private final Changes<InteractiveParticipant> participantChanges;
+
+    /**
+     * Constructor.
+     *
+     * @param   sceneChanges
+     *          Changes to the cached scenes
+     * @param   groupChanges
+     *          Changes to the cached groups
+     * @param   participantChanges
+     *          Changes to the cached participants
+     *
+     * @since   1.2.0
+     */
+    public CacheReconciledEvent(Changes<InteractiveScene> sceneChanges, Changes<InteractiveGroup> groupChanges,
+                                Changes<InteractiveParticipant> participantChanges) {
+        this.sceneChanges = sceneChanges;
+        this.groupChanges = groupChanges;
+        this.participantChanges = participantChanges;
+    }
+
+    /**
+     * Returns the changes to the cached scenes. A scene whose controls changed is listed as updated.
+     *
+     * @return  Scene changes
+     *
+     * @since   1.2.0
+     */
+    public Changes<InteractiveScene> getSceneChanges() {
+        return sceneChanges;
+    }
+
+    /**
+     * Returns the changes to the cached groups.
+     *
+     * @return  Group changes
+     *
+     * @since   1.2.0
+     */
+    public Changes<InteractiveGroup> getGroupChanges() {
+        return groupChanges;
+    }
+
+    /**
+     * Returns the changes to the cached participants.
+     *
+     * @return  Participant changes
+     *
+     * @since   1.2.0
+     */
+    public Changes<InteractiveParticipant> getParticipantChanges() {
+        return participantChanges;
+    }
+
+    /**
+     * Returns whether nothing changed while the game client was disconnected.
+     *
+     * @return  <code>true</code> if the cache was already up to date, <code>false</code> otherwise
+     *
+     * @since   1.2.0
+     */
+    public boolean isEmpty() {
+        return sceneChanges.isEmpty() && groupChanges.isEmpty() && participantChanges.isEmpty();
+    }
+
+    @Override
+    public String toString() {
+        return "CacheReconciledEvent{scenes=" + sceneChanges + ", groups=" + groupChanges + ", participants="
+                + participantChanges + "}";
+    }
+
+    /**
+     * Objects of one type that were added to, replaced in or removed from the cache.
+     *
+     * @param   <T>
+     *          Type of the cached objects
+     *
+     * @since   1.2.0
+     */
+    public static class Changes<T> {
+
+        private final List<T> added;
+
+        private final List<T> updated;
+
+        private final List<T> removed;
+
+        /**
+         * Constructor.
+         *
+         * @param   added
+         *          Objects added to the cache
+         * @param   updated
+         *          Objects now cached in place of an outdated version
+         * @param   removed
+         *          Objects removed from the cache
+         *
+         * @since   1.2.0
+         */
+        public Changes(List<T> added, List<T> updated, List<T> removed) {
+            this.added = Collections.unmodifiableList(added);
+            this.updated = Collections.unmodifiableList(updated);
+            this.removed = Collections.unmodifiableList(removed);
+        }
+
+        /**
+         * Returns the objects added to the cache.
+         *
+         * @return  Unmodifiable List of added objects
+         *
+         * @since   1.2.0
+         */
+        public List<T> getAdded() {
+            return added;
+        }
+
+        /**
+         * Returns the objects now cached in place of an outdated version.
+         *
+         * @return  Unmodifiable List of updated objects
+         *
+         * @since   1.2.0
+         */
+        public List<T> getUpdated() {
+            return updated;
+        }
+
+        /**
+         * Returns the objects removed from the cache.
+         *
+         * @return  Unmodifiable List of removed objects
+         *
+         * @since   1.2.0
+         */
+        public List<T> getRemoved() {
+            return removed;
+        }
+
+        /**
+         * Returns whether nothing was added, updated or removed.
+         *
+         * @return  <code>true</code> if there are no changes, <code>false</code> otherwise
+         *
+         * @since   1.2.0
+         */
+        public boolean isEmpty() {
+            return added.isEmpty() && updated.isEmpty() && removed.isEmpty();
+        }
+
+        @Override
+        public String toString() {
+            return "{added=" + added.size() + ", updated=" + updated.size() + ", removed=" + removed.size() + "}";
+        }
+    }
+}
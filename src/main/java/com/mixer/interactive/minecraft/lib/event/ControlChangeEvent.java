@@ -0,0 +1,93 @@
+package com.mixer.interactive.minecraft.lib.event;
+
+import com.mixer.interactive.resources.control.InteractiveControl;
+
+/**
+ * Base class of the events posted when a field of a cached InteractiveControl changes.
+ *
+ * @author      Microsoft Corporation
+ *
+ * @since       1.2.0
+ */
+public abstract class ControlChangeEvent extends CacheChangeEvent {
+
+    /**
+     * Scene id of the control
+     */
+    private final String sceneID;
+
+    /**
+     * Control as it was cached before the update
+     */
+    private final InteractiveControl previous;
+
+    /**
+     * Control as it is cached after the update
+     */
+    private final InteractiveControl control;
+
+    /**
+     * Constructor.
+     *
+     * @param   clientName
+     *          Name of the game client whose cache changed
+     * @param   sceneID
+     *          Scene id of the control
+     * @param   previous
+     *          Control as it was cached before the update
+     * @param   control
+     *          Control as it is cached after the update
+     *
+     * @since   1.2.0
+     */
+    protected ControlChangeEvent(String clientName, String sceneID, InteractiveControl previous, InteractiveControl control) {
+        super(clientName);
+        this.sceneID = sceneID;
+        this.previous = previous;
+        this.control = control;
+    }
+
+    /**
+     * Returns the scene id of the control.
+     *
+     * @return  Scene id
+     *
+     * @since   1.2.0
+     */
+    public String getSceneID() {
+        return sceneID;
+    }
+
+    /**
+     * Returns the control id of the control.
+     *
+     * @return  Control id
+     *
+     * @since   1.2.0
+     */
+    public String getControlID() {
+        return control.getControlID();
+    }
+
+    /**
+     * Returns the control as it was cached before the update.
+     *
+     * @return  InteractiveControl
+     *
+     * @since   1.2.0
+     */
+    public InteractiveControl getPrevious() {
+        return previous;
+    }
+
+    /**
+     * Returns the control as it is cached after the update.
+     *
+     * @return  InteractiveControl
+     *
+     * @since   1.2.0
+     */
+    public InteractiveControl getControl() {
+        return control;
+    }
+}
@@ -0,0 +1,77 @@
+package com.mixer.interactive.minecraft.lib.event;
+
+import com.mixer.interactive.resources.control.InteractiveControl;
+
+/**
+ * Posted when the cooldown of a cached button changes.
+ *
+ * @author      Microsoft Corporation
+ *
+ * @since       1.2.0
+ */
+public class ControlCooldownChangedEvent extends ControlChangeEvent {
+
+    /**
+     * Cooldown before the update, <code>null</code> if none was set
+     */
+    private final Long previousCooldown;
+
+    /**
+     * Cooldown after the update, <code>null</code> if none is set
+     */
+    private final Long cooldown;
+
+    /**
+     * Constructor.
+     *
+     * @param   clientName
+     *          Name of the game client whose cache changed
+     * @param   sceneID
+     *          Scene id of the control
+     * @param   previous
+     *          Control as it was cached before the update
+     * @param   control
+     *          Control as it is cached after the update
+     * @param   previousCooldown
+     *          Cooldown before the update, or <code>null</code> if none was set
+     * @param   cooldown
+     *          Cooldown after the update, or <code>null</code> if none is set
+     *
+     * @since   1.2.0
+     */
+    public ControlCooldownChangedEvent(String clientName, String sceneID, InteractiveControl previous, InteractiveControl control, Long previousCooldown, Long cooldown) {
+        super(clientName, sceneID, previous, control);
+        this.previousCooldown = previousCooldown;
+        this.cooldown = cooldown;
+    }
+
+    /**
+     * Returns the cooldown of the button before the update, the time in milliseconds since the epoch until which it
+     * was disabled.
+     *
+     * @return  Previous cooldown, or <code>null</code> if none was set
+     *
+     * @since   1.2.0
+     */
+    public Long getPreviousCooldown() {
+        return previousCooldown;
+    }
+
+    /**
+     * Returns the cooldown of the button after the update, the time in milliseconds since the epoch until which it is
+     * disabled.
+     *
+     * @return  Cooldown, or <code>null</code> if none is set
+     *
+     * @since   1.2.0
+     */
+    public Long getCooldown() {
+        return cooldown;
+    }
+
+    @Override
+    public String toString() {
+        return "ControlCooldownChangedEvent{sceneID=" + getSceneID() + ", controlID=" + getControlID()
+                + ", previousCooldown=" + previousCooldown + ", cooldown=" + cooldown + "}";
+    }
+}
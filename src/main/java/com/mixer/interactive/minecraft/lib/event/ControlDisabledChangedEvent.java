@@ -0,0 +1,55 @@
+package com.mixer.interactive.minecraft.lib.event;
+
+import com.mixer.interactive.resources.control.InteractiveControl;
+
+/**
+ * Posted when a cached control is disabled or enabled.
+ *
+ * @author      Microsoft Corporation
+ *
+ * @since       1.2.0
+ */
+public class ControlDisabledChangedEvent extends ControlChangeEvent {
+
+    /**
+     * Whether the control is disabled after the update
+     */
+    private final boolean disabled;
+
+    /**
+     * Constructor.
+     *
+     * @param   clientName
+     *          Name of the game client whose cache changed
+     * @param   sceneID
+     *          Scene id of the control
+     * @param   previous
+     *          Control as it was cached before the update
+     * @param   control
+     *          Control as it is cached after the update
+     * @param   disabled
+     *          Whether the control is disabled after the update
+     *
+     * @since   1.2.0
+     */
+    public ControlDisabledChangedEvent(String clientName, String sceneID, InteractiveControl previous, InteractiveControl control, boolean disabled) {
+        super(clientName, sceneID, previous, control);
+        this.disabled = disabled;
+    }
+
+    /**
+     * Returns whether the control is disabled after the update.
+     *
+     * @return  <code>true</code> if the control was disabled, <code>false</code> if it was enabled
+     *
+     * @since   1.2.0
+     */
+    public boolean isDisabled() {
+        return disabled;
+    }
+
+    @Override
+    public String toString() {
+        return "ControlDisabledChangedEvent{sceneID=" + getSceneID() + ", controlID=" + getControlID() + ", disabled=" + disabled + "}";
+    }
+}
@@ -0,0 +1,263 @@
+package com.mixer.interactive.minecraft.lib.event;
+
+import java.util.Map;
+
+/**
+ * All the input a single control of a single scene received during one server tick, aggregated by the
+ * {@link com.mixer.interactive.minecraft.lib.handler.ControlInputAggregator}. One batch is posted per scene and control
+ * that received input, in place of the individual <code>ControlInputEvent</code>s.
+ *
+ * @author      Microsoft Corporation
+ *
+ * @since       1.2.0
+ */
+public class ControlInputBatch {
+
+    /**
+     * Scene id, <code>null</code> if unknown
+     */
+    private final String sceneID;
+
+    /**
+     * Control id
+     */
+    private final String controlID;
+
+    /**
+     * Number of mouse down inputs
+     */
+    private final long mouseDownCount;
+
+    /**
+     * Number of mouse up inputs
+     */
+    private final long mouseUpCount;
+
+    /**
+     * Number of key down inputs
+     */
+    private final long keyDownCount;
+
+    /**
+     * Number of key up inputs
+     */
+    private final long keyUpCount;
+
+    /**
+     * Joystick positions of each participant that moved the control, keyed by session id
+     */
+    private final Map<String, JoystickPosition> joystickPositions;
+
+    /**
+     * Constructor.
+     *
+     * @param   sceneID
+     *          Scene id, <code>null</code> if unknown
+     * @param   controlID
+     *          Control id
+     * @param   mouseDownCount
+     *          Number of mouse down inputs
+     * @param   mouseUpCount
+     *          Number of mouse up inputs
+     * @param   keyDownCount
+     *          Number of key down inputs
+     * @param   keyUpCount
+     *          Number of key up inputs
+     * @param   joystickPositions
+     *          Joystick positions of each participant that moved the control, keyed by session id
+     *
+     * @since   1.2.0
+     */
+    public ControlInputBatch(String sceneID, String controlID, long mouseDownCount, long mouseUpCount, long keyDownCount,
+                             long keyUpCount, Map<String, JoystickPosition> joystickPositions) {
+        this.sceneID = sceneID;
+        this.controlID = controlID;
+        this.mouseDownCount = mouseDownCount;
+        this.mouseUpCount = mouseUpCount;
+        this.keyDownCount = keyDownCount;
+        this.keyUpCount = keyUpCount;
+        this.joystickPositions = joystickPositions;
+    }
+
+    /**
+     * Returns the id of the scene the control belongs to, i.e. the scene of the cached groups of the participants who
+     * sent the input.
+     *
+     * @return  Scene id, or <code>null</code> if the scene of the participants was not cached
+     *
+     * @since   1.2.0
+     */
+    public String getSceneID() {
+        return sceneID;
+    }
+
+    /**
+     * Returns the control id.
+     *
+     * @return  Control id
+     *
+     * @since   1.2.0
+     */
+    public String getControlID() {
+        return controlID;
+    }
+
+    /**
+     * Returns the number of mouse down inputs, i.e. button presses.
+     *
+     * @return  Mouse down count
+     *
+     * @since   1.2.0
+     */
+    public long getMouseDownCount() {
+        return mouseDownCount;
+    }
+
+    /**
+     * Returns the number of mouse up inputs.
+     *
+     * @return  Mouse up count
+     *
+     * @since   1.2.0
+     */
+    public long getMouseUpCount() {
+        return mouseUpCount;
+    }
+
+    /**
+     * Returns the number of key down inputs.
+     *
+     * @return  Key down count
+     *
+     * @since   1.2.0
+     */
+    public long getKeyDownCount() {
+        return keyDownCount;
+    }
+
+    /**
+     * Returns the number of key up inputs.
+     *
+     * @return  Key up count
+     *
+     * @since   1.2.0
+     */
+    public long getKeyUpCount() {
+        return keyUpCount;
+    }
+
+    /**
+     * Returns the joystick positions of each participant that moved the control during the tick.
+     *
+     * @return  Unmodifiable Map of JoystickPositions keyed by session id
+     *
+     * @since   1.2.0
+     */
+    public Map<String, JoystickPosition> getJoystickPositions() {
+        return joystickPositions;
+    }
+
+    @Override
+    public String toString() {
+        return "ControlInputBatch{sceneID='" + sceneID + "', controlID='" + controlID + "', mouseDown=" + mouseDownCount
+                + ", mouseUp=" + mouseUpCount + ", keyDown=" + keyDownCount + ", keyUp=" + keyUpCount + ", joysticks="
+                + joystickPositions.size() + "}";
+    }
+
+    /**
+     * Joystick coordinates reported by one participant during one server tick.
+     *
+     * @since   1.2.0
+     */
+    public static class JoystickPosition {
+
+        private final double lastX;
+
+        private final double lastY;
+
+        private final double averageX;
+
+        private final double averageY;
+
+        private final long samples;
+
+        /**
+         * Constructor.
+         *
+         * @param   lastX
+         *          Most recent x coordinate
+         * @param   lastY
+         *          Most recent y coordinate
+         * @param   averageX
+         *          Mean x coordinate
+         * @param   averageY
+         *          Mean y coordinate
+         * @param   samples
+         *          Number of move inputs the coordinates were computed from
+         *
+         * @since   1.2.0
+         */
+        public JoystickPosition(double lastX, double lastY, double averageX, double averageY, long samples) {
+            this.lastX = lastX;
+            this.lastY = lastY;
+            this.averageX = averageX;
+            this.averageY = averageY;
+            this.samples = samples;
+        }
+
+        /**
+         * Returns the most recent x coordinate.
+         *
+         * @return  Most recent x coordinate
+         *
+         * @since   1.2.0
+         */
+        public double getLastX() {
+            return lastX;
+        }
+
+        /**
+         * Returns the most recent y coordinate.
+         *
+         * @return  Most recent y coordinate
+         *
+         * @since   1.2.0
+         */
+        public double getLastY() {
+            return lastY;
+        }
+
+        /**
+         * Returns the mean x coordinate.
+         *
+         * @return  Mean x coordinate
+         *
+         * @since   1.2.0
+         */
+        public double getAverageX() {
+            return averageX;
+        }
+
+        /**
+         * Returns the mean y coordinate.
+         *
+         * @return  Mean y coordinate
+         *
+         * @since   1.2.0
+         */
+        public double getAverageY() {
+            return averageY;
+        }
+
+        /**
+         * Returns the number of move inputs the coordinates were computed from.
+         *
+         * @return  Number of move inputs the coordinates were computed from
+         *
+         * @since   1.2.0
+         */
+        public long getSamples() {
+            return samples;
+        }
+    }
+}
@@ -0,0 +1,74 @@
+package com.mixer.interactive.minecraft.lib.event;
+
+import com.mixer.interactive.resources.participant.InteractiveParticipant;
+
+/**
+ * Base class of the events posted when a field of a cached InteractiveParticipant changes.
+ *
+ * @author      Microsoft Corporation
+ *
+ * @since       1.2.0
+ */
+public abstract class ParticipantChangeEvent extends CacheChangeEvent {
+
+    /**
+     * Participant as it was cached before the update
+     */
+    private final InteractiveParticipant previous;
+
+    /**
+     * Participant as it is cached after the update
+     */
+    private final InteractiveParticipant participant;
+
+    /**
+     * Constructor.
+     *
+     * @param   clientName
+     *          Name of the game client whose cache changed
+     * @param   previous
+     *          Participant as it was cached before the update
+     * @param   participant
+     *          Participant as it is cached after the update
+     *
+     * @since   1.2.0
+     */
+    protected ParticipantChangeEvent(String clientName, InteractiveParticipant previous, InteractiveParticipant participant) {
+        super(clientName);
+        this.previous = previous;
+        this.participant = participant;
+    }
+
+    /**
+     * Returns the session id of the participant.
+     *
+     * @return  Session id
+     *
+     * @since   1.2.0
+     */
+    public String getSessionID() {
+        return participant.getSessionID();
+    }
+
+    /**
+     * Returns the participant as it was cached before the update.
+     *
+     * @return  InteractiveParticipant
+     *
+     * @since   1.2.0
+     */
+    public InteractiveParticipant getPrevious() {
+        return previous;
+    }
+
+    /**
+     * Returns the participant as it is cached after the update.
+     *
+     * @return  InteractiveParticipant
+     *
+     * @since   1.2.0
+     */
+    public InteractiveParticipant getParticipant() {
+        return participant;
+    }
+}
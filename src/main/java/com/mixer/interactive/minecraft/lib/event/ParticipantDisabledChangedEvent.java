@@ -0,0 +1,45 @@
+package com.mixer.interactive.minecraft.lib.event;
+
+import com.mixer.interactive.resources.participant.InteractiveParticipant;
+
+/**
+ * Posted when a cached participant is disabled or enabled.
+ *
+ * @author      Microsoft Corporation
+ *
+ * @since       1.2.0
+ */
+public class ParticipantDisabledChangedEvent extends ParticipantChangeEvent {
+
+    /**
+     * Constructor.
+     *
+     * @param   clientName
+     *          Name of the game client whose cache changed
+     * @param   previous
+     *          Participant as it was cached before the update
+     * @param   participant
+     *          Participant as it is cached after the update
+     *
+     * @since   1.2.0
+     */
+    public ParticipantDisabledChangedEvent(String clientName, InteractiveParticipant previous, InteractiveParticipant participant) {
+        super(clientName, previous, participant);
+    }
+
+    /**
+     * Returns whether the participant is disabled after the update.
+     *
+     * @return  <code>true</code> if the participant was disabled, <code>false</code> if it was enabled
+     *
+     * @since   1.2.0
+     */
+    public boolean isDisabled() {
+        return getParticipant().isDisabled();
+    }
+
+    @Override
+    public String toString() {
+        return "ParticipantDisabledChangedEvent{sessionID=" + getSessionID() + ", disabled=" + isDisabled() + "}";
+    }
+}
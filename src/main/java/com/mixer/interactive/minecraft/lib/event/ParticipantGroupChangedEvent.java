@@ -0,0 +1,56 @@
+package com.mixer.interactive.minecraft.lib.event;
+
+import com.mixer.interactive.resources.participant.InteractiveParticipant;
+
+/**
+ * Posted when a cached participant moves to another group.
+ *
+ * @author      Microsoft Corporation
+ *
+ * @since       1.2.0
+ */
+public class ParticipantGroupChangedEvent extends ParticipantChangeEvent {
+
+    /**
+     * Constructor.
+     *
+     * @param   clientName
+     *          Name of the game client whose cache changed
+     * @param   previous
+     *          Participant as it was cached before the update
+     * @param   participant
+     *          Participant as it is cached after the update
+     *
+     * @since   1.2.0
+     */
+    public ParticipantGroupChangedEvent(String clientName, InteractiveParticipant previous, InteractiveParticipant participant) {
+        super(clientName, previous, participant);
+    }
+
+    /**
+     * Returns the id of the group the participant was in before the update.
+     *
+     * @return  Previous group id
+     *
+     * @since   1.2.0
+     */
+    public String getPreviousGroupID() {
+        return getPrevious().getGroupID();
+    }
+
+    /**
+     * Returns the id of the group the participant is in after the update.
+     *
+     * @return  Group id
+     *
+     * @since   1.2.0
+     */
+    public String getGroupID() {
+        return getParticipant().getGroupID();
+    }
+
+    @Override
+    public String toString() {
+        return "ParticipantGroupChangedEvent{sessionID=" + getSessionID() + ", previousGroupID=" + getPreviousGroupID() + ", groupID=" + getGroupID() + "}";
+    }
+}
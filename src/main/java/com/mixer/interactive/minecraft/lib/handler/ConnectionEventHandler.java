@@ -3,6 +3,8 @@ package com.mixer.interactive.minecraft.lib.handler;
 import com.google.common.eventbus.Subscribe;
 import com.mixer.interactive.event.connection.ConnectionClosedEvent;
 import com.mixer.interactive.minecraft.lib.MixerInteractive;
+import com.mixer.interactive.minecraft.lib.cache.CacheShard;
+import com.mixer.interactive.minecraft.lib.cache.ReconnectMode;
 
 /**
  * Maintains the local cache by listening for connection related events.
@@ -14,7 +16,34 @@ import com.mixer.interactive.minecraft.lib.MixerInteractive;
 public class ConnectionEventHandler extends AbstractEventHandler {
 
     /**
-     * TODO Finish Javadoc.
+     * Cache maintained by the handler
+     */
+    private final CacheShard cache;
+
+    /**
+     * Constructor. The handler maintains the cache of the default game client.
+     *
+     * @since   1.2.0
+     */
+    public ConnectionEventHandler() {
+        this(MixerInteractive.getCache());
+    }
+
+    /**
+     * Constructor.
+     *
+     * @param   cache
+     *          Cache maintained by the handler
+     *
+     * @since   1.2.0
+     */
+    public ConnectionEventHandler(CacheShard cache) {
+        this.cache = cache;
+    }
+
+    /**
+     * Clears the local cache when the connection closes. With {@link ReconnectMode#RECONCILE}, the cache is kept and
+     * marked stale instead, to be reconciled by the CacheWarmer once a connection is established again.
      *
      * @param   event
      *          ConnectionClosedEvent
@@ -23,8 +52,10 @@ public class ConnectionEventHandler extends AbstractEventHandler {
      */
     @Subscribe
     public void onConnectionClosed(ConnectionClosedEvent event) {
-        MixerInteractive.getScenes().clear();
-        MixerInteractive.getGroups().clear();
-        MixerInteractive.getParticipants().clear();
+        if (cache.getCacheWarmer().getReconnectMode() == ReconnectMode.RECONCILE) {
+            cache.getCacheWarmer().markStale();
+            return;
+        }
+        cache.clear();
     }
 }
@@ -0,0 +1,289 @@
+package com.mixer.interactive.minecraft.lib.handler;
+
+import com.google.common.eventbus.EventBus;
+import com.google.common.eventbus.Subscribe;
+import com.mixer.interactive.GameClient;
+import com.mixer.interactive.event.control.input.ControlInputEvent;
+import com.mixer.interactive.event.control.input.ControlKeyDownInputEvent;
+import com.mixer.interactive.event.control.input.ControlKeyUpInputEvent;
+import com.mixer.interactive.event.control.input.ControlMouseDownInputEvent;
+import com.mixer.interactive.event.control.input.ControlMouseUpInputEvent;
+import com.mixer.interactive.event.control.input.ControlMoveInputEvent;
+import com.mixer.interactive.minecraft.lib.MixerInteractive;
+import com.mixer.interactive.minecraft.lib.event.ControlInputBatch;
+import com.mixer.interactive.resources.group.InteractiveGroup;
+import com.mixer.interactive.resources.participant.InteractiveParticipant;
+import net.minecraftforge.fml.common.eventhandler.SubscribeEvent;
+import net.minecraftforge.fml.common.gameevent.TickEvent;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Aggregates ControlInputEvents per control and posts a single ControlInputBatch per control to the game client event
+ * bus at the end of every server tick. Controls with the same id in different scenes are aggregated separately; the
+ * scene of an input is the scene of the cached group of the participant who sent it. Button presses are kept as
+ * primitive counters and joystick moves as running sums per participant, so once a control and participant have been
+ * seen, counting an input allocates nothing. The counters of a control that received no input during a tick are
+ * dropped, so controls that are no longer used do not accumulate.
+ * <p>
+ * The raw ControlInputEvents are still delivered to every other handler; mods that only need per-tick totals should
+ * subscribe to ControlInputBatch instead.
+ *
+ * @author      Microsoft Corporation
+ *
+ * @since       1.2.0
+ */
+public class ControlInputAggregator extends AbstractEventHandler {
+
+    /**
+     * Scene id under which input from a participant without a cached group and scene is aggregated
+     */
+    private static final String UNKNOWN_SCENE = "";
+
+    /**
+     * Input counters of each control, keyed by control id, keyed by scene id
+     */
+    private final Map<String, Map<String, ControlCounters>> counters = new ConcurrentHashMap<>();
+
+    /**
+     * Counts a control input.
+     *
+     * @param   event
+     *          ControlInputEvent
+     *
+     * @since   1.2.0
+     */
+    @Subscribe
+    public void onControlInput(ControlInputEvent event) {
+        if (event.getControlInput() == null) {
+            return;
+        }
+
+        String sceneID = getSceneID(event.getParticipantID());
+        Map<String, ControlCounters> sceneCounters = counters.get(sceneID);
+        if (sceneCounters == null) {
+            sceneCounters = counters.computeIfAbsent(sceneID, id -> new ConcurrentHashMap<>());
+        }
+
+        String controlID = event.getControlInput().getControlID();
+        ControlCounters control = sceneCounters.get(controlID);
+        while (control == null || !control.add(event)) {
+            if (control != null) {
+                sceneCounters.remove(controlID, control);
+            }
+            control = sceneCounters.computeIfAbsent(controlID, id -> new ControlCounters());
+        }
+    }
+
+    /**
+     * Returns the id of the scene a participant sees, which is the scene of the participant's cached group.
+     *
+     * @param   participantID
+     *          Session id of the participant
+     *
+     * @return  Scene id, or {@link #UNKNOWN_SCENE} if the participant or its group is not cached
+     *
+     * @since   1.2.0
+     */
+    private static String getSceneID(String participantID) {
+        InteractiveParticipant participant = participantID != null ? MixerInteractive.getParticipants().get(participantID) : null;
+        InteractiveGroup group = participant != null && participant.getGroupID() != null
+                ? MixerInteractive.getGroups().get(participant.getGroupID())
+                : null;
+        return group != null && group.getSceneID() != null ? group.getSceneID() : UNKNOWN_SCENE;
+    }
+
+    /**
+     * Publishes the aggregated input at the end of every server tick.
+     *
+     * @param   event
+     *          ServerTickEvent
+     *
+     * @since   1.2.0
+     */
+    @SubscribeEvent
+    public void onServerTick(TickEvent.ServerTickEvent event) {
+        GameClient gameClient = MixerInteractive.getGameClient();
+        if (event.phase == TickEvent.Phase.END && gameClient != null) {
+            publish(gameClient.getEventBus());
+        }
+    }
+
+    /**
+     * Resets every counter and posts one ControlInputBatch per control that received input since the last call. The
+     * counters of controls that received no input are dropped.
+     *
+     * @param   eventBus
+     *          Event bus the batches are posted to
+     *
+     * @return  The posted batches
+     *
+     * @since   1.2.0
+     */
+    public List<ControlInputBatch> publish(EventBus eventBus) {
+        List<ControlInputBatch> batches = new ArrayList<>();
+        for (Map.Entry<String, Map<String, ControlCounters>> scene : counters.entrySet()) {
+            String sceneID = UNKNOWN_SCENE.equals(scene.getKey()) ? null : scene.getKey();
+            Iterator<Map.Entry<String, ControlCounters>> iterator = scene.getValue().entrySet().iterator();
+            while (iterator.hasNext()) {
+                Map.Entry<String, ControlCounters> entry = iterator.next();
+                ControlInputBatch batch = entry.getValue().drain(sceneID, entry.getKey());
+                if (batch != null) {
+                    batches.add(batch);
+                }
+                else {
+                    iterator.remove();
+                }
+            }
+        }
+        batches.forEach(eventBus::post);
+        return batches;
+    }
+
+    /**
+     * Removes the counters of every control, e.g. when the scene changes.
+     *
+     * @since   1.2.0
+     */
+    public void clear() {
+        counters.clear();
+    }
+
+    /**
+     * Input counters of a single control in a single scene. Updates are serialized on the instance, which is only ever
+     * contended by the tick thread draining it. A drain that finds no input retires the instance, so that the
+     * aggregator can drop it, and a retired instance rejects further input so that the caller records it in a fresh
+     * one.
+     *
+     * @since   1.2.0
+     */
+    private static final class ControlCounters {
+
+        private boolean retired;
+
+        private long mouseDown;
+
+        private long mouseUp;
+
+        private long keyDown;
+
+        private long keyUp;
+
+        private final Map<String, JoystickCounters> joysticks = new HashMap<>();
+
+        /**
+         * Counts a control input, or returns <code>false</code> if the counters are retired.
+         */
+        private synchronized boolean add(ControlInputEvent event) {
+            if (retired) {
+                return false;
+            }
+            if (event instanceof ControlMouseDownInputEvent) {
+                mouseDown++;
+            }
+            else if (event instanceof ControlMouseUpInputEvent) {
+                mouseUp++;
+            }
+            else if (event instanceof ControlKeyDownInputEvent) {
+                keyDown++;
+            }
+            else if (event instanceof ControlKeyUpInputEvent) {
+                keyUp++;
+            }
+            else if (event instanceof ControlMoveInputEvent) {
+                ControlMoveInputEvent move = (ControlMoveInputEvent) event;
+                JoystickCounters joystick = joysticks.get(event.getParticipantID());
+                if (joystick == null) {
+                    joystick = new JoystickCounters();
+                    joysticks.put(event.getParticipantID(), joystick);
+                }
+                joystick.add(move.getX(), move.getY());
+            }
+            return true;
+        }
+
+        /**
+         * Resets the counters and returns their totals as a batch, or retires the counters and returns
+         * <code>null</code> if there was no input. Participants that did not move the joystick since the last drain
+         * are forgotten.
+         */
+        private synchronized ControlInputBatch drain(String sceneID, String controlID) {
+            long mouseDownCount = mouseDown;
+            long mouseUpCount = mouseUp;
+            long keyDownCount = keyDown;
+            long keyUpCount = keyUp;
+            mouseDown = 0;
+            mouseUp = 0;
+            keyDown = 0;
+            keyUp = 0;
+
+            Map<String, ControlInputBatch.JoystickPosition> positions = null;
+            Iterator<Map.Entry<String, JoystickCounters>> iterator = joysticks.entrySet().iterator();
+            while (iterator.hasNext()) {
+                Map.Entry<String, JoystickCounters> entry = iterator.next();
+                ControlInputBatch.JoystickPosition position = entry.getValue().drain();
+                if (position == null) {
+                    iterator.remove();
+                }
+                else {
+                    if (positions == null) {
+                        positions = new HashMap<>();
+                    }
+                    positions.put(entry.getKey(), position);
+                }
+            }
+
+            if (mouseDownCount == 0 && mouseUpCount == 0 && keyDownCount == 0 && keyUpCount == 0 && positions == null) {
+                retired = true;
+                return null;
+            }
+            return new ControlInputBatch(sceneID, controlID, mouseDownCount, mouseUpCount, keyDownCount, keyUpCount,
+                    positions != null ? Collections.unmodifiableMap(positions) : Collections.emptyMap());
+        }
+    }
+
+    /**
+     * Running joystick coordinates of a single participant on a single control, guarded by the ControlCounters of the
+     * control.
+     *
+     * @since   1.2.0
+     */
+    private static final class JoystickCounters {
+
+        private double lastX;
+
+        private double lastY;
+
+        private double sumX;
+
+        private double sumY;
+
+        private long samples;
+
+        private void add(double x, double y) {
+            lastX = x;
+            lastY = y;
+            sumX += x;
+            sumY += y;
+            samples++;
+        }
+
+        private ControlInputBatch.JoystickPosition drain() {
+            if (samples == 0) {
+                return null;
+            }
+            ControlInputBatch.JoystickPosition position = new ControlInputBatch.JoystickPosition(lastX, lastY,
+                    sumX / samples, sumY / samples, samples);
+            sumX = 0;
+            sumY = 0;
+            samples = 0;
+            return position;
+        }
+    }
+}
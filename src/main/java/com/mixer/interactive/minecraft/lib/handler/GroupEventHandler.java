@@ -5,9 +5,15 @@ import com.mixer.interactive.event.group.GroupCreateEvent;
 import com.mixer.interactive.event.group.GroupDeleteEvent;
 import com.mixer.interactive.event.group.GroupUpdateEvent;
 import com.mixer.interactive.minecraft.lib.MixerInteractive;
+import com.mixer.interactive.minecraft.lib.cache.CacheShard;
+import com.mixer.interactive.resources.group.InteractiveGroup;
+
+import java.util.ArrayList;
+import java.util.List;
 
 /**
- * Maintains the local cache of InteractiveGroups by listening for create/update/delete group events.
+ * Maintains the local cache of InteractiveGroups, and the groups of the cache snapshot, by listening for
+ * create/update/delete group events.
  *
  * @author      Microsoft Corporation
  *
@@ -15,6 +21,32 @@ import com.mixer.interactive.minecraft.lib.MixerInteractive;
  */
 public class GroupEventHandler extends AbstractEventHandler {
 
+    /**
+     * Cache maintained by the handler
+     */
+    private final CacheShard cache;
+
+    /**
+     * Constructor. The handler maintains the cache of the default game client.
+     *
+     * @since   1.2.0
+     */
+    public GroupEventHandler() {
+        this(MixerInteractive.getCache());
+    }
+
+    /**
+     * Constructor.
+     *
+     * @param   cache
+     *          Cache maintained by the handler
+     *
+     * @since   1.2.0
+     */
+    public GroupEventHandler(CacheShard cache) {
+        this.cache = cache;
+    }
+
     /**
      * Adds all InteractiveGroups to the local cache that were created on the Mixer Interactive service.
      *
@@ -25,7 +57,14 @@ public class GroupEventHandler extends AbstractEventHandler {
      */
     @Subscribe
     public void onGroupCreated(GroupCreateEvent event) {
-        event.getGroups().forEach(g -> MixerInteractive.getGroups().put(g.getGroupID(), g));
+        cache.getCacheWarmer().touch(event);
+        event.getGroups().forEach(g -> cache.getGroups().put(g.getGroupID(), g));
+        cache.publishSnapshot(snapshot -> {
+            for (InteractiveGroup group : event.getGroups()) {
+                snapshot = snapshot.withGroup(group);
+            }
+            return snapshot;
+        });
     }
 
     /**
@@ -38,7 +77,19 @@ public class GroupEventHandler extends AbstractEventHandler {
      */
     @Subscribe
     public void onGroupUpdated(GroupUpdateEvent event) {
-        event.getGroups().forEach(g -> MixerInteractive.getGroups().replace(g.getGroupID(), g));
+        cache.getCacheWarmer().touch(event);
+        List<InteractiveGroup> updated = new ArrayList<>(event.getGroups().size());
+        for (InteractiveGroup group : event.getGroups()) {
+            if (cache.getGroups().replace(group.getGroupID(), group) != null) {
+                updated.add(group);
+            }
+        }
+        cache.publishSnapshot(snapshot -> {
+            for (InteractiveGroup group : updated) {
+                snapshot = snapshot.withGroup(group);
+            }
+            return snapshot;
+        });
     }
 
     /**
@@ -51,6 +102,8 @@ public class GroupEventHandler extends AbstractEventHandler {
      */
     @Subscribe
     public void onGroupDeleted(GroupDeleteEvent event) {
-        MixerInteractive.getGroups().remove(event.getGroupID());
+        cache.getCacheWarmer().touch(event);
+        cache.getGroups().remove(event.getGroupID());
+        cache.publishSnapshot(snapshot -> snapshot.withoutGroup(event.getGroupID()));
     }
 }
@@ -1,13 +1,36 @@
 package com.mixer.interactive.minecraft.lib.handler;
 
 import com.google.common.eventbus.Subscribe;
+import com.mixer.interactive.GameClient;
+import com.mixer.interactive.event.control.input.ControlInputEvent;
 import com.mixer.interactive.event.participant.ParticipantJoinEvent;
 import com.mixer.interactive.event.participant.ParticipantLeaveEvent;
 import com.mixer.interactive.event.participant.ParticipantUpdateEvent;
 import com.mixer.interactive.minecraft.lib.MixerInteractive;
+import com.mixer.interactive.minecraft.lib.cache.CacheShard;
+import com.mixer.interactive.minecraft.lib.cache.ChangeDetector;
+import com.mixer.interactive.minecraft.lib.cache.CompactParticipantStore;
+import com.mixer.interactive.minecraft.lib.event.CacheChangeEvent;
+import com.mixer.interactive.resources.participant.InteractiveParticipant;
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import static com.mixer.interactive.GameClient.PARTICIPANT_SERVICE_PROVIDER;
 
 /**
- * Maintains the local cache of InteractiveParticipants by listening for join/update/leave participant events.
+ * Maintains the local cache of InteractiveParticipants, the ParticipantIndex over it and the participants of the cache
+ * snapshot by listening for join/update/leave participant events. Participants that leave are also evicted from the
+ * InputThrottle. When the compact participant store is enabled, participants evicted as idle who send input again
+ * are fetched from the Mixer Interactive service and cached anew.
  *
  * @author      Microsoft Corporation
  *
@@ -15,6 +38,52 @@ import com.mixer.interactive.minecraft.lib.MixerInteractive;
  */
 public class ParticipantEventHandler extends AbstractEventHandler {
 
+    /**
+     * Logger
+     */
+    private static final Logger LOG = LogManager.getLogger();
+
+    /**
+     * How far back the participants fetched to re-admit evicted participants must have sent input, in milliseconds
+     */
+    private static final long READMIT_WINDOW_MILLIS = 60000;
+
+    /**
+     * Cache maintained by the handler
+     */
+    private final CacheShard cache;
+
+    /**
+     * Session ids of participants who sent input but are not in the compact participant store
+     */
+    private final Set<String> unknownSessionIDs = ConcurrentHashMap.newKeySet();
+
+    /**
+     * Whether participants are being fetched to re-admit unknown sessions
+     */
+    private final AtomicBoolean readmitting = new AtomicBoolean();
+
+    /**
+     * Constructor. The handler maintains the cache of the default game client.
+     *
+     * @since   1.2.0
+     */
+    public ParticipantEventHandler() {
+        this(MixerInteractive.getCache());
+    }
+
+    /**
+     * Constructor.
+     *
+     * @param   cache
+     *          Cache maintained by the handler
+     *
+     * @since   1.2.0
+     */
+    public ParticipantEventHandler(CacheShard cache) {
+        this.cache = cache;
+    }
+
     /**
      * Adds all InteractiveParticipants to the local cache that joined on the Mixer Interactive service.
      *
@@ -25,11 +94,23 @@ public class ParticipantEventHandler extends AbstractEventHandler {
      */
     @Subscribe
     public void onParticipantJoined(ParticipantJoinEvent event) {
-        event.getParticipants().forEach(p -> MixerInteractive.getParticipants().put(p.getSessionID(), p));
+        cache.getCacheWarmer().touch(event);
+        for (InteractiveParticipant participant : event.getParticipants()) {
+            InteractiveParticipant previous = cache.getParticipants().put(participant.getSessionID(), participant);
+            cache.getParticipantIndex().update(previous, participant);
+        }
+        cache.publishSnapshot(snapshot -> {
+            for (InteractiveParticipant participant : event.getParticipants()) {
+                snapshot = snapshot.withParticipant(participant);
+            }
+            return snapshot;
+        });
     }
 
     /**
      * Updates all InteractiveParticipants in the local cache that were updated on the Mixer Interactive service.
+     * Updates that change nothing are skipped, and an event is posted for each field handlers react to that changed,
+     * e.g. a ParticipantGroupChangedEvent.
      *
      * @param   event
      *          ParticipantUpdateEvent
@@ -38,7 +119,32 @@ public class ParticipantEventHandler extends AbstractEventHandler {
      */
     @Subscribe
     public void onParticipantUpdated(ParticipantUpdateEvent event) {
-        event.getParticipants().forEach(p -> MixerInteractive.getParticipants().replace(p.getSessionID(), p));
+        cache.getCacheWarmer().touch(event);
+        List<InteractiveParticipant> updated = new ArrayList<>(event.getParticipants().size());
+        List<CacheChangeEvent> changes = new ArrayList<>();
+        for (InteractiveParticipant participant : event.getParticipants()) {
+            InteractiveParticipant cached = cache.getParticipants().get(participant.getSessionID());
+            if (cached != null && ChangeDetector.isUnchanged(cached, participant)) {
+                MixerInteractive.getMetrics().counter("cache.updates.unchanged").increment();
+                continue;
+            }
+            InteractiveParticipant previous = cache.getParticipants().replace(participant.getSessionID(), participant);
+            if (previous != null) {
+                cache.getParticipantIndex().update(previous, participant);
+                updated.add(participant);
+                ChangeDetector.diff(cache.getName(), previous, participant, changes);
+            }
+        }
+        if (updated.isEmpty()) {
+            return;
+        }
+        cache.publishSnapshot(snapshot -> {
+            for (InteractiveParticipant participant : updated) {
+                snapshot = snapshot.withParticipant(participant);
+            }
+            return snapshot;
+        });
+        cache.postChanges(changes);
     }
 
     /**
@@ -51,6 +157,98 @@ public class ParticipantEventHandler extends AbstractEventHandler {
      */
     @Subscribe
     public void onParticipantLeft(ParticipantLeaveEvent event) {
-        event.getParticipants().forEach(p -> MixerInteractive.getParticipants().remove(p.getSessionID()));
+        cache.getCacheWarmer().touch(event);
+        for (InteractiveParticipant participant : event.getParticipants()) {
+            cache.getParticipantIndex().remove(cache.getParticipants().remove(participant.getSessionID()));
+            cache.getInputThrottle().evict(participant.getSessionID());
+        }
+        cache.publishSnapshot(snapshot -> {
+            for (InteractiveParticipant participant : event.getParticipants()) {
+                snapshot = snapshot.withoutParticipant(participant.getSessionID());
+            }
+            return snapshot;
+        });
+    }
+
+    /**
+     * Records the input of a participant as activity when the compact participant store is enabled, so that
+     * participants who send input are not evicted as idle. Input from a participant that is not stored, e.g. because
+     * it was evicted, triggers a fetch of the recently active participants to re-admit it.
+     *
+     * @param   event
+     *          ControlInputEvent
+     *
+     * @since   1.2.0
+     */
+    @Subscribe
+    public void onControlInput(ControlInputEvent event) {
+        CompactParticipantStore store = cache.getCompactParticipantStore();
+        String sessionID = event.getParticipantID();
+        if (store != null && sessionID != null && !store.touch(sessionID, System.currentTimeMillis())) {
+            unknownSessionIDs.add(sessionID);
+            readmitUnknownParticipants();
+        }
+    }
+
+    /**
+     * Fetches the participants who recently sent input and caches those whose session is unknown. At most one fetch is
+     * in flight; sessions found unknown meanwhile are fetched once it completes.
+     *
+     * @since   1.2.0
+     */
+    private void readmitUnknownParticipants() {
+        GameClient gameClient = cache.getGameClient();
+        if (gameClient == null || unknownSessionIDs.isEmpty() || !readmitting.compareAndSet(false, true)) {
+            return;
+        }
+        Set<String> requested = new HashSet<>(unknownSessionIDs);
+        Instant threshold = Instant.ofEpochMilli(System.currentTimeMillis() - READMIT_WINDOW_MILLIS);
+        gameClient.using(PARTICIPANT_SERVICE_PROVIDER).getActiveParticipants(threshold).whenComplete((participants, failure) -> {
+            unknownSessionIDs.removeAll(requested);
+            try {
+                if (failure != null) {
+                    LOG.warn("Failed to fetch {} evicted participants who sent input", requested.size(), failure);
+                }
+                else if (participants != null) {
+                    readmit(participants, requested);
+                }
+            }
+            finally {
+                readmitting.set(false);
+            }
+            readmitUnknownParticipants();
+        });
+    }
+
+    /**
+     * Caches the fetched participants of the requested sessions that are still not cached.
+     *
+     * @param   participants
+     *          Recently active participants fetched from the service
+     * @param   requested
+     *          Session ids of the participants to re-admit
+     *
+     * @since   1.2.0
+     */
+    private void readmit(Set<InteractiveParticipant> participants, Set<String> requested) {
+        Set<InteractiveParticipant> readmitted = new LinkedHashSet<>();
+        for (InteractiveParticipant participant : participants) {
+            String sessionID = participant.getSessionID();
+            if (requested.contains(sessionID) && cache.getParticipants().putIfAbsent(sessionID, participant) == null) {
+                cache.getParticipantIndex().update(null, participant);
+                readmitted.add(participant);
+            }
+        }
+        if (readmitted.isEmpty()) {
+            return;
+        }
+        cache.publishSnapshot(snapshot -> {
+            for (InteractiveParticipant participant : readmitted) {
+                snapshot = snapshot.withParticipant(participant);
+            }
+            return snapshot;
+        });
+        MixerInteractive.getMetrics().counter("cache.participants.readmitted").add(readmitted.size());
+        LOG.debug("Re-admitted {} evicted participants who sent input", readmitted.size());
     }
 }
@@ -8,18 +8,16 @@ import com.mixer.interactive.event.scene.SceneCreateEvent;
 import com.mixer.interactive.event.scene.SceneDeleteEvent;
 import com.mixer.interactive.event.scene.SceneUpdateEvent;
 import com.mixer.interactive.minecraft.lib.MixerInteractive;
+import com.mixer.interactive.minecraft.lib.cache.CacheShard;
 import com.mixer.interactive.resources.control.InteractiveControl;
+import com.mixer.interactive.resources.scene.InteractiveScene;
 
 import java.util.Collection;
-import java.util.Map;
-import java.util.Set;
-import java.util.function.Consumer;
-import java.util.function.Function;
-import java.util.function.Predicate;
-import java.util.stream.Collectors;
 
 /**
- * Maintains the local cache of InteractiveScenes by listening for create/update/delete scene events.
+ * Maintains the local cache of InteractiveScenes, and the ControlIndex over their controls, by listening for
+ * create/update/delete scene and control events. The ControlIndex publishes scene changes to the cache snapshot, and
+ * applies control changes to the controls of each scene under that scene's own lock.
  *
  * @author      Microsoft Corporation
  *
@@ -27,6 +25,32 @@ import java.util.stream.Collectors;
  */
 public class SceneEventHandler extends AbstractEventHandler {
 
+    /**
+     * Cache maintained by the handler
+     */
+    private final CacheShard cache;
+
+    /**
+     * Constructor. The handler maintains the cache of the default game client.
+     *
+     * @since   1.2.0
+     */
+    public SceneEventHandler() {
+        this(MixerInteractive.getCache());
+    }
+
+    /**
+     * Constructor.
+     *
+     * @param   cache
+     *          Cache maintained by the handler
+     *
+     * @since   1.2.0
+     */
+    public SceneEventHandler(CacheShard cache) {
+        this.cache = cache;
+    }
+
     /**
      * Adds all InteractiveScenes to the local cache that were created on the Mixer Interactive service.
      *
@@ -37,7 +61,11 @@ public class SceneEventHandler extends AbstractEventHandler {
      */
     @Subscribe
     public void onSceneCreated(SceneCreateEvent event) {
-        event.getScenes().forEach(s -> MixerInteractive.getScenes().put(s.getSceneID(), s));
+        cache.getCacheWarmer().touch(event);
+        for (InteractiveScene scene : event.getScenes()) {
+            cache.getScenes().put(scene.getSceneID(), scene);
+            cache.getControlIndex().indexScene(scene);
+        }
     }
 
     /**
@@ -50,7 +78,12 @@ public class SceneEventHandler extends AbstractEventHandler {
      */
     @Subscribe
     public void onSceneUpdated(SceneUpdateEvent event) {
-        event.getScenes().forEach(s -> MixerInteractive.getScenes().replace(s.getSceneID(), s));
+        cache.getCacheWarmer().touch(event);
+        for (InteractiveScene scene : event.getScenes()) {
+            if (cache.getScenes().replace(scene.getSceneID(), scene) != null) {
+                cache.getControlIndex().indexScene(scene);
+            }
+        }
     }
 
     /**
@@ -63,7 +96,9 @@ public class SceneEventHandler extends AbstractEventHandler {
      */
     @Subscribe
     public void onSceneDeleted(SceneDeleteEvent event) {
-        MixerInteractive.getScenes().remove(event.getSceneID());
+        cache.getCacheWarmer().touch(event);
+        cache.getScenes().remove(event.getSceneID());
+        cache.getControlIndex().removeScene(event.getSceneID());
     }
 
     /**
@@ -76,16 +111,14 @@ public class SceneEventHandler extends AbstractEventHandler {
      */
     @Subscribe
     public void onControlCreated(ControlCreateEvent event) {
-        synchronized (this) {
-            if (MixerInteractive.getScenes().get(event.getSceneID()) != null) {
-                MixerInteractive.getScenes().get(event.getSceneID()).getControls().removeAll(event.getControls());
-                MixerInteractive.getScenes().get(event.getSceneID()).getControls().addAll(event.getControls());
-            }
-        }
+        cache.getCacheWarmer().touch(event);
+        putControls(event.getSceneID(), event.getControls());
     }
 
     /**
-     * Updates all InteractiveControls in the local cache that were updated on the Mixer Interactive service.
+     * Updates all InteractiveControls in the local cache that were updated on the Mixer Interactive service. Updates
+     * that change nothing are skipped, and an event is posted for each field handlers react to that changed, e.g. a
+     * ControlCooldownChangedEvent.
      *
      * @param   event
      *          ControlUpdateEvent
@@ -94,12 +127,8 @@ public class SceneEventHandler extends AbstractEventHandler {
      */
     @Subscribe
     public void onControlUpdated(ControlUpdateEvent event) {
-        synchronized (this) {
-            if (MixerInteractive.getScenes().get(event.getSceneID()) != null) {
-                MixerInteractive.getScenes().get(event.getSceneID()).getControls().removeAll(event.getControls());
-                MixerInteractive.getScenes().get(event.getSceneID()).getControls().addAll(event.getControls());
-            }
-        }
+        cache.getCacheWarmer().touch(event);
+        cache.updateControls(event.getSceneID(), event.getControls());
     }
 
     /**
@@ -112,14 +141,28 @@ public class SceneEventHandler extends AbstractEventHandler {
      */
     @Subscribe
     public void onControlDeleted(ControlDeleteEvent event) {
-        synchronized (this) {
-            if (MixerInteractive.getScenes().get(event.getSceneID()) != null) {
-                Set<InteractiveControl> controls = MixerInteractive.getScenes().get(event.getSceneID()).getControls()
-                        .stream()
-                        .filter(c -> event.getControlIds().contains(c.getControlID()))
-                        .collect(Collectors.toSet());
-                MixerInteractive.getScenes().get(event.getSceneID()).getControls().removeAll(controls);
-            }
+        cache.getCacheWarmer().touch(event);
+        InteractiveScene scene = cache.getScenes().get(event.getSceneID());
+        if (scene != null) {
+            cache.getControlIndex().remove(scene, event.getControlIds());
+        }
+    }
+
+    /**
+     * Adds or replaces the provided InteractiveControls in a cached scene and in the control index. Writes are
+     * serialized per scene by the control index, so events for different scenes never contend.
+     *
+     * @param   sceneID
+     *          Scene id
+     * @param   controls
+     *          Created or updated InteractiveControls
+     *
+     * @since   1.2.0
+     */
+    private void putControls(String sceneID, Collection<InteractiveControl> controls) {
+        InteractiveScene scene = cache.getScenes().get(sceneID);
+        if (scene != null) {
+            cache.getControlIndex().put(scene, controls);
         }
     }
 }
@@ -0,0 +1,59 @@
+package com.mixer.interactive.minecraft.lib.metrics;
+
+import com.google.common.eventbus.Subscribe;
+import com.mixer.interactive.event.InteractiveEvent;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Counts the Interactive events posted to the game client event bus, in one counter per event class named
+ * <code>events.&lt;EventClass&gt;</code>. The counter of each event class is looked up once and cached, so counting an
+ * event does not allocate.
+ *
+ * @author      Microsoft Corporation
+ *
+ * @since       1.2.0
+ */
+public class EventCounter {
+
+    /**
+     * Registry the counters are created in
+     */
+    private final MetricsRegistry registry;
+
+    /**
+     * Counters keyed by event class
+     */
+    private final Map<Class<?>, LongAdder> counters = new ConcurrentHashMap<>();
+
+    /**
+     * Constructor.
+     *
+     * @param   registry
+     *          Registry the counters are created in
+     *
+     * @since   1.2.0
+     */
+    public EventCounter(MetricsRegistry registry) {
+        this.registry = registry;
+    }
+
+    /**
+     * Counts an event posted to the game client event bus.
+     *
+     * @param   event
+     *          InteractiveEvent
+     *
+     * @since   1.2.0
+     */
+    @Subscribe
+    public void onInteractiveEvent(InteractiveEvent event) {
+        LongAdder counter = counters.get(event.getClass());
+        if (counter == null) {
+            counter = counters.computeIfAbsent(event.getClass(), type -> registry.counter("events." + type.getSimpleName()));
+        }
+        counter.increment();
+    }
+}
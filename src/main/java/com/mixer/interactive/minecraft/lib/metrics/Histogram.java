@@ -0,0 +1,195 @@
+package com.mixer.interactive.minecraft.lib.metrics;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * A lock free latency histogram with log-linear buckets, in the style of an HDR histogram. Every power of two is split
+ * into 16 linear sub-buckets, so any recorded value is reported with a relative error of at most 1/16 (about 6%), from
+ * single nanoseconds up to the full range of a <code>long</code>, using a fixed 960 counters. Recording a value is a
+ * handful of atomic increments and never allocates.
+ *
+ * @author      Microsoft Corporation
+ *
+ * @since       1.2.0
+ */
+public class Histogram {
+
+    /**
+     * Number of bits used to index the linear sub-buckets of each power of two
+     */
+    private static final int SUB_BUCKET_BITS = 4;
+
+    /**
+     * Number of linear sub-buckets per power of two
+     */
+    private static final int SUB_BUCKET_COUNT = 1 << SUB_BUCKET_BITS;
+
+    /**
+     * Total number of buckets
+     */
+    private static final int BUCKET_COUNT = (64 - SUB_BUCKET_BITS) * SUB_BUCKET_COUNT;
+
+    /**
+     * Number of recorded values in each bucket
+     */
+    private final AtomicLongArray buckets = new AtomicLongArray(BUCKET_COUNT);
+
+    /**
+     * Number of recorded values
+     */
+    private final LongAdder count = new LongAdder();
+
+    /**
+     * Sum of the recorded values
+     */
+    private final LongAdder sum = new LongAdder();
+
+    /**
+     * Largest recorded value
+     */
+    private final AtomicLong max = new AtomicLong();
+
+    /**
+     * Records a value in nanoseconds. Negative values are recorded as zero.
+     *
+     * @param   nanos
+     *          Value in nanoseconds
+     *
+     * @since   1.2.0
+     */
+    public void record(long nanos) {
+        long value = Math.max(0, nanos);
+        buckets.incrementAndGet(bucketIndex(value));
+        count.increment();
+        sum.add(value);
+        long currentMax = max.get();
+        while (value > currentMax && !max.compareAndSet(currentMax, value)) {
+            currentMax = max.get();
+        }
+    }
+
+    /**
+     * Returns the number of recorded values.
+     *
+     * @return  Count
+     *
+     * @since   1.2.0
+     */
+    public long getCount() {
+        return count.sum();
+    }
+
+    /**
+     * Returns the mean of the recorded values.
+     *
+     * @param   unit
+     *          Unit of the returned value
+     *
+     * @return  Mean, or 0 if nothing was recorded
+     *
+     * @since   1.2.0
+     */
+    public double getMean(TimeUnit unit) {
+        long recorded = count.sum();
+        return recorded == 0 ? 0 : (double) sum.sum() / recorded / unit.toNanos(1);
+    }
+
+    /**
+     * Returns the largest recorded value.
+     *
+     * @param   unit
+     *          Unit of the returned value
+     *
+     * @return  Maximum, or 0 if nothing was recorded
+     *
+     * @since   1.2.0
+     */
+    public long getMax(TimeUnit unit) {
+        return unit.convert(max.get(), TimeUnit.NANOSECONDS);
+    }
+
+    /**
+     * Returns the value below which the provided percentage of the recorded values fall. The value is the upper bound of
+     * the bucket the percentile falls in, capped at the largest recorded value.
+     *
+     * @param   percentile
+     *          Percentile between 0 and 100
+     * @param   unit
+     *          Unit of the returned value
+     *
+     * @return  Value at the percentile, or 0 if nothing was recorded
+     *
+     * @since   1.2.0
+     */
+    public long getValueAtPercentile(double percentile, TimeUnit unit) {
+        long recorded = count.sum();
+        if (recorded == 0) {
+            return 0;
+        }
+        long target = Math.max(1, (long) Math.ceil(recorded * Math.min(100, Math.max(0, percentile)) / 100));
+        long seen = 0;
+        for (int index = 0; index < BUCKET_COUNT; index++) {
+            seen += buckets.get(index);
+            if (seen >= target) {
+                long upperBound = index + 1 < BUCKET_COUNT ? lowerBound(index + 1) - 1 : Long.MAX_VALUE;
+                return unit.convert(Math.min(upperBound, max.get()), TimeUnit.NANOSECONDS);
+            }
+        }
+        return unit.convert(max.get(), TimeUnit.NANOSECONDS);
+    }
+
+    /**
+     * Returns the count, mean, median, 99th percentile and maximum of the recorded values in microseconds.
+     *
+     * @return  Summary of this histogram
+     *
+     * @since   1.2.0
+     */
+    @Override
+    public String toString() {
+        return String.format("count=%d mean=%.1fus p50=%dus p99=%dus max=%dus", getCount(), getMean(TimeUnit.MICROSECONDS),
+                getValueAtPercentile(50, TimeUnit.MICROSECONDS), getValueAtPercentile(99, TimeUnit.MICROSECONDS),
+                getMax(TimeUnit.MICROSECONDS));
+    }
+
+    /**
+     * Returns the index of the bucket holding a non negative value.
+     *
+     * @param   value
+     *          Value in nanoseconds
+     *
+     * @return  Bucket index
+     *
+     * @since   1.2.0
+     */
+    private static int bucketIndex(long value) {
+        if (value < SUB_BUCKET_COUNT) {
+            return (int) value;
+        }
+        int exponent = 63 - Long.numberOfLeadingZeros(value);
+        int subBucket = (int) (value >>> (exponent - SUB_BUCKET_BITS)) & (SUB_BUCKET_COUNT - 1);
+        return (exponent - SUB_BUCKET_BITS + 1) * SUB_BUCKET_COUNT + subBucket;
+    }
+
+    /**
+     * Returns the smallest value held by a bucket.
+     *
+     * @param   index
+     *          Bucket index
+     *
+     * @return  Lower bound of the bucket in nanoseconds
+     *
+     * @since   1.2.0
+     */
+    private static long lowerBound(int index) {
+        if (index < SUB_BUCKET_COUNT) {
+            return index;
+        }
+        int exponent = index / SUB_BUCKET_COUNT + SUB_BUCKET_BITS - 1;
+        long subBucket = index % SUB_BUCKET_COUNT;
+        return (SUB_BUCKET_COUNT + subBucket) << (exponent - SUB_BUCKET_BITS);
+    }
+}
@@ -0,0 +1,56 @@
+package com.mixer.interactive.minecraft.lib.metrics;
+
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Writes the values of a MetricsRegistry to the log, one line per metric. Counters are logged with their total and
+ * their rate per second since the previous export by the same exporter.
+ *
+ * @author      Microsoft Corporation
+ *
+ * @since       1.2.0
+ */
+public class LogMetricsExporter implements MetricsExporter {
+
+    /**
+     * Logger
+     */
+    private static final Logger LOG = LogManager.getLogger();
+
+    /**
+     * Counter values at the previous export, guarded by <code>this</code>
+     */
+    private Map<String, Long> previousCounters = new HashMap<>();
+
+    /**
+     * Time of the previous export in nanoseconds, guarded by <code>this</code>
+     */
+    private long previousExport = System.nanoTime();
+
+    /**
+     * Writes the current values of the provided registry to the log.
+     *
+     * @param   registry
+     *          MetricsRegistry
+     *
+     * @since   1.2.0
+     */
+    @Override
+    public synchronized void export(MetricsRegistry registry) {
+        long now = System.nanoTime();
+        double seconds = Math.max(1, now - previousExport) / 1e9;
+        Map<String, Long> counters = registry.getCounters();
+        counters.forEach((name, value) -> {
+            long delta = value - previousCounters.getOrDefault(name, 0L);
+            LOG.info("{} total={} rate={}/s", name, value, String.format("%.1f", delta / seconds));
+        });
+        registry.getGauges().forEach((name, value) -> LOG.info("{} value={}", name, value));
+        registry.getHistograms().forEach((name, histogram) -> LOG.info("{} {}", name, histogram));
+        previousCounters = counters;
+        previousExport = now;
+    }
+}
@@ -0,0 +1,24 @@
+package com.mixer.interactive.minecraft.lib.metrics;
+
+/**
+ * Exports the current values of a MetricsRegistry, e.g. to a log or a monitoring system. Exporters are either called
+ * periodically through {@link MetricsRegistry#startReporting(MetricsExporter, long, java.util.concurrent.TimeUnit)}
+ * or on demand through {@link MetricsRegistry#report(MetricsExporter)}.
+ *
+ * @author      Microsoft Corporation
+ *
+ * @since       1.2.0
+ */
+@FunctionalInterface
+public interface MetricsExporter {
+
+    /**
+     * Exports the current values of the provided registry.
+     *
+     * @param   registry
+     *          MetricsRegistry
+     *
+     * @since   1.2.0
+     */
+    void export(MetricsRegistry registry);
+}
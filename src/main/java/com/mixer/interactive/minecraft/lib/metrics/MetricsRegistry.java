@@ -0,0 +1,208 @@
+package com.mixer.interactive.minecraft.lib.metrics;
+
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+
+import java.util.Map;
+import java.util.SortedMap;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.LongSupplier;
+
+/**
+ * Holds the counters, latency histograms and gauges of the library, keyed by name. Counters and histograms are created
+ * on first use and are safe to update from any thread; gauges are sampled whenever the registry is read. Names are
+ * dot separated, e.g. <code>events.ParticipantJoinEvent</code> or <code>cache.participants</code>.
+ * <p>
+ * The registry can be read directly, exported on demand to a {@link MetricsExporter}, or reported periodically on a
+ * background thread.
+ *
+ * @author      Microsoft Corporation
+ *
+ * @since       1.2.0
+ */
+public class MetricsRegistry {
+
+    /**
+     * Logger
+     */
+    private static final Logger LOG = LogManager.getLogger();
+
+    /**
+     * Counters keyed by name
+     */
+    private final Map<String, LongAdder> counters = new ConcurrentHashMap<>();
+
+    /**
+     * Histograms keyed by name
+     */
+    private final Map<String, Histogram> histograms = new ConcurrentHashMap<>();
+
+    /**
+     * Gauges keyed by name
+     */
+    private final Map<String, LongSupplier> gauges = new ConcurrentHashMap<>();
+
+    /**
+     * Executor running periodic reports, <code>null</code> unless reporting
+     */
+    private ScheduledExecutorService reporter;
+
+    /**
+     * Returns the counter with the provided name, creating it if it does not exist.
+     *
+     * @param   name
+     *          Counter name
+     *
+     * @return  LongAdder
+     *
+     * @since   1.2.0
+     */
+    public LongAdder counter(String name) {
+        LongAdder counter = counters.get(name);
+        return counter != null ? counter : counters.computeIfAbsent(name, key -> new LongAdder());
+    }
+
+    /**
+     * Returns the histogram with the provided name, creating it if it does not exist.
+     *
+     * @param   name
+     *          Histogram name
+     *
+     * @return  Histogram
+     *
+     * @since   1.2.0
+     */
+    public Histogram histogram(String name) {
+        Histogram histogram = histograms.get(name);
+        return histogram != null ? histogram : histograms.computeIfAbsent(name, key -> new Histogram());
+    }
+
+    /**
+     * Registers a gauge, replacing any gauge with the same name.
+     *
+     * @param   name
+     *          Gauge name
+     * @param   gauge
+     *          Supplier of the current value, called whenever the registry is read
+     *
+     * @since   1.2.0
+     */
+    public void gauge(String name, LongSupplier gauge) {
+        gauges.put(name, gauge);
+    }
+
+    /**
+     * Removes a gauge.
+     *
+     * @param   name
+     *          Gauge name
+     *
+     * @since   1.2.0
+     */
+    public void removeGauge(String name) {
+        gauges.remove(name);
+    }
+
+    /**
+     * Returns the current value of every counter.
+     *
+     * @return  SortedMap of counter values keyed by name
+     *
+     * @since   1.2.0
+     */
+    public SortedMap<String, Long> getCounters() {
+        SortedMap<String, Long> values = new TreeMap<>();
+        counters.forEach((name, counter) -> values.put(name, counter.sum()));
+        return values;
+    }
+
+    /**
+     * Returns the current value of every gauge. Gauges that throw are left out.
+     *
+     * @return  SortedMap of gauge values keyed by name
+     *
+     * @since   1.2.0
+     */
+    public SortedMap<String, Long> getGauges() {
+        SortedMap<String, Long> values = new TreeMap<>();
+        gauges.forEach((name, gauge) -> {
+            try {
+                values.put(name, gauge.getAsLong());
+            }
+            catch (RuntimeException e) {
+                LOG.debug("Failed to read gauge '{}'", name, e);
+            }
+        });
+        return values;
+    }
+
+    /**
+     * Returns every histogram.
+     *
+     * @return  SortedMap of Histograms keyed by name
+     *
+     * @since   1.2.0
+     */
+    public SortedMap<String, Histogram> getHistograms() {
+        return new TreeMap<>(histograms);
+    }
+
+    /**
+     * Exports the current values of this registry to the provided exporter.
+     *
+     * @param   exporter
+     *          MetricsExporter
+     *
+     * @since   1.2.0
+     */
+    public void report(MetricsExporter exporter) {
+        exporter.export(this);
+    }
+
+    /**
+     * Exports the values of this registry to the provided exporter periodically, on a daemon thread, until
+     * {@link #stopReporting()} is called. Any previous periodic report is stopped.
+     *
+     * @param   exporter
+     *          MetricsExporter
+     * @param   period
+     *          Time between two reports
+     * @param   unit
+     *          Unit of the period
+     *
+     * @since   1.2.0
+     */
+    public synchronized void startReporting(MetricsExporter exporter, long period, TimeUnit unit) {
+        stopReporting();
+        reporter = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "mixer-interactive-metrics-reporter");
+            thread.setDaemon(true);
+            return thread;
+        });
+        reporter.scheduleAtFixedRate(() -> {
+            try {
+                report(exporter);
+            }
+            catch (RuntimeException e) {
+                LOG.error("Failed to export metrics", e);
+            }
+        }, period, period, unit);
+    }
+
+    /**
+     * Stops periodic reporting, if it was started.
+     *
+     * @since   1.2.0
+     */
+    public synchronized void stopReporting() {
+        if (reporter != null) {
+            reporter.shutdownNow();
+            reporter = null;
+        }
+    }
+}
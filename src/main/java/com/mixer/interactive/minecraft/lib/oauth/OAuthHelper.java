@@ -1,24 +1,40 @@
 package com.mixer.interactive.minecraft.lib.oauth;
 
 import com.mixer.interactive.GameClient;
+import com.mixer.interactive.minecraft.lib.MixerInteractive;
+import com.mixer.interactive.minecraft.lib.metrics.Histogram;
+import com.mixer.interactive.minecraft.lib.metrics.MetricsRegistry;
 import net.minecraft.command.ICommandSender;
 import net.minecraft.util.text.ITextComponent;
 import net.minecraft.util.text.TextComponentString;
 import net.minecraft.util.text.TextFormatting;
 import net.minecraftforge.common.ForgeHooks;
-import org.apache.http.HttpResponse;
+import org.apache.http.HttpStatus;
+import org.apache.http.client.HttpResponseException;
+import org.apache.http.client.ResponseHandler;
+import org.apache.http.client.config.RequestConfig;
 import org.apache.http.client.methods.HttpGet;
 import org.apache.http.client.methods.HttpPost;
+import org.apache.http.client.methods.HttpUriRequest;
 import org.apache.http.entity.StringEntity;
 import org.apache.http.impl.client.CloseableHttpClient;
+import org.apache.http.impl.client.DefaultConnectionKeepAliveStrategy;
 import org.apache.http.impl.client.HttpClients;
+import org.apache.http.impl.conn.PoolingHttpClientConnectionManager;
 import org.apache.http.message.BasicHeader;
 import org.apache.http.util.EntityUtils;
 import org.apache.logging.log4j.LogManager;
 import org.apache.logging.log4j.Logger;
 
 import java.io.IOException;
+import java.util.concurrent.CancellationException;
 import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicInteger;
 
 /**
  * Helper methods for retrieving OAuthTokens using the Mixer shortcode authentication process.
@@ -59,6 +75,87 @@ public class OAuthHelper {
     private static final String OAUTH_TOKEN_REQUEST_FORMAT = "{ \"client_id\": \"%s\", \"code\": \"%s\", \"grant_type\": \"authorization_code\" }";
     private static final String REFRESH_TOKEN_REQUEST_FORMAT = "{ \"refresh_token\": \"%s\", \"grant_type\": \"refresh_token\", \"client_id\": \"%s\"}";
 
+    /**
+     * Reads an OAuthToken from a token response and records when it was issued
+     */
+    private static final ResponseHandler<OAuthToken> TOKEN_HANDLER = response -> {
+        OAuthToken token = GameClient.GSON.fromJson(EntityUtils.toString(response.getEntity()), OAuthToken.class);
+        if (token != null) {
+            token.issuedAt = System.currentTimeMillis();
+        }
+        return token;
+    };
+
+    /**
+     * Default maximum number of pooled connections to Mixer
+     */
+    public static final int DEFAULT_MAX_CONNECTIONS = 4;
+
+    /**
+     * Default connect, socket and connection request timeout
+     */
+    public static final long DEFAULT_TIMEOUT_MILLIS = 10_000;
+
+    /**
+     * Default time an idle connection is kept alive when Mixer does not specify one
+     */
+    public static final long DEFAULT_KEEP_ALIVE_MILLIS = 30_000;
+
+    /**
+     * Default interval between two checks of whether the requester has entered the shortcode
+     */
+    public static final long DEFAULT_POLL_INTERVAL_MILLIS = 1000;
+
+    /**
+     * Longest interval between two checks of the shortcode after repeated request failures
+     */
+    public static final long MAX_POLL_BACKOFF_MILLIS = 30_000;
+
+    /**
+     * Number of threads performing OAuth requests
+     */
+    private static final int REQUEST_THREADS = DEFAULT_MAX_CONNECTIONS;
+
+    /**
+     * Number of threads renewing OAuth tokens
+     */
+    private static final int RENEWAL_THREADS = 2;
+
+    /**
+     * Interval between two checks of the shortcode, in milliseconds
+     */
+    private static volatile long pollIntervalMillis = DEFAULT_POLL_INTERVAL_MILLIS;
+
+    /**
+     * Scheduler performing OAuth requests and shortcode checks, created on first use
+     */
+    private static ScheduledExecutorService scheduler;
+
+    /**
+     * Scheduler renewing OAuth tokens, created on first use
+     */
+    private static ScheduledExecutorService renewalScheduler;
+
+    /**
+     * Shared HTTP client, created on first use
+     */
+    private static CloseableHttpClient httpClient;
+
+    /**
+     * Maximum number of pooled connections of the shared HTTP client
+     */
+    private static int maxConnections = DEFAULT_MAX_CONNECTIONS;
+
+    /**
+     * Connect, socket and connection request timeout of the shared HTTP client, in milliseconds
+     */
+    private static long timeoutMillis = DEFAULT_TIMEOUT_MILLIS;
+
+    /**
+     * Keep-alive of idle connections of the shared HTTP client, in milliseconds
+     */
+    private static long keepAliveMillis = DEFAULT_KEEP_ALIVE_MILLIS;
+
     /**
      * Private constructor to prevent instantiation
      *
@@ -69,7 +166,10 @@ public class OAuthHelper {
     }
 
     /**
-     * Retrieves an OAuthToken using the Mixer shortcode authentication process.
+     * Retrieves an OAuthToken using the Mixer shortcode authentication process. Requests are performed on a small
+     * dedicated scheduler, and the check of whether the requester has entered the shortcode is a task rescheduled at
+     * the poll interval, so a pending login does not hold a thread while it waits. Cancelling the returned future stops
+     * the checks.
      *
      * @param   requester
      *          Requester of the OAuth token
@@ -78,19 +178,25 @@ public class OAuthHelper {
      *          otherwise.
      *
      * @since   1.0.0
+     * @see     #setPollInterval(long, TimeUnit)
      */
     public static CompletableFuture<OAuthToken> getOAuthToken(ICommandSender requester) {
-        return CompletableFuture.supplyAsync(OAuthHelper::getShortCode)
-                .thenCompose(shortCode -> CompletableFuture.supplyAsync(() -> getHandleCode(requester, shortCode)))
-                .thenCompose(handleCode -> CompletableFuture.supplyAsync(() -> getOAuthToken(handleCode)))
-                .exceptionally(throwable -> {
-                    LOG.error(throwable);
-                    return null;
+        CompletableFuture<OAuthToken> result = new CompletableFuture<>();
+        CompletableFuture.supplyAsync(OAuthHelper::getShortCode, getScheduler())
+                .thenCompose(shortCode -> getHandleCode(requester, shortCode, result))
+                .thenApplyAsync(OAuthHelper::getOAuthToken, getScheduler())
+                .whenComplete((token, throwable) -> {
+                    if (throwable != null && !result.isCancelled()) {
+                        LOG.error(throwable);
+                    }
+                    result.complete(token);
                 });
+        return result;
     }
 
     /**
-     * Renews an OAuthToken.
+     * Renews an OAuthToken. The request is performed on the renewal scheduler, so renewals are never queued behind
+     * the requests of pending logins.
      *
      * @param   token
      *          OAuthToken for renewal
@@ -100,7 +206,7 @@ public class OAuthHelper {
      * @since   1.0.0
      */
     public static CompletableFuture<OAuthToken> renewOAuthToken(OAuthToken token) {
-        return CompletableFuture.supplyAsync(() -> refreshOAuthToken(token))
+        return CompletableFuture.supplyAsync(() -> refreshOAuthToken(token), getRenewalScheduler())
                 .exceptionally(throwable -> {
                     LOG.error(throwable);
                     return null;
@@ -115,11 +221,11 @@ public class OAuthHelper {
      * @since   1.0.0
      */
     private static ShortCode getShortCode() {
-        try (CloseableHttpClient httpClient = HttpClients.createDefault()) {
+        try {
             HttpPost post = new HttpPost(SHORT_CODE_URL);
             post.addHeader(ACCEPT_JSON);
             post.setEntity(new StringEntity(String.format(SHORT_CODE_REQUEST_FORMAT, CLIENT_ID)));
-            return GameClient.GSON.fromJson(EntityUtils.toString(httpClient.execute(post).getEntity()), ShortCode.class);
+            return execute("shortCode", post, response -> GameClient.GSON.fromJson(EntityUtils.toString(response.getEntity()), ShortCode.class));
         }
         catch (IOException e) {
             LOG.error(e);
@@ -135,36 +241,29 @@ public class OAuthHelper {
      *          Requester of the OAuthToken
      * @param   shortCode
      *          ShortCode
+     * @param   login
+     *          Future of the login, whose completion or cancellation stops the polling
      *
-     * @return  A <code>HandleCode</code>
+     * @return  A CompletableFuture that completes with the <code>HandleCode</code>, or exceptionally if the shortcode
+     *          expires, is denied or the login is cancelled
      *
      * @since   1.0.0
      */
-    private static HandleCode getHandleCode(ICommandSender requester, ShortCode shortCode) {
-        if (shortCode != null) {
-            ITextComponent textComponent = ForgeHooks.newChatWithLinks("Alright! Head over to https://mixer.com/go and enter code ");
-            TextComponentString shortCodeComponent = new TextComponentString(shortCode.code);
-            shortCodeComponent.getStyle().setColor(TextFormatting.DARK_AQUA);
-            textComponent.appendSibling(shortCodeComponent);
-            requester.sendMessage(textComponent);
-
-            int runCount = 0;
-            while (runCount <= shortCode.expiresIn) {
-                try (CloseableHttpClient httpClient = HttpClients.createDefault()) {
-                    HttpResponse httpResponse = httpClient.execute(new HttpGet(HANDLE_CHECK_URL + shortCode.handle));
-                    if (httpResponse.getStatusLine().getStatusCode() == 200) {
-                        return GameClient.GSON.fromJson(EntityUtils.toString(httpResponse.getEntity()), HandleCode.class);
-                    }
-                    Thread.sleep(1000);
-                    runCount++;
-                }
-                catch (IOException | InterruptedException e) {
-                    LOG.error(e);
-                }
-            }
+    private static CompletableFuture<HandleCode> getHandleCode(ICommandSender requester, ShortCode shortCode, CompletableFuture<?> login) {
+        if (shortCode == null) {
+            throw new IllegalStateException("No short code");
         }
 
-        return null;
+        ITextComponent textComponent = ForgeHooks.newChatWithLinks("Alright! Head over to https://mixer.com/go and enter code ");
+        TextComponentString shortCodeComponent = new TextComponentString(shortCode.code);
+        shortCodeComponent.getStyle().setColor(TextFormatting.DARK_AQUA);
+        textComponent.appendSibling(shortCodeComponent);
+        requester.sendMessage(textComponent);
+
+        HandleCodePoll poll = new HandleCodePoll(shortCode);
+        login.whenComplete((result, throwable) -> poll.cancel());
+        poll.schedule(pollIntervalMillis);
+        return poll.result;
     }
 
     /**
@@ -182,11 +281,11 @@ public class OAuthHelper {
             throw new RuntimeException("No handle code");
         }
 
-        try (CloseableHttpClient httpClient = HttpClients.createDefault()) {
+        try {
             HttpPost post = new HttpPost(OAUTH_TOKEN_URL);
             post.addHeader(ACCEPT_JSON);
             post.setEntity(new StringEntity(String.format(OAUTH_TOKEN_REQUEST_FORMAT, CLIENT_ID, handleCode.code)));
-            return GameClient.GSON.fromJson(EntityUtils.toString(httpClient.execute(post).getEntity()), OAuthToken.class);
+            return execute("token", post, TOKEN_HANDLER);
         }
         catch (IOException e) {
             LOG.error(e);
@@ -206,11 +305,11 @@ public class OAuthHelper {
      * @since   1.0.0
      */
     private static OAuthToken refreshOAuthToken(OAuthToken token) {
-        try (CloseableHttpClient httpClient = HttpClients.createDefault()) {
+        try {
             HttpPost post = new HttpPost(OAUTH_TOKEN_URL);
             post.addHeader(ACCEPT_JSON);
             post.setEntity(new StringEntity(String.format(REFRESH_TOKEN_REQUEST_FORMAT, token.refreshToken, CLIENT_ID)));
-            return GameClient.GSON.fromJson(EntityUtils.toString(httpClient.execute(post).getEntity()), OAuthToken.class);
+            return execute("refresh", post, TOKEN_HANDLER);
         }
         catch (IOException e) {
             LOG.error(e);
@@ -218,4 +317,336 @@ public class OAuthHelper {
 
         return null;
     }
-}
\ No newline at end of file
+
+    /**
+     * Sets the interval between two checks of whether the requester has entered the shortcode. After a failed check
+     * the interval doubles with every consecutive failure, up to {@link #MAX_POLL_BACKOFF_MILLIS}.
+     *
+     * @param   interval
+     *          Poll interval
+     * @param   unit
+     *          Unit of the interval
+     *
+     * @since   1.2.0
+     */
+    public static void setPollInterval(long interval, TimeUnit unit) {
+        if (interval <= 0) {
+            throw new IllegalArgumentException("interval must be positive");
+        }
+        pollIntervalMillis = unit.toMillis(interval);
+    }
+
+    /**
+     * Returns the interval between two checks of whether the requester has entered the shortcode.
+     *
+     * @param   unit
+     *          Unit of the returned interval
+     *
+     * @return  Poll interval
+     *
+     * @since   1.2.0
+     */
+    public static long getPollInterval(TimeUnit unit) {
+        return unit.convert(pollIntervalMillis, TimeUnit.MILLISECONDS);
+    }
+
+    /**
+     * Returns the scheduler performing OAuth requests and shortcode checks, creating it on first use. It uses a few
+     * daemon threads, which are only busy while a request is in flight, so that OAuth requests never occupy the common
+     * ForkJoin pool.
+     *
+     * @return  ScheduledExecutorService
+     *
+     * @since   1.2.0
+     */
+    static synchronized ScheduledExecutorService getScheduler() {
+        if (scheduler == null) {
+            scheduler = newScheduler(REQUEST_THREADS, "mixer-interactive-oauth-");
+        }
+        return scheduler;
+    }
+
+    /**
+     * Returns the scheduler renewing OAuth tokens, creating it on first use. Renewals run apart from the login
+     * requests and shortcode checks, which perform blocking HTTP requests and may occupy every thread of the OAuth
+     * scheduler, so that a token is never left to expire behind them.
+     *
+     * @return  ScheduledExecutorService
+     *
+     * @since   1.2.0
+     */
+    static synchronized ScheduledExecutorService getRenewalScheduler() {
+        if (renewalScheduler == null) {
+            renewalScheduler = newScheduler(RENEWAL_THREADS, "mixer-interactive-oauth-renewal-");
+        }
+        return renewalScheduler;
+    }
+
+    /**
+     * Creates a scheduler with daemon threads.
+     *
+     * @param   threads
+     *          Number of threads
+     * @param   namePrefix
+     *          Prefix of the thread names, followed by the thread number
+     *
+     * @return  ScheduledExecutorService
+     *
+     * @since   1.2.0
+     */
+    private static ScheduledExecutorService newScheduler(int threads, String namePrefix) {
+        AtomicInteger threadCount = new AtomicInteger();
+        return Executors.newScheduledThreadPool(threads, runnable -> {
+            Thread thread = new Thread(runnable, namePrefix + threadCount.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+
+    /**
+     * Configures the HTTP client shared by all OAuth requests. The current client, if any, is closed, failing any
+     * request in flight, and a new one is created with the provided settings on next use.
+     *
+     * @param   maxConnections
+     *          Maximum number of pooled connections to Mixer
+     * @param   timeout
+     *          Connect, socket and connection request timeout
+     * @param   keepAlive
+     *          Time an idle connection is kept alive when Mixer does not specify one
+     * @param   unit
+     *          Unit of the timeout and keep-alive
+     *
+     * @since   1.2.0
+     */
+    public static synchronized void configureHttpClient(int maxConnections, long timeout, long keepAlive, TimeUnit unit) {
+        OAuthHelper.maxConnections = maxConnections;
+        OAuthHelper.timeoutMillis = unit.toMillis(timeout);
+        OAuthHelper.keepAliveMillis = unit.toMillis(keepAlive);
+        closeHttpClient();
+    }
+
+    /**
+     * Closes the HTTP client shared by all OAuth requests and its pooled connections. A new client is created on next
+     * use.
+     *
+     * @since   1.2.0
+     */
+    public static synchronized void closeHttpClient() {
+        if (httpClient != null) {
+            try {
+                httpClient.close();
+            }
+            catch (IOException e) {
+                LOG.error(e);
+            }
+            httpClient = null;
+        }
+    }
+
+    /**
+     * Returns the HTTP client shared by all OAuth requests, creating it on first use. Connections are pooled and kept
+     * alive for as long as Mixer allows, or the configured keep-alive otherwise, so the shortcode poll and token
+     * refreshes reuse one TLS connection instead of performing a handshake per request. The size of the pool is
+     * exposed as the gauges <code>http.oauth.pool.leased</code> and <code>http.oauth.pool.available</code>.
+     *
+     * @return  CloseableHttpClient
+     *
+     * @since   1.2.0
+     */
+    private static synchronized CloseableHttpClient getHttpClient() {
+        if (httpClient == null) {
+            PoolingHttpClientConnectionManager connectionManager = new PoolingHttpClientConnectionManager();
+            connectionManager.setMaxTotal(maxConnections);
+            connectionManager.setDefaultMaxPerRoute(maxConnections);
+
+            int timeout = (int) Math.min(Integer.MAX_VALUE, timeoutMillis);
+            long keepAlive = keepAliveMillis;
+            httpClient = HttpClients.custom()
+                    .setConnectionManager(connectionManager)
+                    .setDefaultRequestConfig(RequestConfig.custom()
+                            .setConnectTimeout(timeout)
+                            .setSocketTimeout(timeout)
+                            .setConnectionRequestTimeout(timeout)
+                            .build())
+                    .setKeepAliveStrategy((response, context) -> {
+                        long duration = DefaultConnectionKeepAliveStrategy.INSTANCE.getKeepAliveDuration(response, context);
+                        return duration > 0 ? duration : keepAlive;
+                    })
+                    .build();
+
+            MetricsRegistry metrics = MixerInteractive.getMetrics();
+            metrics.gauge("http.oauth.pool.leased", () -> connectionManager.getTotalStats().getLeased());
+            metrics.gauge("http.oauth.pool.available", () -> connectionManager.getTotalStats().getAvailable());
+        }
+        return httpClient;
+    }
+
+    /**
+     * Executes a request with the shared HTTP client and records its latency, including the time spent waiting for a
+     * pooled connection, in a histogram named <code>http.oauth.&lt;operation&gt;</code>. Failed requests are also
+     * counted in <code>http.oauth.&lt;operation&gt;.errors</code>. The response is fully consumed so that the
+     * connection is returned to the pool.
+     *
+     * @param   operation
+     *          Name of the operation
+     * @param   request
+     *          Request
+     * @param   handler
+     *          Reads the result from the response
+     * @param   <T>
+     *          Type of the result
+     *
+     * @return  Result of the handler
+     *
+     * @throws  IOException
+     *          If the request fails
+     *
+     * @since   1.2.0
+     */
+    private static <T> T execute(String operation, HttpUriRequest request, ResponseHandler<? extends T> handler) throws IOException {
+        MetricsRegistry metrics = MixerInteractive.getMetrics();
+        Histogram latency = metrics.histogram("http.oauth." + operation);
+        long start = System.nanoTime();
+        try {
+            return getHttpClient().execute(request, handler);
+        }
+        catch (IOException e) {
+            metrics.counter("http.oauth." + operation + ".errors").increment();
+            throw e;
+        }
+        finally {
+            latency.record(System.nanoTime() - start);
+        }
+    }
+
+    /**
+     * Checks of whether the requester has entered a shortcode. Each check is a task scheduled on the OAuth scheduler,
+     * which schedules the next check unless it found the handle code, the shortcode expired or the poll was cancelled.
+     *
+     * @since   1.2.0
+     */
+    private static final class HandleCodePoll implements Runnable {
+
+        /**
+         * Completes the check with the handle code once the shortcode has been entered, with <code>null</code> while it
+         * is pending, and fails it if the shortcode was denied or has expired
+         */
+        private static final ResponseHandler<HandleCode> HANDLER = response -> {
+            int status = response.getStatusLine().getStatusCode();
+            if (status == HttpStatus.SC_OK) {
+                return GameClient.GSON.fromJson(EntityUtils.toString(response.getEntity()), HandleCode.class);
+            }
+            if (status == HttpStatus.SC_FORBIDDEN || status == HttpStatus.SC_NOT_FOUND) {
+                throw new HttpResponseException(status, "Short code was denied or has expired");
+            }
+            return null;
+        };
+
+        /**
+         * Shortcode being checked
+         */
+        private final ShortCode shortCode;
+
+        /**
+         * Time after which the shortcode has expired, in {@link System#nanoTime()} units
+         */
+        private final long deadline;
+
+        /**
+         * Completes with the handle code
+         */
+        private final CompletableFuture<HandleCode> result = new CompletableFuture<>();
+
+        /**
+         * Number of consecutive failed checks
+         */
+        private int failures;
+
+        /**
+         * Next scheduled check
+         */
+        private volatile ScheduledFuture<?> next;
+
+        /**
+         * Constructor.
+         *
+         * @param   shortCode
+         *          Shortcode to check
+         *
+         * @since   1.2.0
+         */
+        private HandleCodePoll(ShortCode shortCode) {
+            this.shortCode = shortCode;
+            this.deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(shortCode.expiresIn);
+        }
+
+        /**
+         * Schedules the next check.
+         *
+         * @param   delayMillis
+         *          Delay before the check, in milliseconds
+         *
+         * @since   1.2.0
+         */
+        private void schedule(long delayMillis) {
+            next = getScheduler().schedule(this, delayMillis, TimeUnit.MILLISECONDS);
+            if (result.isDone()) {
+                next.cancel(false);
+            }
+        }
+
+        /**
+         * Stops checking and fails the poll, unless it has already completed.
+         *
+         * @since   1.2.0
+         */
+        private void cancel() {
+            if (result.completeExceptionally(new CancellationException("Login was cancelled"))) {
+                ScheduledFuture<?> scheduled = next;
+                if (scheduled != null) {
+                    scheduled.cancel(false);
+                }
+            }
+        }
+
+        /**
+         * Checks the shortcode once and schedules the next check if it is still pending. Failed requests are retried
+         * with an exponentially growing interval. The last check is scheduled at the expiry of the shortcode, so the
+         * poll only fails once the shortcode has actually expired.
+         *
+         * @since   1.2.0
+         */
+        @Override
+        public void run() {
+            if (result.isDone()) {
+                return;
+            }
+            long delay = pollIntervalMillis;
+            try {
+                HandleCode handleCode = execute("handleCheck", new HttpGet(HANDLE_CHECK_URL + shortCode.handle), HANDLER);
+                if (handleCode != null) {
+                    result.complete(handleCode);
+                    return;
+                }
+                failures = 0;
+            }
+            catch (HttpResponseException e) {
+                result.completeExceptionally(e);
+                return;
+            }
+            catch (IOException | RuntimeException e) {
+                LOG.warn("Failed to check short code, retrying", e);
+                failures++;
+                delay = Math.min(MAX_POLL_BACKOFF_MILLIS, delay << Math.min(failures, 16));
+            }
+
+            long remainingMillis = TimeUnit.NANOSECONDS.toMillis(deadline - System.nanoTime());
+            if (remainingMillis <= 0) {
+                result.completeExceptionally(new TimeoutException("Short code has expired"));
+            }
+            else {
+                schedule(Math.min(delay, remainingMillis));
+            }
+        }
+    }
+}
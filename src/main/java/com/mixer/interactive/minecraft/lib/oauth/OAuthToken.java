@@ -22,4 +22,24 @@ public class OAuthToken {
 
     @SerializedName("token_type")
     public String tokenType;
+
+    /**
+     * Time the token was issued, in milliseconds since the epoch, or 0 if unknown. Not part of the Mixer response, it
+     * is recorded when the token is received and persisted with it.
+     *
+     * @since   1.2.0
+     */
+    @SerializedName("issued_at")
+    public long issuedAt;
+
+    /**
+     * Returns the time the access token expires.
+     *
+     * @return  Expiry time in milliseconds since the epoch, or 0 if the time the token was issued is unknown
+     *
+     * @since   1.2.0
+     */
+    public long getExpiresAt() {
+        return issuedAt > 0 ? issuedAt + expiresIn * 1000L : 0;
+    }
 }
@@ -0,0 +1,322 @@
+package com.mixer.interactive.minecraft.lib.oauth;
+
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.function.Consumer;
+
+/**
+ * Keeps an OAuthToken valid. Once started, the manager schedules a renewal ahead of the expiry of the current token,
+ * and again ahead of the expiry of every renewed token, so connections are never attempted with an expired token.
+ * Renewed tokens are stored in the TokenStore under the profile of the manager, if a store was provided, and handed to
+ * the registered listeners.
+ * <p>
+ * Renewals are single flight: while a renewal is in progress, every call to {@link #renew()}, whether scheduled or
+ * made by a caller, returns the same future instead of sending another refresh request.
+ *
+ * @author      Microsoft Corporation
+ *
+ * @since       1.2.0
+ */
+public class OAuthTokenManager {
+
+    /**
+     * Logger
+     */
+    private static final Logger LOG = LogManager.getLogger();
+
+    /**
+     * Default time ahead of expiry at which the token is renewed
+     */
+    public static final long DEFAULT_REFRESH_MARGIN_MILLIS = TimeUnit.MINUTES.toMillis(5);
+
+    /**
+     * Delay before a failed renewal is retried
+     */
+    public static final long RETRY_DELAY_MILLIS = TimeUnit.SECONDS.toMillis(30);
+
+    /**
+     * Store renewed tokens are written to, <code>null</code> to not persist them
+     */
+    private final TokenStore tokenStore;
+
+    /**
+     * Profile the token is stored under
+     */
+    private final String profile;
+
+    /**
+     * Listeners notified of every renewed token
+     */
+    private final List<Consumer<OAuthToken>> listeners = new CopyOnWriteArrayList<>();
+
+    /**
+     * Renewal in progress, <code>null</code> if none
+     */
+    private final AtomicReference<CompletableFuture<OAuthToken>> inFlight = new AtomicReference<>();
+
+    /**
+     * Current token
+     */
+    private volatile OAuthToken token;
+
+    /**
+     * Time ahead of expiry at which the token is renewed, in milliseconds
+     */
+    private volatile long refreshMarginMillis = DEFAULT_REFRESH_MARGIN_MILLIS;
+
+    /**
+     * Whether renewals are scheduled
+     */
+    private boolean running;
+
+    /**
+     * Next scheduled renewal, <code>null</code> if none
+     */
+    private ScheduledFuture<?> scheduledRenewal;
+
+    /**
+     * Constructor. Manages the token stored under the provided profile.
+     *
+     * @param   tokenStore
+     *          Store the token is read from and renewed tokens are written to
+     * @param   profile
+     *          Profile the token is stored under
+     *
+     * @throws  IllegalArgumentException
+     *          If the store has no token for the profile
+     *
+     * @since   1.2.0
+     */
+    public OAuthTokenManager(TokenStore tokenStore, String profile) {
+        this(tokenStore.get(profile), tokenStore, profile);
+    }
+
+    /**
+     * Constructor.
+     *
+     * @param   token
+     *          Current token
+     * @param   tokenStore
+     *          Store renewed tokens are written to, or <code>null</code> to not persist them
+     * @param   profile
+     *          Profile the token is stored under
+     *
+     * @throws  IllegalArgumentException
+     *          If the token is <code>null</code>
+     *
+     * @since   1.2.0
+     */
+    public OAuthTokenManager(OAuthToken token, TokenStore tokenStore, String profile) {
+        if (token == null) {
+            throw new IllegalArgumentException("No token for profile " + profile);
+        }
+        this.token = token;
+        this.tokenStore = tokenStore;
+        this.profile = profile;
+    }
+
+    /**
+     * Returns the profile the token is stored under.
+     *
+     * @return  Profile
+     *
+     * @since   1.2.0
+     */
+    public String getProfile() {
+        return profile;
+    }
+
+    /**
+     * Returns the current token.
+     *
+     * @return  OAuthToken
+     *
+     * @since   1.2.0
+     */
+    public OAuthToken getToken() {
+        return token;
+    }
+
+    /**
+     * Returns the time ahead of expiry at which the token is renewed.
+     *
+     * @param   unit
+     *          Unit of the returned margin
+     *
+     * @return  Refresh margin
+     *
+     * @since   1.2.0
+     */
+    public long getRefreshMargin(TimeUnit unit) {
+        return unit.convert(refreshMarginMillis, TimeUnit.MILLISECONDS);
+    }
+
+    /**
+     * Sets the time ahead of expiry at which the token is renewed. Takes effect from the next scheduled renewal.
+     *
+     * @param   margin
+     *          Refresh margin
+     * @param   unit
+     *          Unit of the margin
+     *
+     * @since   1.2.0
+     */
+    public void setRefreshMargin(long margin, TimeUnit unit) {
+        refreshMarginMillis = unit.toMillis(margin);
+    }
+
+    /**
+     * Registers a listener notified of every renewed token, e.g. to use it for the next connection of a game client.
+     * Listeners are called on the OAuth renewal scheduler and must not block.
+     *
+     * @param   listener
+     *          Listener
+     *
+     * @since   1.2.0
+     */
+    public void addRefreshListener(Consumer<OAuthToken> listener) {
+        listeners.add(listener);
+    }
+
+    /**
+     * Removes a listener.
+     *
+     * @param   listener
+     *          Listener
+     *
+     * @since   1.2.0
+     */
+    public void removeRefreshListener(Consumer<OAuthToken> listener) {
+        listeners.remove(listener);
+    }
+
+    /**
+     * Starts scheduling renewals ahead of the expiry of the token. A token whose issue time is unknown, such as one
+     * written to file before 1.2.0, is renewed immediately.
+     *
+     * @since   1.2.0
+     */
+    public synchronized void start() {
+        if (!running) {
+            running = true;
+            scheduleRenewal(getRenewalDelay(token));
+        }
+    }
+
+    /**
+     * Stops scheduling renewals. A renewal already in progress completes.
+     *
+     * @since   1.2.0
+     */
+    public synchronized void stop() {
+        running = false;
+        if (scheduledRenewal != null) {
+            scheduledRenewal.cancel(false);
+            scheduledRenewal = null;
+        }
+    }
+
+    /**
+     * Renews the token now, unless a renewal is already in progress, in which case its future is returned.
+     *
+     * @return  A CompletableFuture that completes with the renewed token, or <code>null</code> if it could not be renewed
+     *
+     * @since   1.2.0
+     */
+    public CompletableFuture<OAuthToken> renew() {
+        while (true) {
+            CompletableFuture<OAuthToken> current = inFlight.get();
+            if (current != null) {
+                return current;
+            }
+            CompletableFuture<OAuthToken> renewal = new CompletableFuture<>();
+            if (inFlight.compareAndSet(null, renewal)) {
+                OAuthHelper.renewOAuthToken(token).whenComplete((renewed, throwable) -> onRenewed(renewal, renewed));
+                return renewal;
+            }
+        }
+    }
+
+    /**
+     * Adopts, persists and publishes a renewed token and schedules its renewal, or schedules a retry if the renewal
+     * failed, then completes the in-flight renewal.
+     *
+     * @param   renewal
+     *          In-flight renewal
+     * @param   renewed
+     *          Renewed token, or <code>null</code> if the renewal failed
+     *
+     * @since   1.2.0
+     */
+    private void onRenewed(CompletableFuture<OAuthToken> renewal, OAuthToken renewed) {
+        OAuthToken result = null;
+        try {
+            if (renewed != null && renewed.accessToken != null) {
+                if (renewed.refreshToken == null) {
+                    renewed.refreshToken = token.refreshToken;
+                }
+                token = renewed;
+                result = renewed;
+                if (tokenStore != null) {
+                    tokenStore.put(profile, renewed);
+                }
+                for (Consumer<OAuthToken> listener : listeners) {
+                    listener.accept(renewed);
+                }
+                scheduleRenewal(getRenewalDelay(renewed));
+            }
+            else {
+                LOG.warn("Failed to renew OAuth token, retrying in {} ms", RETRY_DELAY_MILLIS);
+                scheduleRenewal(RETRY_DELAY_MILLIS);
+            }
+        }
+        catch (RuntimeException e) {
+            LOG.error("Failed to publish renewed OAuth token", e);
+        }
+        finally {
+            inFlight.set(null);
+            renewal.complete(result);
+        }
+    }
+
+    /**
+     * Returns the delay until a token must be renewed.
+     *
+     * @param   token
+     *          Token
+     *
+     * @return  Delay in milliseconds, 0 if the token must be renewed now
+     *
+     * @since   1.2.0
+     */
+    private long getRenewalDelay(OAuthToken token) {
+        long expiresAt = token.getExpiresAt();
+        return expiresAt > 0 ? Math.max(0, expiresAt - refreshMarginMillis - System.currentTimeMillis()) : 0;
+    }
+
+    /**
+     * Schedules the next renewal in place of any previously scheduled one, if the manager is running.
+     *
+     * @param   delayMillis
+     *          Delay until the renewal, in milliseconds
+     *
+     * @since   1.2.0
+     */
+    private synchronized void scheduleRenewal(long delayMillis) {
+        if (scheduledRenewal != null) {
+            scheduledRenewal.cancel(false);
+            scheduledRenewal = null;
+        }
+        if (running) {
+            LOG.debug("Scheduling OAuth token renewal in {} ms", delayMillis);
+            scheduledRenewal = OAuthHelper.getRenewalScheduler().schedule(this::renew, delayMillis, TimeUnit.MILLISECONDS);
+        }
+    }
+}
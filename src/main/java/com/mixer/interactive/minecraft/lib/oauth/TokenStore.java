@@ -0,0 +1,502 @@
+package com.mixer.interactive.minecraft.lib.oauth;
+
+import com.google.common.collect.ImmutableMap;
+import com.google.gson.JsonElement;
+import com.google.gson.JsonObject;
+import com.google.gson.JsonParser;
+import com.mixer.interactive.GameClient;
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.ClosedWatchServiceException;
+import java.nio.file.FileSystems;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.nio.file.StandardWatchEventKinds;
+import java.nio.file.WatchEvent;
+import java.nio.file.WatchKey;
+import java.nio.file.WatchService;
+import java.util.Arrays;
+import java.util.Base64;
+import java.util.HashSet;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Stores the OAuth tokens of any number of named profiles, e.g. one per streamer, in a single file. The file is read
+ * once into an in-memory cache, so looking up a token never touches the disk. Changes are written back in batches:
+ * every token stored within the flush delay of the first one is written by the same write, which replaces the file
+ * atomically by writing a temporary file and renaming it over the old one, so a crash mid-write never leaves a
+ * corrupt file. Every write first reads the file again and merges the profiles changed by another process with the ones
+ * changed locally, so no external change is overwritten. Once {@link #startWatching()} is called, the cache is also
+ * reloaded whenever the file is changed by another process; profiles changed locally but not yet written keep their
+ * local token, and are merged with the profiles read from the file by the next write.
+ * <p>
+ * The file holds the Base64 encoded JSON object of the tokens keyed by profile. A file written by
+ * {@link com.mixer.interactive.minecraft.lib.util.FileHelper}, which holds a single token, is read as the token of
+ * {@link #DEFAULT_PROFILE}.
+ *
+ * @author      Microsoft Corporation
+ *
+ * @since       1.2.0
+ */
+public class TokenStore implements Closeable {
+
+    /**
+     * Logger
+     */
+    private static final Logger LOG = LogManager.getLogger();
+
+    /**
+     * Profile of the token in a file written by FileHelper
+     */
+    public static final String DEFAULT_PROFILE = "default";
+
+    /**
+     * Default time changes are collected for before they are written
+     */
+    public static final long DEFAULT_FLUSH_DELAY_MILLIS = 100;
+
+    /**
+     * Path of the token file
+     */
+    private final Path file;
+
+    /**
+     * Cached tokens keyed by profile
+     */
+    private final Map<String, OAuthToken> tokens = new ConcurrentHashMap<>();
+
+    /**
+     * Executor writing the file
+     */
+    private final ScheduledExecutorService writer;
+
+    /**
+     * Time changes are collected for before they are written, in milliseconds
+     */
+    private volatile long flushDelayMillis = DEFAULT_FLUSH_DELAY_MILLIS;
+
+    /**
+     * Completes once the pending changes have been written, <code>null</code> if there are none
+     */
+    private CompletableFuture<Void> pendingFlush;
+
+    /**
+     * Profiles stored or removed since the file was last written
+     */
+    private final Set<String> changedProfiles = new HashSet<>();
+
+    /**
+     * Contents of the file as last read or written by this store
+     */
+    private byte[] lastContents = new byte[0];
+
+    /**
+     * Watch service notifying of changes to the file, <code>null</code> unless watching
+     */
+    private WatchService watchService;
+
+    /**
+     * Constructor. Reads the token file, if it exists.
+     *
+     * @param   file
+     *          Path of the token file
+     *
+     * @throws  IOException
+     *          If the token file exists but cannot be read
+     *
+     * @since   1.2.0
+     */
+    public TokenStore(Path file) throws IOException {
+        this.file = file.toAbsolutePath();
+        this.writer = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "mixer-interactive-token-store");
+            thread.setDaemon(true);
+            return thread;
+        });
+        reload();
+    }
+
+    /**
+     * Returns the path of the token file.
+     *
+     * @return  Path
+     *
+     * @since   1.2.0
+     */
+    public Path getFile() {
+        return file;
+    }
+
+    /**
+     * Returns the cached token of a profile.
+     *
+     * @param   profile
+     *          Profile
+     *
+     * @return  The <code>OAuthToken</code>, or <code>null</code> if the profile has none
+     *
+     * @since   1.2.0
+     */
+    public OAuthToken get(String profile) {
+        return tokens.get(profile);
+    }
+
+    /**
+     * Returns the cached tokens of all profiles.
+     *
+     * @return  Immutable Map of OAuthTokens keyed by profile
+     *
+     * @since   1.2.0
+     */
+    public Map<String, OAuthToken> getAll() {
+        return ImmutableMap.copyOf(tokens);
+    }
+
+    /**
+     * Returns the profiles that have a token.
+     *
+     * @return  Set of profiles
+     *
+     * @since   1.2.0
+     */
+    public Set<String> getProfiles() {
+        return getAll().keySet();
+    }
+
+    /**
+     * Stores the token of a profile. The cache is updated immediately, and the file is written with every other change
+     * made within the flush delay.
+     *
+     * @param   profile
+     *          Profile
+     * @param   token
+     *          OAuthToken
+     *
+     * @return  A CompletableFuture that completes once the token has been written, or exceptionally if writing failed
+     *
+     * @since   1.2.0
+     */
+    public synchronized CompletableFuture<Void> put(String profile, OAuthToken token) {
+        tokens.put(profile, token);
+        changedProfiles.add(profile);
+        return scheduleFlush();
+    }
+
+    /**
+     * Removes the token of a profile. The cache is updated immediately, and the file is written with every other
+     * change made within the flush delay.
+     *
+     * @param   profile
+     *          Profile
+     *
+     * @return  A CompletableFuture that completes once the removal has been written, or exceptionally if writing failed
+     *
+     * @since   1.2.0
+     */
+    public synchronized CompletableFuture<Void> remove(String profile) {
+        tokens.remove(profile);
+        changedProfiles.add(profile);
+        return scheduleFlush();
+    }
+
+    /**
+     * Returns the time changes are collected for before they are written.
+     *
+     * @param   unit
+     *          Unit of the returned delay
+     *
+     * @return  Flush delay
+     *
+     * @since   1.2.0
+     */
+    public long getFlushDelay(TimeUnit unit) {
+        return unit.convert(flushDelayMillis, TimeUnit.MILLISECONDS);
+    }
+
+    /**
+     * Sets the time changes are collected for before they are written.
+     *
+     * @param   delay
+     *          Flush delay
+     * @param   unit
+     *          Unit of the delay
+     *
+     * @since   1.2.0
+     */
+    public void setFlushDelay(long delay, TimeUnit unit) {
+        flushDelayMillis = unit.toMillis(delay);
+    }
+
+    /**
+     * Schedules a write of the cache, unless one is already pending, in which case the pending write also covers the
+     * latest change.
+     *
+     * @return  A CompletableFuture that completes once the write has completed
+     *
+     * @since   1.2.0
+     */
+    private synchronized CompletableFuture<Void> scheduleFlush() {
+        if (pendingFlush == null) {
+            CompletableFuture<Void> flush = new CompletableFuture<>();
+            pendingFlush = flush;
+            writer.schedule(() -> {
+                try {
+                    flush();
+                    flush.complete(null);
+                }
+                catch (IOException | RuntimeException e) {
+                    LOG.error("Failed to write token file {}", file, e);
+                    flush.completeExceptionally(e);
+                }
+            }, flushDelayMillis, TimeUnit.MILLISECONDS);
+        }
+        return pendingFlush;
+    }
+
+    /**
+     * Writes the cache to the file now. The file is read again first, as {@link #reload()} does, so that profiles
+     * changed by another process since this store last read it are merged with the ones changed locally rather than
+     * overwritten. A file that cannot be read is overwritten. Changes made from now on are written by the next batch.
+     *
+     * @throws  IOException
+     *          If the file cannot be written
+     *
+     * @since   1.2.0
+     */
+    public synchronized void flush() throws IOException {
+        pendingFlush = null;
+        try {
+            reload();
+        }
+        catch (IOException e) {
+            LOG.warn("Overwriting unreadable token file {}", file, e);
+        }
+        write(encode(tokens));
+        changedProfiles.clear();
+    }
+
+    /**
+     * Atomically replaces the file with the provided contents by writing them to a temporary file in the same
+     * directory, forcing them to the storage device, and renaming it over the file, so that the file never refers to
+     * contents that a crash could lose. Must be called while holding the lock of the store.
+     *
+     * @param   contents
+     *          Encoded contents of the file
+     *
+     * @throws  IOException
+     *          If the file cannot be written
+     *
+     * @since   1.2.0
+     */
+    private void write(byte[] contents) throws IOException {
+        Path directory = file.getParent();
+        Files.createDirectories(directory);
+        Path temporary = Files.createTempFile(directory, file.getFileName().toString(), ".tmp");
+        try {
+            try (FileChannel channel = FileChannel.open(temporary, StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING)) {
+                ByteBuffer buffer = ByteBuffer.wrap(contents);
+                while (buffer.hasRemaining()) {
+                    channel.write(buffer);
+                }
+                channel.force(true);
+            }
+            try {
+                Files.move(temporary, file, StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+            }
+            catch (AtomicMoveNotSupportedException e) {
+                Files.move(temporary, file, StandardCopyOption.REPLACE_EXISTING);
+            }
+            lastContents = contents;
+        }
+        finally {
+            Files.deleteIfExists(temporary);
+        }
+    }
+
+    /**
+     * Reads the file into the cache, replacing the cached tokens. Profiles stored or removed but not yet written keep
+     * their local state, and every other profile takes the state read from the file, so the next write merges the
+     * changes of both. Nothing happens if the file has not changed since this store last read or wrote it.
+     *
+     * @throws  IOException
+     *          If the file exists but cannot be read
+     *
+     * @since   1.2.0
+     */
+    public synchronized void reload() throws IOException {
+        byte[] contents;
+        try {
+            contents = Files.readAllBytes(file);
+        }
+        catch (NoSuchFileException e) {
+            return;
+        }
+        if (Arrays.equals(contents, lastContents)) {
+            return;
+        }
+        Map<String, OAuthToken> loaded = decode(contents);
+        tokens.keySet().removeIf(profile -> !loaded.containsKey(profile) && !changedProfiles.contains(profile));
+        loaded.forEach((profile, token) -> {
+            if (!changedProfiles.contains(profile)) {
+                tokens.put(profile, token);
+            }
+        });
+        lastContents = contents;
+        LOG.debug("Loaded {} OAuth tokens from {}", loaded.size(), file);
+    }
+
+    /**
+     * Starts watching the file, reloading the cache whenever another process changes it. The directory of the file is
+     * watched by a daemon thread until the store is closed.
+     *
+     * @throws  IOException
+     *          If the directory of the file cannot be watched
+     *
+     * @since   1.2.0
+     */
+    public synchronized void startWatching() throws IOException {
+        if (watchService != null) {
+            return;
+        }
+        Path directory = file.getParent();
+        Files.createDirectories(directory);
+        WatchService service = FileSystems.getDefault().newWatchService();
+        directory.register(service, StandardWatchEventKinds.ENTRY_CREATE, StandardWatchEventKinds.ENTRY_MODIFY);
+        watchService = service;
+
+        Thread watcher = new Thread(() -> watch(service), "mixer-interactive-token-store-watcher");
+        watcher.setDaemon(true);
+        watcher.start();
+    }
+
+    /**
+     * Reloads the cache on every change to the file reported by the watch service, until it is closed.
+     *
+     * @param   service
+     *          Watch service
+     *
+     * @since   1.2.0
+     */
+    private void watch(WatchService service) {
+        try {
+            while (true) {
+                WatchKey key = service.take();
+                boolean changed = false;
+                for (WatchEvent<?> event : key.pollEvents()) {
+                    if (file.getFileName().equals(event.context()) || event.kind() == StandardWatchEventKinds.OVERFLOW) {
+                        changed = true;
+                    }
+                }
+                key.reset();
+                if (changed) {
+                    try {
+                        reload();
+                    }
+                    catch (IOException | RuntimeException e) {
+                        LOG.error("Failed to reload token file {}", file, e);
+                    }
+                }
+            }
+        }
+        catch (ClosedWatchServiceException | InterruptedException e) {
+            LOG.debug("Stopped watching token file {}", file);
+        }
+    }
+
+    /**
+     * Stops watching the file and writes any pending change.
+     *
+     * @throws  IOException
+     *          If the pending changes cannot be written
+     *
+     * @since   1.2.0
+     */
+    @Override
+    public void close() throws IOException {
+        synchronized (this) {
+            if (watchService != null) {
+                watchService.close();
+                watchService = null;
+            }
+        }
+        boolean pending;
+        synchronized (this) {
+            pending = pendingFlush != null;
+        }
+        if (pending) {
+            flush();
+        }
+        writer.shutdown();
+    }
+
+    /**
+     * Encodes tokens as the contents of a token file.
+     *
+     * @param   tokens
+     *          OAuthTokens keyed by profile
+     *
+     * @return  Encoded contents
+     *
+     * @since   1.2.0
+     */
+    private static byte[] encode(Map<String, OAuthToken> tokens) {
+        JsonObject json = new JsonObject();
+        tokens.forEach((profile, token) -> json.add(profile, GameClient.GSON.toJsonTree(token)));
+        return Base64.getEncoder().encode(GameClient.GSON.toJson(json).getBytes(StandardCharsets.UTF_8));
+    }
+
+    /**
+     * Decodes the contents of a token file, which may have been written by FileHelper.
+     *
+     * @param   contents
+     *          Encoded contents
+     *
+     * @return  OAuthTokens keyed by profile
+     *
+     * @throws  IOException
+     *          If the contents are not a token file
+     *
+     * @since   1.2.0
+     */
+    private static Map<String, OAuthToken> decode(byte[] contents) throws IOException {
+        try {
+            String decoded = new String(Base64.getDecoder().decode(contents), StandardCharsets.UTF_8).trim();
+            if (decoded.isEmpty()) {
+                return ImmutableMap.of();
+            }
+            JsonObject json = new JsonParser().parse(decoded).getAsJsonObject();
+            if (json.has("access_token")) {
+                return ImmutableMap.of(DEFAULT_PROFILE, GameClient.GSON.fromJson(json, OAuthToken.class));
+            }
+            ImmutableMap.Builder<String, OAuthToken> builder = ImmutableMap.builder();
+            for (Map.Entry<String, JsonElement> entry : json.entrySet()) {
+                builder.put(entry.getKey(), GameClient.GSON.fromJson(entry.getValue(), OAuthToken.class));
+            }
+            return builder.build();
+        }
+        catch (RuntimeException e) {
+            throw new IOException("Not a token file", e);
+        }
+    }
+
+    @Override
+    public String toString() {
+        return "TokenStore{file=" + file + ", profiles=" + tokens.keySet() + "}";
+    }
+}
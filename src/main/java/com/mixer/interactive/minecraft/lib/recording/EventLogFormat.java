@@ -0,0 +1,85 @@
+package com.mixer.interactive.minecraft.lib.recording;
+
+/**
+ * Layout of the binary event log written by the EventRecorder and read by the EventReplayer.
+ * <p>
+ * A log starts with a header made of the magic number, the format version, the time the recording started in
+ * milliseconds since the epoch, and the length of the log in bytes, which is written when the recording is closed and
+ * is zero until then. The file may be longer than the log, since it keeps the size of the last region mapped by the
+ * recorder. The header is followed by records, each starting with a one byte kind:
+ * <ul>
+ *     <li>{@link #TYPE_RECORD}: the short index and the UTF-8 class name of an event type, written the first time an
+ *     event of that type is recorded</li>
+ *     <li>{@link #EVENT_RECORD}: the int length of the payload, the long time the event was recorded in nanoseconds
+ *     since the recording started, the short index of the event type, and the payload, which is the event serialized
+ *     to UTF-8 JSON by the game client's Gson instance</li>
+ *     <li>{@link #END_OF_LOG}: the end of the log. Unwritten parts of the file are zero filled, so a log that was not
+ *     closed properly ends at the last complete record.</li>
+ * </ul>
+ * The kind of a record is written after the rest of the record, so a record torn by a crash of the recording process
+ * reads as the end of the log.
+ *
+ * @author      Microsoft Corporation
+ *
+ * @since       1.2.0
+ */
+final class EventLogFormat {
+
+    /**
+     * Magic number at the start of every log, "MIXR"
+     */
+    static final int MAGIC = 0x4D495852;
+
+    /**
+     * Format version
+     */
+    static final short VERSION = 2;
+
+    /**
+     * Position in the header of the length of the log
+     */
+    static final int LENGTH_OFFSET = 4 + 2 + 8;
+
+    /**
+     * Size of the header in bytes
+     */
+    static final int HEADER_SIZE = LENGTH_OFFSET + 8;
+
+    /**
+     * Kind of the record marking the end of the log
+     */
+    static final byte END_OF_LOG = 0;
+
+    /**
+     * Kind of an event type record
+     */
+    static final byte TYPE_RECORD = 1;
+
+    /**
+     * Kind of an event record
+     */
+    static final byte EVENT_RECORD = 2;
+
+    /**
+     * Size of an event type record without the class name in bytes
+     */
+    static final int TYPE_RECORD_HEADER_SIZE = 1 + 2 + 2;
+
+    /**
+     * Size of an event record without the payload in bytes
+     */
+    static final int EVENT_RECORD_HEADER_SIZE = 1 + 4 + 8 + 2;
+
+    /**
+     * Size of each memory-mapped region of the log in bytes
+     */
+    static final int REGION_SIZE = 16 * 1024 * 1024;
+
+    /**
+     * Constructor.
+     *
+     * @since   1.2.0
+     */
+    private EventLogFormat() {
+    }
+}
@@ -0,0 +1,216 @@
+package com.mixer.interactive.minecraft.lib.recording;
+
+import com.google.common.eventbus.Subscribe;
+import com.mixer.interactive.GameClient;
+import com.mixer.interactive.event.InteractiveEvent;
+import com.mixer.interactive.minecraft.lib.handler.AbstractEventHandler;
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Records every Interactive event posted to the game client event bus to a compact binary log, see
+ * {@link EventLogFormat}. The log is written through memory-mapped regions of the file, so recording an event costs one
+ * serialization to JSON and a memory copy on the event thread, with no system call; the operating system writes the
+ * pages back to disk in the background. Recordings are played back by the EventReplayer.
+ *
+ * @author      Microsoft Corporation
+ *
+ * @since       1.2.0
+ */
+public class EventRecorder extends AbstractEventHandler implements Closeable {
+
+    /**
+     * Logger
+     */
+    private static final Logger LOG = LogManager.getLogger();
+
+    /**
+     * Channel of the log file
+     */
+    private final FileChannel channel;
+
+    /**
+     * Time the recording started in nanoseconds
+     */
+    private final long startNanos = System.nanoTime();
+
+    /**
+     * Index of each recorded event type, guarded by <code>this</code>
+     */
+    private final Map<Class<?>, Short> typeIndexes = new HashMap<>();
+
+    /**
+     * Currently mapped region of the log file, guarded by <code>this</code>
+     */
+    private MappedByteBuffer region;
+
+    /**
+     * Position in the file of the start of the mapped region, guarded by <code>this</code>
+     */
+    private long regionStart;
+
+    /**
+     * Number of recorded events, guarded by <code>this</code>
+     */
+    private long eventCount;
+
+    /**
+     * Whether the recorder has been closed, guarded by <code>this</code>
+     */
+    private boolean closed;
+
+    /**
+     * Constructor. Creates or truncates the log file and writes its header.
+     *
+     * @param   file
+     *          Path of the log file
+     *
+     * @throws  IOException
+     *          If the file cannot be created
+     *
+     * @since   1.2.0
+     */
+    public EventRecorder(Path file) throws IOException {
+        channel = FileChannel.open(file, StandardOpenOption.CREATE, StandardOpenOption.TRUNCATE_EXISTING,
+                StandardOpenOption.READ, StandardOpenOption.WRITE);
+        region = channel.map(FileChannel.MapMode.READ_WRITE, 0, EventLogFormat.REGION_SIZE);
+        region.putInt(EventLogFormat.MAGIC);
+        region.putShort(EventLogFormat.VERSION);
+        region.putLong(System.currentTimeMillis());
+        region.putLong(0);
+    }
+
+    /**
+     * Records an event posted to the game client event bus.
+     *
+     * @param   event
+     *          InteractiveEvent
+     *
+     * @since   1.2.0
+     */
+    @Subscribe
+    public void onInteractiveEvent(InteractiveEvent event) {
+        long timestamp = System.nanoTime() - startNanos;
+        byte[] payload = GameClient.GSON.toJson(event).getBytes(StandardCharsets.UTF_8);
+        try {
+            record(event.getClass(), timestamp, payload);
+        }
+        catch (IOException e) {
+            LOG.error("Failed to record {}", event.getClass().getSimpleName(), e);
+        }
+    }
+
+    /**
+     * Returns the number of recorded events.
+     *
+     * @return  Event count
+     *
+     * @since   1.2.0
+     */
+    public synchronized long getEventCount() {
+        return eventCount;
+    }
+
+    /**
+     * Stops recording, flushes the log to disk and writes its length to the header. The file is not truncated to the
+     * length of the log, since a file cannot be truncated while regions of it are still mapped, and mapped regions are
+     * only released once they are garbage collected; the unwritten tail of the file is zero filled.
+     *
+     * @throws  IOException
+     *          If the file cannot be written
+     *
+     * @since   1.2.0
+     */
+    @Override
+    public synchronized void close() throws IOException {
+        if (closed) {
+            return;
+        }
+        closed = true;
+        long length = regionStart + region.position();
+        region.force();
+        region = null;
+        ByteBuffer header = ByteBuffer.allocate(8);
+        header.putLong(length).flip();
+        while (header.hasRemaining()) {
+            channel.write(header, EventLogFormat.LENGTH_OFFSET + header.position());
+        }
+        channel.force(false);
+        channel.close();
+    }
+
+    /**
+     * Appends an event record, preceded by a type record the first time its type is recorded. The kind of each record
+     * is written last, so that a record is only part of the log once it is complete.
+     *
+     * @param   type
+     *          Event type
+     * @param   timestamp
+     *          Time the event was recorded in nanoseconds since the recording started
+     * @param   payload
+     *          Event serialized to UTF-8 JSON
+     *
+     * @throws  IOException
+     *          If a new region of the file cannot be mapped
+     *
+     * @since   1.2.0
+     */
+    private synchronized void record(Class<?> type, long timestamp, byte[] payload) throws IOException {
+        if (closed) {
+            return;
+        }
+        Short typeIndex = typeIndexes.get(type);
+        if (typeIndex == null) {
+            typeIndex = (short) typeIndexes.size();
+            typeIndexes.put(type, typeIndex);
+            byte[] name = type.getName().getBytes(StandardCharsets.UTF_8);
+            reserve(EventLogFormat.TYPE_RECORD_HEADER_SIZE + name.length);
+            int start = region.position();
+            region.put(EventLogFormat.END_OF_LOG);
+            region.putShort(typeIndex);
+            region.putShort((short) name.length);
+            region.put(name);
+            region.put(start, EventLogFormat.TYPE_RECORD);
+        }
+
+        reserve(EventLogFormat.EVENT_RECORD_HEADER_SIZE + payload.length);
+        int start = region.position();
+        region.put(EventLogFormat.END_OF_LOG);
+        region.putInt(payload.length);
+        region.putLong(timestamp);
+        region.putShort(typeIndex);
+        region.put(payload);
+        region.put(start, EventLogFormat.EVENT_RECORD);
+        eventCount++;
+    }
+
+    /**
+     * Maps a new region of the file starting at the current position if the current region cannot hold a record, so
+     * that records never straddle two regions. One byte is always kept free for the end of log marker.
+     *
+     * @param   size
+     *          Size of the record in bytes
+     *
+     * @throws  IOException
+     *          If the region cannot be mapped
+     *
+     * @since   1.2.0
+     */
+    private void reserve(int size) throws IOException {
+        if (region.remaining() < size + 1) {
+            regionStart += region.position();
+            region = channel.map(FileChannel.MapMode.READ_WRITE, regionStart, Math.max(EventLogFormat.REGION_SIZE, size + 1));
+        }
+    }
+}
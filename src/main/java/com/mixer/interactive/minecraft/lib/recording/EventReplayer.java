@@ -0,0 +1,271 @@
+package com.mixer.interactive.minecraft.lib.recording;
+
+import com.google.common.eventbus.EventBus;
+import com.google.gson.JsonParseException;
+import com.mixer.interactive.GameClient;
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+
+import java.io.IOException;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * Plays back an event log written by the EventRecorder, posting every recorded event to an event bus, usually the
+ * event bus of a game client built by {@link com.mixer.interactive.minecraft.lib.MixerInteractive#initGameClient(int, String)},
+ * so that the default and custom event handlers see exactly the recorded sequence of events. Events are either posted
+ * with the same spacing as when they were recorded, or as fast as possible for repeatable performance runs. A log that
+ * was not closed properly, e.g. because the recording process crashed, is played back up to its last complete record.
+ *
+ * @author      Microsoft Corporation
+ *
+ * @since       1.2.0
+ */
+public class EventReplayer {
+
+    /**
+     * Logger
+     */
+    private static final Logger LOG = LogManager.getLogger();
+
+    /**
+     * Path of the log file
+     */
+    private final Path file;
+
+    /**
+     * Constructor.
+     *
+     * @param   file
+     *          Path of the log file
+     *
+     * @since   1.2.0
+     */
+    public EventReplayer(Path file) {
+        this.file = file;
+    }
+
+    /**
+     * Posts every recorded event to the event bus of a game client.
+     *
+     * @param   gameClient
+     *          Game client
+     * @param   realTime
+     *          <code>true</code> to post events with the spacing they were recorded with, <code>false</code> to post
+     *          them as fast as possible
+     *
+     * @return  Number of posted events
+     *
+     * @throws  IOException
+     *          If the log cannot be read or is not an event log
+     *
+     * @since   1.2.0
+     */
+    public long replay(GameClient gameClient, boolean realTime) throws IOException {
+        return replay(gameClient.getEventBus(), realTime);
+    }
+
+    /**
+     * Posts every recorded event to an event bus.
+     *
+     * @param   eventBus
+     *          Event bus
+     * @param   realTime
+     *          <code>true</code> to post events with the spacing they were recorded with, <code>false</code> to post
+     *          them as fast as possible
+     *
+     * @return  Number of posted events
+     *
+     * @throws  IOException
+     *          If the log cannot be read or is not an event log
+     *
+     * @since   1.2.0
+     */
+    public long replay(EventBus eventBus, boolean realTime) throws IOException {
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            long size = channel.size();
+            long regionStart = 0;
+            MappedByteBuffer region = channel.map(FileChannel.MapMode.READ_ONLY, 0, Math.min(size, EventLogFormat.REGION_SIZE));
+            if (region.remaining() < EventLogFormat.HEADER_SIZE || region.getInt() != EventLogFormat.MAGIC) {
+                throw new IOException(file + " is not an event log");
+            }
+            short version = region.getShort();
+            if (version != EventLogFormat.VERSION) {
+                throw new IOException("Unsupported event log version " + version);
+            }
+            long startEpochMillis = region.getLong();
+            long length = region.getLong();
+            if (length >= EventLogFormat.HEADER_SIZE && length < size) {
+                // The file keeps the size of the last region mapped by the recorder; only its recorded length is read
+                size = length;
+                region = channel.map(FileChannel.MapMode.READ_ONLY, 0, Math.min(size, EventLogFormat.REGION_SIZE));
+                region.position(EventLogFormat.HEADER_SIZE);
+            }
+            LOG.debug("Replaying events recorded at {} from {}", startEpochMillis, file);
+
+            Map<Short, Class<?>> types = new HashMap<>();
+            long replayStart = System.nanoTime();
+            long events = 0;
+            while (true) {
+                if (!region.hasRemaining()) {
+                    if (regionStart + region.position() >= size) {
+                        break;
+                    }
+                    regionStart += region.position();
+                    region = channel.map(FileChannel.MapMode.READ_ONLY, regionStart, Math.min(size - regionStart, EventLogFormat.REGION_SIZE));
+                }
+                byte kind = region.get(region.position());
+                if (kind == EventLogFormat.END_OF_LOG) {
+                    break;
+                }
+
+                int recordSize = recordSize(region, kind);
+                if (recordSize < 0 || region.remaining() < recordSize) {
+                    // A record running past the end of the log was torn when the recording process stopped
+                    long needed = recordSize < 0 ? headerSize(kind) : recordSize;
+                    if (regionStart + region.position() + needed > size) {
+                        LOG.warn("Event log {} ends with an incomplete record", file);
+                        break;
+                    }
+                    regionStart += region.position();
+                    region = channel.map(FileChannel.MapMode.READ_ONLY, regionStart,
+                            Math.min(size - regionStart, Math.max(EventLogFormat.REGION_SIZE, needed)));
+                    continue;
+                }
+
+                region.get();
+                if (kind == EventLogFormat.TYPE_RECORD) {
+                    short index = region.getShort();
+                    byte[] name = new byte[region.getShort()];
+                    region.get(name);
+                    types.put(index, loadType(new String(name, StandardCharsets.UTF_8)));
+                }
+                else if (kind == EventLogFormat.EVENT_RECORD) {
+                    byte[] payload = new byte[region.getInt()];
+                    long timestamp = region.getLong();
+                    Class<?> type = types.get(region.getShort());
+                    region.get(payload);
+                    if (type == null) {
+                        continue;
+                    }
+                    if (realTime) {
+                        long delay = replayStart + timestamp - System.nanoTime();
+                        while (delay > 0) {
+                            LockSupport.parkNanos(delay);
+                            delay = replayStart + timestamp - System.nanoTime();
+                        }
+                    }
+                    Object event;
+                    try {
+                        event = GameClient.GSON.fromJson(new String(payload, StandardCharsets.UTF_8), type);
+                    }
+                    catch (JsonParseException e) {
+                        event = null;
+                    }
+                    if (event == null) {
+                        LOG.warn("Event log {} ends with a torn record", file);
+                        break;
+                    }
+                    eventBus.post(event);
+                    events++;
+                }
+                else {
+                    throw new IOException("Corrupt event log " + file + ", unknown record kind " + kind);
+                }
+            }
+            LOG.debug("Replayed {} events in {} ms", events, TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - replayStart));
+            return events;
+        }
+    }
+
+    /**
+     * Returns the size of the record at the current position of a region, or -1 if its header is not entirely in the
+     * region. A negative length in the header can only come from a torn record, and is returned as a size running
+     * past the end of any log.
+     *
+     * @param   region
+     *          Mapped region positioned at the start of a record
+     * @param   kind
+     *          Kind of the record
+     *
+     * @return  Record size in bytes, or -1
+     *
+     * @throws  IOException
+     *          If the record kind is unknown
+     *
+     * @since   1.2.0
+     */
+    private int recordSize(MappedByteBuffer region, byte kind) throws IOException {
+        int position = region.position();
+        switch (kind) {
+            case EventLogFormat.TYPE_RECORD:
+                if (region.remaining() < EventLogFormat.TYPE_RECORD_HEADER_SIZE) {
+                    return -1;
+                }
+                short nameLength = region.getShort(position + 3);
+                return nameLength >= 0 ? EventLogFormat.TYPE_RECORD_HEADER_SIZE + nameLength : Integer.MAX_VALUE;
+            case EventLogFormat.EVENT_RECORD:
+                if (region.remaining() < EventLogFormat.EVENT_RECORD_HEADER_SIZE) {
+                    return -1;
+                }
+                int payloadLength = region.getInt(position + 1);
+                return payloadLength >= 0 && payloadLength <= Integer.MAX_VALUE - EventLogFormat.EVENT_RECORD_HEADER_SIZE
+                        ? EventLogFormat.EVENT_RECORD_HEADER_SIZE + payloadLength
+                        : Integer.MAX_VALUE;
+            default:
+                throw new IOException("Corrupt event log " + file + ", unknown record kind " + kind);
+        }
+    }
+
+    /**
+     * Returns the size of the fixed part of a record.
+     *
+     * @param   kind
+     *          Kind of the record
+     *
+     * @return  Header size in bytes
+     *
+     * @throws  IOException
+     *          If the record kind is unknown
+     *
+     * @since   1.2.0
+     */
+    private int headerSize(byte kind) throws IOException {
+        switch (kind) {
+            case EventLogFormat.TYPE_RECORD:
+                return EventLogFormat.TYPE_RECORD_HEADER_SIZE;
+            case EventLogFormat.EVENT_RECORD:
+                return EventLogFormat.EVENT_RECORD_HEADER_SIZE;
+            default:
+                throw new IOException("Corrupt event log " + file + ", unknown record kind " + kind);
+        }
+    }
+
+    /**
+     * Loads a recorded event type, or returns <code>null</code> if it no longer exists, in which case events of that
+     * type are skipped.
+     *
+     * @param   name
+     *          Class name
+     *
+     * @return  Event type, or <code>null</code>
+     *
+     * @since   1.2.0
+     */
+    private static Class<?> loadType(String name) {
+        try {
+            return Class.forName(name);
+        }
+        catch (ClassNotFoundException e) {
+            LOG.warn("Skipping recorded events of unknown type {}", name);
+            return null;
+        }
+    }
+}
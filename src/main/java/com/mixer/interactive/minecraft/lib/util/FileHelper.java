@@ -6,6 +6,8 @@ import org.apache.logging.log4j.LogManager;
 import org.apache.logging.log4j.Logger;
 
 import java.io.*;
+import java.nio.file.Files;
+import java.nio.file.Paths;
 import java.util.Base64;
 
 /**
@@ -14,7 +16,10 @@ import java.util.Base64;
  * @author      Microsoft Corporation
  *
  * @since       1.0.0
+ * @deprecated  Use {@link com.mixer.interactive.minecraft.lib.oauth.TokenStore}, which caches tokens, stores one per
+ *              profile and replaces the file atomically. It reads files written by this class.
  */
+@Deprecated
 public class FileHelper {
 
     /**
@@ -55,10 +60,8 @@ public class FileHelper {
      */
     public static OAuthToken readTokenFile(String tokenFilePath) {
         if (tokenFilePath != null) {
-            File tokenFile = new File(tokenFilePath);
-            try (BufferedInputStream inputStream = new BufferedInputStream(new FileInputStream(tokenFile))) {
-                byte[] result = new byte[(int) tokenFile.length()];
-                inputStream.read(result);
+            try {
+                byte[] result = Files.readAllBytes(Paths.get(tokenFilePath));
                 String resultString = new String(Base64.getDecoder().decode(result));
                 return GameClient.GSON.fromJson(resultString, OAuthToken.class);
             }
@@ -0,0 +1,242 @@
+package com.mixer.interactive.minecraft.lib.standin;
+
+import com.google.gson.JsonArray;
+import com.google.gson.JsonElement;
+import com.google.gson.JsonObject;
+import com.google.gson.JsonParser;
+
+import java.io.IOException;
+import java.io.Reader;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+/**
+ * The scenes, groups and participants served by the StandInInteractiveService when a game client connects, in the
+ * JSON format of the Interactive protocol. Fixtures are either loaded from a file of the form
+ * <code>{"scenes": [...], "groups": [...], "participants": [...]}</code> or generated.
+ *
+ * @author      Microsoft Corporation
+ *
+ * @since       1.2.0
+ */
+public class Fixtures {
+
+    /**
+     * Scenes
+     */
+    private final JsonArray scenes;
+
+    /**
+     * Groups
+     */
+    private final JsonArray groups;
+
+    /**
+     * Participants connected before the game client
+     */
+    private final JsonArray participants;
+
+    /**
+     * Constructor.
+     *
+     * @param   scenes
+     *          Scenes
+     * @param   groups
+     *          Groups
+     * @param   participants
+     *          Participants connected before the game client
+     *
+     * @since   1.2.0
+     */
+    public Fixtures(JsonArray scenes, JsonArray groups, JsonArray participants) {
+        this.scenes = scenes;
+        this.groups = groups;
+        this.participants = participants;
+    }
+
+    /**
+     * Loads fixtures from a JSON file. Missing sections are left empty.
+     *
+     * @param   path
+     *          Path of the JSON file
+     *
+     * @return  Fixtures
+     *
+     * @throws  IOException
+     *          If the file cannot be read
+     *
+     * @since   1.2.0
+     */
+    public static Fixtures load(Path path) throws IOException {
+        try (Reader reader = Files.newBufferedReader(path, StandardCharsets.UTF_8)) {
+            JsonObject json = new JsonParser().parse(reader).getAsJsonObject();
+            return new Fixtures(array(json, "scenes"), array(json, "groups"), array(json, "participants"));
+        }
+    }
+
+    /**
+     * Generates fixtures: scenes of button controls named <code>scene-&lt;n&gt;</code>, one group per scene plus the
+     * <code>default</code> group on the <code>default</code> scene, and participants spread evenly across the groups.
+     *
+     * @param   sceneCount
+     *          Number of scenes in addition to the default scene
+     * @param   controlsPerScene
+     *          Number of button controls per scene
+     * @param   participantCount
+     *          Number of participants connected before the game client
+     *
+     * @return  Fixtures
+     *
+     * @since   1.2.0
+     */
+    public static Fixtures generate(int sceneCount, int controlsPerScene, int participantCount) {
+        JsonArray scenes = new JsonArray();
+        JsonArray groups = new JsonArray();
+        scenes.add(scene("default", controlsPerScene));
+        groups.add(group("default", "default"));
+        for (int index = 0; index < sceneCount; index++) {
+            scenes.add(scene("scene-" + index, controlsPerScene));
+            groups.add(group("group-" + index, "scene-" + index));
+        }
+
+        JsonArray participants = new JsonArray();
+        long now = System.currentTimeMillis();
+        for (int index = 0; index < participantCount; index++) {
+            String groupID = groups.get(index % groups.size()).getAsJsonObject().get("groupID").getAsString();
+            participants.add(participant("fixture-" + index, index, groupID, now));
+        }
+        return new Fixtures(scenes, groups, participants);
+    }
+
+    /**
+     * Returns a participant in the JSON format of the Interactive protocol.
+     *
+     * @param   sessionID
+     *          Session id
+     * @param   userID
+     *          User id, also used to derive the username
+     * @param   groupID
+     *          Group id
+     * @param   connectedAt
+     *          Connection time in milliseconds since the epoch
+     *
+     * @return  JsonObject
+     *
+     * @since   1.2.0
+     */
+    public static JsonObject participant(String sessionID, int userID, String groupID, long connectedAt) {
+        JsonObject json = new JsonObject();
+        json.addProperty("sessionID", sessionID);
+        json.addProperty("userID", userID);
+        json.addProperty("username", "standin" + userID);
+        json.addProperty("level", userID % 100);
+        json.addProperty("lastInputAt", connectedAt);
+        json.addProperty("connectedAt", connectedAt);
+        json.addProperty("disabled", false);
+        json.addProperty("groupID", groupID);
+        json.addProperty("etag", "0");
+        return json;
+    }
+
+    /**
+     * Returns the scenes.
+     *
+     * @return  JsonArray of scenes
+     *
+     * @since   1.2.0
+     */
+    public JsonArray getScenes() {
+        return scenes;
+    }
+
+    /**
+     * Returns the groups.
+     *
+     * @return  JsonArray of groups
+     *
+     * @since   1.2.0
+     */
+    public JsonArray getGroups() {
+        return groups;
+    }
+
+    /**
+     * Returns the participants connected before the game client.
+     *
+     * @return  JsonArray of participants
+     *
+     * @since   1.2.0
+     */
+    public JsonArray getParticipants() {
+        return participants;
+    }
+
+    /**
+     * Returns a section of a fixtures file, or an empty array if it is missing.
+     *
+     * @param   json
+     *          Fixtures file
+     * @param   name
+     *          Section name
+     *
+     * @return  JsonArray
+     *
+     * @since   1.2.0
+     */
+    private static JsonArray array(JsonObject json, String name) {
+        JsonElement element = json.get(name);
+        return element != null && element.isJsonArray() ? element.getAsJsonArray() : new JsonArray();
+    }
+
+    /**
+     * Returns a scene of button controls.
+     *
+     * @param   sceneID
+     *          Scene id
+     * @param   controlCount
+     *          Number of button controls
+     *
+     * @return  JsonObject
+     *
+     * @since   1.2.0
+     */
+    private static JsonObject scene(String sceneID, int controlCount) {
+        JsonArray controls = new JsonArray();
+        for (int index = 0; index < controlCount; index++) {
+            JsonObject control = new JsonObject();
+            control.addProperty("controlID", "button-" + index);
+            control.addProperty("kind", "button");
+            control.addProperty("text", "Button " + index);
+            control.addProperty("cost", 0);
+            control.addProperty("disabled", false);
+            control.addProperty("etag", "0");
+            controls.add(control);
+        }
+        JsonObject scene = new JsonObject();
+        scene.addProperty("sceneID", sceneID);
+        scene.addProperty("etag", "0");
+        scene.add("controls", controls);
+        return scene;
+    }
+
+    /**
+     * Returns a group.
+     *
+     * @param   groupID
+     *          Group id
+     * @param   sceneID
+     *          Scene id of the group
+     *
+     * @return  JsonObject
+     *
+     * @since   1.2.0
+     */
+    private static JsonObject group(String groupID, String sceneID) {
+        JsonObject group = new JsonObject();
+        group.addProperty("groupID", groupID);
+        group.addProperty("sceneID", sceneID);
+        group.addProperty("etag", "0");
+        return group;
+    }
+}
@@ -0,0 +1,128 @@
+package com.mixer.interactive.minecraft.lib.standin;
+
+import com.google.common.eventbus.Subscribe;
+import com.mixer.interactive.event.control.input.ControlInputEvent;
+import com.mixer.interactive.event.participant.ParticipantJoinEvent;
+import com.mixer.interactive.event.participant.ParticipantLeaveEvent;
+import com.mixer.interactive.event.participant.ParticipantUpdateEvent;
+import com.mixer.interactive.minecraft.lib.MixerInteractive;
+import com.mixer.interactive.minecraft.lib.handler.AbstractEventHandler;
+import com.mixer.interactive.minecraft.lib.metrics.Histogram;
+import com.mixer.interactive.resources.participant.InteractiveParticipant;
+
+import java.util.Set;
+
+/**
+ * Measures the latency from a synthetic event leaving the StandInInteractiveService to the event reaching the custom
+ * event handlers, which are attached after the default event handlers have applied it to the local cache. Latencies
+ * are recorded in the histograms <code>standin.latency.&lt;method&gt;</code> of {@link MixerInteractive#getMetrics()}.
+ *
+ * @author      Microsoft Corporation
+ *
+ * @since       1.2.0
+ */
+public class LatencyProbe extends AbstractEventHandler {
+
+    /**
+     * Service the events were sent by
+     */
+    private final StandInInteractiveService service;
+
+    /**
+     * Constructor.
+     *
+     * @param   service
+     *          Service the events were sent by, running in the same JVM
+     *
+     * @since   1.2.0
+     */
+    public LatencyProbe(StandInInteractiveService service) {
+        this.service = service;
+    }
+
+    /**
+     * Records the latency of joining participants.
+     *
+     * @param   event
+     *          ParticipantJoinEvent
+     *
+     * @since   1.2.0
+     */
+    @Subscribe
+    public void onParticipantJoined(ParticipantJoinEvent event) {
+        record("onParticipantJoin", event.getParticipants());
+    }
+
+    /**
+     * Records the latency of leaving participants.
+     *
+     * @param   event
+     *          ParticipantLeaveEvent
+     *
+     * @since   1.2.0
+     */
+    @Subscribe
+    public void onParticipantLeft(ParticipantLeaveEvent event) {
+        record("onParticipantLeave", event.getParticipants());
+    }
+
+    /**
+     * Records the latency of participants moved to another group.
+     *
+     * @param   event
+     *          ParticipantUpdateEvent
+     *
+     * @since   1.2.0
+     */
+    @Subscribe
+    public void onParticipantUpdated(ParticipantUpdateEvent event) {
+        record("onParticipantUpdate", event.getParticipants());
+    }
+
+    /**
+     * Records the latency of control input.
+     *
+     * @param   event
+     *          ControlInputEvent
+     *
+     * @since   1.2.0
+     */
+    @Subscribe
+    public void onControlInput(ControlInputEvent event) {
+        record("giveInput", event.getTransactionID());
+    }
+
+    /**
+     * Records the latency of every participant of a participant event.
+     *
+     * @param   method
+     *          Protocol method of the event
+     * @param   participants
+     *          Participants of the event
+     *
+     * @since   1.2.0
+     */
+    private void record(String method, Set<InteractiveParticipant> participants) {
+        for (InteractiveParticipant participant : participants) {
+            record(method, participant.getSessionID());
+        }
+    }
+
+    /**
+     * Records the latency of a synthetic event, if it was sent by the service.
+     *
+     * @param   method
+     *          Protocol method of the event
+     * @param   id
+     *          Session id of the participant, or transaction id of an input
+     *
+     * @since   1.2.0
+     */
+    private void record(String method, String id) {
+        Long sentTime = service.takeSentTime(StandInInteractiveService.correlationKey(method, id));
+        if (sentTime != null) {
+            Histogram latency = MixerInteractive.getMetrics().histogram("standin.latency." + method);
+            latency.record(System.nanoTime() - sentTime);
+        }
+    }
+}
@@ -0,0 +1,749 @@
+package com.mixer.interactive.minecraft.lib.standin;
+
+import com.google.gson.JsonArray;
+import com.google.gson.JsonElement;
+import com.google.gson.JsonNull;
+import com.google.gson.JsonObject;
+import com.google.gson.JsonParser;
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+import org.java_websocket.WebSocket;
+import org.java_websocket.handshake.ClientHandshake;
+import org.java_websocket.server.WebSocketServer;
+
+import java.net.InetSocketAddress;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArraySet;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * A local stand-in for the Mixer Interactive service, for load testing mods without a network. It speaks the JSON-RPC
+ * over websocket protocol that <code>GameClient</code> expects: it greets connecting clients with <code>hello</code>,
+ * answers <code>getScenes</code>, <code>getGroups</code>, <code>getAllParticipants</code>,
+ * <code>getActiveParticipants</code>, <code>updateParticipants</code>, <code>updateControls</code>,
+ * <code>createGroups</code>, <code>updateGroups</code>, <code>deleteGroup</code>, <code>ready</code>,
+ * <code>getTime</code> and <code>setCompression</code> from its fixtures, and accepts any etag.
+ * <p>
+ * Synthetic traffic is generated through {@link #join(int)}, {@link #leave(int)}, {@link #moveGroups(int)} and
+ * {@link #giveInput(int)}, usually driven by a TrafficGenerator. The time each synthetic event is sent is recorded, so
+ * that a LatencyProbe in the same JVM can measure the latency from the event leaving the service to the event being
+ * applied to the local cache.
+ *
+ * @author      Microsoft Corporation
+ *
+ * @since       1.2.0
+ */
+public class StandInInteractiveService extends WebSocketServer {
+
+    /**
+     * Logger
+     */
+    private static final Logger LOG = LogManager.getLogger();
+
+    /**
+     * Number of participants per <code>getAllParticipants</code> page, as on the Mixer Interactive service
+     */
+    private static final int PARTICIPANT_PAGE_SIZE = 100;
+
+    /**
+     * Error code of an unknown method
+     */
+    private static final int UNKNOWN_METHOD = 4006;
+
+    /**
+     * Scenes keyed by scene id, guarded by <code>this</code>
+     */
+    private final Map<String, JsonObject> scenes = new LinkedHashMap<>();
+
+    /**
+     * Groups keyed by group id, guarded by <code>this</code>
+     */
+    private final Map<String, JsonObject> groups = new LinkedHashMap<>();
+
+    /**
+     * Connected participants keyed by session id, in connection order, guarded by <code>this</code>
+     */
+    private final Map<String, JsonObject> participants = new LinkedHashMap<>();
+
+    /**
+     * Session ids of the connected participants, for picking one at random, guarded by <code>this</code>
+     */
+    private final List<String> sessionIDs = new ArrayList<>();
+
+    /**
+     * Position of each session id in <code>sessionIDs</code>, guarded by <code>this</code>
+     */
+    private final Map<String, Integer> sessionIDPositions = new HashMap<>();
+
+    /**
+     * Connection time of the most recently connected participant, kept unique so that participants can be paged
+     * by connection time, guarded by <code>this</code>
+     */
+    private long lastConnectedAt;
+
+    /**
+     * Source of randomness for synthetic traffic, guarded by <code>this</code>
+     */
+    private final Random random = new Random(42);
+
+    /**
+     * Connected game clients
+     */
+    private final Set<WebSocket> clients = new CopyOnWriteArraySet<>();
+
+    /**
+     * Time each synthetic event was sent in nanoseconds, keyed by correlation key
+     */
+    private final Map<String, Long> sentTimes = new ConcurrentHashMap<>();
+
+    /**
+     * Id of the next packet sent by the service
+     */
+    private final AtomicInteger packetIDs = new AtomicInteger();
+
+    /**
+     * Source of new etags
+     */
+    private final AtomicLong etags = new AtomicLong();
+
+    /**
+     * Number of synthetic user ids handed out
+     */
+    private final AtomicInteger userIDs = new AtomicInteger(1000000);
+
+    /**
+     * Released once the server is listening
+     */
+    private final CountDownLatch started = new CountDownLatch(1);
+
+    /**
+     * Constructor.
+     *
+     * @param   address
+     *          Address to listen on
+     * @param   fixtures
+     *          Scenes, groups and participants to serve
+     *
+     * @since   1.2.0
+     */
+    public StandInInteractiveService(InetSocketAddress address, Fixtures fixtures) {
+        super(address);
+        for (JsonElement scene : fixtures.getScenes()) {
+            scenes.put(scene.getAsJsonObject().get("sceneID").getAsString(), scene.getAsJsonObject());
+        }
+        for (JsonElement group : fixtures.getGroups()) {
+            groups.put(group.getAsJsonObject().get("groupID").getAsString(), group.getAsJsonObject());
+        }
+        for (JsonElement participant : fixtures.getParticipants()) {
+            JsonObject json = participant.getAsJsonObject();
+            json.addProperty("connectedAt", nextConnectedAt());
+            addParticipant(json);
+        }
+    }
+
+    /**
+     * Returns the correlation key of a synthetic event.
+     *
+     * @param   method
+     *          Protocol method of the event, e.g. <code>onParticipantJoin</code>
+     * @param   id
+     *          Session id of the participant, or transaction id of an input
+     *
+     * @return  Correlation key
+     *
+     * @since   1.2.0
+     */
+    public static String correlationKey(String method, String id) {
+        return method + ":" + id;
+    }
+
+    /**
+     * Removes and returns the time a synthetic event was sent.
+     *
+     * @param   key
+     *          Correlation key of the event
+     *
+     * @return  Send time in nanoseconds, or <code>null</code> if no such event was sent
+     *
+     * @since   1.2.0
+     * @see     #correlationKey(String, String)
+     */
+    public Long takeSentTime(String key) {
+        return sentTimes.remove(key);
+    }
+
+    /**
+     * Waits until the server is listening.
+     *
+     * @param   timeout
+     *          Maximum time to wait
+     * @param   unit
+     *          Unit of the timeout
+     *
+     * @return  <code>true</code> if the server is listening
+     *
+     * @throws  InterruptedException
+     *          If interrupted while waiting
+     *
+     * @since   1.2.0
+     */
+    public boolean awaitStarted(long timeout, TimeUnit unit) throws InterruptedException {
+        return started.await(timeout, unit);
+    }
+
+    /**
+     * Returns the number of connected participants.
+     *
+     * @return  Participant count
+     *
+     * @since   1.2.0
+     */
+    public synchronized int getParticipantCount() {
+        return participants.size();
+    }
+
+    /**
+     * Connects new participants to the default group and sends one <code>onParticipantJoin</code> event for them.
+     *
+     * @param   count
+     *          Number of participants joining
+     *
+     * @return  Number of participants that joined
+     *
+     * @since   1.2.0
+     */
+    public int join(int count) {
+        if (count <= 0) {
+            return 0;
+        }
+        JsonArray joined = new JsonArray();
+        synchronized (this) {
+            for (int index = 0; index < count; index++) {
+                JsonObject participant = Fixtures.participant(UUID.randomUUID().toString(), userIDs.incrementAndGet(),
+                        groups.containsKey("default") || groups.isEmpty() ? "default" : groups.keySet().iterator().next(),
+                        nextConnectedAt());
+                addParticipant(participant);
+                joined.add(participant);
+            }
+        }
+        sendParticipantEvent("onParticipantJoin", joined);
+        return joined.size();
+    }
+
+    /**
+     * Disconnects random participants and sends one <code>onParticipantLeave</code> event for them.
+     *
+     * @param   count
+     *          Maximum number of participants leaving
+     *
+     * @return  Number of participants that left
+     *
+     * @since   1.2.0
+     */
+    public int leave(int count) {
+        if (count <= 0) {
+            return 0;
+        }
+        JsonArray left = new JsonArray();
+        synchronized (this) {
+            for (int index = 0; index < count && !sessionIDs.isEmpty(); index++) {
+                left.add(removeParticipant(sessionIDs.get(random.nextInt(sessionIDs.size()))));
+            }
+        }
+        sendParticipantEvent("onParticipantLeave", left);
+        return left.size();
+    }
+
+    /**
+     * Moves random participants to random groups and sends one <code>onParticipantUpdate</code> event for them.
+     *
+     * @param   count
+     *          Maximum number of participants moved
+     *
+     * @return  Number of participants moved
+     *
+     * @since   1.2.0
+     */
+    public int moveGroups(int count) {
+        if (count <= 0) {
+            return 0;
+        }
+        JsonArray moved = new JsonArray();
+        synchronized (this) {
+            if (groups.isEmpty()) {
+                return 0;
+            }
+            List<String> groupIDs = new ArrayList<>(groups.keySet());
+            for (int index = 0; index < count && !sessionIDs.isEmpty(); index++) {
+                JsonObject participant = participants.get(sessionIDs.get(random.nextInt(sessionIDs.size())));
+                participant.addProperty("groupID", groupIDs.get(random.nextInt(groupIDs.size())));
+                participant.addProperty("etag", nextEtag());
+                moved.add(participant);
+            }
+        }
+        sendParticipantEvent("onParticipantUpdate", moved);
+        return moved.size();
+    }
+
+    /**
+     * Sends <code>giveInput</code> mouse down events from random participants on random controls of the scene of their
+     * group, one event per input as on the Mixer Interactive service.
+     *
+     * @param   count
+     *          Maximum number of inputs
+     *
+     * @return  Number of inputs sent
+     *
+     * @since   1.2.0
+     */
+    public int giveInput(int count) {
+        List<JsonObject> inputs = new ArrayList<>(Math.max(0, count));
+        synchronized (this) {
+            for (int index = 0; index < count && !sessionIDs.isEmpty(); index++) {
+                JsonObject participant = participants.get(sessionIDs.get(random.nextInt(sessionIDs.size())));
+                JsonObject group = groups.get(participant.get("groupID").getAsString());
+                JsonObject scene = group != null ? scenes.get(group.get("sceneID").getAsString()) : null;
+                if (scene == null || !scene.has("controls") || scene.getAsJsonArray("controls").size() == 0) {
+                    continue;
+                }
+                JsonArray controls = scene.getAsJsonArray("controls");
+                JsonObject control = controls.get(random.nextInt(controls.size())).getAsJsonObject();
+
+                JsonObject input = new JsonObject();
+                input.addProperty("controlID", control.get("controlID").getAsString());
+                input.addProperty("event", "mousedown");
+                input.addProperty("button", 0);
+                JsonObject params = new JsonObject();
+                params.addProperty("participantID", participant.get("sessionID").getAsString());
+                params.addProperty("transactionID", UUID.randomUUID().toString());
+                params.add("input", input);
+                inputs.add(params);
+            }
+        }
+        for (JsonObject params : inputs) {
+            sentTimes.put(correlationKey("giveInput", params.get("transactionID").getAsString()), System.nanoTime());
+            send(method("giveInput", params));
+        }
+        return inputs.size();
+    }
+
+    /**
+     * Greets a connecting game client.
+     *
+     * @param   connection
+     *          Connection to the game client
+     * @param   handshake
+     *          Websocket handshake
+     *
+     * @since   1.2.0
+     */
+    @Override
+    public void onOpen(WebSocket connection, ClientHandshake handshake) {
+        LOG.info("Game client connected from {}", connection.getRemoteSocketAddress());
+        clients.add(connection);
+        connection.send(method("hello", new JsonObject()).toString());
+    }
+
+    /**
+     * Forgets a disconnected game client.
+     *
+     * @param   connection
+     *          Connection to the game client
+     * @param   code
+     *          Close code
+     * @param   reason
+     *          Close reason
+     * @param   remote
+     *          Whether the game client closed the connection
+     *
+     * @since   1.2.0
+     */
+    @Override
+    public void onClose(WebSocket connection, int code, String reason, boolean remote) {
+        LOG.info("Game client disconnected with code {} ({})", code, reason);
+        clients.remove(connection);
+    }
+
+    /**
+     * Answers a method call from a game client.
+     *
+     * @param   connection
+     *          Connection to the game client
+     * @param   message
+     *          JSON-RPC packet
+     *
+     * @since   1.2.0
+     */
+    @Override
+    public void onMessage(WebSocket connection, String message) {
+        JsonObject packet = new JsonParser().parse(message).getAsJsonObject();
+        if (!packet.has("type") || !"method".equals(packet.get("type").getAsString())) {
+            return;
+        }
+        String method = packet.get("method").getAsString();
+        JsonObject params = packet.has("params") && packet.get("params").isJsonObject() ? packet.getAsJsonObject("params") : new JsonObject();
+        JsonObject reply = new JsonObject();
+        reply.addProperty("type", "reply");
+        reply.add("id", packet.get("id"));
+        String text;
+        synchronized (this) {
+            try {
+                reply.add("result", call(method, params));
+                reply.add("error", JsonNull.INSTANCE);
+            }
+            catch (UnsupportedOperationException e) {
+                JsonObject error = new JsonObject();
+                error.addProperty("code", UNKNOWN_METHOD);
+                error.addProperty("message", "Unknown method name: " + method);
+                reply.add("result", JsonNull.INSTANCE);
+                reply.add("error", error);
+            }
+            text = reply.toString();
+        }
+        if (!packet.has("discard") || !packet.get("discard").getAsBoolean()) {
+            connection.send(text);
+        }
+    }
+
+    /**
+     * Logs websocket errors.
+     *
+     * @param   connection
+     *          Connection to the game client, or <code>null</code> for server errors
+     * @param   e
+     *          Exception
+     *
+     * @since   1.2.0
+     */
+    @Override
+    public void onError(WebSocket connection, Exception e) {
+        LOG.error("Stand-in Interactive service error", e);
+    }
+
+    /**
+     * Signals that the server is listening.
+     *
+     * @since   1.2.0
+     */
+    public void onStart() {
+        LOG.info("Stand-in Interactive service listening on port {}", getPort());
+        started.countDown();
+    }
+
+    /**
+     * Executes a method call. Must be called while holding the lock on <code>this</code>, which must also be held
+     * while the result is serialized.
+     *
+     * @param   method
+     *          Method name
+     * @param   params
+     *          Method parameters
+     *
+     * @return  Method result
+     *
+     * @throws  UnsupportedOperationException
+     *          If the method is not supported
+     *
+     * @since   1.2.0
+     */
+    private JsonElement call(String method, JsonObject params) {
+        JsonObject result = new JsonObject();
+        switch (method) {
+            case "ready":
+                return JsonNull.INSTANCE;
+            case "getTime":
+                result.addProperty("time", System.currentTimeMillis());
+                return result;
+            case "setCompression":
+                result.addProperty("scheme", "none");
+                return result;
+            case "getScenes":
+                result.add("scenes", toArray(scenes.values()));
+                return result;
+            case "getGroups":
+                result.add("groups", toArray(groups.values()));
+                return result;
+            case "getAllParticipants":
+            case "getActiveParticipants":
+                return participantPage(params.has("from") ? params.get("from").getAsLong() : 0);
+            case "updateParticipants":
+                result.add("participants", update(participants, "sessionID", params.getAsJsonArray("participants")));
+                return result;
+            case "createGroups":
+            case "updateGroups":
+                result.add("groups", update(groups, "groupID", params.getAsJsonArray("groups")));
+                return result;
+            case "deleteGroup":
+                deleteGroup(params.get("groupID").getAsString(), params.has("reassignGroupID") ? params.get("reassignGroupID").getAsString() : "default");
+                return result;
+            case "updateControls":
+                result.add("controls", updateControls(params.get("sceneID").getAsString(), params.getAsJsonArray("controls")));
+                return result;
+            default:
+                throw new UnsupportedOperationException(method);
+        }
+    }
+
+    /**
+     * Returns the page of participants that connected after the provided time.
+     *
+     * @param   from
+     *          Connection time in milliseconds since the epoch
+     *
+     * @return  Page of participants
+     *
+     * @since   1.2.0
+     */
+    private JsonObject participantPage(long from) {
+        JsonArray page = new JsonArray();
+        boolean hasMore = false;
+        for (JsonObject participant : participants.values()) {
+            if (participant.get("connectedAt").getAsLong() <= from) {
+                continue;
+            }
+            if (page.size() == PARTICIPANT_PAGE_SIZE) {
+                hasMore = true;
+                break;
+            }
+            page.add(participant);
+        }
+        JsonObject result = new JsonObject();
+        result.add("participants", page);
+        result.addProperty("total", participants.size());
+        result.addProperty("hasMore", hasMore);
+        return result;
+    }
+
+    /**
+     * Merges changes into resources, accepting any etag, and assigns them new etags. Unknown resources are created.
+     *
+     * @param   resources
+     *          Resources keyed by id
+     * @param   idProperty
+     *          Name of the id property
+     * @param   changes
+     *          Changed resources
+     *
+     * @return  The updated resources
+     *
+     * @since   1.2.0
+     */
+    private JsonArray update(Map<String, JsonObject> resources, String idProperty, JsonArray changes) {
+        JsonArray updated = new JsonArray();
+        if (changes == null) {
+            return updated;
+        }
+        for (JsonElement change : changes) {
+            String id = change.getAsJsonObject().get(idProperty).getAsString();
+            JsonObject resource = resources.get(id);
+            if (resource == null) {
+                resource = new JsonObject();
+                resources.put(id, resource);
+            }
+            for (Map.Entry<String, JsonElement> property : change.getAsJsonObject().entrySet()) {
+                resource.add(property.getKey(), property.getValue());
+            }
+            resource.addProperty("etag", nextEtag());
+            updated.add(resource);
+        }
+        return updated;
+    }
+
+    /**
+     * Merges changes into the controls of a scene.
+     *
+     * @param   sceneID
+     *          Scene id
+     * @param   changes
+     *          Changed controls
+     *
+     * @return  The updated controls
+     *
+     * @since   1.2.0
+     */
+    private JsonArray updateControls(String sceneID, JsonArray changes) {
+        JsonObject scene = scenes.get(sceneID);
+        if (scene == null || changes == null) {
+            return new JsonArray();
+        }
+        Map<String, JsonObject> controls = new LinkedHashMap<>();
+        for (JsonElement control : scene.getAsJsonArray("controls")) {
+            controls.put(control.getAsJsonObject().get("controlID").getAsString(), control.getAsJsonObject());
+        }
+        JsonArray updated = update(controls, "controlID", changes);
+        scene.add("controls", toArray(controls.values()));
+        return updated;
+    }
+
+    /**
+     * Deletes a group and moves its participants to another group.
+     *
+     * @param   groupID
+     *          Id of the deleted group
+     * @param   reassignGroupID
+     *          Id of the group its participants are moved to
+     *
+     * @since   1.2.0
+     */
+    private void deleteGroup(String groupID, String reassignGroupID) {
+        groups.remove(groupID);
+        for (JsonObject participant : participants.values()) {
+            if (groupID.equals(participant.get("groupID").getAsString())) {
+                participant.addProperty("groupID", reassignGroupID);
+            }
+        }
+    }
+
+    /**
+     * Adds a participant to the connected participants. Must be called while holding the lock on <code>this</code>.
+     *
+     * @param   participant
+     *          Participant
+     *
+     * @since   1.2.0
+     */
+    private void addParticipant(JsonObject participant) {
+        String sessionID = participant.get("sessionID").getAsString();
+        if (participants.put(sessionID, participant) == null) {
+            sessionIDPositions.put(sessionID, sessionIDs.size());
+            sessionIDs.add(sessionID);
+        }
+    }
+
+    /**
+     * Removes a participant from the connected participants. Must be called while holding the lock on
+     * <code>this</code>.
+     *
+     * @param   sessionID
+     *          Session id
+     *
+     * @return  The removed participant
+     *
+     * @since   1.2.0
+     */
+    private JsonObject removeParticipant(String sessionID) {
+        int position = sessionIDPositions.remove(sessionID);
+        String last = sessionIDs.remove(sessionIDs.size() - 1);
+        if (position < sessionIDs.size()) {
+            sessionIDs.set(position, last);
+            sessionIDPositions.put(last, position);
+        }
+        return participants.remove(sessionID);
+    }
+
+    /**
+     * Returns a unique connection time. Must be called while holding the lock on <code>this</code>.
+     *
+     * @return  Connection time in milliseconds since the epoch
+     *
+     * @since   1.2.0
+     */
+    private long nextConnectedAt() {
+        lastConnectedAt = Math.max(System.currentTimeMillis(), lastConnectedAt + 1);
+        return lastConnectedAt;
+    }
+
+    /**
+     * Returns a new etag.
+     *
+     * @return  Etag
+     *
+     * @since   1.2.0
+     */
+    private String nextEtag() {
+        return Long.toString(etags.incrementAndGet());
+    }
+
+    /**
+     * Records the send time of every participant of a participant event and sends it.
+     *
+     * @param   method
+     *          Protocol method of the event
+     * @param   changed
+     *          Participants
+     *
+     * @since   1.2.0
+     */
+    private void sendParticipantEvent(String method, JsonArray changed) {
+        if (changed.size() == 0) {
+            return;
+        }
+        JsonObject params = new JsonObject();
+        params.add("participants", changed);
+        String packet;
+        synchronized (this) {
+            packet = method(method, params).toString();
+        }
+        long now = System.nanoTime();
+        for (JsonElement participant : changed) {
+            sentTimes.put(correlationKey(method, participant.getAsJsonObject().get("sessionID").getAsString()), now);
+        }
+        send(packet);
+    }
+
+    /**
+     * Returns a method packet sent by the service.
+     *
+     * @param   method
+     *          Method name
+     * @param   params
+     *          Method parameters
+     *
+     * @return  JSON-RPC packet
+     *
+     * @since   1.2.0
+     */
+    private JsonObject method(String method, JsonObject params) {
+        JsonObject packet = new JsonObject();
+        packet.addProperty("type", "method");
+        packet.addProperty("id", packetIDs.incrementAndGet());
+        packet.addProperty("method", method);
+        packet.add("params", params);
+        packet.addProperty("discard", true);
+        return packet;
+    }
+
+    /**
+     * Sends a packet to every connected game client.
+     *
+     * @param   packet
+     *          JSON-RPC packet
+     *
+     * @since   1.2.0
+     */
+    private void send(Object packet) {
+        String text = packet.toString();
+        for (WebSocket client : clients) {
+            if (client.isOpen()) {
+                client.send(text);
+            }
+        }
+    }
+
+    /**
+     * Returns the provided resources as a JSON array.
+     *
+     * @param   resources
+     *          Resources
+     *
+     * @return  JsonArray
+     *
+     * @since   1.2.0
+     */
+    private static JsonArray toArray(Iterable<JsonObject> resources) {
+        JsonArray array = new JsonArray();
+        resources.forEach(array::add);
+        return array;
+    }
+}
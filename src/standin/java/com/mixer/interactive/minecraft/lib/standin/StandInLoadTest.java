@@ -0,0 +1,103 @@
+package com.mixer.interactive.minecraft.lib.standin;
+
+import com.mixer.interactive.minecraft.lib.MixerInteractive;
+import com.mixer.interactive.minecraft.lib.dispatch.DispatchMode;
+import com.mixer.interactive.minecraft.lib.metrics.LogMetricsExporter;
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+
+import java.net.InetSocketAddress;
+import java.net.URI;
+import java.nio.file.Paths;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Runs an end-to-end load test on a single machine: starts a StandInInteractiveService on the loopback interface,
+ * connects a game client built by {@link MixerInteractive#initGameClient(int, String, URI)} to it, generates synthetic
+ * traffic for a while and logs the resulting metrics, including the event-to-cache latency histograms
+ * <code>standin.latency.*</code> and the sent and received event counters.
+ * <p>
+ * Options, all optional: <code>--port 8765 --seconds 60 --fixtures &lt;file&gt; --scenes 3 --controls 50
+ * --participants 1000 --joins 50 --leaves 40 --moves 20 --inputs 500</code>. Rates are per second; the fixture options
+ * are ignored when a fixtures file is provided.
+ *
+ * @author      Microsoft Corporation
+ *
+ * @since       1.2.0
+ */
+public class StandInLoadTest {
+
+    /**
+     * Logger
+     */
+    private static final Logger LOG = LogManager.getLogger();
+
+    /**
+     * Constructor.
+     *
+     * @since   1.2.0
+     */
+    private StandInLoadTest() {
+    }
+
+    /**
+     * Runs the load test.
+     *
+     * @param   args
+     *          Options
+     *
+     * @throws  Exception
+     *          If the service cannot be started or the game client cannot connect
+     *
+     * @since   1.2.0
+     */
+    public static void main(String[] args) throws Exception {
+        Map<String, String> options = new HashMap<>();
+        for (int index = 0; index + 1 < args.length; index += 2) {
+            options.put(args[index].replaceFirst("^--", ""), args[index + 1]);
+        }
+        int port = Integer.parseInt(options.getOrDefault("port", "8765"));
+        int seconds = Integer.parseInt(options.getOrDefault("seconds", "60"));
+        Fixtures fixtures = options.containsKey("fixtures")
+                ? Fixtures.load(Paths.get(options.get("fixtures")))
+                : Fixtures.generate(Integer.parseInt(options.getOrDefault("scenes", "3")),
+                        Integer.parseInt(options.getOrDefault("controls", "50")),
+                        Integer.parseInt(options.getOrDefault("participants", "1000")));
+
+        StandInInteractiveService service = new StandInInteractiveService(new InetSocketAddress("127.0.0.1", port), fixtures);
+        service.start();
+        if (!service.awaitStarted(10, TimeUnit.SECONDS)) {
+            throw new IllegalStateException("Stand-in Interactive service did not start");
+        }
+
+        MixerInteractive.initGameClient(0, "standin", URI.create("ws://127.0.0.1:" + port));
+        MixerInteractive.registerEventHandler(new LatencyProbe(service), DispatchMode.SYNCHRONOUS);
+        if (!MixerInteractive.connect("standin").get(30, TimeUnit.SECONDS)) {
+            throw new IllegalStateException("Game client could not connect to the stand-in Interactive service");
+        }
+
+        TrafficGenerator generator = new TrafficGenerator(service,
+                Double.parseDouble(options.getOrDefault("joins", "50")),
+                Double.parseDouble(options.getOrDefault("leaves", "40")),
+                Double.parseDouble(options.getOrDefault("moves", "20")),
+                Double.parseDouble(options.getOrDefault("inputs", "500")));
+        LogMetricsExporter exporter = new LogMetricsExporter();
+        LOG.info("Generating traffic for {} seconds", seconds);
+        MixerInteractive.getMetrics().startReporting(exporter, 10, TimeUnit.SECONDS);
+        generator.start();
+        Thread.sleep(TimeUnit.SECONDS.toMillis(seconds));
+        generator.stop();
+        MixerInteractive.getMetrics().stopReporting();
+
+        // Let in-flight events arrive before the final report
+        Thread.sleep(1000);
+        MixerInteractive.getMetrics().report(exporter);
+        LOG.info("Service participants: {}, cached participants: {}", service.getParticipantCount(),
+                MixerInteractive.getParticipants().size());
+
+        MixerInteractive.getGameClient().disconnect();
+        service.stop();
+    }
+}
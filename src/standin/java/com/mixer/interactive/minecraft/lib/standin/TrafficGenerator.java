@@ -0,0 +1,179 @@
+package com.mixer.interactive.minecraft.lib.standin;
+
+import com.mixer.interactive.minecraft.lib.MixerInteractive;
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Drives synthetic traffic through a StandInInteractiveService at configurable rates. Every 10 milliseconds the
+ * generator works out how many joins, leaves, group moves and inputs are due at the configured rates per second and
+ * asks the service to send them, carrying fractions over to the next round so that low rates are honoured as well.
+ * The number of events sent is counted in <code>standin.sent.&lt;kind&gt;</code> of
+ * {@link MixerInteractive#getMetrics()}.
+ *
+ * @author      Microsoft Corporation
+ *
+ * @since       1.2.0
+ */
+public class TrafficGenerator {
+
+    /**
+     * Logger
+     */
+    private static final Logger LOG = LogManager.getLogger();
+
+    /**
+     * Time between two rounds of traffic in milliseconds
+     */
+    private static final long ROUND_MILLIS = 10;
+
+    /**
+     * Service sending the traffic
+     */
+    private final StandInInteractiveService service;
+
+    /**
+     * Participants joining per second
+     */
+    private final double joinsPerSecond;
+
+    /**
+     * Participants leaving per second
+     */
+    private final double leavesPerSecond;
+
+    /**
+     * Participants moved to another group per second
+     */
+    private final double groupMovesPerSecond;
+
+    /**
+     * Control inputs per second
+     */
+    private final double inputsPerSecond;
+
+    /**
+     * Joins due but not yet sent, guarded by <code>this</code>
+     */
+    private double joinsDue;
+
+    /**
+     * Leaves due but not yet sent, guarded by <code>this</code>
+     */
+    private double leavesDue;
+
+    /**
+     * Group moves due but not yet sent, guarded by <code>this</code>
+     */
+    private double groupMovesDue;
+
+    /**
+     * Inputs due but not yet sent, guarded by <code>this</code>
+     */
+    private double inputsDue;
+
+    /**
+     * Time of the previous round in nanoseconds, guarded by <code>this</code>
+     */
+    private long previousRound;
+
+    /**
+     * Executor running the rounds, <code>null</code> unless running
+     */
+    private ScheduledExecutorService executor;
+
+    /**
+     * Constructor.
+     *
+     * @param   service
+     *          Service sending the traffic
+     * @param   joinsPerSecond
+     *          Participants joining per second
+     * @param   leavesPerSecond
+     *          Participants leaving per second
+     * @param   groupMovesPerSecond
+     *          Participants moved to another group per second
+     * @param   inputsPerSecond
+     *          Control inputs per second
+     *
+     * @since   1.2.0
+     */
+    public TrafficGenerator(StandInInteractiveService service, double joinsPerSecond, double leavesPerSecond,
+                            double groupMovesPerSecond, double inputsPerSecond) {
+        this.service = service;
+        this.joinsPerSecond = joinsPerSecond;
+        this.leavesPerSecond = leavesPerSecond;
+        this.groupMovesPerSecond = groupMovesPerSecond;
+        this.inputsPerSecond = inputsPerSecond;
+    }
+
+    /**
+     * Starts generating traffic on a daemon thread.
+     *
+     * @since   1.2.0
+     */
+    public synchronized void start() {
+        if (executor != null) {
+            return;
+        }
+        previousRound = System.nanoTime();
+        executor = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "mixer-interactive-standin-traffic");
+            thread.setDaemon(true);
+            return thread;
+        });
+        executor.scheduleAtFixedRate(this::round, ROUND_MILLIS, ROUND_MILLIS, TimeUnit.MILLISECONDS);
+    }
+
+    /**
+     * Stops generating traffic.
+     *
+     * @since   1.2.0
+     */
+    public synchronized void stop() {
+        if (executor != null) {
+            executor.shutdownNow();
+            executor = null;
+        }
+    }
+
+    /**
+     * Sends the traffic due since the previous round.
+     *
+     * @since   1.2.0
+     */
+    private void round() {
+        int joins, leaves, groupMoves, inputs;
+        synchronized (this) {
+            long now = System.nanoTime();
+            double seconds = (now - previousRound) / 1e9;
+            previousRound = now;
+            joinsDue += joinsPerSecond * seconds;
+            leavesDue += leavesPerSecond * seconds;
+            groupMovesDue += groupMovesPerSecond * seconds;
+            inputsDue += inputsPerSecond * seconds;
+            joins = (int) joinsDue;
+            leaves = (int) leavesDue;
+            groupMoves = (int) groupMovesDue;
+            inputs = (int) inputsDue;
+            joinsDue -= joins;
+            leavesDue -= leaves;
+            groupMovesDue -= groupMoves;
+            inputsDue -= inputs;
+        }
+
+        try {
+            MixerInteractive.getMetrics().counter("standin.sent.join").add(service.join(joins));
+            MixerInteractive.getMetrics().counter("standin.sent.leave").add(service.leave(leaves));
+            MixerInteractive.getMetrics().counter("standin.sent.groupMove").add(service.moveGroups(groupMoves));
+            MixerInteractive.getMetrics().counter("standin.sent.input").add(service.giveInput(inputs));
+        }
+        catch (RuntimeException e) {
+            LOG.error("Failed to generate traffic", e);
+        }
+    }
+}